@@ -0,0 +1,46 @@
+package com.elastisys.scale.cloudpool.api.metrics;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A monotonically increasing count, such as the number of failed calls.
+ * <p/>
+ * Instances are obtained from a {@link MetricsRegistry} and are safe to
+ * increment concurrently.
+ */
+public class Counter {
+
+    private final LongAdder count = new LongAdder();
+
+    Counter() {
+    }
+
+    /**
+     * Increments the count by one.
+     */
+    public void increment() {
+        this.count.increment();
+    }
+
+    /**
+     * Increments the count by a given amount.
+     *
+     * @param amount
+     *            A non-negative amount.
+     */
+    public void increment(long amount) {
+        checkArgument(amount >= 0, "counter cannot be decremented");
+        this.count.add(amount);
+    }
+
+    /**
+     * Returns the current count.
+     *
+     * @return The current count.
+     */
+    public long get() {
+        return this.count.sum();
+    }
+}
@@ -0,0 +1,108 @@
+package com.elastisys.scale.cloudpool.api.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A distribution of observed durations (in seconds), such as call latencies.
+ * <p/>
+ * Much like an HDR histogram, observations are counted in buckets whose width
+ * grows with their magnitude, which keeps the relative error bounded from
+ * milliseconds to minutes with a fixed, small number of buckets. The bucket
+ * bounds follow a 1-2.5-5 progression per decade (see
+ * {@link #BUCKET_BOUNDS}). Observations above the largest bound are only
+ * counted in the implicit {@code +Inf} bucket.
+ * <p/>
+ * Instances are obtained from a {@link MetricsRegistry} and are safe to
+ * update concurrently. Recording an observation never blocks.
+ */
+public class Histogram {
+
+    /** Upper (inclusive) bounds, in seconds, of the histogram buckets. */
+    public static final double[] BUCKET_BOUNDS = { 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1.0,
+            2.5, 5.0, 10.0, 25.0, 50.0, 100.0 };
+
+    /**
+     * Observation counts per bucket. The last element counts observations
+     * above the largest bucket bound.
+     */
+    private final LongAdder[] bucketCounts;
+    /** Sum of all observations. */
+    private final DoubleAdder sum = new DoubleAdder();
+
+    Histogram() {
+        this.bucketCounts = new LongAdder[BUCKET_BOUNDS.length + 1];
+        for (int i = 0; i < this.bucketCounts.length; i++) {
+            this.bucketCounts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records an observed duration.
+     *
+     * @param seconds
+     *            The observed duration in seconds.
+     */
+    public void observe(double seconds) {
+        int bucket = Arrays.binarySearch(BUCKET_BOUNDS, seconds);
+        if (bucket < 0) {
+            // not an exact bound: use the insertion point (next larger bound)
+            bucket = -bucket - 1;
+        }
+        this.bucketCounts[bucket].increment();
+        this.sum.add(seconds);
+    }
+
+    /**
+     * Records the duration from a given start time (as given by
+     * {@link System#nanoTime()}) until now.
+     *
+     * @param startNanos
+     *            The start time, as given by {@link System#nanoTime()}.
+     */
+    public void observeSince(long startNanos) {
+        observe((System.nanoTime() - startNanos) / 1e9);
+    }
+
+    /**
+     * Returns the total number of observations.
+     *
+     * @return The number of observations.
+     */
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucketCount : this.bucketCounts) {
+            count += bucketCount.sum();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the sum of all observations.
+     *
+     * @return The sum of all observations.
+     */
+    public double getSum() {
+        return this.sum.sum();
+    }
+
+    /**
+     * Returns the cumulative observation counts, one for each of the
+     * {@link #BUCKET_BOUNDS} followed by one for {@code +Inf}. That is, element
+     * {@code i} holds the number of observations less than or equal to bound
+     * {@code i}.
+     *
+     * @return The cumulative observation counts, with the {@code +Inf}
+     *         count last.
+     */
+    long[] getCumulativeCounts() {
+        long[] cumulative = new long[this.bucketCounts.length];
+        long count = 0;
+        for (int i = 0; i < this.bucketCounts.length; i++) {
+            count += this.bucketCounts[i].sum();
+            cumulative[i] = count;
+        }
+        return cumulative;
+    }
+}
@@ -0,0 +1,172 @@
+package com.elastisys.scale.cloudpool.api.metrics;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * A snapshot of all samples of a named metric, as collected from a
+ * {@link MetricsRegistry}. A family holds one or more samples per label
+ * combination (a {@link Histogram}, for example, yields bucket, sum and count
+ * samples).
+ */
+public class MetricFamily {
+
+    /** The metric name. */
+    private final String name;
+    /** A description of the metric. */
+    private final String help;
+    /** The kind of metric. */
+    private final MetricType type;
+    /** The samples of the metric. */
+    private final List<Sample> samples;
+
+    /**
+     * Creates a {@link MetricFamily}.
+     *
+     * @param name
+     *            The metric name.
+     * @param help
+     *            A description of the metric.
+     * @param type
+     *            The kind of metric.
+     * @param samples
+     *            The samples of the metric.
+     */
+    public MetricFamily(String name, String help, MetricType type, List<Sample> samples) {
+        checkArgument(name != null, "metric family: no name given");
+        checkArgument(help != null, "metric family: no help given");
+        checkArgument(type != null, "metric family: no type given");
+        checkArgument(samples != null, "metric family: no samples given");
+        this.name = name;
+        this.help = help;
+        this.type = type;
+        this.samples = ImmutableList.copyOf(samples);
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public String getHelp() {
+        return this.help;
+    }
+
+    public MetricType getType() {
+        return this.type;
+    }
+
+    public List<Sample> getSamples() {
+        return this.samples;
+    }
+
+    /**
+     * Returns a copy of this {@link MetricFamily} with an additional label
+     * added to each sample. Used to tell apart metrics of different cloud pool
+     * instances that are published together.
+     *
+     * @param labelName
+     * @param labelValue
+     * @return A copy with the label added to each sample.
+     */
+    public MetricFamily withLabel(String labelName, String labelValue) {
+        List<Sample> labeledSamples = new ArrayList<>(this.samples.size());
+        for (Sample sample : this.samples) {
+            labeledSamples.add(sample.withLabel(labelName, labelValue));
+        }
+        return new MetricFamily(this.name, this.help, this.type, labeledSamples);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(this.name, this.help, this.type, this.samples);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof MetricFamily) {
+            MetricFamily that = (MetricFamily) obj;
+            return Objects.equal(this.name, that.name) && Objects.equal(this.help, that.help)
+                    && Objects.equal(this.type, that.type) && Objects.equal(this.samples, that.samples);
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return PrometheusTextFormat.format(ImmutableList.of(this));
+    }
+
+    /**
+     * A single sample of a {@link MetricFamily}.
+     */
+    public static class Sample {
+        /**
+         * The sample name. Equal to the family name, except for
+         * {@link Histogram} samples, which carry a {@code _bucket},
+         * {@code _sum} or {@code _count} suffix.
+         */
+        private final String name;
+        /** The labels of the sample. */
+        private final Map<String, String> labels;
+        /** The sample value. */
+        private final double value;
+
+        public Sample(String name, Map<String, String> labels, double value) {
+            checkArgument(name != null, "sample: no name given");
+            checkArgument(labels != null, "sample: no labels given");
+            this.name = name;
+            this.labels = ImmutableMap.copyOf(labels);
+            this.value = value;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public Map<String, String> getLabels() {
+            return this.labels;
+        }
+
+        public double getValue() {
+            return this.value;
+        }
+
+        /**
+         * Returns a copy of this {@link Sample} with an additional (leading)
+         * label.
+         *
+         * @param labelName
+         * @param labelValue
+         * @return A copy with the label added.
+         */
+        public Sample withLabel(String labelName, String labelValue) {
+            Map<String, String> labels = new LinkedHashMap<>();
+            labels.put(labelName, labelValue);
+            labels.putAll(this.labels);
+            return new Sample(this.name, labels, this.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(this.name, this.labels, this.value);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof Sample) {
+                Sample that = (Sample) obj;
+                return Objects.equal(this.name, that.name) && Objects.equal(this.labels, that.labels)
+                        && Double.compare(this.value, that.value) == 0;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.elastisys.scale.cloudpool.api.metrics;
+
+/**
+ * The kinds of metrics that can be kept in a {@link MetricsRegistry}.
+ */
+public enum MetricType {
+    /** A monotonically increasing count. See {@link Counter}. */
+    COUNTER("counter"),
+    /** A value that can go up and down, read when metrics are collected. */
+    GAUGE("gauge"),
+    /** A distribution of observed values. See {@link Histogram}. */
+    HISTOGRAM("histogram");
+
+    /** The name of the type in the Prometheus text format. */
+    private final String prometheusName;
+
+    private MetricType(String prometheusName) {
+        this.prometheusName = prometheusName;
+    }
+
+    /**
+     * Returns the name of the type in the Prometheus text format.
+     *
+     * @return The Prometheus type name, such as {@code counter}.
+     */
+    public String getPrometheusName() {
+        return this.prometheusName;
+    }
+}
@@ -0,0 +1,247 @@
+package com.elastisys.scale.cloudpool.api.metrics;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.elastisys.scale.cloudpool.api.metrics.MetricFamily.Sample;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedMap;
+
+/**
+ * A lightweight registry of named {@link Counter}s, gauges and
+ * {@link Histogram}s, which can be rendered in Prometheus text format via
+ * {@link #toPrometheusText()}.
+ * <p/>
+ * A metric is identified by its name and (optional) labels. Asking for a
+ * counter or histogram that has already been registered returns the existing
+ * instance, so components that get recreated (for example, on a cloud pool
+ * restart) keep accumulating into the same metric. Registering a gauge that
+ * already exists replaces its value function.
+ * <p/>
+ * The registry is safe for concurrent use. Updating a metric never blocks on
+ * metric collection.
+ */
+public class MetricsRegistry {
+    private static final Logger LOG = LoggerFactory.getLogger(MetricsRegistry.class);
+
+    /** Valid metric names. */
+    private static final Pattern METRIC_NAME = Pattern.compile("[a-zA-Z_:][a-zA-Z0-9_:]*");
+    /** Valid label names. */
+    private static final Pattern LABEL_NAME = Pattern.compile("[a-zA-Z_][a-zA-Z0-9_]*");
+
+    /** Registered metrics, by name. */
+    private final ConcurrentMap<String, Family> families = new ConcurrentSkipListMap<>();
+
+    /**
+     * Returns the (unlabeled) {@link Counter} with a given name, creating it
+     * if it does not exist.
+     *
+     * @param name
+     *            The metric name.
+     * @param help
+     *            A description of the metric.
+     * @return The registered {@link Counter}.
+     */
+    public Counter counter(String name, String help) {
+        return counter(name, help, ImmutableMap.of());
+    }
+
+    /**
+     * Returns the {@link Counter} with a given name and labels, creating it if
+     * it does not exist.
+     *
+     * @param name
+     *            The metric name.
+     * @param help
+     *            A description of the metric.
+     * @param labels
+     *            The labels of the metric.
+     * @return The registered {@link Counter}.
+     */
+    public Counter counter(String name, String help, Map<String, String> labels) {
+        return (Counter) family(name, help, MetricType.COUNTER).children.computeIfAbsent(labels(labels),
+                key -> new Counter());
+    }
+
+    /**
+     * Returns the (unlabeled) {@link Histogram} with a given name, creating it
+     * if it does not exist.
+     *
+     * @param name
+     *            The metric name.
+     * @param help
+     *            A description of the metric.
+     * @return The registered {@link Histogram}.
+     */
+    public Histogram histogram(String name, String help) {
+        return histogram(name, help, ImmutableMap.of());
+    }
+
+    /**
+     * Returns the {@link Histogram} with a given name and labels, creating it
+     * if it does not exist.
+     *
+     * @param name
+     *            The metric name.
+     * @param help
+     *            A description of the metric.
+     * @param labels
+     *            The labels of the metric.
+     * @return The registered {@link Histogram}.
+     */
+    public Histogram histogram(String name, String help, Map<String, String> labels) {
+        return (Histogram) family(name, help, MetricType.HISTOGRAM).children.computeIfAbsent(labels(labels),
+                key -> new Histogram());
+    }
+
+    /**
+     * Registers an (unlabeled) gauge, whose value is read from a given
+     * function each time metrics are collected. Any existing gauge with the
+     * same name is replaced.
+     *
+     * @param name
+     *            The metric name.
+     * @param help
+     *            A description of the metric.
+     * @param value
+     *            Produces the current value of the gauge. Should be cheap and
+     *            non-blocking.
+     */
+    public void gauge(String name, String help, DoubleSupplier value) {
+        gauge(name, help, ImmutableMap.of(), value);
+    }
+
+    /**
+     * Registers a gauge, whose value is read from a given function each time
+     * metrics are collected. Any existing gauge with the same name and labels
+     * is replaced.
+     *
+     * @param name
+     *            The metric name.
+     * @param help
+     *            A description of the metric.
+     * @param labels
+     *            The labels of the metric.
+     * @param value
+     *            Produces the current value of the gauge. Should be cheap and
+     *            non-blocking.
+     */
+    public void gauge(String name, String help, Map<String, String> labels, DoubleSupplier value) {
+        checkArgument(value != null, "gauge %s: no value function given", name);
+        family(name, help, MetricType.GAUGE).children.put(labels(labels), value);
+    }
+
+    /**
+     * Collects a snapshot of all registered metrics, ordered by name.
+     *
+     * @return One {@link MetricFamily} per registered metric.
+     */
+    public List<MetricFamily> collect() {
+        List<MetricFamily> snapshot = new ArrayList<>(this.families.size());
+        for (Family family : this.families.values()) {
+            snapshot.add(family.collect());
+        }
+        return snapshot;
+    }
+
+    /**
+     * Renders all registered metrics in Prometheus text format.
+     *
+     * @return The metrics in Prometheus text format.
+     */
+    public String toPrometheusText() {
+        return PrometheusTextFormat.format(collect());
+    }
+
+    private Family family(String name, String help, MetricType type) {
+        checkArgument(name != null && METRIC_NAME.matcher(name).matches(), "illegal metric name: %s", name);
+        checkArgument(help != null, "metric %s: no help given", name);
+        Family family = this.families.computeIfAbsent(name, key -> new Family(name, help, type));
+        checkArgument(family.type == type, "metric %s already registered as a %s", name, family.type);
+        return family;
+    }
+
+    private static ImmutableSortedMap<String, String> labels(Map<String, String> labels) {
+        checkArgument(labels != null, "no labels given");
+        for (Entry<String, String> label : labels.entrySet()) {
+            checkArgument(LABEL_NAME.matcher(label.getKey()).matches(), "illegal label name: %s", label.getKey());
+            checkArgument(label.getValue() != null, "label %s: no value given", label.getKey());
+        }
+        return ImmutableSortedMap.copyOf(labels);
+    }
+
+    /**
+     * All metrics registered under a given name, keyed by their labels.
+     */
+    private static class Family {
+        private final String name;
+        private final String help;
+        private final MetricType type;
+        /**
+         * {@link Counter}s, {@link Histogram}s or gauge
+         * {@link DoubleSupplier}s (depending on the {@link #type}) by labels.
+         */
+        private final ConcurrentMap<ImmutableSortedMap<String, String>, Object> children = new ConcurrentSkipListMap<>(
+                Comparator.comparing(Object::toString));
+
+        public Family(String name, String help, MetricType type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+
+        public MetricFamily collect() {
+            List<Sample> samples = new ArrayList<>();
+            for (Entry<ImmutableSortedMap<String, String>, Object> child : this.children.entrySet()) {
+                Map<String, String> labels = child.getKey();
+                switch (this.type) {
+                case COUNTER:
+                    samples.add(new Sample(this.name, labels, ((Counter) child.getValue()).get()));
+                    break;
+                case GAUGE:
+                    samples.add(new Sample(this.name, labels, readGauge((DoubleSupplier) child.getValue())));
+                    break;
+                case HISTOGRAM:
+                    Histogram histogram = (Histogram) child.getValue();
+                    long[] cumulativeCounts = histogram.getCumulativeCounts();
+                    for (int i = 0; i < cumulativeCounts.length; i++) {
+                        String bound = i < Histogram.BUCKET_BOUNDS.length
+                                ? PrometheusTextFormat.formatValue(Histogram.BUCKET_BOUNDS[i]) : "+Inf";
+                        Map<String, String> bucketLabels = new LinkedHashMap<>(labels);
+                        bucketLabels.put("le", bound);
+                        samples.add(new Sample(this.name + "_bucket", bucketLabels, cumulativeCounts[i]));
+                    }
+                    samples.add(new Sample(this.name + "_sum", labels, histogram.getSum()));
+                    samples.add(
+                            new Sample(this.name + "_count", labels, cumulativeCounts[cumulativeCounts.length - 1]));
+                    break;
+                default:
+                    throw new IllegalStateException("unrecognized metric type " + this.type);
+                }
+            }
+            return new MetricFamily(this.name, this.help, this.type, samples);
+        }
+
+        private double readGauge(DoubleSupplier gauge) {
+            try {
+                return gauge.getAsDouble();
+            } catch (Exception e) {
+                LOG.debug("failed to read gauge {}: {}", this.name, e.getMessage());
+                return Double.NaN;
+            }
+        }
+    }
+}
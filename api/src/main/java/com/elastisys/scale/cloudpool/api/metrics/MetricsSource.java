@@ -0,0 +1,33 @@
+package com.elastisys.scale.cloudpool.api.metrics;
+
+import com.elastisys.scale.cloudpool.api.CloudPool;
+
+/**
+ * Implemented by {@link CloudPool}s that keep runtime metrics in a
+ * {@link MetricsRegistry}, which REST servers publish at {@code GET /metrics}.
+ */
+public interface MetricsSource {
+
+    /**
+     * Returns the {@link MetricsRegistry} that holds the metrics of this
+     * object.
+     *
+     * @return The metrics registry of this object.
+     */
+    MetricsRegistry getMetricsRegistry();
+
+    /**
+     * Returns the {@link MetricsRegistry} of a given object if it is a
+     * {@link MetricsSource}, or a new (empty) {@link MetricsRegistry}
+     * otherwise.
+     *
+     * @param object
+     * @return The metrics registry of the object.
+     */
+    static MetricsRegistry registryOf(Object object) {
+        if (object instanceof MetricsSource) {
+            return ((MetricsSource) object).getMetricsRegistry();
+        }
+        return new MetricsRegistry();
+    }
+}
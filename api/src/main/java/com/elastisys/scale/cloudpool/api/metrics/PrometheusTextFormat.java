@@ -0,0 +1,98 @@
+package com.elastisys.scale.cloudpool.api.metrics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.elastisys.scale.cloudpool.api.metrics.MetricFamily.Sample;
+
+/**
+ * Renders {@link MetricFamily} snapshots in the
+ * <a href="https://prometheus.io/docs/instrumenting/exposition_formats/">
+ * Prometheus text exposition format</a> (version 0.0.4).
+ */
+public class PrometheusTextFormat {
+
+    /** The content type of the Prometheus text format. */
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    /**
+     * Renders a collection of {@link MetricFamily} snapshots in Prometheus
+     * text format. Families with the same name (for example, collected from
+     * registries of different cloud pool instances) are merged under a single
+     * {@code HELP}/{@code TYPE} header, since the format does not allow a
+     * metric name to be declared more than once.
+     *
+     * @param families
+     * @return The families in Prometheus text format.
+     */
+    public static String format(Collection<MetricFamily> families) {
+        Map<String, List<MetricFamily>> familiesByName = new LinkedHashMap<>();
+        for (MetricFamily family : families) {
+            familiesByName.computeIfAbsent(family.getName(), name -> new ArrayList<>()).add(family);
+        }
+
+        StringBuilder text = new StringBuilder();
+        for (List<MetricFamily> sameName : familiesByName.values()) {
+            MetricFamily first = sameName.get(0);
+            text.append("# HELP ").append(first.getName()).append(' ').append(escapeHelp(first.getHelp()))
+                    .append('\n');
+            text.append("# TYPE ").append(first.getName()).append(' ').append(first.getType().getPrometheusName())
+                    .append('\n');
+            for (MetricFamily family : sameName) {
+                for (Sample sample : family.getSamples()) {
+                    appendSample(text, sample);
+                }
+            }
+        }
+        return text.toString();
+    }
+
+    private static void appendSample(StringBuilder text, Sample sample) {
+        text.append(sample.getName());
+        if (!sample.getLabels().isEmpty()) {
+            text.append('{');
+            boolean first = true;
+            for (Entry<String, String> label : sample.getLabels().entrySet()) {
+                if (!first) {
+                    text.append(',');
+                }
+                text.append(label.getKey()).append("=\"").append(escapeLabelValue(label.getValue())).append('"');
+                first = false;
+            }
+            text.append('}');
+        }
+        text.append(' ').append(formatValue(sample.getValue())).append('\n');
+    }
+
+    /**
+     * Formats a sample value. Integral values are written without a fraction,
+     * which keeps counters readable.
+     *
+     * @param value
+     * @return The formatted value.
+     */
+    static String formatValue(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    private static String escapeHelp(String help) {
+        return help.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+
+    private static String escapeLabelValue(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,91 @@
+package com.elastisys.scale.cloudpool.api.metrics;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.io.IOException;
+import java.util.List;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.UriInfo;
+
+import org.glassfish.jersey.server.ExtendedUriInfo;
+import org.glassfish.jersey.uri.UriTemplate;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+
+/**
+ * A JAX-RS filter that records the latency of each REST API request in a
+ * {@link MetricsRegistry}, labeled by HTTP method, matched route template
+ * (such as {@code /pool/{machine}/terminate}) and response status code.
+ * <p/>
+ * Route templates rather than request paths are used as labels, to keep the
+ * number of distinct metrics bounded. Requests that do not match any resource
+ * are not recorded.
+ */
+public class RequestMetricsFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    /** Name of the request latency metric. */
+    public static final String REQUEST_DURATION = "cloudpool_rest_request_duration_seconds";
+
+    /** Request property holding the {@link System#nanoTime()} at arrival. */
+    private static final String START_PROPERTY = RequestMetricsFilter.class.getName() + ".start";
+
+    /** The registry in which request latencies are recorded. */
+    private final MetricsRegistry metrics;
+
+    /**
+     * Creates a {@link RequestMetricsFilter}.
+     *
+     * @param metrics
+     *            The registry in which request latencies are recorded.
+     */
+    public RequestMetricsFilter(MetricsRegistry metrics) {
+        checkArgument(metrics != null, "no metrics registry given");
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request) throws IOException {
+        request.setProperty(START_PROPERTY, System.nanoTime());
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) throws IOException {
+        Object start = request.getProperty(START_PROPERTY);
+        if (start == null) {
+            return;
+        }
+        ImmutableMap<String, String> labels = ImmutableMap.of("method", request.getMethod(), "route",
+                route(request.getUriInfo()), "code", String.valueOf(response.getStatus()));
+        this.metrics.histogram(REQUEST_DURATION, "Latency of REST API requests.", labels)
+                .observeSince((Long) start);
+    }
+
+    /**
+     * Returns the route template matched by a request.
+     *
+     * @param uriInfo
+     * @return The matched route template, or {@code unknown} if it cannot be
+     *         determined.
+     */
+    private static String route(UriInfo uriInfo) {
+        if (!(uriInfo instanceof ExtendedUriInfo)) {
+            return "unknown";
+        }
+        // matched templates are ordered from the most specific
+        List<UriTemplate> templates = ((ExtendedUriInfo) uriInfo).getMatchedTemplates();
+        StringBuilder route = new StringBuilder();
+        for (UriTemplate template : Lists.reverse(templates)) {
+            route.append('/').append(template.getTemplate());
+        }
+        String normalized = route.toString().replaceAll("/+", "/");
+        if (normalized.length() > 1 && normalized.endsWith("/")) {
+            normalized = normalized.substring(0, normalized.length() - 1);
+        }
+        return normalized.isEmpty() ? "/" : normalized;
+    }
+}
@@ -269,4 +269,18 @@ public interface CloudPoolRestApi {
     @POST
     @Path("/pool/{machine}/membershipStatus")
     Response setMembershipStatus(@PathParam("machine") String machineId, SetMembershipStatusRequest request);
+
+    /**
+     * Retrieves the runtime metrics of the cloud pool (such as pool refresh
+     * age, driver call latencies and REST API request latencies) in the
+     * <a href="https://prometheus.io/docs/instrumenting/exposition_formats/">
+     * Prometheus text format</a>.
+     *
+     * @return A response message holding the metrics in Prometheus text
+     *         format.
+     */
+    @GET
+    @Path("/metrics")
+    @Produces(MediaType.TEXT_PLAIN)
+    Response getMetrics();
 }
@@ -18,6 +18,9 @@ import com.elastisys.scale.cloudpool.api.CloudPool;
 import com.elastisys.scale.cloudpool.api.CloudPoolException;
 import com.elastisys.scale.cloudpool.api.NotConfiguredException;
 import com.elastisys.scale.cloudpool.api.NotFoundException;
+import com.elastisys.scale.cloudpool.api.metrics.MetricsRegistry;
+import com.elastisys.scale.cloudpool.api.metrics.MetricsSource;
+import com.elastisys.scale.cloudpool.api.metrics.PrometheusTextFormat;
 import com.elastisys.scale.cloudpool.api.restapi.CloudPoolRestApi;
 import com.elastisys.scale.cloudpool.api.restapi.types.DetachMachineRequest;
 import com.elastisys.scale.cloudpool.api.restapi.types.SetDesiredSizeRequest;
@@ -40,7 +43,7 @@ import com.google.gson.JsonObject;
  * cloud pool REST API documentation</a>.
  */
 @Path("/")
-public class CloudPoolRestApiImpl implements CloudPoolRestApi {
+public class CloudPoolRestApiImpl implements CloudPoolRestApi, MetricsSource {
     private static final Logger LOG = LoggerFactory.getLogger(CloudPoolRestApiImpl.class);
     /**
      * Default file name (within the storage directory) in which
@@ -63,6 +66,19 @@ public class CloudPoolRestApiImpl implements CloudPoolRestApi {
      */
     private final String configFileName;
 
+    /**
+     * Holds the metrics published at {@code GET /metrics}. Shared with the
+     * {@link #cloudPool} if it is a {@link MetricsSource}.
+     */
+    private final MetricsRegistry metrics;
+
+    /**
+     * The serialized form of the configuration most recently returned on
+     * {@code GET /config}. Reused for as long as the {@link #cloudPool}
+     * returns the same configuration instance. May be <code>null</code>.
+     */
+    private volatile SerializedJson servedConfig;
+
     /**
      * Creates a {@link CloudPoolRestApiImpl} that will store set
      * {@link CloudPool} configurations under a given storage directory with the
@@ -112,6 +128,7 @@ public class CloudPoolRestApiImpl implements CloudPoolRestApi {
         this.cloudPool = cloudPool;
         this.storageDir = storageDir;
         this.configFileName = configFileName;
+        this.metrics = MetricsSource.registryOf(cloudPool);
     }
 
     /**
@@ -137,12 +154,30 @@ public class CloudPoolRestApiImpl implements CloudPoolRestApi {
                 ErrorType entity = new ErrorType("no cloud pool configuration has been set");
                 return Response.status(Status.NOT_FOUND).entity(entity).build();
             }
-            return Response.ok(configuration.get()).build();
+            return Response.ok(serialized(configuration.get())).build();
         } catch (Exception e) {
             return internalErrorResponse("internal error on GET /config", e);
         }
     }
 
+    /**
+     * Returns the serialized form of a configuration returned by the
+     * {@link #cloudPool}. A {@link CloudPool} that caches its configuration
+     * (returns the same instance until reconfigured) thereby only has it
+     * serialized once.
+     *
+     * @param configuration
+     * @return The serialized configuration.
+     */
+    private SerializedJson serialized(JsonObject configuration) {
+        SerializedJson servedConfig = this.servedConfig;
+        if (servedConfig == null || !servedConfig.isSerializationOf(configuration)) {
+            servedConfig = new SerializedJson(configuration);
+            this.servedConfig = servedConfig;
+        }
+        return servedConfig;
+    }
+
     @Override
     public Response setConfig(JsonObject configuration) {
         try {
@@ -354,6 +389,28 @@ public class CloudPoolRestApiImpl implements CloudPoolRestApi {
         }
     }
 
+    @Override
+    public Response getMetrics() {
+        try {
+            return Response.ok(this.metrics.toPrometheusText(), PrometheusTextFormat.CONTENT_TYPE).build();
+        } catch (Exception e) {
+            return internalErrorResponse("internal error on GET /metrics", e);
+        }
+    }
+
+    /**
+     * Returns the {@link MetricsRegistry} published at {@code GET /metrics}.
+     * This is the registry of the {@link CloudPool} if it is a
+     * {@link MetricsSource}.
+     *
+     * @return The {@link MetricsRegistry} of the {@link CloudPool}, or an empty
+     *         registry if it does not publish any metrics.
+     */
+    @Override
+    public MetricsRegistry getMetricsRegistry() {
+        return this.metrics;
+    }
+
     /**
      * Turns an arbitrary {@link Object} to JSON.
      *
@@ -0,0 +1,55 @@
+package com.elastisys.scale.cloudpool.api.restapi.impl;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.elastisys.scale.commons.json.JsonUtils;
+import com.google.common.base.Charsets;
+import com.google.gson.JsonElement;
+
+/**
+ * A JSON document along with its serialized form, as written in REST API
+ * responses (pretty-printed, UTF-8 encoded). Used as response entity for
+ * documents that are returned over and over, to only serialize them once.
+ *
+ * @see SerializedJsonWriter
+ */
+public class SerializedJson {
+
+    /** The JSON document. */
+    private final JsonElement json;
+    /** The serialized form of {@link #json}. */
+    private final byte[] bytes;
+
+    /**
+     * Serializes a JSON document.
+     *
+     * @param json
+     *            The JSON document.
+     */
+    public SerializedJson(JsonElement json) {
+        checkArgument(json != null, "no json given");
+        this.json = json;
+        this.bytes = JsonUtils.toPrettyString(json).getBytes(Charsets.UTF_8);
+    }
+
+    /**
+     * Returns <code>true</code> if this is the serialized form of the given
+     * JSON document instance.
+     *
+     * @param json
+     * @return <code>true</code> if this serialization was made from
+     *         <code>json</code>.
+     */
+    public boolean isSerializationOf(JsonElement json) {
+        return this.json == json;
+    }
+
+    /**
+     * Returns the serialized form of the JSON document. Must not be modified.
+     *
+     * @return The UTF-8 encoded JSON document.
+     */
+    byte[] getBytes() {
+        return this.bytes;
+    }
+}
@@ -0,0 +1,40 @@
+package com.elastisys.scale.cloudpool.api.restapi.impl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Writes {@link SerializedJson} response entities by copying their
+ * precomputed serialized form, rather than serializing them anew.
+ */
+@Provider
+@Produces(MediaType.APPLICATION_JSON)
+public class SerializedJsonWriter implements MessageBodyWriter<SerializedJson> {
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return SerializedJson.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public long getSize(SerializedJson entity, Class<?> type, Type genericType, Annotation[] annotations,
+            MediaType mediaType) {
+        return entity.getBytes().length;
+    }
+
+    @Override
+    public void writeTo(SerializedJson entity, Class<?> type, Type genericType, Annotation[] annotations,
+            MediaType mediaType, MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream)
+            throws IOException, WebApplicationException {
+        entityStream.write(entity.getBytes());
+    }
+}
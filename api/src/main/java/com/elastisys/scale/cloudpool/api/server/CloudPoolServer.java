@@ -11,7 +11,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.elastisys.scale.cloudpool.api.CloudPool;
+import com.elastisys.scale.cloudpool.api.metrics.RequestMetricsFilter;
 import com.elastisys.scale.cloudpool.api.restapi.impl.CloudPoolRestApiImpl;
+import com.elastisys.scale.cloudpool.api.restapi.impl.SerializedJsonWriter;
 import com.elastisys.scale.commons.cli.CommandLineParser;
 import com.elastisys.scale.commons.json.JsonUtils;
 import com.elastisys.scale.commons.rest.filters.RequestLogFilter;
@@ -134,6 +136,8 @@ public class CloudPoolServer {
 
         ResourceConfig appConfig = ResourceConfig.forApplication(application);
         appConfig.register(new RequestLogFilter());
+        appConfig.register(new RequestMetricsFilter(restApiHandler.getMetricsRegistry()));
+        appConfig.register(new SerializedJsonWriter());
 
         // build server
         ServletContainer restApiServlet = new ServletContainer(appConfig);
@@ -2,12 +2,12 @@ package com.elastisys.scale.cloudpool.api.types;
 
 import static com.elastisys.scale.cloudpool.api.types.Machine.toShortString;
 import static com.google.common.base.Preconditions.checkNotNull;
-import static com.google.common.collect.Iterables.filter;
 import static com.google.common.collect.Lists.transform;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import org.joda.time.DateTime;
 
@@ -15,12 +15,21 @@ import com.elastisys.scale.cloudpool.api.CloudPool;
 import com.elastisys.scale.commons.json.JsonUtils;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Lists;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
 import com.google.gson.JsonObject;
 
 /**
  * Represents a snapshot of the machine pool managed by a {@link CloudPool}.
+ * <p/>
+ * A {@link MachinePool} is immutable. On construction, it indexes its
+ * {@link Machine}s by id and partitions them into the active, allocated and
+ * started views, so that the getters are cheap and copy-free. Note that the
+ * views reflect the {@link MachineState} of each {@link Machine} at the time
+ * the {@link MachinePool} was created.
  *
  * @see CloudPool
  */
@@ -38,6 +47,13 @@ public class MachinePool {
      */
     private final DateTime timestamp;
 
+    /**
+     * Precomputed views of the {@link #machines}. Built on construction or,
+     * for instances created by JSON deserialization (which bypasses the
+     * constructor), on first access. Not part of the JSON representation.
+     */
+    private transient volatile Views views;
+
     /**
      * Constructs a new {@link MachinePool} snapshot.
      *
@@ -50,8 +66,9 @@ public class MachinePool {
     public MachinePool(List<? extends Machine> machines, DateTime timestamp) {
         checkNotNull(machines, "machines cannot be null");
         checkNotNull(timestamp, "timestamp cannot be null");
-        this.machines = Lists.newArrayList(machines);
+        this.machines = ImmutableList.copyOf(machines);
         this.timestamp = timestamp;
+        this.views = new Views(this.machines);
     }
 
     /**
@@ -67,7 +84,7 @@ public class MachinePool {
      * @return
      */
     public List<Machine> getMachines() {
-        return ImmutableList.copyOf(this.machines);
+        return views().machines;
     }
 
     /**
@@ -77,8 +94,7 @@ public class MachinePool {
      * @return
      */
     public List<Machine> getActiveMachines() {
-        Iterable<Machine> activeMachines = filter(getMachines(), Machine.isActiveMember());
-        return Lists.newArrayList(activeMachines);
+        return views().activeMachines;
     }
 
     /**
@@ -88,8 +104,7 @@ public class MachinePool {
      * @return
      */
     public List<Machine> getAllocatedMachines() {
-        Iterable<Machine> allocatedMachines = filter(getMachines(), Machine.isAllocated());
-        return Lists.newArrayList(allocatedMachines);
+        return views().allocatedMachines;
     }
 
     /**
@@ -99,8 +114,19 @@ public class MachinePool {
      * @return
      */
     public List<Machine> getStartedMachines() {
-        Iterable<Machine> startedMachines = filter(getMachines(), Machine.isStarted());
-        return Lists.newArrayList(startedMachines);
+        return views().startedMachines;
+    }
+
+    /**
+     * Returns the {@link Machine} with a given id, if it is part of the pool.
+     *
+     * @param machineId
+     *            The id of the {@link Machine} to look up.
+     * @return The {@link Machine}, or {@link Optional#absent()} if no
+     *         member has the given id.
+     */
+    public Optional<Machine> getMachine(String machineId) {
+        return Optional.fromNullable(views().machinesById.get(machineId));
     }
 
     /**
@@ -125,6 +151,23 @@ public class MachinePool {
         return new MachinePool(new ArrayList<Machine>(), timestamp);
     }
 
+    /**
+     * Returns the precomputed {@link Views} of this {@link MachinePool},
+     * building them if they haven't been built yet.
+     *
+     * @return The {@link Views} of this {@link MachinePool}.
+     */
+    private Views views() {
+        Views views = this.views;
+        if (views == null) {
+            // instance was created by JSON deserialization. building the views
+            // more than once in a race is harmless.
+            views = new Views(this.machines);
+            this.views = views;
+        }
+        return views;
+    }
+
     @Override
     public int hashCode() {
         return Objects.hashCode(this.timestamp, this.machines);
@@ -181,4 +224,52 @@ public class MachinePool {
     public JsonObject toJson() {
         return JsonUtils.toJson(this).getAsJsonObject();
     }
-}
\ No newline at end of file
+
+    /**
+     * Immutable views of the {@link Machine}s in a {@link MachinePool}.
+     */
+    private static class Views {
+        /** All machines, in pool order. */
+        private final List<Machine> machines;
+        /** Machines that are active pool members. */
+        private final List<Machine> activeMachines;
+        /** Machines that have been allocated. */
+        private final List<Machine> allocatedMachines;
+        /** Machines that have been started. */
+        private final List<Machine> startedMachines;
+        /**
+         * Machines by id. Should a pool contain duplicate ids, the first
+         * {@link Machine} with a given id is indexed.
+         */
+        private final Map<String, Machine> machinesById;
+
+        public Views(List<Machine> machines) {
+            ImmutableList.Builder<Machine> active = ImmutableList.builder();
+            ImmutableList.Builder<Machine> allocated = ImmutableList.builder();
+            ImmutableList.Builder<Machine> started = ImmutableList.builder();
+            Map<String, Machine> byId = Maps.newHashMapWithExpectedSize(machines.size());
+            Predicate<Machine> isActiveMember = Machine.isActiveMember();
+            Predicate<Machine> isAllocated = Machine.isAllocated();
+            Predicate<Machine> isStarted = Machine.isStarted();
+            for (Machine machine : machines) {
+                if (isActiveMember.apply(machine)) {
+                    active.add(machine);
+                }
+                if (isAllocated.apply(machine)) {
+                    allocated.add(machine);
+                }
+                if (isStarted.apply(machine)) {
+                    started.add(machine);
+                }
+                if (!byId.containsKey(machine.getId())) {
+                    byId.put(machine.getId(), machine);
+                }
+            }
+            this.machines = ImmutableList.copyOf(machines);
+            this.activeMachines = active.build();
+            this.allocatedMachines = allocated.build();
+            this.startedMachines = started.build();
+            this.machinesById = ImmutableMap.copyOf(byId);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.elastisys.scale.cloudpool.api.metrics;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Exercises the {@link MetricsRegistry} and its rendering in Prometheus text
+ * format.
+ */
+public class TestMetricsRegistry {
+
+    private final MetricsRegistry registry = new MetricsRegistry();
+
+    /**
+     * Asking for an already registered counter should return the existing
+     * counter.
+     */
+    @Test
+    public void counterIsCreatedOnce() {
+        Counter counter = this.registry.counter("errors_total", "Errors.", ImmutableMap.of("call", "listMachines"));
+        counter.increment();
+        counter.increment(2);
+
+        Counter sameCounter = this.registry.counter("errors_total", "Errors.",
+                ImmutableMap.of("call", "listMachines"));
+        assertThat(sameCounter, is(sameInstance(counter)));
+        assertThat(sameCounter.get(), is(3L));
+        // different labels make a different counter
+        assertThat(this.registry.counter("errors_total", "Errors.", ImmutableMap.of("call", "startMachines")),
+                is(not(sameInstance(counter))));
+
+        String text = this.registry.toPrometheusText();
+        assertThat(text, containsString("# HELP errors_total Errors.\n# TYPE errors_total counter\n"));
+        assertThat(text, containsString("errors_total{call=\"listMachines\"} 3\n"));
+        assertThat(text, containsString("errors_total{call=\"startMachines\"} 0\n"));
+    }
+
+    /**
+     * Observations should be counted in the smallest bucket whose bound is
+     * greater than or equal to the observation, and buckets should be
+     * rendered as cumulative counts.
+     */
+    @Test
+    public void histogram() {
+        Histogram histogram = this.registry.histogram("latency_seconds", "Latency.");
+        histogram.observe(0.001);
+        histogram.observe(0.003);
+        histogram.observe(0.2);
+        histogram.observe(1000.0);
+
+        assertThat(histogram.getCount(), is(4L));
+        assertEquals(1000.204, histogram.getSum(), 1e-9);
+
+        String text = this.registry.toPrometheusText();
+        assertThat(text, containsString("# TYPE latency_seconds histogram\n"));
+        assertThat(text, containsString("latency_seconds_bucket{le=\"0.001\"} 1\n"));
+        assertThat(text, containsString("latency_seconds_bucket{le=\"0.0025\"} 1\n"));
+        assertThat(text, containsString("latency_seconds_bucket{le=\"0.005\"} 2\n"));
+        assertThat(text, containsString("latency_seconds_bucket{le=\"0.25\"} 3\n"));
+        assertThat(text, containsString("latency_seconds_bucket{le=\"100\"} 3\n"));
+        assertThat(text, containsString("latency_seconds_bucket{le=\"+Inf\"} 4\n"));
+        assertThat(text, containsString("latency_seconds_count 4\n"));
+    }
+
+    /**
+     * Gauges should be read on collection. Re-registering a gauge should
+     * replace its value function, and a failing value function should yield
+     * {@code NaN}.
+     */
+    @Test
+    public void gauge() {
+        this.registry.gauge("queue_length", "Queue length.", () -> 1);
+        this.registry.gauge("queue_length", "Queue length.", () -> 2);
+        this.registry.gauge("cache_age_seconds", "Cache age.", () -> {
+            throw new IllegalStateException("no cache");
+        });
+
+        String text = this.registry.toPrometheusText();
+        assertThat(text, containsString("queue_length 2\n"));
+        assertThat(text, containsString("cache_age_seconds NaN\n"));
+    }
+
+    /**
+     * Families with the same name from different sources should be rendered
+     * under a single header. Label values should be escaped.
+     */
+    @Test
+    public void mergeLabeledFamilies() {
+        MetricsRegistry other = new MetricsRegistry();
+        this.registry.counter("errors_total", "Errors.").increment();
+        other.counter("errors_total", "Errors.").increment(2);
+
+        String text = PrometheusTextFormat.format(ImmutableList.of(
+                this.registry.collect().get(0).withLabel("cloudpool", "pool-1"),
+                other.collect().get(0).withLabel("cloudpool", "pool \"2\"")));
+
+        assertThat(text, is("# HELP errors_total Errors.\n" //
+                + "# TYPE errors_total counter\n" //
+                + "errors_total{cloudpool=\"pool-1\"} 1\n" //
+                + "errors_total{cloudpool=\"pool \\\"2\\\"\"} 2\n"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void registerWithConflictingType() {
+        this.registry.counter("errors_total", "Errors.");
+        this.registry.histogram("errors_total", "Errors.");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void registerWithIllegalName() {
+        this.registry.counter("errors-total", "Errors.");
+    }
+}
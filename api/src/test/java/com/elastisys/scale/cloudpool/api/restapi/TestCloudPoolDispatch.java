@@ -3,6 +3,8 @@ package com.elastisys.scale.cloudpool.api.restapi;
 import static com.elastisys.scale.commons.json.JsonUtils.parseJsonString;
 import static java.util.Arrays.asList;
 import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.any;
@@ -30,6 +32,7 @@ import com.elastisys.scale.cloudpool.api.CloudPoolException;
 import com.elastisys.scale.cloudpool.api.NotConfiguredException;
 import com.elastisys.scale.cloudpool.api.NotFoundException;
 import com.elastisys.scale.cloudpool.api.restapi.impl.CloudPoolRestApiImpl;
+import com.elastisys.scale.cloudpool.api.restapi.impl.SerializedJson;
 import com.elastisys.scale.cloudpool.api.restapi.types.DetachMachineRequest;
 import com.elastisys.scale.cloudpool.api.restapi.types.SetDesiredSizeRequest;
 import com.elastisys.scale.cloudpool.api.restapi.types.SetMembershipStatusRequest;
@@ -88,7 +91,14 @@ public class TestCloudPoolDispatch {
         // call rest endpoint and verify proper dispatching to mock
         Response response = this.restEndpoint.getConfig();
         assertEquals(response.getStatus(), Status.OK.getStatusCode());
-        assertEquals(response.getEntity(), config);
+        assertThat(((SerializedJson) response.getEntity()).isSerializationOf(config), is(true));
+
+        // the same configuration instance should only be serialized once
+        assertThat(this.restEndpoint.getConfig().getEntity(), is(sameInstance(response.getEntity())));
+        JsonObject newConfig = JsonUtils.parseJsonString("{\"key\": \"value\"}").getAsJsonObject();
+        when(this.cloudPoolMock.getConfiguration()).thenReturn(Optional.of(newConfig));
+        assertThat(((SerializedJson) this.restEndpoint.getConfig().getEntity()).isSerializationOf(newConfig),
+                is(true));
     }
 
     /**
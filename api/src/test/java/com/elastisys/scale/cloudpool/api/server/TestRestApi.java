@@ -113,7 +113,8 @@ public class TestRestApi {
         Client client = RestClients.httpsNoAuth();
         Response response = client.target(url("/config")).request().get();
         assertThat(response.getStatus(), is(Status.OK.getStatusCode()));
-        assertNotNull(response.readEntity(JsonObject.class));
+        assertThat(response.getMediaType().isCompatible(MediaType.APPLICATION_JSON_TYPE), is(true));
+        assertThat(response.readEntity(JsonObject.class), is(config.get()));
 
         // verify dispatch from REST server to cloud pool
         verify(cloudPool).getConfiguration();
@@ -721,6 +722,24 @@ public class TestRestApi {
      *            The resource path on the remote server.
      * @return
      */
+    /**
+     * Verifies that {@code GET /metrics} responds with request latencies per
+     * route in Prometheus text format.
+     */
+    @Test
+    public void testGetMetrics() {
+        Client client = RestClients.httpsNoAuth();
+        assertThat(client.target(url("/status")).request().get().getStatus(), is(Status.OK.getStatusCode()));
+
+        Response response = client.target(url("/metrics")).request().get();
+        assertThat(response.getStatus(), is(Status.OK.getStatusCode()));
+        assertThat(response.getMediaType().isCompatible(MediaType.TEXT_PLAIN_TYPE), is(true));
+        String metrics = response.readEntity(String.class);
+        assertThat(metrics, containsString("# TYPE cloudpool_rest_request_duration_seconds histogram"));
+        assertThat(metrics, containsString(
+                "cloudpool_rest_request_duration_seconds_count{code=\"200\",method=\"GET\",route=\"/status\"}"));
+    }
+
     private static String url(String path) {
         return String.format("https://localhost:%d%s", httpsPort, path);
     }
@@ -168,6 +168,58 @@ public class TestMachinePool {
         assertThat(pool.getActiveMachines(), is(asList(requested1, requested2, pending1, running1, running2)));
     }
 
+    /**
+     * Exercise {@link MachinePool#getMachine(String)}
+     */
+    @Test
+    public void testGetMachine() {
+        DateTime now = UtcTime.now();
+
+        // on empty pool
+        MachinePool pool = MachinePool.emptyPool(now);
+        assertThat(pool.getMachine("i-1").isPresent(), is(false));
+
+        Machine running = Machine.builder().id("i-1").machineState(MachineState.RUNNING).cloudProvider("AWS-EC2")
+                .region("us-east-1").machineSize("m1.small").requestTime(now).launchTime(now).build();
+        Machine terminated = Machine.builder().id("i-2").machineState(MachineState.TERMINATED).cloudProvider("AWS-EC2")
+                .region("us-east-1").machineSize("m1.small").build();
+        pool = new MachinePool(asList(running, terminated), now);
+        assertThat(pool.getMachine("i-1").get(), is(running));
+        // machines in terminal states are also part of the pool
+        assertThat(pool.getMachine("i-2").get(), is(terminated));
+        assertThat(pool.getMachine("i-3").isPresent(), is(false));
+    }
+
+    /**
+     * The {@link MachinePool} views must not be modifiable, since they are
+     * shared by all readers of the pool.
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void testViewsAreImmutable() {
+        DateTime now = UtcTime.now();
+        Machine running = Machine.builder().id("i-1").machineState(MachineState.RUNNING).cloudProvider("AWS-EC2")
+                .region("us-east-1").machineSize("m1.small").requestTime(now).launchTime(now).build();
+        MachinePool pool = new MachinePool(asList(running), now);
+        pool.getActiveMachines().remove(running);
+    }
+
+    /**
+     * A {@link MachinePool} created from its JSON representation should
+     * support the same views as one created via its constructor.
+     */
+    @Test
+    public void testViewsOfParsedPool() throws IOException {
+        MachinePool parsedPool = MachinePool.fromJson(loadJson(multiMachinePoolJson));
+
+        assertThat(parsedPool.getMachines().size(), is(2));
+        assertThat(parsedPool.getActiveMachines().size(), is(2));
+        assertThat(parsedPool.getAllocatedMachines().size(), is(2));
+        assertThat(parsedPool.getStartedMachines().size(), is(1));
+        assertThat(parsedPool.getMachine("m2").get().getMachineState(), is(MachineState.REQUESTED));
+        // views are not included in the JSON representation
+        assertThat(parsedPool.toJson(), is(JsonUtils.parseJsonResource(multiMachinePoolJson)));
+    }
+
     /**
      * Exercise {@link MachinePool#getStartedMachines()}
      */
@@ -5,9 +5,13 @@ import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.Lists.transform;
 import static java.lang.String.format;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,10 +35,13 @@ import com.elastisys.scale.cloudpool.commons.basepool.BaseCloudPool;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriver;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriverException;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.DriverConfig;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.PoolMembership;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.StartMachinesException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.TerminateMachinesException;
 import com.elastisys.scale.commons.json.JsonUtils;
 import com.google.common.base.Throwables;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 
 /**
  * A {@link CloudPoolDriver} implementation that manages an AWS Auto Scaling
@@ -63,6 +70,9 @@ public class AwsAsPoolDriver implements CloudPoolDriver {
     /** Prevent concurrent access to critical sections. */
     private final Object lock = new Object();
 
+    /** A view of the most recently observed pool members. */
+    private volatile PoolMembership poolMembership = PoolMembership.NONE;
+
     /**
      * Creates a new {@link AwsAsPoolDriver}. Needs to be configured before use.
      *
@@ -197,13 +207,20 @@ public class AwsAsPoolDriver implements CloudPoolDriver {
             // size request has taken effect. Waiting for the group size to
             // reach the desired size is problematic, since the desired size may
             // be set to some other value while we are waiting.
-            AutoScalingGroup group = this.client.getAutoScalingGroup(scalingGroupName());
-            LaunchConfiguration launchConfig = this.client.getLaunchConfiguration(group.getLaunchConfigurationName());
-            int newDesiredSize = group.getDesiredCapacity() + count;
-            LOG.info("starting {} new instance(s) in scaling group '{}': " + "changing desired capacity from {} to {}",
-                    count, scalingGroupName(), group.getDesiredCapacity(), newDesiredSize);
-            this.client.setDesiredSize(scalingGroupName(), newDesiredSize);
-            return pseudoMachines(count, launchConfig);
+            // (the desired capacity is read and updated under lock, since
+            // concurrent start/terminate calls may otherwise overwrite each
+            // others' changes)
+            synchronized (this.lock) {
+                AutoScalingGroup group = this.client.getAutoScalingGroup(scalingGroupName());
+                LaunchConfiguration launchConfig = this.client
+                        .getLaunchConfiguration(group.getLaunchConfigurationName());
+                int newDesiredSize = group.getDesiredCapacity() + count;
+                LOG.info("starting {} new instance(s) in scaling group '{}': "
+                        + "changing desired capacity from {} to {}", count, scalingGroupName(),
+                        group.getDesiredCapacity(), newDesiredSize);
+                this.client.setDesiredSize(scalingGroupName(), newDesiredSize);
+                return pseudoMachines(count, launchConfig);
+            }
         } catch (Exception e) {
             List<Machine> empty = Collections.emptyList();
             throw new StartMachinesException(count, empty, e);
@@ -219,18 +236,20 @@ public class AwsAsPoolDriver implements CloudPoolDriver {
                 // we were asked to terminate a placeholder instance (a
                 // requested, but not yet assigned, instance). just decrement
                 // desiredCapacity of the group.
-                AutoScalingGroup group = this.client.getAutoScalingGroup(scalingGroupName());
-                int desiredSize = group.getDesiredCapacity();
-                int newSize = desiredSize - 1;
-                LOG.debug(
-                        "termination request for placeholder instance {}, " + "reducing desiredCapacity from {} to {}",
-                        machineId, desiredSize, newSize);
-                this.client.setDesiredSize(scalingGroupName(), newSize);
+                synchronized (this.lock) {
+                    AutoScalingGroup group = this.client.getAutoScalingGroup(scalingGroupName());
+                    int desiredSize = group.getDesiredCapacity();
+                    int newSize = desiredSize - 1;
+                    LOG.debug("termination request for placeholder instance {}, "
+                            + "reducing desiredCapacity from {} to {}", machineId, desiredSize, newSize);
+                    this.client.setDesiredSize(scalingGroupName(), newSize);
+                }
             } else {
                 // verify that machine exists in group
-                getMachineOrFail(machineId);
+                verifyPoolMember(machineId);
                 LOG.info("terminating instance {}", machineId);
                 this.client.terminateInstance(scalingGroupName(), machineId);
+                this.poolMembership.evict(machineId);
             }
         } catch (Exception e) {
             Throwables.propagateIfInstanceOf(e, NotFoundException.class);
@@ -239,6 +258,141 @@ public class AwsAsPoolDriver implements CloudPoolDriver {
         }
     }
 
+    /**
+     * Decrements the desired capacity once for all placeholder instances,
+     * verifies group membership of the remaining instances with a single call
+     * and terminates them in batches.
+     */
+    @Override
+    public void terminateMachines(List<String> machineIds) throws TerminateMachinesException {
+        checkState(isConfigured(), "attempt to use unconfigured driver");
+
+        List<String> placeholderIds = new ArrayList<>();
+        List<String> instanceIds = new ArrayList<>();
+        for (String machineId : machineIds) {
+            if (machineId.startsWith(REQUESTED_ID_PREFIX)) {
+                placeholderIds.add(machineId);
+            } else {
+                instanceIds.add(machineId);
+            }
+        }
+
+        Map<String, Throwable> errors = new HashMap<>();
+        List<String> terminated = new ArrayList<>();
+        if (!placeholderIds.isEmpty()) {
+            try {
+                // placeholder instances (requested, but not yet assigned):
+                // just decrement desiredCapacity of the group.
+                synchronized (this.lock) {
+                    AutoScalingGroup group = this.client.getAutoScalingGroup(scalingGroupName());
+                    int desiredSize = group.getDesiredCapacity();
+                    int newSize = Math.max(0, desiredSize - placeholderIds.size());
+                    LOG.debug("termination request for {} placeholder instance(s), "
+                            + "reducing desiredCapacity from {} to {}", placeholderIds.size(), desiredSize, newSize);
+                    this.client.setDesiredSize(scalingGroupName(), newSize);
+                }
+                terminated.addAll(placeholderIds);
+            } catch (Exception e) {
+                CloudPoolDriverException error = new CloudPoolDriverException(
+                        format("failed to terminate placeholder instances %s: %s", placeholderIds, e.getMessage()), e);
+                for (String placeholderId : placeholderIds) {
+                    errors.put(placeholderId, error);
+                }
+            }
+        }
+
+        if (!instanceIds.isEmpty()) {
+            try {
+                // verify that machines exist in group
+                Set<String> groupMemberIds = Sets.newHashSet(
+                        transform(this.client.getAutoScalingGroupMembers(scalingGroupName()), Instance::getInstanceId));
+                List<String> memberIds = new ArrayList<>();
+                for (String instanceId : instanceIds) {
+                    if (groupMemberIds.contains(instanceId)) {
+                        memberIds.add(instanceId);
+                    } else {
+                        errors.put(instanceId, new NotFoundException(
+                                String.format("no machine with id '%s' found in cloud pool", instanceId)));
+                    }
+                }
+                if (!memberIds.isEmpty()) {
+                    terminateMembers(memberIds, terminated, errors);
+                }
+            } catch (Exception e) {
+                for (String instanceId : instanceIds) {
+                    errors.putIfAbsent(instanceId, new CloudPoolDriverException(
+                            format("failed to terminate instance %s: %s", instanceId, e.getMessage()), e));
+                }
+            }
+        }
+
+        if (!errors.isEmpty()) {
+            throw new TerminateMachinesException(terminated, errors);
+        }
+    }
+
+    /**
+     * Terminates a number of group members. The Auto Scaling API only
+     * terminates one instance per call, so the members are detached from the
+     * group (decrementing its desired capacity) and then terminated with a
+     * single EC2 call. Should the EC2 call fail, the instances are attached to
+     * the group again, so that they are not left running outside of the group.
+     * Instances that could neither be terminated nor re-attached are reported
+     * as left running outside of the group.
+     *
+     * @param memberIds
+     *            The group members to terminate.
+     * @param terminated
+     *            Collects the instances that were terminated.
+     * @param errors
+     *            Collects the error for each instance that could not be
+     *            terminated.
+     */
+    private void terminateMembers(List<String> memberIds, List<String> terminated, Map<String, Throwable> errors) {
+        LOG.info("terminating instances {}", memberIds);
+        List<String> detachedIds = new ArrayList<>(memberIds);
+        try {
+            this.client.detachInstances(scalingGroupName(), memberIds);
+        } catch (Exception e) {
+            // instances are detached in batches: some may have been detached
+            // before the failure
+            Set<String> groupMemberIds = Sets.newHashSet(
+                    transform(this.client.getAutoScalingGroupMembers(scalingGroupName()), Instance::getInstanceId));
+            for (String instanceId : memberIds) {
+                if (groupMemberIds.contains(instanceId)) {
+                    detachedIds.remove(instanceId);
+                    errors.put(instanceId, new CloudPoolDriverException(
+                            format("failed to terminate instance %s: %s", instanceId, e.getMessage()), e));
+                }
+            }
+        }
+        if (detachedIds.isEmpty()) {
+            return;
+        }
+
+        try {
+            this.client.terminateDetachedInstances(detachedIds);
+        } catch (Exception terminateError) {
+            LOG.warn("failed to terminate detached instances {}, re-attaching them to group: {}", detachedIds,
+                    terminateError.getMessage());
+            String reason = terminateError.getMessage();
+            try {
+                this.client.attachInstances(scalingGroupName(), detachedIds);
+            } catch (Exception attachError) {
+                LOG.error("failed to re-attach instances {} to group: {}", detachedIds, attachError.getMessage());
+                reason = format("%s (the instance could not be re-attached to the group either and is "
+                        + "left running outside of it: %s)", reason, attachError.getMessage());
+            }
+            for (String instanceId : detachedIds) {
+                errors.put(instanceId, new CloudPoolDriverException(
+                        format("failed to terminate instance %s: %s", instanceId, reason), terminateError));
+            }
+            return;
+        }
+        detachedIds.forEach(this.poolMembership::evict);
+        terminated.addAll(detachedIds);
+    }
+
     @Override
     public void attachMachine(String machineId) throws NotFoundException {
         checkState(isConfigured(), "attempt to use unconfigured driver");
@@ -257,10 +411,11 @@ public class AwsAsPoolDriver implements CloudPoolDriver {
         checkState(isConfigured(), "attempt to use unconfigured driver");
 
         // verify that machine exists in group
-        getMachineOrFail(machineId);
+        verifyPoolMember(machineId);
 
         try {
             this.client.detachInstance(scalingGroupName(), machineId);
+            this.poolMembership.evict(machineId);
         } catch (Exception e) {
             String message = format("failed to detach instance \"%s\": %s", machineId, e.getMessage());
             throw new CloudPoolDriverException(message, e);
@@ -273,7 +428,7 @@ public class AwsAsPoolDriver implements CloudPoolDriver {
         checkState(isConfigured(), "attempt to use unconfigured driver");
 
         // verify that machine exists in group
-        getMachineOrFail(machineId);
+        verifyPoolMember(machineId);
 
         try {
             Tag tag = new Tag().withKey(ScalingTags.SERVICE_STATE_TAG).withValue(serviceState.name());
@@ -291,7 +446,7 @@ public class AwsAsPoolDriver implements CloudPoolDriver {
         checkState(isConfigured(), "attempt to use unconfigured driver");
 
         // verify that machine exists in group
-        getMachineOrFail(machineId);
+        verifyPoolMember(machineId);
 
         try {
             Tag tag = new Tag().withKey(ScalingTags.MEMBERSHIP_STATUS_TAG)
@@ -304,23 +459,40 @@ public class AwsAsPoolDriver implements CloudPoolDriver {
         }
     }
 
+    @Override
+    public void setPoolMembership(PoolMembership poolMembership) {
+        this.poolMembership = poolMembership;
+    }
+
     /**
-     * Retrieves a particular member instance from the scaling group or throws
-     * an exception if it could not be found.
+     * Verifies that a particular instance is a member of the scaling group or
+     * throws an exception if it could not be found. Membership is looked up in
+     * the most recently observed pool and, on a miss, in the instance list of
+     * the Auto Scaling Group (which, unlike {@link #listMachines()}, does not
+     * require the member instances to be described).
      *
      * @param machineId
      *            The id of the machine of interest.
-     * @return
      * @throws NotFoundException
+     * @throws CloudPoolDriverException
      */
-    private Machine getMachineOrFail(String machineId) throws NotFoundException {
-        List<Machine> machines = listMachines();
-        for (Machine machine : machines) {
-            if (machine.getId().equals(machineId)) {
-                return machine;
-            }
+    private void verifyPoolMember(String machineId) throws NotFoundException, CloudPoolDriverException {
+        if (this.poolMembership.getMember(machineId).isPresent()) {
+            return;
         }
 
+        List<com.amazonaws.services.autoscaling.model.Instance> groupInstances;
+        try {
+            groupInstances = this.client.getAutoScalingGroup(scalingGroupName()).getInstances();
+        } catch (Exception e) {
+            throw new CloudPoolDriverException(format("failed to retrieve Auto Scaling Group \"%s\": %s",
+                    scalingGroupName(), e.getMessage()), e);
+        }
+        for (com.amazonaws.services.autoscaling.model.Instance groupInstance : groupInstances) {
+            if (groupInstance.getInstanceId().equals(machineId)) {
+                return;
+            }
+        }
         throw new NotFoundException(String.format("no machine with id '%s' found in cloud pool", machineId));
     }
 
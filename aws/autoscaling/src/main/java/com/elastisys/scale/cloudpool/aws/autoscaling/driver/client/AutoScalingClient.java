@@ -86,6 +86,47 @@ public interface AutoScalingClient {
      */
     void terminateInstance(String autoScalingGroupName, String instanceId) throws NotFoundException;
 
+    /**
+     * Removes a number of members from the scaling group without terminating
+     * them. As a side-effect, the desired capacity of the Auto Scaling Group is
+     * decremented by the number of instances.
+     * <p/>
+     * Unlike {@link #detachInstance(String, String)}, the instances are not
+     * verified to exist, which is left to the caller.
+     *
+     * @param autoScalingGroupName
+     *            The name of the Auto Scaling Group.
+     * @param instanceIds
+     *            Instance identifiers of members in the Auto Scaling Group.
+     */
+    void detachInstances(String autoScalingGroupName, List<String> instanceIds);
+
+    /**
+     * Adds a number of machine instances to the scaling group. As a
+     * side-effect, the desired capacity of the Auto Scaling Group is
+     * incremented by the number of instances.
+     * <p/>
+     * Unlike {@link #attachInstance(String, String)}, the instances are not
+     * verified to exist, which is left to the caller.
+     *
+     * @param autoScalingGroupName
+     *            The name of the Auto Scaling Group.
+     * @param instanceIds
+     *            Instance identifiers of instances to attach.
+     */
+    void attachInstances(String autoScalingGroupName, List<String> instanceIds);
+
+    /**
+     * Terminates a number of instances that have been detached from the Auto
+     * Scaling Group (see {@link #detachInstances(String, List)}). This is done
+     * with a single EC2 call, since the Auto Scaling API only terminates one
+     * instance per call.
+     *
+     * @param instanceIds
+     *            Instance identifiers of the instances to terminate.
+     */
+    void terminateDetachedInstances(List<String> instanceIds);
+
     /**
      * Adds a machine instance to the scaling group. As a side-effect, the
      * desired capacity of the Auto Scaling Group is incremented.
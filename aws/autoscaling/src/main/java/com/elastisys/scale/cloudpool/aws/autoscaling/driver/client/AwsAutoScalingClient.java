@@ -23,6 +23,7 @@ import com.elastisys.scale.cloudpool.aws.commons.requests.autoscaling.SetDesired
 import com.elastisys.scale.cloudpool.aws.commons.requests.autoscaling.TerminateAutoScalingGroupInstance;
 import com.elastisys.scale.cloudpool.aws.commons.requests.ec2.GetInstance;
 import com.elastisys.scale.cloudpool.aws.commons.requests.ec2.TagEc2Resources;
+import com.elastisys.scale.cloudpool.aws.commons.requests.ec2.TerminateInstances;
 
 /**
  * Standard implementation of the {@link AutoScalingClient} interface.
@@ -83,6 +84,29 @@ public class AwsAutoScalingClient implements AutoScalingClient {
         new TerminateAutoScalingGroupInstance(awsCredentials(), region(), clientConfig(), instanceId).call();
     }
 
+    @Override
+    public void detachInstances(String autoScalingGroupName, List<String> instanceIds) {
+        checkArgument(isConfigured(), "can't use client before it's configured");
+
+        new DetachAutoScalingGroupInstance(awsCredentials(), region(), clientConfig(), autoScalingGroupName,
+                instanceIds).call();
+    }
+
+    @Override
+    public void attachInstances(String autoScalingGroupName, List<String> instanceIds) {
+        checkArgument(isConfigured(), "can't use client before it's configured");
+
+        new AttachAutoScalingGroupInstance(awsCredentials(), region(), clientConfig(), autoScalingGroupName,
+                instanceIds).call();
+    }
+
+    @Override
+    public void terminateDetachedInstances(List<String> instanceIds) {
+        checkArgument(isConfigured(), "can't use client before it's configured");
+
+        new TerminateInstances(awsCredentials(), region(), clientConfig(), instanceIds).call();
+    }
+
     @Override
     public void attachInstance(String autoScalingGroupName, String instanceId) throws NotFoundException {
         checkArgument(isConfigured(), "can't use client before it's configured");
@@ -143,6 +143,27 @@ public class FakeAutoScalingClient implements AutoScalingClient {
         }
     }
 
+    @Override
+    public void detachInstances(String autoScalingGroupName, List<String> instanceIds) {
+        for (String instanceId : instanceIds) {
+            detachInstance(autoScalingGroupName, instanceId);
+        }
+    }
+
+    @Override
+    public void attachInstances(String autoScalingGroupName, List<String> instanceIds) {
+        for (String instanceId : instanceIds) {
+            attachInstance(autoScalingGroupName, instanceId);
+        }
+    }
+
+    @Override
+    public void terminateDetachedInstances(List<String> instanceIds) {
+        for (String instanceId : instanceIds) {
+            this.allInstances.remove(getInstanceOrFail(instanceId));
+        }
+    }
+
     @Override
     public void attachInstance(String autoScalingGroupName, String instanceId) throws NotFoundException {
         // verify existance
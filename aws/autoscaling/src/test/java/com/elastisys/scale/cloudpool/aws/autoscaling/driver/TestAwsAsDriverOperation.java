@@ -9,12 +9,15 @@ import static com.elastisys.scale.cloudpool.aws.autoscaling.driver.TestUtils.gro
 import static com.elastisys.scale.cloudpool.aws.autoscaling.driver.TestUtils.spotInstance;
 import static com.elastisys.scale.cloudpool.aws.commons.ScalingTags.SERVICE_STATE_TAG;
 import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -48,9 +51,13 @@ import com.elastisys.scale.cloudpool.commons.basepool.BaseCloudPool;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriver;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriverException;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.DriverConfig;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.PoolMembership;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.StartMachinesException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.TerminateMachinesException;
 import com.elastisys.scale.commons.json.JsonUtils;
+import com.google.common.base.Optional;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 
 /**
  * Verifies the operational behavior of the {@link AwsAsPoolDriver}.
@@ -286,6 +293,54 @@ public class TestAwsAsDriverOperation {
         assertThat(this.driver.listMachines(), is(MachinesMatcher.machines()));
     }
 
+    /**
+     * Machines found in the most recently observed pool should be recognized
+     * as group members without asking the cloud API for the group members. A
+     * terminated machine should be evicted from the observed pool.
+     */
+    @Test
+    public void verifyMembershipAgainstObservedPool() throws Exception {
+        setUpMockedAutoScalingGroup(GROUP_NAME, ONDEMAND_LAUNCH_CONFIG, 1, ec2Instances(ec2Instance("i-1", "running")));
+        PoolMembership poolMembership = mock(PoolMembership.class);
+        Machine member = Machine.builder().id("i-1").machineState(MachineState.RUNNING)
+                .cloudProvider(CloudProviders.AWS_EC2).region("us-east-1").machineSize("m1.medium").build();
+        when(poolMembership.getMember("i-1")).thenReturn(Optional.of(member));
+        this.driver.setPoolMembership(poolMembership);
+
+        this.driver.terminateMachine("i-1");
+
+        verify(this.mockAwsClient, never()).getAutoScalingGroup(GROUP_NAME);
+        verify(this.mockAwsClient, never()).getAutoScalingGroupMembers(GROUP_NAME);
+        verify(this.mockAwsClient).terminateInstance(GROUP_NAME, "i-1");
+        verify(poolMembership).evict("i-1");
+    }
+
+    /**
+     * On a miss in the most recently observed pool, group membership should
+     * be verified against the Auto Scaling Group, without describing its
+     * member instances.
+     */
+    @Test
+    public void verifyMembershipOnObservedPoolMiss() throws Exception {
+        setUpMockedAutoScalingGroup(GROUP_NAME, ONDEMAND_LAUNCH_CONFIG, 1, ec2Instances(ec2Instance("i-1", "running")));
+        PoolMembership poolMembership = mock(PoolMembership.class);
+        when(poolMembership.getMember(anyString())).thenReturn(Optional.absent());
+        this.driver.setPoolMembership(poolMembership);
+
+        this.driver.detachMachine("i-1");
+        verify(this.mockAwsClient).getAutoScalingGroup(GROUP_NAME);
+        verify(this.mockAwsClient, never()).getAutoScalingGroupMembers(GROUP_NAME);
+        verify(this.mockAwsClient).detachInstance(GROUP_NAME, "i-1");
+        verify(poolMembership).evict("i-1");
+
+        try {
+            this.driver.setServiceState("i-2", IN_SERVICE);
+            fail("expected to fail");
+        } catch (NotFoundException e) {
+            // expected
+        }
+    }
+
     /**
      * Verifies behavior when terminating an group member that has only been
      * requested but not yet been acquired by the Auto Scaling Group (and has a
@@ -349,6 +404,127 @@ public class TestAwsAsDriverOperation {
         this.driver.terminateMachine("i-2");
     }
 
+    /**
+     * Terminating several machines should decrement the desired capacity once
+     * for all placeholder instances and terminate all group members with a
+     * single client call.
+     */
+    @Test
+    public void terminateMany() {
+        int desiredCapacity = 5;
+        setUpMockedAutoScalingGroup(GROUP_NAME, ONDEMAND_LAUNCH_CONFIG, desiredCapacity,
+                ec2Instances(ec2Instance("i-1", "running"), ec2Instance("i-2", "running"),
+                        ec2Instance("i-3", "pending")));
+
+        this.driver.terminateMachines(
+                asList("i-1", REQUESTED_ID_PREFIX + "1", "i-3", REQUESTED_ID_PREFIX + "2"));
+
+        verify(this.mockAwsClient).setDesiredSize(GROUP_NAME, 3);
+        verify(this.mockAwsClient).detachInstances(GROUP_NAME, asList("i-1", "i-3"));
+        verify(this.mockAwsClient).terminateDetachedInstances(asList("i-1", "i-3"));
+    }
+
+    /**
+     * Should the EC2 termination fail after the instances have been detached
+     * from the group, the instances should be re-attached to the group rather
+     * than being left running outside of it.
+     */
+    @Test
+    public void terminateManyWhenTerminationFailsAfterDetach() {
+        int desiredCapacity = 2;
+        setUpMockedAutoScalingGroup(GROUP_NAME, ONDEMAND_LAUNCH_CONFIG, desiredCapacity,
+                ec2Instances(ec2Instance("i-1", "running"), ec2Instance("i-2", "running")));
+        doThrow(new AmazonClientException("API unreachable")).when(this.mockAwsClient)
+                .terminateDetachedInstances(asList("i-1", "i-2"));
+
+        try {
+            this.driver.terminateMachines(asList("i-1", "i-2"));
+            fail("expected to fail");
+        } catch (TerminateMachinesException e) {
+            assertThat(e.getTerminatedMachines(), is(asList()));
+            assertThat(e.getTerminationErrors().keySet(), is(Sets.newHashSet("i-1", "i-2")));
+            assertThat(e.getTerminationErrors().get("i-1"), instanceOf(CloudPoolDriverException.class));
+        }
+
+        verify(this.mockAwsClient).detachInstances(GROUP_NAME, asList("i-1", "i-2"));
+        verify(this.mockAwsClient).attachInstances(GROUP_NAME, asList("i-1", "i-2"));
+    }
+
+    /**
+     * Instances that can neither be terminated nor re-attached to the group
+     * after having been detached should be reported as left running outside
+     * of the group.
+     */
+    @Test
+    public void terminateManyWhenReattachFailsAfterDetach() {
+        int desiredCapacity = 1;
+        setUpMockedAutoScalingGroup(GROUP_NAME, ONDEMAND_LAUNCH_CONFIG, desiredCapacity,
+                ec2Instances(ec2Instance("i-1", "running")));
+        doThrow(new AmazonClientException("API unreachable")).when(this.mockAwsClient)
+                .terminateDetachedInstances(asList("i-1"));
+        doThrow(new AmazonClientException("API unreachable")).when(this.mockAwsClient).attachInstances(GROUP_NAME,
+                asList("i-1"));
+
+        try {
+            this.driver.terminateMachines(asList("i-1"));
+            fail("expected to fail");
+        } catch (TerminateMachinesException e) {
+            assertThat(e.getTerminatedMachines(), is(asList()));
+            assertTrue(e.getTerminationErrors().get("i-1").getMessage().contains("left running outside"));
+        }
+    }
+
+    /**
+     * Should only some of the instances be detached before the detach call
+     * fails, the detached instances should still be terminated.
+     */
+    @Test
+    public void terminateManyWhenDetachPartiallyFails() {
+        int desiredCapacity = 2;
+        setUpMockedAutoScalingGroup(GROUP_NAME, ONDEMAND_LAUNCH_CONFIG, desiredCapacity,
+                ec2Instances(ec2Instance("i-1", "running"), ec2Instance("i-2", "running")));
+        doThrow(new AmazonClientException("API unreachable")).when(this.mockAwsClient).detachInstances(GROUP_NAME,
+                asList("i-1", "i-2"));
+        // i-1 was detached before the failure
+        when(this.mockAwsClient.getAutoScalingGroupMembers(GROUP_NAME)).thenReturn(
+                ec2Instances(ec2Instance("i-1", "running"), ec2Instance("i-2", "running")),
+                ec2Instances(ec2Instance("i-2", "running")));
+
+        try {
+            this.driver.terminateMachines(asList("i-1", "i-2"));
+            fail("expected to fail");
+        } catch (TerminateMachinesException e) {
+            assertThat(e.getTerminatedMachines(), is(asList("i-1")));
+            assertThat(e.getTerminationErrors().keySet(), is(Sets.newHashSet("i-2")));
+        }
+        verify(this.mockAwsClient).terminateDetachedInstances(asList("i-1"));
+    }
+
+    /**
+     * Non-members should be reported as not found when terminating several
+     * machines, without preventing group members from being terminated.
+     */
+    @Test
+    public void terminateManyWithNonGroupMember() {
+        int desiredCapacity = 2;
+        List<Instance> members = ec2Instances(ec2Instance("i-1", "running"), ec2Instance("i-2", "running"));
+        List<Instance> nonMembers = ec2Instances(ec2Instance("i-3", "running"));
+        FakeAutoScalingClient client = new FakeAutoScalingClient(GROUP_NAME, ONDEMAND_LAUNCH_CONFIG, desiredCapacity,
+                members, nonMembers);
+        this.driver = new AwsAsPoolDriver(client);
+        this.driver.configure(TestUtils.driverConfig(GROUP_NAME));
+
+        try {
+            this.driver.terminateMachines(asList("i-1", "i-3"));
+            fail("expected to fail");
+        } catch (TerminateMachinesException e) {
+            assertThat(e.getTerminatedMachines(), is(asList("i-1")));
+            assertThat(e.getTerminationErrors().get("i-3"), instanceOf(NotFoundException.class));
+        }
+        assertThat(this.driver.listMachines(), is(MachinesMatcher.machines("i-2")));
+        assertThat(client.getAutoScalingGroup(GROUP_NAME).getDesiredCapacity(), is(1));
+    }
+
     /**
      * Verify that the detach is called on the Auto Scaling Group API when
      * detaching a group member.
@@ -1,35 +1,53 @@
 package com.elastisys.scale.cloudpool.aws.commons.requests.autoscaling;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.Callable;
 
 import com.amazonaws.ClientConfiguration;
 import com.amazonaws.auth.AWSCredentials;
 import com.amazonaws.services.autoscaling.model.AttachInstancesRequest;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 
 /**
- * A {@link Callable} task that, when executed, requests a particular instance
+ * A {@link Callable} task that, when executed, requests one or more instances
  * to be attached to an Auto Scaling Group. As a side-effect, the desired
  * capacity of the Auto Scaling Group is incremented.
+ * <p/>
+ * Since the Auto Scaling API limits the number of instances that can be
+ * attached per call, a large number of instances is attached in several
+ * calls.
  */
 public class AttachAutoScalingGroupInstance extends AmazonAutoScalingRequest<Void> {
 
+    /** Maximum number of instances to attach in a single API call. */
+    private static final int MAX_INSTANCES_PER_CALL = 20;
+
     /** The name of the Auto Scaling Group. */
     private final String autoScalingGroup;
-    /** The machine instance identifier to be attached. */
-    private final String instanceId;
+    /** The machine instance identifiers to be attached. */
+    private final List<String> instanceIds;
 
     public AttachAutoScalingGroupInstance(AWSCredentials awsCredentials, String region,
             ClientConfiguration clientConfig, String autoScalingGroup, String instanceId) {
+        this(awsCredentials, region, clientConfig, autoScalingGroup, ImmutableList.of(instanceId));
+    }
+
+    public AttachAutoScalingGroupInstance(AWSCredentials awsCredentials, String region,
+            ClientConfiguration clientConfig, String autoScalingGroup, Collection<String> instanceIds) {
         super(awsCredentials, region, clientConfig);
         this.autoScalingGroup = autoScalingGroup;
-        this.instanceId = instanceId;
+        this.instanceIds = ImmutableList.copyOf(instanceIds);
     }
 
     @Override
     public Void call() {
-        AttachInstancesRequest request = new AttachInstancesRequest().withAutoScalingGroupName(this.autoScalingGroup)
-                .withInstanceIds(this.instanceId);
-        getClient().getApi().attachInstances(request);
+        for (List<String> batch : Lists.partition(this.instanceIds, MAX_INSTANCES_PER_CALL)) {
+            AttachInstancesRequest request = new AttachInstancesRequest()
+                    .withAutoScalingGroupName(this.autoScalingGroup).withInstanceIds(batch);
+            getClient().getApi().attachInstances(request);
+        }
 
         return null;
     }
@@ -1,35 +1,54 @@
 package com.elastisys.scale.cloudpool.aws.commons.requests.autoscaling;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.Callable;
 
 import com.amazonaws.ClientConfiguration;
 import com.amazonaws.auth.AWSCredentials;
 import com.amazonaws.services.autoscaling.model.DetachInstancesRequest;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 
 /**
- * A {@link Callable} task that, when executed, requests a particular member
- * instance to be detached from an Auto Scaling Group. As a side-effect, the
+ * A {@link Callable} task that, when executed, requests one or more member
+ * instances to be detached from an Auto Scaling Group. As a side-effect, the
  * desired capacity of the Auto Scaling Group is decremented.
+ * <p/>
+ * Since the Auto Scaling API limits the number of instances that can be
+ * detached per call, a large number of instances is detached in several
+ * calls.
  */
 public class DetachAutoScalingGroupInstance extends AmazonAutoScalingRequest<Void> {
 
+    /** Maximum number of instances to detach in a single API call. */
+    private static final int MAX_INSTANCES_PER_CALL = 20;
+
     /** The name of the Auto Scaling Group. */
     private final String autoScalingGroup;
-    /** The machine instance identifier to be detached. */
-    private final String instanceId;
+    /** The machine instance identifiers to be detached. */
+    private final List<String> instanceIds;
 
     public DetachAutoScalingGroupInstance(AWSCredentials awsCredentials, String region,
             ClientConfiguration clientConfig, String autoScalingGroup, String instanceId) {
+        this(awsCredentials, region, clientConfig, autoScalingGroup, ImmutableList.of(instanceId));
+    }
+
+    public DetachAutoScalingGroupInstance(AWSCredentials awsCredentials, String region,
+            ClientConfiguration clientConfig, String autoScalingGroup, Collection<String> instanceIds) {
         super(awsCredentials, region, clientConfig);
         this.autoScalingGroup = autoScalingGroup;
-        this.instanceId = instanceId;
+        this.instanceIds = ImmutableList.copyOf(instanceIds);
     }
 
     @Override
     public Void call() {
-        DetachInstancesRequest request = new DetachInstancesRequest().withAutoScalingGroupName(this.autoScalingGroup)
-                .withInstanceIds(this.instanceId).withShouldDecrementDesiredCapacity(true);
-        getClient().getApi().detachInstances(request);
+        for (List<String> batch : Lists.partition(this.instanceIds, MAX_INSTANCES_PER_CALL)) {
+            DetachInstancesRequest request = new DetachInstancesRequest()
+                    .withAutoScalingGroupName(this.autoScalingGroup).withInstanceIds(batch)
+                    .withShouldDecrementDesiredCapacity(true);
+            getClient().getApi().detachInstances(request);
+        }
 
         return null;
     }
@@ -5,8 +5,12 @@ import static com.google.common.base.Preconditions.checkState;
 import static java.lang.String.format;
 import static java.util.Arrays.asList;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,10 +33,13 @@ import com.elastisys.scale.cloudpool.commons.basepool.BaseCloudPool;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriver;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriverException;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.DriverConfig;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.PoolMembership;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.StartMachinesException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.TerminateMachinesException;
 import com.elastisys.scale.commons.json.JsonUtils;
 import com.google.common.base.Throwables;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 
 /**
  * A {@link CloudPoolDriver} implementation that operates against the AWS EC2
@@ -53,6 +60,9 @@ public class Ec2PoolDriver implements CloudPoolDriver {
     /** Lock to prevent concurrent access to critical sections. */
     private final Object lock = new Object();
 
+    /** A view of the most recently observed pool members. */
+    private volatile PoolMembership poolMembership = PoolMembership.NONE;
+
     /**
      * Creates a new {@link Ec2PoolDriver}. Needs to be configured before use.
      *
@@ -129,17 +139,58 @@ public class Ec2PoolDriver implements CloudPoolDriver {
         checkState(isConfigured(), "attempt to use unconfigured Ec2PoolDriver");
 
         // verify that machine exists in group
-        getMachineOrFail(machineId);
+        verifyPoolMember(machineId);
 
         try {
             LOG.info("terminating instance {}", machineId);
             this.client.terminateInstances(asList(machineId));
+            this.poolMembership.evict(machineId);
         } catch (Exception e) {
             String message = format("failed to terminate instance \"%s\": %s", machineId, e.getMessage());
             throw new CloudPoolDriverException(message, e);
         }
     }
 
+    /**
+     * Verifies pool membership with a single listing of the pool and
+     * terminates all member instances with a single call.
+     */
+    @Override
+    public void terminateMachines(List<String> machineIds) throws TerminateMachinesException {
+        checkState(isConfigured(), "attempt to use unconfigured Ec2PoolDriver");
+
+        Map<String, Throwable> errors = new HashMap<>();
+        List<String> members = new ArrayList<>();
+        try {
+            Set<String> poolMemberIds = Sets.newHashSet(Lists.transform(listMachines(), Machine.toId()));
+            for (String machineId : machineIds) {
+                if (poolMemberIds.contains(machineId)) {
+                    members.add(machineId);
+                } else {
+                    errors.put(machineId, new NotFoundException(
+                            String.format("no machine with id '%s' found in cloud pool", machineId)));
+                }
+            }
+
+            if (!members.isEmpty()) {
+                LOG.info("terminating instances {}", members);
+                this.client.terminateInstances(members);
+                members.forEach(this.poolMembership::evict);
+            }
+        } catch (Exception e) {
+            String message = format("failed to terminate instances %s: %s", members, e.getMessage());
+            CloudPoolDriverException error = new CloudPoolDriverException(message, e);
+            for (String machineId : machineIds) {
+                errors.putIfAbsent(machineId, error);
+            }
+            members.clear();
+        }
+
+        if (!errors.isEmpty()) {
+            throw new TerminateMachinesException(members, errors);
+        }
+    }
+
     @Override
     public void attachMachine(String machineId) throws NotFoundException, CloudPoolDriverException {
         checkState(isConfigured(), "attempt to use unconfigured Ec2PoolDriver");
@@ -162,11 +213,12 @@ public class Ec2PoolDriver implements CloudPoolDriver {
         checkState(isConfigured(), "attempt to use unconfigured Ec2PoolDriver");
 
         // verify that machine exists in group
-        getMachineOrFail(machineId);
+        verifyPoolMember(machineId);
 
         Tag membershipTag = new Tag(ScalingTags.CLOUD_POOL_TAG, getPoolName());
         try {
             this.client.untagResource(machineId, asList(membershipTag));
+            this.poolMembership.evict(machineId);
         } catch (Exception e) {
             throw new CloudPoolDriverException(String.format("failed to remove tag '%s' from instance %s: %s",
                     membershipTag, machineId, e.getMessage()), e);
@@ -179,7 +231,7 @@ public class Ec2PoolDriver implements CloudPoolDriver {
         checkState(isConfigured(), "attempt to use unconfigured Ec2PoolDriver");
 
         // verify that machine exists in group
-        getMachineOrFail(machineId);
+        verifyPoolMember(machineId);
 
         try {
             Tag tag = new Tag(ScalingTags.SERVICE_STATE_TAG, serviceState.name());
@@ -197,7 +249,7 @@ public class Ec2PoolDriver implements CloudPoolDriver {
         checkState(isConfigured(), "attempt to use unconfigured Ec2PoolDriver");
 
         // verify that machine exists in group
-        getMachineOrFail(machineId);
+        verifyPoolMember(machineId);
 
         try {
             Tag tag = new Tag(ScalingTags.MEMBERSHIP_STATUS_TAG, JsonUtils.toString(toJson(membershipStatus)));
@@ -216,24 +268,38 @@ public class Ec2PoolDriver implements CloudPoolDriver {
         return config().getPoolName();
     }
 
+    @Override
+    public void setPoolMembership(PoolMembership poolMembership) {
+        this.poolMembership = poolMembership;
+    }
+
     /**
-     * Retrieves a particular member instance from the pool or throws an
-     * exception if it could not be found.
+     * Verifies that a particular instance is a member of the pool or throws an
+     * exception if it could not be found. Membership is looked up in the most
+     * recently observed pool and, on a miss, by fetching that single instance.
      *
      * @param machineId
      *            The id of the machine of interest.
-     * @return
      * @throws NotFoundException
+     * @throws CloudPoolDriverException
      */
-    private Machine getMachineOrFail(String machineId) throws NotFoundException {
-        List<Machine> machines = listMachines();
-        for (Machine machine : machines) {
-            if (machine.getId().equals(machineId)) {
-                return machine;
-            }
+    private void verifyPoolMember(String machineId) throws NotFoundException, CloudPoolDriverException {
+        if (this.poolMembership.getMember(machineId).isPresent()) {
+            return;
         }
 
-        throw new NotFoundException(String.format("no machine with id '%s' found in cloud pool", machineId));
+        Instance instance;
+        try {
+            instance = this.client.getInstanceMetadata(machineId);
+        } catch (NotFoundException e) {
+            throw new NotFoundException(String.format("no machine with id '%s' found in cloud pool", machineId), e);
+        } catch (Exception e) {
+            throw new CloudPoolDriverException(
+                    format("failed to retrieve instance \"%s\": %s", machineId, e.getMessage()), e);
+        }
+        if (!instance.getTags().contains(cloudPoolTag())) {
+            throw new NotFoundException(String.format("no machine with id '%s' found in cloud pool", machineId));
+        }
     }
 
     /**
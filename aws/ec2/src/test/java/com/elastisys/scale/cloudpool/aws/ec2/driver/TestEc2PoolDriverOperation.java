@@ -8,17 +8,24 @@ import static com.elastisys.scale.cloudpool.aws.ec2.driver.MachinesMatcher.machi
 import static com.elastisys.scale.cloudpool.aws.ec2.driver.TestUtils.driverConfig;
 import static com.elastisys.scale.cloudpool.aws.ec2.driver.TestUtils.ec2Instances;
 import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import org.eclipse.jetty.server.Server;
@@ -31,7 +38,9 @@ import com.amazonaws.services.ec2.model.Filter;
 import com.amazonaws.services.ec2.model.Instance;
 import com.amazonaws.services.ec2.model.Tag;
 import com.elastisys.scale.cloudpool.api.NotFoundException;
+import com.elastisys.scale.cloudpool.api.types.CloudProviders;
 import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.api.types.MachineState;
 import com.elastisys.scale.cloudpool.api.types.MembershipStatus;
 import com.elastisys.scale.cloudpool.api.types.ServiceState;
 import com.elastisys.scale.cloudpool.aws.commons.ScalingFilters;
@@ -40,8 +49,11 @@ import com.elastisys.scale.cloudpool.aws.commons.poolclient.Ec2Client;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriver;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriverException;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.DriverConfig;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.PoolMembership;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.StartMachinesException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.TerminateMachinesException;
 import com.elastisys.scale.commons.json.JsonUtils;
+import com.google.common.base.Optional;
 
 /**
  * Verifies the operational behavior of the {@link Ec2PoolDriver}.
@@ -202,6 +214,60 @@ public class TestEc2PoolDriverOperation {
         this.driver.terminateMachine("i-2");
     }
 
+    /**
+     * Terminating several pool members should be done with a single call to
+     * list the pool and a single call to terminate the instances.
+     */
+    @Test
+    public void terminateMany() {
+        setUpMockedScalingGroup(POOL_NAME, ec2Instances(memberInstance("i-1", "running"),
+                memberInstance("i-2", "running"), memberInstance("i-3", "pending")));
+
+        this.driver.terminateMachines(asList("i-1", "i-3"));
+
+        verify(this.mockClient, times(1)).getInstances(asList(POOL_MEMBER_QUERY_FILTER));
+        verify(this.mockClient, times(1)).terminateInstances(asList("i-1", "i-3"));
+    }
+
+    /**
+     * Non-members should be reported as not found when terminating several
+     * machines, without preventing the pool members from being terminated.
+     */
+    @Test
+    public void terminateManyWithNonGroupMember() {
+        setUpMockedScalingGroup(POOL_NAME, ec2Instances(memberInstance("i-1", "running")));
+
+        try {
+            this.driver.terminateMachines(asList("i-1", "i-2"));
+            fail("expected to fail");
+        } catch (TerminateMachinesException e) {
+            assertThat(e.getTerminatedMachines(), is(asList("i-1")));
+            assertThat(e.getTerminationErrors().keySet(), is(Collections.singleton("i-2")));
+            assertThat(e.getTerminationErrors().get("i-2"), instanceOf(NotFoundException.class));
+        }
+        verify(this.mockClient).terminateInstances(asList("i-1"));
+    }
+
+    /**
+     * On client error, all machines should be reported as failed.
+     */
+    @Test
+    public void terminateManyOnError() {
+        setUpMockedScalingGroup(POOL_NAME, ec2Instances(memberInstance("i-1", "running"),
+                memberInstance("i-2", "running")));
+        doThrow(new AmazonClientException("API unreachable")).when(this.mockClient)
+                .terminateInstances(asList("i-1", "i-2"));
+
+        try {
+            this.driver.terminateMachines(asList("i-1", "i-2"));
+            fail("expected to fail");
+        } catch (TerminateMachinesException e) {
+            assertThat(e.getTerminatedMachines().isEmpty(), is(true));
+            assertThat(e.getTerminationErrors().get("i-1"), instanceOf(CloudPoolDriverException.class));
+            assertThat(e.getTerminationErrors().get("i-2"), instanceOf(CloudPoolDriverException.class));
+        }
+    }
+
     /**
      * Verify that the pool membership tag is removed from the server when
      * detaching a pool member.
@@ -378,14 +444,68 @@ public class TestEc2PoolDriverOperation {
         this.driver.setMembershipStatus("i-1", status);
     }
 
+    /**
+     * Pool membership of a single machine should be verified against the most
+     * recently observed pool, without any calls to the cloud API.
+     */
+    @Test
+    public void verifyMembershipAgainstObservedPool() {
+        setUpMockedScalingGroup(POOL_NAME, ec2Instances(memberInstance("i-1", "running")));
+        PoolMembership poolMembership = mock(PoolMembership.class);
+        when(poolMembership.getMember("i-1")).thenReturn(Optional.of(machine("i-1")));
+        this.driver.setPoolMembership(poolMembership);
+
+        this.driver.terminateMachine("i-1");
+
+        verify(this.mockClient, never()).getInstances(anyListOf(Filter.class));
+        verify(this.mockClient, never()).getInstanceMetadata("i-1");
+        verify(this.mockClient).terminateInstances(asList("i-1"));
+    }
+
+    /**
+     * On a miss in the most recently observed pool, pool membership of a
+     * single machine should be verified by fetching that particular instance
+     * (rather than by listing the entire pool).
+     */
+    @Test
+    public void verifyMembershipOnObservedPoolMiss() {
+        Instance nonMember = nonMemberInstance("i-2", "running");
+        setUpMockedScalingGroup(POOL_NAME, ec2Instances(memberInstance("i-1", "running")));
+        doReturn(nonMember).when(this.mockClient).getInstanceMetadata("i-2");
+        PoolMembership poolMembership = mock(PoolMembership.class);
+        when(poolMembership.getMember(anyString())).thenReturn(Optional.absent());
+        this.driver.setPoolMembership(poolMembership);
+
+        this.driver.terminateMachine("i-1");
+        verify(this.mockClient).getInstanceMetadata("i-1");
+        verify(this.mockClient, never()).getInstances(anyListOf(Filter.class));
+        // terminated machine should no longer be regarded a member
+        verify(poolMembership).evict("i-1");
+
+        // instance exists, but is not a pool member
+        try {
+            this.driver.setServiceState("i-2", IN_SERVICE);
+            fail("expected to fail");
+        } catch (NotFoundException e) {
+            // expected
+        }
+    }
+
+    private static Machine machine(String id) {
+        return Machine.builder().id(id).machineState(MachineState.RUNNING).cloudProvider(CloudProviders.AWS_EC2)
+                .region("us-east-1").machineSize("m1.small").build();
+    }
+
     private void setUpMockedScalingGroup(String poolName, List<Instance> poolMembers) {
         // set up response to queries for pool member instances
         List<Filter> poolQueryFilters = asList(POOL_MEMBER_QUERY_FILTER);
         when(this.mockClient.getInstances(poolQueryFilters)).thenReturn(poolMembers);
 
-        // set up response to queries for pool member meta data
+        // set up response to queries for pool member meta data (instances
+        // that do not exist are not found)
+        doThrow(new NotFoundException("no such instance")).when(this.mockClient).getInstanceMetadata(anyString());
         for (Instance instance : poolMembers) {
-            when(this.mockClient.getInstanceMetadata(instance.getInstanceId())).thenReturn(instance);
+            doReturn(instance).when(this.mockClient).getInstanceMetadata(instance.getInstanceId());
         }
     }
 
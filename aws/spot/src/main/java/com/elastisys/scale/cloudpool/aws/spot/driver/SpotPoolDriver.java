@@ -21,6 +21,7 @@ import static java.util.Arrays.asList;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ScheduledExecutorService;
@@ -55,6 +56,7 @@ import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriver;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriverException;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.DriverConfig;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.StartMachinesException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.TerminateMachinesException;
 import com.elastisys.scale.commons.json.JsonUtils;
 import com.elastisys.scale.commons.net.alerter.Alert;
 import com.elastisys.scale.commons.net.alerter.AlertSeverity;
@@ -278,6 +280,66 @@ public class SpotPoolDriver implements CloudPoolDriver {
         }
     }
 
+    /**
+     * Verifies pool membership of all spot requests with a single call, and
+     * then cancels the spot requests and terminates their instances with one
+     * call each.
+     */
+    @Override
+    public void terminateMachines(List<String> spotRequestIds) throws TerminateMachinesException {
+        checkState(isConfigured(), "attempt to use unconfigured driver");
+        if (spotRequestIds.isEmpty()) {
+            return;
+        }
+
+        LOG.debug("terminating spot requests {}", spotRequestIds);
+        Map<String, Throwable> errors = new HashMap<>();
+        List<String> memberRequestIds = new ArrayList<>();
+        try {
+            Filter idFilter = new Filter(SPOT_REQUEST_ID_FILTER, spotRequestIds);
+            Filter poolFilter = new Filter(CLOUD_POOL_TAG_FILTER, asList(getPoolName()));
+            Map<String, SpotInstanceRequest> memberRequests = new HashMap<>();
+            for (SpotInstanceRequest request : this.client.getSpotInstanceRequests(asList(idFilter, poolFilter))) {
+                memberRequests.put(request.getSpotInstanceRequestId(), request);
+            }
+
+            List<String> instanceIds = new ArrayList<>();
+            for (String spotRequestId : spotRequestIds) {
+                SpotInstanceRequest request = memberRequests.get(spotRequestId);
+                if (request == null) {
+                    errors.put(spotRequestId, new NotFoundException(
+                            String.format("spot instance request %s is not a member of the pool", spotRequestId)));
+                    continue;
+                }
+                memberRequestIds.add(spotRequestId);
+                if (request.getInstanceId() != null) {
+                    instanceIds.add(request.getInstanceId());
+                }
+            }
+
+            if (!memberRequestIds.isEmpty()) {
+                // cancel spot requests
+                this.client.cancelSpotRequests(memberRequestIds);
+            }
+            if (!instanceIds.isEmpty()) {
+                // terminate spot instances (of fulfilled spot requests)
+                LOG.debug("terminating spot instances {}", instanceIds);
+                this.client.terminateInstances(instanceIds);
+            }
+        } catch (Exception e) {
+            String message = format("failed to terminate spot requests %s: %s", memberRequestIds, e.getMessage());
+            CloudPoolDriverException error = new CloudPoolDriverException(message, e);
+            for (String spotRequestId : spotRequestIds) {
+                errors.putIfAbsent(spotRequestId, error);
+            }
+            memberRequestIds.clear();
+        }
+
+        if (!errors.isEmpty()) {
+            throw new TerminateMachinesException(memberRequestIds, errors);
+        }
+    }
+
     @Override
     public void attachMachine(String spotRequestId) throws NotFoundException, CloudPoolDriverException {
         checkState(isConfigured(), "attempt to use unconfigured driver");
@@ -10,9 +10,11 @@ import static com.elastisys.scale.cloudpool.aws.commons.ScalingTags.CLOUD_POOL_T
 import static com.elastisys.scale.cloudpool.aws.spot.util.SpotTestUtil.instance;
 import static com.elastisys.scale.cloudpool.aws.spot.util.SpotTestUtil.spotRequest;
 import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.argThat;
 import static org.mockito.Mockito.doThrow;
@@ -49,6 +51,7 @@ import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriver;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriverException;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.DriverConfig;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.StartMachinesException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.TerminateMachinesException;
 import com.elastisys.scale.commons.json.JsonUtils;
 import com.elastisys.scale.commons.net.alerter.Alert;
 import com.elastisys.scale.commons.util.base64.Base64Utils;
@@ -283,6 +286,46 @@ public class TestSpotPoolDriverOperation {
         this.driver.terminateMachine("sir-2");
     }
 
+    /**
+     * Terminating several spot requests should cancel the requests and
+     * terminate the instances of fulfilled requests.
+     */
+    @Test
+    public void testTerminateMany() {
+        this.driver = new SpotPoolDriver(this.fakeClient, this.executor, this.mockEventBus);
+        this.driver.configure(config());
+
+        this.fakeClient.setupFakeAccount(
+                asList(spotRequest("sir-1", "open", null, POOL1_TAG), spotRequest("sir-2", "active", "i-2", POOL1_TAG),
+                        spotRequest("sir-3", "active", "i-3", POOL1_TAG)),
+                asList(instance("i-2", Running, "sir-2"), instance("i-3", Running, "sir-3")));
+
+        this.driver.terminateMachines(asList("sir-1", "sir-2"));
+        assertRequestIds(this.driver.listMachines(), asList("sir-3"));
+        assertInstanceIds(this.fakeClient.getInstances(emptyFilters), asList("i-3"));
+    }
+
+    /**
+     * Spot requests that aren't group members should be reported as not
+     * found, without preventing group members from being terminated.
+     */
+    @Test
+    public void testTerminateManyWithNonGroupMember() {
+        this.driver = new SpotPoolDriver(this.fakeClient, this.executor, this.mockEventBus);
+        this.driver.configure(config());
+
+        this.fakeClient.setupFakeAccount(asList(spotRequest("sir-1", "open", null, POOL1_TAG)), emptyInstances);
+
+        try {
+            this.driver.terminateMachines(asList("sir-1", "sir-2"));
+            fail("expected to fail");
+        } catch (TerminateMachinesException e) {
+            assertThat(e.getTerminatedMachines(), is(asList("sir-1")));
+            assertThat(e.getTerminationErrors().get("sir-2"), instanceOf(NotFoundException.class));
+        }
+        assertRequestIds(this.driver.listMachines(), emptyIds);
+    }
+
     /**
      * Test that whenever the bid price changes, unfulfilled requests with an
      * incorrect bid price are cancelled (to be replaced by requests with the
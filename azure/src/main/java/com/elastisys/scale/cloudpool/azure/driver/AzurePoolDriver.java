@@ -6,8 +6,10 @@ import static com.google.common.base.Preconditions.checkState;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -27,6 +29,7 @@ import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriver;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriverException;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.DriverConfig;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.StartMachinesException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.TerminateMachinesException;
 import com.elastisys.scale.commons.json.JsonUtils;
 import com.google.common.base.Joiner;
 import com.google.common.base.Throwables;
@@ -141,6 +144,53 @@ public class AzurePoolDriver implements CloudPoolDriver {
         }
     }
 
+    /**
+     * Verifies pool membership of all VMs with a single listing of the pool.
+     * Since the Azure API offers no way of deleting several VMs in one call,
+     * the member VMs are then deleted one at a time. Deletes can be spread
+     * over several concurrent calls through
+     * {@code poolUpdate.maxParallelDriverCalls}.
+     */
+    @Override
+    public void terminateMachines(List<String> machineIds) throws TerminateMachinesException {
+        checkState(isConfigured(), "cannot use driver before being configured");
+
+        Map<String, Throwable> errors = new HashMap<>();
+        List<String> memberIds = new ArrayList<>();
+        try {
+            Set<String> poolVmIds = this.client.listVms(cloudPoolTag()).stream().map(VirtualMachine::id)
+                    .collect(Collectors.toSet());
+            for (String machineId : machineIds) {
+                if (poolVmIds.contains(machineId)) {
+                    memberIds.add(machineId);
+                } else {
+                    errors.put(machineId,
+                            new NotFoundException(String.format("vm %s is not a member of the pool", machineId)));
+                }
+            }
+        } catch (Exception e) {
+            CloudPoolDriverException error = new CloudPoolDriverException("failed to list VMs: " + e.getMessage(), e);
+            machineIds.forEach(machineId -> errors.put(machineId, error));
+            throw new TerminateMachinesException(Collections.emptyList(), errors);
+        }
+
+        LOG.info("deleting VMs {} ...", memberIds);
+        for (String machineId : memberIds) {
+            try {
+                this.client.deleteVm(machineId);
+            } catch (Exception e) {
+                errors.put(machineId,
+                        new CloudPoolDriverException("failed to terminate vm " + machineId + ": " + e.getMessage(), e));
+            }
+        }
+
+        if (!errors.isEmpty()) {
+            List<String> terminated = memberIds.stream().filter(machineId -> !errors.containsKey(machineId))
+                    .collect(Collectors.toList());
+            throw new TerminateMachinesException(terminated, errors);
+        }
+    }
+
     @Override
     public void attachMachine(String machineId) throws NotFoundException, CloudPoolDriverException {
         checkState(isConfigured(), "cannot use driver before being configured");
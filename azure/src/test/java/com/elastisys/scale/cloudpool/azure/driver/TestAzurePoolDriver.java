@@ -2,24 +2,41 @@ package com.elastisys.scale.cloudpool.azure.driver;
 
 import static com.elastisys.scale.cloudpool.azure.driver.AzureTestUtils.driverConfig;
 import static com.elastisys.scale.cloudpool.azure.driver.AzureTestUtils.loadPoolConfig;
+import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import com.elastisys.scale.cloudpool.api.NotFoundException;
 import com.elastisys.scale.cloudpool.api.types.MembershipStatus;
 import com.elastisys.scale.cloudpool.api.types.ServiceState;
 import com.elastisys.scale.cloudpool.azure.driver.client.AzureClient;
+import com.elastisys.scale.cloudpool.azure.driver.client.AzureException;
 import com.elastisys.scale.cloudpool.azure.driver.config.CloudApiSettings;
 import com.elastisys.scale.cloudpool.azure.driver.config.ProvisioningTemplate;
 import com.elastisys.scale.cloudpool.commons.basepool.config.BaseCloudPoolConfig;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriverException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.TerminateMachinesException;
 import com.elastisys.scale.commons.json.JsonUtils;
+import com.google.common.collect.ImmutableSet;
+import com.microsoft.azure.management.compute.VirtualMachine;
 
 /**
  * Exercise {@link AzurePoolDriver}.
@@ -82,6 +99,54 @@ public class TestAzurePoolDriver {
     // TODO: AzurePoolDriver tests for listMachines (success and failure)
     // TODO: AzurePoolDriver tests for startMachines (success and failure)
     // TODO: AzurePoolDriver tests for terminateMachine (success and failure)
+
+    /**
+     * Terminating several VMs should verify pool membership with a single
+     * listing, delete each member VM and report the VMs that could not be
+     * deleted (or that are not pool members) without failing the others.
+     */
+    @Test
+    public void terminateMachines() {
+        this.driver.configure(driverConfig(loadPoolConfig("config/valid-config.json")));
+        List<VirtualMachine> poolVms = Arrays.asList(vm("vm-1"), vm("vm-2"), vm("vm-3"));
+        when(this.clientMock.listVms(any())).thenReturn(poolVms);
+        doThrow(new AzureException("api error")).when(this.clientMock).deleteVm("vm-2");
+
+        try {
+            this.driver.terminateMachines(Arrays.asList("vm-1", "vm-2", "vm-3", "vm-4"));
+            fail("expected to fail");
+        } catch (TerminateMachinesException e) {
+            assertThat(e.getTerminatedMachines(), is(Arrays.asList("vm-1", "vm-3")));
+            assertThat(e.getTerminationErrors().keySet(), is(ImmutableSet.of("vm-2", "vm-4")));
+            assertThat(e.getTerminationErrors().get("vm-2"), instanceOf(CloudPoolDriverException.class));
+            assertThat(e.getTerminationErrors().get("vm-4"), instanceOf(NotFoundException.class));
+        }
+
+        verify(this.clientMock, times(1)).listVms(any());
+        verify(this.clientMock).deleteVm("vm-1");
+        verify(this.clientMock).deleteVm("vm-2");
+        verify(this.clientMock).deleteVm("vm-3");
+        verify(this.clientMock, never()).deleteVm("vm-4");
+    }
+
+    /**
+     * If pool membership cannot be verified, no VM should be deleted and all
+     * VMs should be reported as failed.
+     */
+    @Test
+    public void terminateMachinesWhenListingFails() {
+        this.driver.configure(driverConfig(loadPoolConfig("config/valid-config.json")));
+        when(this.clientMock.listVms(any())).thenThrow(new AzureException("api error"));
+
+        try {
+            this.driver.terminateMachines(Arrays.asList("vm-1", "vm-2"));
+            fail("expected to fail");
+        } catch (TerminateMachinesException e) {
+            assertThat(e.getTerminatedMachines(), is(Collections.emptyList()));
+            assertThat(e.getTerminationErrors().keySet(), is(ImmutableSet.of("vm-1", "vm-2")));
+        }
+        verify(this.clientMock, never()).deleteVm(anyString());
+    }
     // TODO: AzurePoolDriver tests for attachMachine (success and failure)
     // TODO: AzurePoolDriver tests for detachMachine (success and failure)
     // TODO: AzurePoolDriver tests for setServiceState (success and failure)
@@ -127,4 +192,10 @@ public class TestAzurePoolDriver {
         this.driver.terminateMachine("id");
     }
 
+    private static VirtualMachine vm(String id) {
+        VirtualMachine vm = mock(VirtualMachine.class);
+        when(vm.id()).thenReturn(id);
+        return vm;
+    }
+
 }
@@ -0,0 +1,74 @@
+package com.elastisys.scale.cloudpool.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.api.types.MachineState;
+import com.elastisys.scale.cloudpool.commons.scaledown.strategies.ClosestToInstanceHourVictimSelectionStrategy;
+import com.elastisys.scale.cloudpool.commons.scaledown.strategies.ClosestToInstanceHourVictimSelectionStrategy.ClosestToInstanceHourOrder;
+import com.elastisys.scale.commons.util.time.UtcTime;
+import com.google.common.collect.Lists;
+
+/**
+ * Compares two ways of ordering termination candidates on remaining instance
+ * hour time:
+ * <ul>
+ * <li>{@link #comparatorOrder()}: sorting with the
+ * {@link ClosestToInstanceHourOrder} comparator, which recalculates the
+ * remaining time of both machines (against a fresh clock reading) on every
+ * comparison.</li>
+ * <li>{@link #precomputedKeyOrder()}: the
+ * {@link ClosestToInstanceHourVictimSelectionStrategy}, which calculates the
+ * remaining time of each machine once and sorts on primitive keys.</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class ClosestToInstanceHourBenchmark {
+
+    /** Number of machines in the pool. */
+    @Param({ "10000" })
+    public int poolSize;
+
+    /** Termination candidates: all running machines in the pool. */
+    private List<Machine> candidates;
+
+    @Setup
+    public void setup() {
+        this.candidates = Lists.newArrayList();
+        for (Machine machine : SyntheticPools.pool(this.poolSize, UtcTime.now()).getStartedMachines()) {
+            if (machine.getMachineState() == MachineState.RUNNING) {
+                this.candidates.add(machine);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<Machine> comparatorOrder() {
+        return Machine.sort(this.candidates,
+                ClosestToInstanceHourVictimSelectionStrategy.INSTANCE.new ClosestToInstanceHourOrder());
+    }
+
+    @Benchmark
+    public List<Machine> precomputedKeyOrder() {
+        return ClosestToInstanceHourVictimSelectionStrategy.INSTANCE.selectVictims(this.candidates,
+                this.candidates.size());
+    }
+}
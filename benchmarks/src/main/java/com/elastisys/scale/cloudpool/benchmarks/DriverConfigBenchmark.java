@@ -0,0 +1,108 @@
+package com.elastisys.scale.cloudpool.benchmarks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.elastisys.scale.cloudpool.commons.basepool.driver.DriverConfig;
+import com.elastisys.scale.commons.json.JsonUtils;
+import com.google.gson.JsonObject;
+
+/**
+ * Measures the cost of the typed {@link DriverConfig} accessors for a single
+ * {@code listMachines} call of a cloud pool driver that asks for its cloud API
+ * settings and provisioning template once per pool member (as the EC2, Spot,
+ * Azure and OpenStack drivers do).
+ * <p/>
+ * The {@link #reparse(Blackhole)} benchmark parses the JSON documents on every
+ * access (which is what the accessors used to do) and serves as the baseline
+ * for the {@link #cached(Blackhole)} benchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class DriverConfigBenchmark {
+
+    /** Number of machines in the pool. */
+    @Param({ "10", "100", "1000" })
+    public int poolSize;
+
+    private DriverConfig config;
+
+    @Setup
+    public void setup() {
+        JsonObject cloudApiSettings = JsonUtils.parseJsonString("{" //
+                + "\"awsAccessKeyId\": \"ABCDEFGHIJKLMNOPQRST\"," //
+                + "\"awsSecretAccessKey\": \"abcdefghijklmnopqrstuvwxyz0123456789ABCD\"," //
+                + "\"region\": \"us-east-1\"," //
+                + "\"connectionTimeout\": 10000," //
+                + "\"socketTimeout\": 10000" //
+                + "}").getAsJsonObject();
+        JsonObject provisioningTemplate = JsonUtils.parseJsonString("{" //
+                + "\"instanceType\": \"m4.large\"," //
+                + "\"amiId\": \"ami-12345678\"," //
+                + "\"subnetIds\": [\"subnet-1\", \"subnet-2\", \"subnet-3\"]," //
+                + "\"assignPublicIp\": true," //
+                + "\"keyPair\": \"instancekey\"," //
+                + "\"securityGroupIds\": [\"sg-1\", \"sg-2\"]," //
+                + "\"encodedUserData\": \"IyEvYmluL2Jhc2gKCnN1ZG8gYXB0LWdldCB1cGRhdGUgLXF5\"," //
+                + "\"ebsOptimized\": true," //
+                + "\"tags\": {\"Cluster\": \"mycluster\", \"Owner\": \"ops\"}" //
+                + "}").getAsJsonObject();
+        this.config = new DriverConfig("pool", cloudApiSettings, provisioningTemplate);
+    }
+
+    @Benchmark
+    public void reparse(Blackhole blackhole) {
+        for (int i = 0; i < this.poolSize; i++) {
+            blackhole.consume(JsonUtils.toObject(this.config.getCloudApiSettings(), CloudApiSettings.class));
+            blackhole.consume(JsonUtils.toObject(this.config.getProvisioningTemplate(), ProvisioningTemplate.class));
+        }
+    }
+
+    @Benchmark
+    public void cached(Blackhole blackhole) {
+        for (int i = 0; i < this.poolSize; i++) {
+            blackhole.consume(this.config.parseCloudApiSettings(CloudApiSettings.class));
+            blackhole.consume(this.config.parseProvisioningTemplate(ProvisioningTemplate.class));
+        }
+    }
+
+    /** Cloud API settings, shaped like those of the EC2 cloud pool. */
+    public static class CloudApiSettings {
+        private String awsAccessKeyId;
+        private String awsSecretAccessKey;
+        private String region;
+        private Integer connectionTimeout;
+        private Integer socketTimeout;
+    }
+
+    /** Provisioning template, shaped like that of the EC2 cloud pool. */
+    public static class ProvisioningTemplate {
+        private String instanceType;
+        private String amiId;
+        private List<String> subnetIds;
+        private Boolean assignPublicIp;
+        private String keyPair;
+        private List<String> securityGroupIds;
+        private String encodedUserData;
+        private Boolean ebsOptimized;
+        private Map<String, String> tags;
+    }
+}
@@ -0,0 +1,90 @@
+package com.elastisys.scale.cloudpool.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.DateTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.elastisys.scale.cloudpool.api.types.MachinePool;
+import com.elastisys.scale.cloudpool.commons.resizeplanner.ResizePlan;
+import com.elastisys.scale.cloudpool.commons.resizeplanner.ResizePlanner;
+import com.elastisys.scale.cloudpool.commons.scaledown.VictimSelectionPolicy;
+import com.elastisys.scale.cloudpool.commons.termqueue.TerminationQueue;
+import com.elastisys.scale.commons.util.time.UtcTime;
+
+/**
+ * Measures {@link ResizePlanner#calculateResizePlan(int)} for scale-out,
+ * scale-in and steady-state plans over synthetic pools of different sizes,
+ * with and without a populated {@link TerminationQueue}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class ResizePlannerBenchmark {
+
+    /** Number of machines in the pool. */
+    @Param({ "100", "1000", "10000", "50000" })
+    public int poolSize;
+
+    /**
+     * Percentage of the pool that is already in the termination queue when
+     * the plan is calculated.
+     */
+    @Param({ "0", "10" })
+    public int queuedPercent;
+
+    /** Victim selection policy to use for scale-in plans. */
+    @Param({ "NEWEST_INSTANCE", "CLOSEST_TO_INSTANCE_HOUR" })
+    public VictimSelectionPolicy victimSelectionPolicy;
+
+    private ResizePlanner planner;
+    private int netSize;
+
+    @Setup
+    public void setup() {
+        DateTime now = UtcTime.now();
+        MachinePool pool = SyntheticPools.pool(this.poolSize, now);
+        TerminationQueue terminationQueue = new TerminationQueue();
+        terminationQueue.addAll(SyntheticPools.terminations(pool, this.poolSize * this.queuedPercent / 100, now));
+        this.planner = new ResizePlanner(pool, terminationQueue, this.victimSelectionPolicy, 300);
+        this.netSize = this.planner.getNetSize();
+    }
+
+    /**
+     * Grows the pool by 10%.
+     */
+    @Benchmark
+    public ResizePlan scaleOut() {
+        return this.planner.calculateResizePlan(this.netSize + this.netSize / 10 + 1);
+    }
+
+    /**
+     * Shrinks the pool by half.
+     */
+    @Benchmark
+    public ResizePlan scaleIn() {
+        return this.planner.calculateResizePlan(this.netSize / 2);
+    }
+
+    /**
+     * Desired size equals the net size (only disposable machines are
+     * planned for termination).
+     */
+    @Benchmark
+    public ResizePlan steadyState() {
+        return this.planner.calculateResizePlan(this.netSize);
+    }
+}
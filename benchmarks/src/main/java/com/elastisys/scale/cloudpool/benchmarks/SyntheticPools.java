@@ -0,0 +1,133 @@
+package com.elastisys.scale.cloudpool.benchmarks;
+
+import java.util.List;
+import java.util.Random;
+
+import org.joda.time.DateTime;
+
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.api.types.MachinePool;
+import com.elastisys.scale.cloudpool.api.types.MachineState;
+import com.elastisys.scale.cloudpool.api.types.MembershipStatus;
+import com.elastisys.scale.cloudpool.commons.termqueue.ScheduledTermination;
+import com.google.common.collect.Lists;
+import com.google.gson.JsonObject;
+
+/**
+ * Produces synthetic {@link MachinePool}s and {@link ScheduledTermination}s of
+ * arbitrary size for use in benchmarks.
+ * <p/>
+ * Pools are generated from a fixed random seed, so that two pools of the same
+ * size (and reference time) are identical between benchmark runs. The machine
+ * mix roughly resembles a large production pool:
+ * <ul>
+ * <li>~85% {@link MachineState#RUNNING}, ~5% {@link MachineState#PENDING}, ~5%
+ * {@link MachineState#REQUESTED} and ~5% {@link MachineState#TERMINATED}
+ * machines.</li>
+ * <li>~2% of the machines are blessed (not evictable) and ~2% are disposable
+ * (inactive, evictable). The rest have the default membership status.</li>
+ * <li>Launch times are spread over the two days preceding the reference
+ * time.</li>
+ * <li>Every machine carries a small metadata document, similar to what a
+ * cloud driver would attach.</li>
+ * </ul>
+ */
+public class SyntheticPools {
+    /** Seed used for all generated pools. */
+    private static final long SEED = 42L;
+    /** Launch times are spread over this many seconds before now. */
+    private static final int LAUNCH_TIME_SPREAD_SECONDS = 48 * 60 * 60;
+
+    private SyntheticPools() {
+        throw new IllegalStateException("not instantiable");
+    }
+
+    /**
+     * Creates a synthetic {@link MachinePool} with a given number of machines.
+     *
+     * @param size
+     *            The number of machines in the pool.
+     * @param now
+     *            The time to regard as the current time. Used as pool
+     *            timestamp and as reference for machine launch times.
+     * @return The synthetic pool.
+     */
+    public static MachinePool pool(int size, DateTime now) {
+        Random random = new Random(SEED);
+        List<Machine> machines = Lists.newArrayListWithCapacity(size);
+        for (int i = 0; i < size; i++) {
+            machines.add(machine(i, random, now));
+        }
+        return new MachinePool(machines, now);
+    }
+
+    /**
+     * Schedules a given number of the evictable, active machines of a pool for
+     * termination. Termination times are spread over the coming hour, with
+     * every other termination already being overdue.
+     *
+     * @param pool
+     *            The pool to select machines from.
+     * @param count
+     *            The (maximum) number of terminations to create. If the pool
+     *            has fewer evictable, active members, fewer terminations are
+     *            returned.
+     * @param now
+     *            The time to regard as the current time.
+     * @return The scheduled terminations, in pool order.
+     */
+    public static List<ScheduledTermination> terminations(MachinePool pool, int count, DateTime now) {
+        Random random = new Random(SEED);
+        List<ScheduledTermination> terminations = Lists.newArrayListWithCapacity(count);
+        for (Machine machine : pool.getActiveMachines()) {
+            if (terminations.size() >= count) {
+                break;
+            }
+            if (!machine.getMembershipStatus().isEvictable()) {
+                continue;
+            }
+            int offsetSeconds = random.nextInt(3600);
+            DateTime terminationTime = terminations.size() % 2 == 0 ? now.minusSeconds(offsetSeconds)
+                    : now.plusSeconds(offsetSeconds);
+            terminations.add(new ScheduledTermination(machine, terminationTime));
+        }
+        return terminations;
+    }
+
+    private static Machine machine(int index, Random random, DateTime now) {
+        MachineState state = machineState(random.nextInt(100));
+        MembershipStatus membershipStatus = membershipStatus(random.nextInt(100));
+        DateTime requestTime = now.minusSeconds(random.nextInt(LAUNCH_TIME_SPREAD_SECONDS));
+        DateTime launchTime = state == MachineState.REQUESTED ? null : requestTime.plusSeconds(30);
+
+        JsonObject metadata = new JsonObject();
+        metadata.addProperty("imageId", "ami-" + (1000 + index % 7));
+        metadata.addProperty("keyName", "benchmark-key");
+        metadata.addProperty("subnetId", "subnet-" + index % 3);
+
+        return Machine.builder().id("i-" + index).machineState(state).membershipStatus(membershipStatus)
+                .cloudProvider("AWS-EC2").region("us-east-1").machineSize("m1.small").requestTime(requestTime)
+                .launchTime(launchTime).publicIp("10.0." + index / 256 % 256 + "." + index % 256)
+                .privateIp("192.168." + index / 256 % 256 + "." + index % 256).metadata(metadata).build();
+    }
+
+    private static MachineState machineState(int percentile) {
+        if (percentile < 85) {
+            return MachineState.RUNNING;
+        } else if (percentile < 90) {
+            return MachineState.PENDING;
+        } else if (percentile < 95) {
+            return MachineState.REQUESTED;
+        }
+        return MachineState.TERMINATED;
+    }
+
+    private static MembershipStatus membershipStatus(int percentile) {
+        if (percentile < 2) {
+            return MembershipStatus.blessed();
+        } else if (percentile < 4) {
+            return MembershipStatus.disposable();
+        }
+        return MembershipStatus.defaultStatus();
+    }
+}
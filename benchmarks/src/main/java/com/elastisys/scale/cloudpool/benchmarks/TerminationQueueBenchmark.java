@@ -0,0 +1,94 @@
+package com.elastisys.scale.cloudpool.benchmarks;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.DateTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.api.types.MachinePool;
+import com.elastisys.scale.cloudpool.commons.termqueue.ScheduledTermination;
+import com.elastisys.scale.cloudpool.commons.termqueue.TerminationQueue;
+import com.elastisys.scale.commons.util.time.UtcTime;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+/**
+ * Measures the {@link TerminationQueue} operations used by the pool update
+ * loop.
+ * <p/>
+ * Since all operations but {@link #add()} mutate the queue, each benchmark
+ * fills a fresh queue before carrying out the measured operation. The
+ * {@link #add()} benchmark measures the fill on its own and serves as the
+ * baseline to subtract from the other results.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class TerminationQueueBenchmark {
+
+    /** Number of machines in the pool. */
+    @Param({ "100", "1000", "10000", "50000" })
+    public int poolSize;
+
+    /** Scheduled terminations (half of them overdue) for the pool. */
+    private List<ScheduledTermination> terminations;
+    /** Ids of the active pool members remaining after 10% of the pool disappeared. */
+    private Set<String> survivingMembers;
+
+    @Setup
+    public void setup() {
+        DateTime now = UtcTime.now();
+        MachinePool pool = SyntheticPools.pool(this.poolSize, now);
+        this.terminations = SyntheticPools.terminations(pool, this.poolSize, now);
+        List<Machine> activeMachines = pool.getActiveMachines();
+        this.survivingMembers = Sets.newHashSet(Lists.transform(
+                activeMachines.subList(activeMachines.size() / 10, activeMachines.size()), Machine.toId()));
+    }
+
+    @Benchmark
+    public TerminationQueue add() {
+        return filledQueue();
+    }
+
+    @Benchmark
+    public List<ScheduledTermination> spare() {
+        TerminationQueue queue = filledQueue();
+        return queue.spare(queue.size() / 2);
+    }
+
+    @Benchmark
+    public List<ScheduledTermination> popOverdueInstances() {
+        return filledQueue().popOverdueInstances();
+    }
+
+    @Benchmark
+    public TerminationQueue filter() {
+        TerminationQueue queue = filledQueue();
+        queue.filter(this.survivingMembers);
+        return queue;
+    }
+
+    private TerminationQueue filledQueue() {
+        TerminationQueue queue = new TerminationQueue();
+        for (ScheduledTermination termination : this.terminations) {
+            queue.add(termination);
+        }
+        return queue;
+    }
+}
@@ -0,0 +1,69 @@
+package com.elastisys.scale.cloudpool.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.api.types.MachineState;
+import com.elastisys.scale.cloudpool.commons.scaledown.VictimSelectionPolicy;
+import com.elastisys.scale.cloudpool.commons.scaledown.VictimSelector;
+import com.elastisys.scale.commons.util.time.UtcTime;
+import com.google.common.collect.Lists;
+
+/**
+ * Measures {@link VictimSelector#selectVictims} when selecting a single victim
+ * and when selecting half of the candidates (a large scale-in) for each
+ * {@link VictimSelectionPolicy}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class VictimSelectorBenchmark {
+
+    /** Number of machines in the pool. */
+    @Param({ "100", "1000", "10000", "50000" })
+    public int poolSize;
+
+    @Param({ "OLDEST_INSTANCE", "NEWEST_INSTANCE", "CLOSEST_TO_INSTANCE_HOUR" })
+    public VictimSelectionPolicy victimSelectionPolicy;
+
+    /** Termination candidates: all started machines in the pool. */
+    private List<Machine> candidates;
+    private VictimSelector victimSelector;
+
+    @Setup
+    public void setup() {
+        this.candidates = Lists.newArrayList();
+        for (Machine machine : SyntheticPools.pool(this.poolSize, UtcTime.now()).getStartedMachines()) {
+            if (machine.getMachineState() == MachineState.RUNNING) {
+                this.candidates.add(machine);
+            }
+        }
+        this.victimSelector = new VictimSelector(this.victimSelectionPolicy.getVictimSelectionStrategy());
+    }
+
+    @Benchmark
+    public List<Machine> selectOne() {
+        return this.victimSelector.selectVictims(this.candidates, 1);
+    }
+
+    @Benchmark
+    public List<Machine> selectHalf() {
+        return this.victimSelector.selectVictims(this.candidates, this.candidates.size() / 2);
+    }
+}
@@ -2,8 +2,17 @@ package com.elastisys.scale.cloudpool.commons.basepool;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,27 +22,39 @@ import com.elastisys.scale.cloudpool.api.CloudPoolException;
 import com.elastisys.scale.cloudpool.api.NotConfiguredException;
 import com.elastisys.scale.cloudpool.api.NotFoundException;
 import com.elastisys.scale.cloudpool.api.NotStartedException;
+import com.elastisys.scale.cloudpool.api.metrics.MetricsRegistry;
+import com.elastisys.scale.cloudpool.api.metrics.MetricsSource;
 import com.elastisys.scale.cloudpool.api.types.CloudPoolStatus;
 import com.elastisys.scale.cloudpool.api.types.MachinePool;
 import com.elastisys.scale.cloudpool.api.types.MachineState;
 import com.elastisys.scale.cloudpool.api.types.MembershipStatus;
 import com.elastisys.scale.cloudpool.api.types.PoolSizeSummary;
 import com.elastisys.scale.cloudpool.api.types.ServiceState;
+import com.elastisys.scale.cloudpool.commons.basepool.alerts.AsyncAlerter;
 import com.elastisys.scale.cloudpool.commons.basepool.config.BaseCloudPoolConfig;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriver;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.DriverConfig;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.IncrementalCloudPoolDriver;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.MeteredCloudPoolDriver;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.PoolMembership;
+import com.elastisys.scale.cloudpool.commons.basepool.poolfetcher.PoolFetcher;
 import com.elastisys.scale.cloudpool.commons.basepool.poolfetcher.impl.CachingPoolFetcher;
+import com.elastisys.scale.cloudpool.commons.basepool.poolfetcher.impl.IncrementalPoolFetcher;
 import com.elastisys.scale.cloudpool.commons.basepool.poolfetcher.impl.RetryingPoolFetcher;
 import com.elastisys.scale.cloudpool.commons.basepool.poolupdater.PoolUpdater;
 import com.elastisys.scale.cloudpool.commons.basepool.poolupdater.impl.StandardPoolUpdater;
 import com.elastisys.scale.commons.json.JsonUtils;
 import com.elastisys.scale.commons.net.alerter.Alert;
 import com.elastisys.scale.commons.net.alerter.Alerter;
+import com.elastisys.scale.commons.net.alerter.SeverityFilter;
+import com.elastisys.scale.commons.net.alerter.multiplexing.AlertersConfig;
 import com.elastisys.scale.commons.net.alerter.multiplexing.MultiplexingAlerter;
 import com.google.common.base.Optional;
 import com.google.common.base.Throwables;
 import com.google.common.collect.Maps;
 import com.google.common.eventbus.EventBus;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 
@@ -145,6 +166,11 @@ import com.google.gson.JsonObject;
  * document with the above structure. From this document a {@link DriverConfig}
  * is constructed and passed on to the {@link CloudPoolDriver} via a call to
  * {@link CloudPoolDriver#configure}.
+ * <p/>
+ * A started {@link BaseCloudPool} is only restarted on re-configuration if the
+ * settings passed to the {@link CloudPoolDriver} have changed. Other changes
+ * are applied to the running pool, which keeps its cached pool members, its
+ * desired size and any machines scheduled for termination.
  *
  * <h3>Identifying pool members:</h2>
  *
@@ -152,6 +178,17 @@ import com.google.gson.JsonObject;
  * {@link CloudPoolDriver#listMachines()}. How to identify pool members are left
  * to the {@link CloudPoolDriver} implementation but could make use of tags (if
  * supported by the cloud API).
+ * <p/>
+ * On start, the {@link BaseCloudPool} waits for the pool members to be fetched
+ * before accepting requests, unless {@code poolFetch.warmStart} is enabled and
+ * the pool members observed by a previous run have been persisted, in which
+ * case those are served until the first fetch (made in the background) has
+ * completed. Pool updates always wait for the first fetch.
+ * <p/>
+ * If the {@link CloudPoolDriver} is an {@link IncrementalCloudPoolDriver},
+ * pool members are instead refreshed by only fetching the changes since the
+ * last refresh, with a full listing made every
+ * {@code poolFetch.fullResyncInterval}.
  *
  * <h3>Handling resize requests:</h3>
  *
@@ -159,6 +196,10 @@ import com.google.gson.JsonObject;
  * the new desired size but does not immediately apply the necessary changes to
  * the machine pool. Instead, pool updates are carried out in a periodical
  * manner (with a period specified by the {@code poolUpdate} configuration key).
+ * If {@code poolUpdate.updateOnChange} is enabled, a pool update is also
+ * triggered right away whenever the desired size changes or a machine is
+ * terminated, attached or detached. Changes that arrive while such an update is
+ * waiting to run are handled by that same update.
  * <p/>
  * When a pool update is triggered, the actions taken depend on if the pool
  * needs to grow or shrink.
@@ -182,18 +223,37 @@ import com.google.gson.JsonObject;
  * If email and/or HTTP webhook alerts have been configured, the
  * {@link BaseCloudPool} will send alerts to notify selected recipients of
  * interesting events (such as error conditions, scale-ups/scale-downs, etc).
+ * Alerts are sent in the background (see {@link AsyncAlerter}) from a
+ * dedicated thread while the pool is started, so slow alert receivers never
+ * hold up pool updates. Bursts of alerts on the same topic are coalesced into
+ * a single alert.
+ *
+ * <h3>Metrics:</h3>
+ *
+ * The {@link BaseCloudPool} keeps runtime metrics (such as the age of the
+ * cached pool, pool update durations, termination queue length and the
+ * latency and failures of every {@link CloudPoolDriver} call) in a
+ * {@link MetricsRegistry}, which REST servers publish at {@code GET /metrics}.
  *
  * @see CloudPoolDriver
  */
-public class BaseCloudPool implements CloudPool {
+public class BaseCloudPool implements CloudPool, MetricsSource {
 
     /** {@link Logger} instance. */
     static final Logger LOG = LoggerFactory.getLogger(BaseCloudPool.class);
 
+    /** Number of seconds before an idle alert sender thread is released. */
+    private static final long IDLE_ALERT_SENDER_TIMEOUT_SECONDS = 60;
+
     /** Declares where the runtime state is stored. */
     private final StateStorage stateStorage;
-    /** A cloud-specific management driver for the cloud pool. */
-    private CloudPoolDriver cloudDriver = null;
+    /**
+     * A cloud-specific management driver for the cloud pool, wrapped in a
+     * {@link MeteredCloudPoolDriver}.
+     */
+    private MeteredCloudPoolDriver cloudDriver = null;
+    /** Holds the runtime metrics of the cloud pool. */
+    private final MetricsRegistry metrics;
 
     /**
      * {@link EventBus} used to post {@link Alert} events that are to be
@@ -204,8 +264,16 @@ public class BaseCloudPool implements CloudPool {
     /** Used to perform any periodical tasks or background jobs. */
     private final ScheduledExecutorService executor;
 
-    /** The currently set configuration. */
-    private BaseCloudPoolConfig config;
+    /**
+     * The currently set configuration. <code>null</code> until configured,
+     * which makes it serve as the configured flag.
+     */
+    private volatile BaseCloudPoolConfig config;
+    /**
+     * The JSON form of {@link #config}, produced once per configuration
+     * change. Shared by all {@link #getConfiguration()} callers.
+     */
+    private volatile JsonObject configJson;
     /** <code>true</code> if pool has been started. */
     private boolean started;
 
@@ -214,6 +282,18 @@ public class BaseCloudPool implements CloudPool {
      * {@link Alerter}s.
      */
     private final MultiplexingAlerter alerter;
+    /**
+     * Receives {@link Alert}s sent on the {@link EventBus} and hands them off
+     * to the {@link #alerter} from a task run on the {@link #alertSender}, so
+     * that posting an {@link Alert} never waits for alert receivers.
+     */
+    private final AsyncAlerter asyncAlerter;
+    /**
+     * Runs the {@link #asyncAlerter}'s send task while the pool is started.
+     * Kept apart from the {@link #executor}, so that a slow alert receiver
+     * cannot delay pool updates. <code>null</code> while stopped.
+     */
+    private volatile ExecutorService alertSender;
 
     /** Retrieves {@link MachinePool} members. */
     private CachingPoolFetcher poolFetcher;
@@ -258,14 +338,17 @@ public class BaseCloudPool implements CloudPool {
         checkArgument(eventBus != null, "no eventBus given");
 
         this.stateStorage = stateStorage;
-        this.cloudDriver = cloudDriver;
+        this.metrics = new MetricsRegistry();
+        this.cloudDriver = MeteredCloudPoolDriver.wrap(cloudDriver, this.metrics);
         this.executor = executor;
         this.eventBus = eventBus;
 
         this.alerter = new MultiplexingAlerter();
-        this.eventBus.register(this.alerter);
+        this.asyncAlerter = new AsyncAlerter(this.alerter, this::sendAlerts);
+        this.eventBus.register(this.asyncAlerter);
 
         this.config = null;
+        this.configJson = null;
         this.started = false;
     }
 
@@ -274,29 +357,58 @@ public class BaseCloudPool implements CloudPool {
         BaseCloudPoolConfig configuration = validate(jsonConfig);
 
         synchronized (this) {
-            boolean wasStarted = isStarted();
-            if (wasStarted) {
+            Set<ConfigSection> changed = ConfigSection.changed(this.config, configuration);
+            LOG.debug("setting new configuration (changed sections: {}): {}", changed,
+                    JsonUtils.toPrettyString(jsonConfig));
+
+            // the pool fetcher and pool updater can only be kept as long as
+            // the driver settings are unchanged
+            boolean restart = isStarted() && changed.contains(ConfigSection.DRIVER);
+            if (restart) {
                 stop();
             }
 
-            LOG.debug("setting new configuration: {}", JsonUtils.toPrettyString(jsonConfig));
-            // re-configure driver
-            DriverConfig driverConfig = new DriverConfig(configuration.getName(), configuration.getCloudApiSettings(),
-                    configuration.getProvisioningTemplate());
-            this.cloudDriver.configure(driverConfig);
+            if (changed.contains(ConfigSection.DRIVER)) {
+                DriverConfig driverConfig = new DriverConfig(configuration.getName(),
+                        configuration.getCloudApiSettings(), configuration.getProvisioningTemplate());
+                this.cloudDriver.configure(driverConfig);
+            }
             // set configuration only it it was successfully set on driver
+            this.configJson = JsonUtils.toJson(configuration).getAsJsonObject();
             this.config = configuration;
 
-            // alerters may have changed
-            this.alerter.unregisterAlerters();
-            this.alerter.registerAlerters(config().getAlerts(), standardAlertMetadata());
+            // alerters (and the pool name tag of alerts) may have changed
+            if (changed.contains(ConfigSection.ALERTS) || changed.contains(ConfigSection.DRIVER)) {
+                this.alerter.unregisterAlerters();
+                this.alerter.registerAlerters(config().getAlerts(), standardAlertMetadata());
+                this.asyncAlerter.setSendFilter(acceptedByAnyAlerter(config().getAlerts()));
+            }
 
-            if (wasStarted) {
+            if (restart) {
                 start();
+            } else if (isStarted()) {
+                reconfigureStarted(changed);
             }
         }
     }
 
+    /**
+     * Applies a configuration change that leaves the driver settings
+     * unchanged to a started pool, without losing the cached pool or any
+     * machines queued for termination.
+     *
+     * @param changed
+     *            The changed configuration sections.
+     */
+    private void reconfigureStarted(Set<ConfigSection> changed) {
+        if (changed.contains(ConfigSection.POOL_FETCH)) {
+            this.poolFetcher.reconfigure(driverFetcher(), config().getPoolFetch());
+        }
+        if (changed.contains(ConfigSection.POOL_UPDATE) || changed.contains(ConfigSection.SCALE_IN)) {
+            this.poolUpdater.reconfigure(config());
+        }
+    }
+
     private BaseCloudPoolConfig validate(JsonObject jsonConfig) throws IllegalArgumentException {
         try {
             BaseCloudPoolConfig configuration = JsonUtils.toObject(jsonConfig, BaseCloudPoolConfig.class);
@@ -308,12 +420,16 @@ public class BaseCloudPool implements CloudPool {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The configuration is only serialized once per {@link #configure}, and
+     * the same {@link JsonObject} is returned to every caller until the next
+     * {@link #configure}. Callers must therefore not modify it.
+     */
     @Override
     public Optional<JsonObject> getConfiguration() {
-        if (this.config == null) {
-            return Optional.absent();
-        }
-        return Optional.of(JsonUtils.toJson(this.config).getAsJsonObject());
+        return Optional.fromNullable(this.configJson);
     }
 
     @Override
@@ -323,28 +439,103 @@ public class BaseCloudPool implements CloudPool {
         if (isStarted()) {
             return;
         }
-        LOG.info("starting {} driving a {}", getClass().getSimpleName(), this.cloudDriver.getClass().getSimpleName());
-
-        RetryingPoolFetcher retryingFetcher = new RetryingPoolFetcher(this.cloudDriver,
-                config().getPoolFetch().getRetries());
-        // note: we wait for first attempt to get the pool to complete
-        this.poolFetcher = new CachingPoolFetcher(this.stateStorage, retryingFetcher, config().getPoolFetch(),
-                this.executor, this.eventBus);
-        this.poolFetcher.awaitFirstFetch();
+        LOG.info("starting {} driving a {}", getClass().getSimpleName(),
+                this.cloudDriver.getDelegate().getClass().getSimpleName());
+
+        this.alertSender = newAlertSender();
+        this.poolFetcher = new CachingPoolFetcher(this.stateStorage, driverFetcher(), config().getPoolFetch(),
+                this.executor, MoreExecutors.directExecutor(), this.eventBus, this::desiredSizeIfStarted, this.metrics);
+        if (config().getPoolFetch().isWarmStart() && this.poolFetcher.hasServableCache()) {
+            // serve the pool persisted by the previous run while the first
+            // fetch is made in the background. pool updates wait for it.
+            LOG.info("warm start: serving persisted machine pool until first fetch completes");
+        } else {
+            // note: we wait for first attempt to get the pool to complete
+            this.poolFetcher.awaitFirstFetch();
+        }
+        // let driver verify pool membership against the cached pool
+        this.cloudDriver.setPoolMembership(this.poolFetcher);
         this.poolUpdater = new StandardPoolUpdater(this.cloudDriver, this.poolFetcher, this.executor, this.eventBus,
-                config());
+                config(), this.metrics);
 
         this.started = true;
         LOG.info(getClass().getSimpleName() + " started.");
     }
 
+    /**
+     * Creates the {@link PoolFetcher} that fetches the pool from the
+     * {@link #cloudDriver} according to the current {@code poolFetch}
+     * configuration.
+     *
+     * @return A {@link PoolFetcher} that fetches the pool from the
+     *         {@link #cloudDriver}.
+     */
+    private PoolFetcher driverFetcher() {
+        if (this.cloudDriver instanceof IncrementalCloudPoolDriver) {
+            return new IncrementalPoolFetcher((IncrementalCloudPoolDriver) this.cloudDriver,
+                    config().getPoolFetch().getRetries(), config().getPoolFetch().getFullResyncInterval());
+        }
+        return new RetryingPoolFetcher(this.cloudDriver, config().getPoolFetch().getRetries());
+    }
+
+    /**
+     * Creates the {@link ExecutorService} that sends alerts, on a single
+     * thread that is released when idle.
+     *
+     * @return The created {@link ExecutorService}.
+     */
+    private static ExecutorService newAlertSender() {
+        ThreadPoolExecutor alertSender = new ThreadPoolExecutor(1, 1, IDLE_ALERT_SENDER_TIMEOUT_SECONDS,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                new ThreadFactoryBuilder().setNameFormat("alert-sender-%d").setDaemon(true).build());
+        alertSender.allowCoreThreadTimeOut(true);
+        return alertSender;
+    }
+
+    /**
+     * Runs an {@link AsyncAlerter} send task on the {@link #alertSender}.
+     * While the pool is stopped, the task is rejected and {@link Alert}s stay
+     * queued until the next {@link Alert} is posted after a start.
+     *
+     * @param sendTask
+     *            The task that sends queued {@link Alert}s.
+     * @throws RejectedExecutionException
+     *             If the pool is not started.
+     */
+    private void sendAlerts(Runnable sendTask) throws RejectedExecutionException {
+        ExecutorService alertSender = this.alertSender;
+        if (alertSender == null) {
+            throw new RejectedExecutionException("cloud pool not started");
+        }
+        alertSender.execute(sendTask);
+    }
+
+    /**
+     * Returns the desired size of the pool, or <code>null</code> if the
+     * {@link PoolUpdater} has not been started yet or has not determined the
+     * desired size yet.
+     *
+     * @return The desired size, or <code>null</code> if it is not yet known.
+     */
+    private Integer desiredSizeIfStarted() {
+        PoolUpdater poolUpdater = this.poolUpdater;
+        if (poolUpdater == null) {
+            return null;
+        }
+        return poolUpdater.getState().getDesiredSize().orNull();
+    }
+
     @Override
     public void stop() {
         if (isStarted()) {
             LOG.debug("stopping {} ...", getClass().getSimpleName());
+            this.cloudDriver.setPoolMembership(PoolMembership.NONE);
             // cancel tasks (allow any running tasks to finish)
             this.poolFetcher.close();
             this.poolUpdater.close();
+            // let alerts already handed off finish sending
+            this.alertSender.shutdown();
+            this.alertSender = null;
             this.started = false;
         }
         LOG.info(getClass().getSimpleName() + " stopped.");
@@ -356,7 +547,7 @@ public class BaseCloudPool implements CloudPool {
     }
 
     private boolean isConfigured() {
-        return getConfiguration().isPresent();
+        return this.config != null;
     }
 
     /**
@@ -394,6 +585,8 @@ public class BaseCloudPool implements CloudPool {
     public PoolSizeSummary getPoolSize() throws CloudPoolException {
         ensureStarted();
 
+        // note: neither the (cached) pool nor the desired size is read under
+        // a lock, so an in-progress pool update never delays the response
         MachinePool pool = this.poolFetcher.get();
         return new PoolSizeSummary(pool.getTimestamp(), this.poolUpdater.getDesiredSize(),
                 pool.getAllocatedMachines().size(), pool.getActiveMachines().size());
@@ -456,6 +649,31 @@ public class BaseCloudPool implements CloudPool {
         return standardTags;
     }
 
+    /**
+     * Returns a filter that only lets through {@link Alert}s that would pass
+     * the severity filter of at least one configured {@link Alerter}, so that
+     * no effort is spent on {@link Alert}s that would not be sent anyway.
+     *
+     * @param alerts
+     *            The alerter configuration. May be <code>null</code>.
+     * @return A filter that accepts {@link Alert}s that at least one
+     *         {@link Alerter} would send.
+     */
+    private static Predicate<Alert> acceptedByAnyAlerter(AlertersConfig alerts) {
+        if (alerts == null) {
+            return alert -> false;
+        }
+        List<SeverityFilter> severityFilters = new ArrayList<>();
+        alerts.getSmtpAlerters().forEach(smtpAlerter -> severityFilters.add(smtpAlerter.getSeverityFilter()));
+        alerts.getHttpAlerters().forEach(httpAlerter -> severityFilters.add(httpAlerter.getSeverityFilter()));
+        return alert -> severityFilters.stream().anyMatch(filter -> !filter.shouldSuppress(alert));
+    }
+
+    @Override
+    public MetricsRegistry getMetricsRegistry() {
+        return this.metrics;
+    }
+
     BaseCloudPoolConfig config() {
         return this.config;
     }
@@ -0,0 +1,65 @@
+package com.elastisys.scale.cloudpool.commons.basepool;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import com.elastisys.scale.cloudpool.commons.basepool.config.BaseCloudPoolConfig;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriver;
+import com.google.common.base.Objects;
+
+/**
+ * The sections of a {@link BaseCloudPoolConfig}, grouped by the
+ * {@link BaseCloudPool} component that they govern. Used to only reconfigure
+ * the components affected by a configuration change.
+ */
+enum ConfigSection {
+    /**
+     * The settings passed to the {@link CloudPoolDriver}: {@code name},
+     * {@code cloudApiSettings} and {@code provisioningTemplate}.
+     */
+    DRIVER,
+    /** The {@code poolFetch} settings. */
+    POOL_FETCH,
+    /** The {@code poolUpdate} settings. */
+    POOL_UPDATE,
+    /** The {@code scaleInConfig} settings. */
+    SCALE_IN,
+    /** The {@code alerts} settings. */
+    ALERTS;
+
+    /**
+     * Returns the sections that differ between two configurations.
+     *
+     * @param oldConfig
+     *            The old configuration. May be <code>null</code>, in which
+     *            case all sections are considered changed.
+     * @param newConfig
+     *            The new configuration.
+     * @return The changed sections. Empty if the configurations are equal.
+     */
+    static Set<ConfigSection> changed(BaseCloudPoolConfig oldConfig, BaseCloudPoolConfig newConfig) {
+        if (oldConfig == null) {
+            return EnumSet.allOf(ConfigSection.class);
+        }
+
+        Set<ConfigSection> changed = EnumSet.noneOf(ConfigSection.class);
+        if (!Objects.equal(oldConfig.getName(), newConfig.getName())
+                || !Objects.equal(oldConfig.getCloudApiSettings(), newConfig.getCloudApiSettings())
+                || !Objects.equal(oldConfig.getProvisioningTemplate(), newConfig.getProvisioningTemplate())) {
+            changed.add(DRIVER);
+        }
+        if (!Objects.equal(oldConfig.getPoolFetch(), newConfig.getPoolFetch())) {
+            changed.add(POOL_FETCH);
+        }
+        if (!Objects.equal(oldConfig.getPoolUpdate(), newConfig.getPoolUpdate())) {
+            changed.add(POOL_UPDATE);
+        }
+        if (!Objects.equal(oldConfig.getScaleInConfig(), newConfig.getScaleInConfig())) {
+            changed.add(SCALE_IN);
+        }
+        if (!Objects.equal(oldConfig.getAlerts(), newConfig.getAlerts())) {
+            changed.add(ALERTS);
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,20 @@
+package com.elastisys.scale.cloudpool.commons.basepool.alerts;
+
+import com.elastisys.scale.cloudpool.api.types.MachinePool;
+import com.elastisys.scale.commons.net.alerter.Alert;
+
+/**
+ * Controls how the {@link MachinePool} members are described in the
+ * {@code poolMembers} tag of {@link Alert}s about pool size changes.
+ */
+public enum AlertPayload {
+    /** All pool members (in short format, without metadata). */
+    FULL,
+    /** The number of pool members in each machine state. */
+    SUMMARY,
+    /**
+     * Only the pool members that were added, removed or changed since the
+     * previously sent {@code poolMembers} tag.
+     */
+    DELTA;
+}
@@ -0,0 +1,286 @@
+package com.elastisys.scale.cloudpool.commons.basepool.alerts;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.elastisys.scale.commons.net.alerter.Alert;
+import com.elastisys.scale.commons.net.alerter.AlertSeverity;
+import com.elastisys.scale.commons.net.alerter.Alerter;
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+import com.google.gson.JsonPrimitive;
+
+/**
+ * An {@link Alerter} that hands off {@link Alert}s to a delegate
+ * {@link Alerter} from a task run on a given {@link Executor}, so that posting
+ * an {@link Alert} (for example, on an {@link EventBus}) never waits for slow
+ * alert receivers such as SMTP servers or HTTP webhooks. The
+ * {@link AsyncAlerter} does not own any threads and therefore needs not be
+ * closed. Since a send task may block for as long as the slowest receiver,
+ * the {@link Executor} should not be one that runs time-critical tasks.
+ * <p/>
+ * {@link Alert}s are placed on a bounded queue. At most one send task is
+ * submitted to the {@link Executor} at a time. It takes all {@link Alert}s
+ * queued up at the time and coalesces {@link Alert}s with the same topic into
+ * a single {@link Alert}, so that a burst of alerts (which tends to build up
+ * while a previous alert is being sent) results in one message per topic. If
+ * the queue is full, the {@link Alert} is dropped. The number of dropped
+ * {@link Alert}s is logged and attached as metadata to the next {@link Alert}
+ * that gets sent.
+ * <p/>
+ * {@link Alert}s rejected by the send filter (see
+ * {@link #setSendFilter(Predicate)}) are discarded right away. The deferred
+ * tags of a {@link DeferredAlert} are evaluated by the send task, and
+ * only for {@link Alert}s that actually get sent.
+ */
+public class AsyncAlerter implements Alerter {
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncAlerter.class);
+
+    /** Default maximum number of {@link Alert}s waiting to be sent. */
+    public static final int DEFAULT_QUEUE_CAPACITY = 100;
+
+    /**
+     * Metadata key holding the number of {@link Alert}s that a coalesced
+     * {@link Alert} stands for.
+     */
+    public static final String COALESCED_ALERTS_TAG = "coalescedAlerts";
+    /**
+     * Metadata key holding the number of {@link Alert}s dropped since the
+     * previously sent {@link Alert}.
+     */
+    public static final String DROPPED_ALERTS_TAG = "droppedAlerts";
+
+    /** The {@link Alerter} that sends the {@link Alert}s. */
+    private final Alerter delegate;
+    /** {@link Alert}s waiting to be sent. */
+    private final BlockingQueue<Alert> queue;
+    /** Runs the send task. */
+    private final Executor executor;
+    /**
+     * <code>true</code> while a send task is submitted to the
+     * {@link #executor} or running.
+     */
+    private final AtomicBoolean sending = new AtomicBoolean(false);
+
+    /** The total number of dropped {@link Alert}s. */
+    private final AtomicLong droppedAlerts = new AtomicLong(0);
+    /**
+     * The number of {@link Alert}s dropped since an {@link Alert} was last
+     * sent.
+     */
+    private final AtomicLong unreportedDrops = new AtomicLong(0);
+
+    /** Decides which {@link Alert}s are worth sending. */
+    private volatile Predicate<Alert> sendFilter = alert -> true;
+
+    /**
+     * Creates an {@link AsyncAlerter} with a default queue capacity.
+     *
+     * @param delegate
+     *            The {@link Alerter} that sends the {@link Alert}s.
+     * @param executor
+     *            Runs the task that sends queued {@link Alert}s.
+     */
+    public AsyncAlerter(Alerter delegate, Executor executor) {
+        this(delegate, executor, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Creates an {@link AsyncAlerter}.
+     *
+     * @param delegate
+     *            The {@link Alerter} that sends the {@link Alert}s.
+     * @param executor
+     *            Runs the task that sends queued {@link Alert}s.
+     * @param queueCapacity
+     *            The maximum number of {@link Alert}s waiting to be sent.
+     *            Further {@link Alert}s are dropped.
+     */
+    public AsyncAlerter(Alerter delegate, Executor executor, int queueCapacity) {
+        checkArgument(delegate != null, "no delegate given");
+        checkArgument(executor != null, "no executor given");
+        checkArgument(queueCapacity >= 1, "queueCapacity must be at least 1");
+        this.delegate = delegate;
+        this.executor = executor;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    /**
+     * Queues an {@link Alert} for sending. Never blocks: if the queue is full,
+     * the {@link Alert} is dropped.
+     */
+    @Subscribe
+    @AllowConcurrentEvents
+    @Override
+    public void handleAlert(Alert alert) {
+        if (!this.sendFilter.test(alert)) {
+            LOG.trace("discarding filtered {} alert on topic {}", alert.getSeverity(), alert.getTopic());
+            return;
+        }
+        if (!this.queue.offer(alert)) {
+            this.unreportedDrops.incrementAndGet();
+            long dropped = this.droppedAlerts.incrementAndGet();
+            LOG.warn("alert queue full: dropping {} alert on topic {} ({} alert(s) dropped in total)",
+                    alert.getSeverity(), alert.getTopic(), dropped);
+        }
+        submitSendTask();
+    }
+
+    /**
+     * Sets the filter that decides which {@link Alert}s are worth sending.
+     * For example, {@link Alert}s that no receiver would accept can be
+     * discarded before any deferred tags have been evaluated. By default, all
+     * {@link Alert}s are sent.
+     *
+     * @param sendFilter
+     *            Returns <code>true</code> for {@link Alert}s that are to be
+     *            sent.
+     */
+    public void setSendFilter(Predicate<Alert> sendFilter) {
+        checkArgument(sendFilter != null, "no sendFilter given");
+        this.sendFilter = sendFilter;
+    }
+
+    /**
+     * Returns the total number of {@link Alert}s that have been dropped due
+     * to the queue being full.
+     *
+     * @return The number of dropped {@link Alert}s.
+     */
+    public long getDroppedAlerts() {
+        return this.droppedAlerts.get();
+    }
+
+    /**
+     * Returns the number of {@link Alert}s currently waiting to be sent.
+     *
+     * @return The number of queued {@link Alert}s.
+     */
+    public int getQueuedAlerts() {
+        return this.queue.size();
+    }
+
+    /**
+     * Submits a send task to the {@link #executor}, unless one is already
+     * submitted or running.
+     */
+    private void submitSendTask() {
+        if (!this.sending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            this.executor.execute(this::sendQueued);
+        } catch (RejectedExecutionException e) {
+            this.sending.set(false);
+            LOG.warn("failed to submit alert send task, {} alert(s) left unsent: {}", this.queue.size(),
+                    e.getMessage());
+        }
+    }
+
+    /**
+     * Takes all queued {@link Alert}s, coalesces them per topic and sends
+     * them, until the queue is empty.
+     */
+    private void sendQueued() {
+        try {
+            List<Alert> batch = new ArrayList<>();
+            while (this.queue.drainTo(batch) > 0) {
+                for (Alert alert : coalesce(batch)) {
+                    send(alert);
+                }
+                batch.clear();
+            }
+        } finally {
+            this.sending.set(false);
+        }
+        // an alert may have been queued after the queue was last drained
+        if (!this.queue.isEmpty()) {
+            submitSendTask();
+        }
+    }
+
+    /**
+     * Evaluates any deferred tags of an {@link Alert} and sends it through
+     * the delegate {@link Alerter}.
+     *
+     * @param alert
+     */
+    private void send(Alert alert) {
+        try {
+            alert = DeferredAlert.resolve(alert);
+            long drops = this.unreportedDrops.getAndSet(0);
+            if (drops > 0) {
+                alert = alert.withMetadata(DROPPED_ALERTS_TAG, new JsonPrimitive(drops));
+            }
+            this.delegate.handleAlert(alert);
+        } catch (Exception e) {
+            LOG.error("failed to send alert on topic {}: {}", alert.getTopic(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Coalesces a batch of {@link Alert}s into one {@link Alert} per topic,
+     * in the order each topic first appears in the batch.
+     *
+     * @param batch
+     *            {@link Alert}s in the order they were posted.
+     * @return One {@link Alert} per topic.
+     */
+    static List<Alert> coalesce(List<Alert> batch) {
+        Map<String, List<Alert>> alertsByTopic = new LinkedHashMap<>();
+        for (Alert alert : batch) {
+            alertsByTopic.computeIfAbsent(alert.getTopic(), topic -> new ArrayList<>()).add(alert);
+        }
+
+        List<Alert> coalesced = new ArrayList<>();
+        for (List<Alert> topicAlerts : alertsByTopic.values()) {
+            coalesced.add(topicAlerts.size() == 1 ? topicAlerts.get(0) : coalesceTopic(topicAlerts));
+        }
+        return coalesced;
+    }
+
+    /**
+     * Coalesces a number of same-topic {@link Alert}s into a single
+     * {@link Alert}. The coalesced {@link Alert} carries the message,
+     * timestamp and metadata of the latest {@link Alert} and the highest
+     * severity of any of the {@link Alert}s. Its details list the messages of
+     * all {@link Alert}s. Only the deferred tags of the latest {@link Alert}
+     * are evaluated.
+     *
+     * @param topicAlerts
+     * @return The coalesced {@link Alert}.
+     */
+    private static Alert coalesceTopic(List<Alert> topicAlerts) {
+        Alert latest = DeferredAlert.resolve(topicAlerts.get(topicAlerts.size() - 1));
+        AlertSeverity severity = latest.getSeverity();
+        StringBuilder details = new StringBuilder();
+        for (Alert alert : topicAlerts) {
+            if (alert.getSeverity().compareTo(severity) > 0) {
+                severity = alert.getSeverity();
+            }
+            details.append(String.format("%s [%s] %s%n", alert.getTimestamp(), alert.getSeverity(),
+                    alert.getMessage()));
+        }
+        String message = String.format("%s (and %d earlier alert(s) on topic %s)", latest.getMessage(),
+                topicAlerts.size() - 1, latest.getTopic());
+
+        return new Alert(latest.getTopic(), severity, latest.getTimestamp(), message, details.toString(),
+                latest.getMetadata())
+                .withMetadata(COALESCED_ALERTS_TAG, new JsonPrimitive(topicAlerts.size()));
+    }
+}
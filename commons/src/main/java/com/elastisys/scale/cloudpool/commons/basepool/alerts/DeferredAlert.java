@@ -0,0 +1,103 @@
+package com.elastisys.scale.cloudpool.commons.basepool.alerts;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.elastisys.scale.commons.json.JsonUtils;
+import com.elastisys.scale.commons.net.alerter.Alert;
+import com.elastisys.scale.commons.net.alerter.AlertSeverity;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.gson.JsonElement;
+
+/**
+ * An {@link Alert} with metadata tags that are only evaluated when the
+ * {@link Alert} is about to be sent, which avoids producing expensive tags
+ * (such as a snapshot of the machine pool) for {@link Alert}s that are never
+ * sent, for example since no alerter is configured or since the
+ * {@link Alert} is filtered out by severity.
+ * <p/>
+ * The deferred tags are not part of {@link #getMetadata()} until the
+ * {@link Alert} has been {@link #resolve()}d.
+ *
+ * @see AsyncAlerter
+ */
+public class DeferredAlert extends Alert {
+    private static final Logger LOG = LoggerFactory.getLogger(DeferredAlert.class);
+
+    /** Metadata tags to evaluate on {@link #resolve()}. */
+    private final transient Map<String, Supplier<JsonElement>> deferredTags;
+
+    /**
+     * Creates a {@link DeferredAlert}.
+     *
+     * @param topic
+     *            The {@link Alert} topic.
+     * @param severity
+     *            The {@link Alert} severity.
+     * @param timestamp
+     *            The time the {@link Alert} was raised.
+     * @param message
+     *            The {@link Alert} message.
+     * @param details
+     *            Details about the {@link Alert}. May be <code>null</code>.
+     * @param tags
+     *            Metadata tags that have already been evaluated.
+     * @param deferredTags
+     *            Metadata tags to evaluate when the {@link Alert} is about to
+     *            be sent.
+     */
+    public DeferredAlert(String topic, AlertSeverity severity, DateTime timestamp, String message, String details,
+            Map<String, JsonElement> tags, Map<String, Supplier<JsonElement>> deferredTags) {
+        super(topic, severity, timestamp, message, details, tags);
+        this.deferredTags = ImmutableMap.copyOf(deferredTags);
+    }
+
+    /**
+     * Returns the metadata tags that are evaluated on {@link #resolve()}.
+     *
+     * @return The deferred tags, keyed on tag name.
+     */
+    public Map<String, Supplier<JsonElement>> getDeferredTags() {
+        return this.deferredTags;
+    }
+
+    /**
+     * Evaluates the deferred tags and returns a plain {@link Alert} that
+     * carries them in its metadata. A tag that fails to evaluate is replaced
+     * by a note about the failure.
+     *
+     * @return An {@link Alert} with all tags evaluated.
+     */
+    public Alert resolve() {
+        Map<String, JsonElement> resolvedTags = Maps.newHashMap();
+        for (Map.Entry<String, Supplier<JsonElement>> deferredTag : this.deferredTags.entrySet()) {
+            try {
+                resolvedTags.put(deferredTag.getKey(), deferredTag.getValue().get());
+            } catch (Exception e) {
+                LOG.warn("failed to evaluate alert tag {}: {}", deferredTag.getKey(), e.getMessage());
+                resolvedTags.put(deferredTag.getKey(),
+                        JsonUtils.toJson(String.format("N/A (call failed: %s)", e.getMessage())));
+            }
+        }
+        return withMetadata(resolvedTags);
+    }
+
+    /**
+     * Resolves an {@link Alert}, if it is a {@link DeferredAlert}.
+     *
+     * @param alert
+     * @return The resolved {@link Alert}, or the given {@link Alert} if it
+     *         is not deferred.
+     */
+    public static Alert resolve(Alert alert) {
+        if (alert instanceof DeferredAlert) {
+            return ((DeferredAlert) alert).resolve();
+        }
+        return alert;
+    }
+}
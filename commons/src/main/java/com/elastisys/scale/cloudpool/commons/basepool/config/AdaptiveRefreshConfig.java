@@ -0,0 +1,93 @@
+package com.elastisys.scale.cloudpool.commons.basepool.config;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.elastisys.scale.cloudpool.api.types.MachinePool;
+import com.elastisys.scale.commons.json.JsonUtils;
+import com.elastisys.scale.commons.json.types.TimeInterval;
+import com.google.common.base.Objects;
+
+/**
+ * Bounds for an adaptive {@link MachinePool} refresh interval. The refresh
+ * interval is shortened towards {@code minInterval} while the pool is
+ * changing and lengthened towards {@code maxInterval} while the pool is
+ * stable.
+ */
+public class AdaptiveRefreshConfig {
+
+    /**
+     * The shortest refresh interval, used while the pool is changing (for
+     * example, while machines are booting).
+     */
+    private final TimeInterval minInterval;
+    /**
+     * The longest refresh interval, approached while the pool remains
+     * unchanged.
+     */
+    private final TimeInterval maxInterval;
+
+    /**
+     * Creates an {@link AdaptiveRefreshConfig}.
+     *
+     * @param minInterval
+     *            The shortest refresh interval, used while the pool is
+     *            changing (for example, while machines are booting).
+     * @param maxInterval
+     *            The longest refresh interval, approached while the pool
+     *            remains unchanged.
+     */
+    public AdaptiveRefreshConfig(TimeInterval minInterval, TimeInterval maxInterval) {
+        this.minInterval = minInterval;
+        this.maxInterval = maxInterval;
+    }
+
+    /**
+     * The shortest refresh interval, used while the pool is changing (for
+     * example, while machines are booting).
+     *
+     * @return The minimum refresh interval.
+     */
+    public TimeInterval getMinInterval() {
+        return this.minInterval;
+    }
+
+    /**
+     * The longest refresh interval, approached while the pool remains
+     * unchanged.
+     *
+     * @return The maximum refresh interval.
+     */
+    public TimeInterval getMaxInterval() {
+        return this.maxInterval;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(this.minInterval, this.maxInterval);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof AdaptiveRefreshConfig) {
+            AdaptiveRefreshConfig that = (AdaptiveRefreshConfig) obj;
+            return Objects.equal(this.minInterval, that.minInterval)
+                    && Objects.equal(this.maxInterval, that.maxInterval);
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return JsonUtils.toPrettyString(JsonUtils.toJson(this));
+    }
+
+    public void validate() throws IllegalArgumentException {
+        checkArgument(this.minInterval != null, "adaptiveRefresh: missing minInterval");
+        checkArgument(this.maxInterval != null, "adaptiveRefresh: missing maxInterval");
+        this.minInterval.validate();
+        this.maxInterval.validate();
+        checkArgument(this.minInterval.getMillis() > 0, "adaptiveRefresh: minInterval must be positive");
+        checkArgument(this.minInterval.getMillis() <= this.maxInterval.getMillis(),
+                "adaptiveRefresh: maxInterval cannot be shorter than minInterval");
+    }
+}
@@ -2,6 +2,7 @@ package com.elastisys.scale.cloudpool.commons.basepool.config;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
 import com.elastisys.scale.cloudpool.api.CloudPool;
@@ -16,6 +17,8 @@ import com.google.common.base.Objects;
  * errors.
  */
 public class PoolFetchConfig {
+    /** Default full resync interval for incremental pool fetching. */
+    public static final TimeInterval DEFAULT_FULL_RESYNC_INTERVAL = new TimeInterval(10L, TimeUnit.MINUTES);
 
     /** Retry handling when fetching pool members from the cloud API fails. */
     private final RetriesConfig retries;
@@ -30,9 +33,52 @@ public class PoolFetchConfig {
      * should failures to fetch the machine pool be masked.
      */
     private final TimeInterval reachabilityTimeout;
+    /**
+     * For how long a successfully refreshed {@link MachinePool} is considered
+     * fresh enough to be served in response to a forced refresh, without
+     * calling the cloud API again. May be <code>null</code>. Default: 0 (every
+     * forced refresh that does not overlap with an already ongoing refresh
+     * calls the cloud API).
+     */
+    private final TimeInterval freshnessWindow;
+    /**
+     * How often to make a full listing of the {@link MachinePool} members when
+     * the cloud driver supports incremental fetching of pool member changes.
+     * Incremental fetches are used in between full listings. May be
+     * <code>null</code>. Default: 10 minutes.
+     */
+    private final TimeInterval fullResyncInterval;
+    /**
+     * Bounds for adapting the refresh interval to how much the
+     * {@link MachinePool} is changing. May be <code>null</code>, in which case
+     * the pool is refreshed at a fixed {@link #refreshInterval}.
+     */
+    private final AdaptiveRefreshConfig adaptiveRefresh;
+    /**
+     * Age after which a cached {@link MachinePool} is considered stale. A read
+     * that finds a stale (but not yet reachability timed out) cache is still
+     * served from cache, but triggers a background refresh. May be
+     * <code>null</code>, in which case reads never trigger refreshes.
+     */
+    private final TimeInterval softTtl;
+    /**
+     * If <code>true</code>, a started cloud pool serves the {@link MachinePool}
+     * persisted by a previous run right away, rather than waiting for a first
+     * fetch from the cloud API. May be <code>null</code>. Default:
+     * <code>false</code>.
+     */
+    private final Boolean warmStart;
+    /**
+     * If <code>true</code>, the {@link MachinePool} is persisted in a compact
+     * encoding that leaves out machine metadata. Machines restored from such a
+     * cache lack metadata until the pool has been refreshed. May be
+     * <code>null</code>. Default: <code>false</code>.
+     */
+    private final Boolean compactCache;
 
     /**
-     * Creates a {@link PoolFetchConfig}.
+     * Creates a {@link PoolFetchConfig} with default values for optional
+     * fields.
      *
      * @param retries
      *            Retry handling when fetching pool members from the cloud API
@@ -47,9 +93,154 @@ public class PoolFetchConfig {
      *            the machine pool be masked.
      */
     public PoolFetchConfig(RetriesConfig retries, TimeInterval refreshInterval, TimeInterval reachabilityTimeout) {
+        this(retries, refreshInterval, reachabilityTimeout, null, null, null, null);
+    }
+
+    /**
+     * Creates a {@link PoolFetchConfig}.
+     *
+     * @param retries
+     *            Retry handling when fetching pool members from the cloud API
+     *            fails.
+     * @param refreshInterval
+     *            How often to refresh the cloud pool's view of the
+     *            {@link MachinePool} members.
+     * @param reachabilityTimeout
+     *            How long to respond with cached {@link MachinePool}
+     *            observations before responding with a cloud reachability
+     *            error. In other words, for how long should failures to fetch
+     *            the machine pool be masked.
+     * @param freshnessWindow
+     *            For how long a successfully refreshed {@link MachinePool} is
+     *            considered fresh enough to be served in response to a forced
+     *            refresh, without calling the cloud API again. May be
+     *            <code>null</code>. Default: 0.
+     * @param fullResyncInterval
+     *            How often to make a full listing of the {@link MachinePool}
+     *            members when the cloud driver supports incremental fetching
+     *            of pool member changes. May be <code>null</code>. Default: 10
+     *            minutes.
+     * @param adaptiveRefresh
+     *            Bounds for adapting the refresh interval to how much the
+     *            {@link MachinePool} is changing. May be <code>null</code>, in
+     *            which case the pool is refreshed at a fixed
+     *            {@code refreshInterval}.
+     * @param softTtl
+     *            Age after which a cached {@link MachinePool} is considered
+     *            stale. A read that finds a stale (but not yet reachability
+     *            timed out) cache is still served from cache, but triggers a
+     *            background refresh. May be <code>null</code>.
+     */
+    public PoolFetchConfig(RetriesConfig retries, TimeInterval refreshInterval, TimeInterval reachabilityTimeout,
+            TimeInterval freshnessWindow, TimeInterval fullResyncInterval, AdaptiveRefreshConfig adaptiveRefresh,
+            TimeInterval softTtl) {
+        this(retries, refreshInterval, reachabilityTimeout, freshnessWindow, fullResyncInterval, adaptiveRefresh,
+                softTtl, null);
+    }
+
+    /**
+     * Creates a {@link PoolFetchConfig}.
+     *
+     * @param retries
+     *            Retry handling when fetching pool members from the cloud API
+     *            fails.
+     * @param refreshInterval
+     *            How often to refresh the cloud pool's view of the
+     *            {@link MachinePool} members.
+     * @param reachabilityTimeout
+     *            How long to respond with cached {@link MachinePool}
+     *            observations before responding with a cloud reachability
+     *            error. In other words, for how long should failures to fetch
+     *            the machine pool be masked.
+     * @param freshnessWindow
+     *            For how long a successfully refreshed {@link MachinePool} is
+     *            considered fresh enough to be served in response to a forced
+     *            refresh, without calling the cloud API again. May be
+     *            <code>null</code>. Default: 0.
+     * @param fullResyncInterval
+     *            How often to make a full listing of the {@link MachinePool}
+     *            members when the cloud driver supports incremental fetching
+     *            of pool member changes. May be <code>null</code>. Default: 10
+     *            minutes.
+     * @param adaptiveRefresh
+     *            Bounds for adapting the refresh interval to how much the
+     *            {@link MachinePool} is changing. May be <code>null</code>, in
+     *            which case the pool is refreshed at a fixed
+     *            {@code refreshInterval}.
+     * @param softTtl
+     *            Age after which a cached {@link MachinePool} is considered
+     *            stale. A read that finds a stale (but not yet reachability
+     *            timed out) cache is still served from cache, but triggers a
+     *            background refresh. May be <code>null</code>.
+     * @param warmStart
+     *            If <code>true</code>, a started cloud pool serves the
+     *            {@link MachinePool} persisted by a previous run right away,
+     *            rather than waiting for a first fetch from the cloud API. May
+     *            be <code>null</code>. Default: <code>false</code>.
+     */
+    public PoolFetchConfig(RetriesConfig retries, TimeInterval refreshInterval, TimeInterval reachabilityTimeout,
+            TimeInterval freshnessWindow, TimeInterval fullResyncInterval, AdaptiveRefreshConfig adaptiveRefresh,
+            TimeInterval softTtl, Boolean warmStart) {
+        this(retries, refreshInterval, reachabilityTimeout, freshnessWindow, fullResyncInterval, adaptiveRefresh,
+                softTtl, warmStart, null);
+    }
+
+    /**
+     * Creates a {@link PoolFetchConfig}.
+     *
+     * @param retries
+     *            Retry handling when fetching pool members from the cloud API
+     *            fails.
+     * @param refreshInterval
+     *            How often to refresh the cloud pool's view of the
+     *            {@link MachinePool} members.
+     * @param reachabilityTimeout
+     *            How long to respond with cached {@link MachinePool}
+     *            observations before responding with a cloud reachability
+     *            error. In other words, for how long should failures to fetch
+     *            the machine pool be masked.
+     * @param freshnessWindow
+     *            For how long a successfully refreshed {@link MachinePool} is
+     *            considered fresh enough to be served in response to a forced
+     *            refresh, without calling the cloud API again. May be
+     *            <code>null</code>. Default: 0.
+     * @param fullResyncInterval
+     *            How often to make a full listing of the {@link MachinePool}
+     *            members when the cloud driver supports incremental fetching
+     *            of pool member changes. May be <code>null</code>. Default: 10
+     *            minutes.
+     * @param adaptiveRefresh
+     *            Bounds for adapting the refresh interval to how much the
+     *            {@link MachinePool} is changing. May be <code>null</code>, in
+     *            which case the pool is refreshed at a fixed
+     *            {@code refreshInterval}.
+     * @param softTtl
+     *            Age after which a cached {@link MachinePool} is considered
+     *            stale. A read that finds a stale (but not yet reachability
+     *            timed out) cache is still served from cache, but triggers a
+     *            background refresh. May be <code>null</code>.
+     * @param warmStart
+     *            If <code>true</code>, a started cloud pool serves the
+     *            {@link MachinePool} persisted by a previous run right away,
+     *            rather than waiting for a first fetch from the cloud API. May
+     *            be <code>null</code>. Default: <code>false</code>.
+     * @param compactCache
+     *            If <code>true</code>, the {@link MachinePool} is persisted in
+     *            a compact encoding that leaves out machine metadata. May be
+     *            <code>null</code>. Default: <code>false</code>.
+     */
+    public PoolFetchConfig(RetriesConfig retries, TimeInterval refreshInterval, TimeInterval reachabilityTimeout,
+            TimeInterval freshnessWindow, TimeInterval fullResyncInterval, AdaptiveRefreshConfig adaptiveRefresh,
+            TimeInterval softTtl, Boolean warmStart, Boolean compactCache) {
         this.retries = retries;
         this.refreshInterval = refreshInterval;
         this.reachabilityTimeout = reachabilityTimeout;
+        this.freshnessWindow = freshnessWindow;
+        this.fullResyncInterval = fullResyncInterval;
+        this.adaptiveRefresh = adaptiveRefresh;
+        this.softTtl = softTtl;
+        this.warmStart = warmStart;
+        this.compactCache = compactCache;
     }
 
     /**
@@ -82,9 +273,81 @@ public class PoolFetchConfig {
         return this.reachabilityTimeout;
     }
 
+    /**
+     * For how long a successfully refreshed {@link MachinePool} is considered
+     * fresh enough to be served in response to a forced refresh, without
+     * calling the cloud API again.
+     *
+     * @return The freshness window. Zero (the default) if forced refreshes
+     *         always call the cloud API.
+     */
+    public TimeInterval getFreshnessWindow() {
+        return Optional.ofNullable(this.freshnessWindow).orElse(new TimeInterval(0L, TimeUnit.SECONDS));
+    }
+
+    /**
+     * How often to make a full listing of the {@link MachinePool} members when
+     * the cloud driver supports incremental fetching of pool member changes.
+     *
+     * @return The full resync interval, or the default interval if none
+     *         is configured.
+     */
+    public TimeInterval getFullResyncInterval() {
+        return Optional.ofNullable(this.fullResyncInterval).orElse(DEFAULT_FULL_RESYNC_INTERVAL);
+    }
+
+    /**
+     * Bounds for adapting the refresh interval to how much the
+     * {@link MachinePool} is changing. If absent, the pool is refreshed at a
+     * fixed {@link #getRefreshInterval()}.
+     *
+     * @return The adaptive refresh bounds, if adaptive refresh is
+     *         configured.
+     */
+    public Optional<AdaptiveRefreshConfig> getAdaptiveRefresh() {
+        return Optional.ofNullable(this.adaptiveRefresh);
+    }
+
+    /**
+     * Age after which a cached {@link MachinePool} is considered stale. A read
+     * that finds a stale (but not yet reachability timed out) cache is still
+     * served from cache, but triggers a background refresh. If absent, reads
+     * never trigger refreshes.
+     *
+     * @return The soft TTL, if one is configured.
+     */
+    public Optional<TimeInterval> getSoftTtl() {
+        return Optional.ofNullable(this.softTtl);
+    }
+
+    /**
+     * If <code>true</code>, a started cloud pool serves the {@link MachinePool}
+     * persisted by a previous run right away, rather than waiting for a first
+     * fetch from the cloud API.
+     *
+     * @return <code>true</code> if warm start is enabled. Defaults to
+     *         <code>false</code>.
+     */
+    public boolean isWarmStart() {
+        return Optional.ofNullable(this.warmStart).orElse(false);
+    }
+
+    /**
+     * If <code>true</code>, the {@link MachinePool} is persisted in a compact
+     * encoding that leaves out machine metadata.
+     *
+     * @return <code>true</code> if the compact encoding is used. Defaults to
+     *         <code>false</code>.
+     */
+    public boolean isCompactCache() {
+        return Optional.ofNullable(this.compactCache).orElse(false);
+    }
+
     @Override
     public int hashCode() {
-        return Objects.hashCode(this.retries, this.refreshInterval, this.reachabilityTimeout);
+        return Objects.hashCode(this.retries, this.refreshInterval, this.reachabilityTimeout,
+                getFreshnessWindow(), getFullResyncInterval(), this.adaptiveRefresh,
+                this.softTtl, isWarmStart(), isCompactCache());
     }
 
     @Override
@@ -93,7 +356,13 @@ public class PoolFetchConfig {
             PoolFetchConfig that = (PoolFetchConfig) obj;
             return Objects.equal(this.retries, that.retries)
                     && Objects.equal(this.refreshInterval, that.refreshInterval)
-                    && Objects.equal(this.reachabilityTimeout, that.reachabilityTimeout);
+                    && Objects.equal(this.reachabilityTimeout, that.reachabilityTimeout)
+                    && Objects.equal(getFreshnessWindow(), that.getFreshnessWindow())
+                    && Objects.equal(getFullResyncInterval(), that.getFullResyncInterval())
+                    && Objects.equal(this.adaptiveRefresh, that.adaptiveRefresh)
+                    && Objects.equal(this.softTtl, that.softTtl)
+                    && Objects.equal(isWarmStart(), that.isWarmStart())
+                    && Objects.equal(isCompactCache(), that.isCompactCache());
 
         }
         return false;
@@ -112,6 +381,8 @@ public class PoolFetchConfig {
         this.retries.validate();
         this.refreshInterval.validate();
         this.reachabilityTimeout.validate();
+        getFreshnessWindow().validate();
+        getFullResyncInterval().validate();
 
         long refreshMillis = TimeUnit.MILLISECONDS.convert(this.refreshInterval.getTime(),
                 this.refreshInterval.getUnit());
@@ -119,6 +390,25 @@ public class PoolFetchConfig {
                 this.reachabilityTimeout.getUnit());
         checkArgument(refreshMillis < timeoutMillis,
                 "poolFetch: reachabilityTimeout cannot be shorter than refreshInterval");
+        checkArgument(getFreshnessWindow().getMillis() < timeoutMillis,
+                "poolFetch: freshnessWindow must be shorter than reachabilityTimeout");
+        checkArgument(getFullResyncInterval().getMillis() > 0, "poolFetch: fullResyncInterval must be positive");
+
+        if (this.adaptiveRefresh != null) {
+            this.adaptiveRefresh.validate();
+            long minMillis = this.adaptiveRefresh.getMinInterval().getMillis();
+            long maxMillis = this.adaptiveRefresh.getMaxInterval().getMillis();
+            checkArgument(minMillis <= refreshMillis && refreshMillis <= maxMillis,
+                    "poolFetch: refreshInterval must be within adaptiveRefresh bounds");
+            checkArgument(maxMillis < timeoutMillis,
+                    "poolFetch: reachabilityTimeout cannot be shorter than adaptiveRefresh maxInterval");
+        }
+
+        if (this.softTtl != null) {
+            this.softTtl.validate();
+            checkArgument(this.softTtl.getMillis() < timeoutMillis,
+                    "poolFetch: softTtl must be shorter than reachabilityTimeout");
+        }
     }
 
 }
@@ -2,8 +2,11 @@ package com.elastisys.scale.cloudpool.commons.basepool.config;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
+import java.util.Optional;
+
 import com.elastisys.scale.cloudpool.api.CloudPool;
 import com.elastisys.scale.cloudpool.api.types.MachinePool;
+import com.elastisys.scale.cloudpool.commons.basepool.alerts.AlertPayload;
 import com.elastisys.scale.commons.json.JsonUtils;
 import com.elastisys.scale.commons.json.types.TimeInterval;
 import com.google.common.base.Objects;
@@ -21,14 +24,156 @@ public class PoolUpdateConfig {
     private final TimeInterval updateInterval;
 
     /**
-     * Constructs a new {@link PoolUpdateConfig}.
+     * If <code>true</code>, a change to the desired size, or a machine being
+     * attached to or detached from the pool, triggers an immediate pool update
+     * (in addition to the periodical ones). May be <code>null</code>. Default:
+     * <code>false</code>.
+     */
+    private final Boolean updateOnChange;
+
+    /**
+     * The maximum number of concurrent cloud driver calls to use when
+     * starting or terminating several machines. May be <code>null</code>.
+     * Default: 1.
+     */
+    private final Integer maxParallelDriverCalls;
+
+    /**
+     * How pool members are described in alerts about pool size changes. May
+     * be <code>null</code>. Default: {@link AlertPayload#FULL}.
+     */
+    private final AlertPayload alertPayload;
+
+    /**
+     * If <code>true</code>, pool updates are planned from the cached pool
+     * (overlaid with the machines recently started and terminated by the pool
+     * itself) rather than from a freshly fetched pool. May be
+     * <code>null</code>. Default: <code>false</code>.
+     */
+    private final Boolean planFromCache;
+
+    /**
+     * Constructs a new {@link PoolUpdateConfig} without update on change.
      *
      * @param updateInterval
      *            The time interval between periodical pool size updates. May be
      *            <code>null</code>. Default: 60 seconds.
      */
     public PoolUpdateConfig(TimeInterval updateInterval) {
+        this(updateInterval, null);
+    }
+
+    /**
+     * Constructs a new {@link PoolUpdateConfig}.
+     *
+     * @param updateInterval
+     *            The time interval between periodical pool size updates. May be
+     *            <code>null</code>. Default: 60 seconds.
+     * @param updateOnChange
+     *            If <code>true</code>, a change to the desired size, or a
+     *            machine being attached to or detached from the pool, triggers
+     *            an immediate pool update. Bursts of changes are coalesced into
+     *            a single update. The periodical updates are carried out
+     *            regardless. May be <code>null</code>. Default:
+     *            <code>false</code>.
+     */
+    public PoolUpdateConfig(TimeInterval updateInterval, Boolean updateOnChange) {
+        this(updateInterval, updateOnChange, null);
+    }
+
+    /**
+     * Constructs a new {@link PoolUpdateConfig}.
+     *
+     * @param updateInterval
+     *            The time interval between periodical pool size updates. May be
+     *            <code>null</code>. Default: 60 seconds.
+     * @param updateOnChange
+     *            If <code>true</code>, a change to the desired size, or a
+     *            machine being attached to or detached from the pool, triggers
+     *            an immediate pool update. Bursts of changes are coalesced into
+     *            a single update. The periodical updates are carried out
+     *            regardless. May be <code>null</code>. Default:
+     *            <code>false</code>.
+     * @param maxParallelDriverCalls
+     *            The maximum number of concurrent cloud driver calls to use
+     *            when starting or terminating several machines. The machines
+     *            are split into (at most) this many groups, which are handed
+     *            to the cloud driver in parallel. Useful for cloud drivers that
+     *            start/terminate machines one at a time. May be
+     *            <code>null</code>. Default: 1.
+     */
+    public PoolUpdateConfig(TimeInterval updateInterval, Boolean updateOnChange, Integer maxParallelDriverCalls) {
+        this(updateInterval, updateOnChange, maxParallelDriverCalls, null);
+    }
+
+    /**
+     * Constructs a new {@link PoolUpdateConfig}.
+     *
+     * @param updateInterval
+     *            The time interval between periodical pool size updates. May be
+     *            <code>null</code>. Default: 60 seconds.
+     * @param updateOnChange
+     *            If <code>true</code>, a change to the desired size, or a
+     *            machine being attached to or detached from the pool, triggers
+     *            an immediate pool update. Bursts of changes are coalesced into
+     *            a single update. The periodical updates are carried out
+     *            regardless. May be <code>null</code>. Default:
+     *            <code>false</code>.
+     * @param maxParallelDriverCalls
+     *            The maximum number of concurrent cloud driver calls to use
+     *            when starting or terminating several machines. May be
+     *            <code>null</code>. Default: 1.
+     * @param alertPayload
+     *            How pool members are described in alerts about pool size
+     *            changes: all members ({@link AlertPayload#FULL}), member
+     *            counts per machine state ({@link AlertPayload#SUMMARY}) or
+     *            only members that changed since the previous alert
+     *            ({@link AlertPayload#DELTA}). May be <code>null</code>.
+     *            Default: {@link AlertPayload#FULL}.
+     */
+    public PoolUpdateConfig(TimeInterval updateInterval, Boolean updateOnChange, Integer maxParallelDriverCalls,
+            AlertPayload alertPayload) {
+        this(updateInterval, updateOnChange, maxParallelDriverCalls, alertPayload, null);
+    }
+
+    /**
+     * Constructs a new {@link PoolUpdateConfig}.
+     *
+     * @param updateInterval
+     *            The time interval between periodical pool size updates. May be
+     *            <code>null</code>. Default: 60 seconds.
+     * @param updateOnChange
+     *            If <code>true</code>, a change to the desired size, or a
+     *            machine being attached to or detached from the pool, triggers
+     *            an immediate pool update. Bursts of changes are coalesced into
+     *            a single update. The periodical updates are carried out
+     *            regardless. May be <code>null</code>. Default:
+     *            <code>false</code>.
+     * @param maxParallelDriverCalls
+     *            The maximum number of concurrent cloud driver calls to use
+     *            when starting or terminating several machines. May be
+     *            <code>null</code>. Default: 1.
+     * @param alertPayload
+     *            How pool members are described in alerts about pool size
+     *            changes. May be <code>null</code>. Default:
+     *            {@link AlertPayload#FULL}.
+     * @param planFromCache
+     *            If <code>true</code>, pool updates are planned from the cached
+     *            pool instead of a freshly fetched pool. To not start excess
+     *            machines, the cached pool is overlaid with the machines that
+     *            the pool itself started and terminated but that the cached
+     *            pool does not yet reflect. A fresh pool is still fetched when
+     *            the overlay cannot be trusted (such as after a failed start
+     *            request or a machine being attached). May be
+     *            <code>null</code>. Default: <code>false</code>.
+     */
+    public PoolUpdateConfig(TimeInterval updateInterval, Boolean updateOnChange, Integer maxParallelDriverCalls,
+            AlertPayload alertPayload, Boolean planFromCache) {
         this.updateInterval = updateInterval;
+        this.updateOnChange = updateOnChange;
+        this.maxParallelDriverCalls = maxParallelDriverCalls;
+        this.alertPayload = alertPayload;
+        this.planFromCache = planFromCache;
     }
 
     /**
@@ -40,16 +185,63 @@ public class PoolUpdateConfig {
         return this.updateInterval;
     }
 
+    /**
+     * Returns <code>true</code> if changes to the desired size or pool
+     * membership should trigger an immediate pool update.
+     *
+     * @return <code>true</code> if pool updates are triggered by changes.
+     *         Defaults to <code>false</code>.
+     */
+    public boolean isUpdateOnChange() {
+        return Optional.ofNullable(this.updateOnChange).orElse(false);
+    }
+
+    /**
+     * Returns the maximum number of concurrent cloud driver calls to use when
+     * starting or terminating several machines.
+     *
+     * @return The maximum number of concurrent driver calls.
+     */
+    public int getMaxParallelDriverCalls() {
+        return Optional.ofNullable(this.maxParallelDriverCalls).orElse(1);
+    }
+
+    /**
+     * Returns how pool members are described in alerts about pool size
+     * changes.
+     *
+     * @return The alert payload setting.
+     */
+    public AlertPayload getAlertPayload() {
+        return Optional.ofNullable(this.alertPayload).orElse(AlertPayload.FULL);
+    }
+
+    /**
+     * Returns <code>true</code> if pool updates are to be planned from the
+     * cached pool (overlaid with recent changes made by the pool itself).
+     *
+     * @return <code>true</code> if pool updates are planned from cache.
+     *         Defaults to <code>false</code>.
+     */
+    public boolean isPlanFromCache() {
+        return Optional.ofNullable(this.planFromCache).orElse(false);
+    }
+
     @Override
     public int hashCode() {
-        return Objects.hashCode(this.updateInterval);
+        return Objects.hashCode(this.updateInterval, isUpdateOnChange(), getMaxParallelDriverCalls(),
+                getAlertPayload(), isPlanFromCache());
     }
 
     @Override
     public boolean equals(Object obj) {
         if (obj instanceof PoolUpdateConfig) {
             PoolUpdateConfig that = (PoolUpdateConfig) obj;
-            return Objects.equal(this.updateInterval, that.updateInterval);
+            return Objects.equal(this.updateInterval, that.updateInterval)
+                    && Objects.equal(isUpdateOnChange(), that.isUpdateOnChange())
+                    && Objects.equal(getMaxParallelDriverCalls(), that.getMaxParallelDriverCalls())
+                    && Objects.equal(getAlertPayload(), that.getAlertPayload())
+                    && Objects.equal(isPlanFromCache(), that.isPlanFromCache());
         }
         return false;
     }
@@ -62,5 +254,6 @@ public class PoolUpdateConfig {
     public void validate() throws IllegalArgumentException {
         checkArgument(this.updateInterval != null, "poolUpdate: updateInterval missing");
         this.updateInterval.validate();
+        checkArgument(getMaxParallelDriverCalls() >= 1, "poolUpdate: maxParallelDriverCalls must be at least 1");
     }
 }
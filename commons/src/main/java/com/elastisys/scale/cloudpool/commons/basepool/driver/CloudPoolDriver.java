@@ -1,6 +1,9 @@
 package com.elastisys.scale.cloudpool.commons.basepool.driver;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import com.elastisys.scale.cloudpool.api.NotFoundException;
 import com.elastisys.scale.cloudpool.api.types.Machine;
@@ -140,6 +143,47 @@ public interface CloudPoolDriver {
     public void terminateMachine(String machineId)
             throws IllegalStateException, NotFoundException, CloudPoolDriverException;
 
+    /**
+     * Terminates a number of {@link Machine}s in the cloud pool.
+     * <p/>
+     * The default implementation calls {@link #terminateMachine(String)} once
+     * for each {@link Machine}. Implementations should override it whenever
+     * the cloud API allows several machines to be terminated (and pool
+     * membership to be verified) in fewer calls.
+     * <p/>
+     * The request is carried out for all {@link Machine}s, even if some of
+     * them fail to be terminated. On failure, a
+     * {@link TerminateMachinesException} is thrown that tells which
+     * {@link Machine}s were terminated and the error that prevented each of
+     * the others from being terminated. A {@link Machine} that is not a member
+     * of the pool is reported with a {@link NotFoundException}.
+     *
+     * @param machineIds
+     *            The identifiers of the {@link Machine}s.
+     * @throws IllegalStateException
+     *             If the {@link CloudPoolDriver} has not been configured.
+     * @throws TerminateMachinesException
+     *             If any of the {@link Machine}s could not be terminated.
+     */
+    public default void terminateMachines(List<String> machineIds)
+            throws IllegalStateException, TerminateMachinesException {
+        List<String> terminated = new ArrayList<>();
+        Map<String, Throwable> errors = new HashMap<>();
+        for (String machineId : machineIds) {
+            try {
+                terminateMachine(machineId);
+                terminated.add(machineId);
+            } catch (IllegalStateException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                errors.put(machineId, e);
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new TerminateMachinesException(terminated, errors);
+        }
+    }
+
     /**
      * Attaches an already running machine instance to the cloud pool.
      *
@@ -229,4 +273,23 @@ public interface CloudPoolDriver {
      *             If the {@link CloudPoolDriver} has not been configured.
      */
     public String getPoolName() throws IllegalStateException;
+
+    /**
+     * Hands the {@link CloudPoolDriver} an id-indexed view of the most
+     * recently observed pool members, which it may use to verify pool
+     * membership of a single machine (for example, in
+     * {@link #setServiceState(String, ServiceState)}) without listing the
+     * entire pool. On a lookup miss, the {@link CloudPoolDriver} should fall
+     * back to asking the cloud API about that particular machine.
+     * <p/>
+     * Called by the {@link BaseCloudPool} when started (and with
+     * {@link PoolMembership#NONE} when stopped). The default implementation
+     * ignores the {@link PoolMembership}.
+     *
+     * @param poolMembership
+     *            A view of the most recently observed pool members.
+     */
+    public default void setPoolMembership(PoolMembership poolMembership) {
+        // not used by default
+    }
 }
@@ -3,6 +3,9 @@ package com.elastisys.scale.cloudpool.commons.basepool.driver;
 import static com.google.common.base.Objects.equal;
 import static com.google.common.base.Preconditions.checkArgument;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import com.elastisys.scale.cloudpool.commons.basepool.BaseCloudPool;
 import com.elastisys.scale.commons.json.JsonUtils;
 import com.google.common.base.Objects;
@@ -12,6 +15,12 @@ import com.google.gson.JsonObject;
  * Represents settings for a {@link CloudPoolDriver}. These settings get passed
  * to a {@link CloudPoolDriver} implementation whenever a new configuration has
  * been set for its parent {@link BaseCloudPool}.
+ * <p/>
+ * The typed views produced by {@link #parseCloudApiSettings(Class)} and
+ * {@link #parseProvisioningTemplate(Class)} are parsed once per type and then
+ * cached, so drivers can ask for them on every call without re-parsing the
+ * JSON documents. Hence, neither the JSON documents nor the typed views should
+ * be modified.
  *
  * @see CloudPoolDriver#configure(DriverConfig)
  */
@@ -40,6 +49,19 @@ public class DriverConfig {
      */
     private final JsonObject provisioningTemplate;
 
+    /** Typed views of {@link #cloudApiSettings}, keyed by type. */
+    private final transient ConcurrentMap<Class<?>, Object> cloudApiSettingsViews = new ConcurrentHashMap<>();
+    /** Typed views of {@link #provisioningTemplate}, keyed by type. */
+    private final transient ConcurrentMap<Class<?>, Object> provisioningTemplateViews = new ConcurrentHashMap<>();
+
+    /**
+     * Used by JSON deserialization, which would otherwise bypass the field
+     * initializers and leave the typed view caches <code>null</code>.
+     */
+    private DriverConfig() {
+        this(null, null, null);
+    }
+
     /**
      * Creates a {@link DriverConfig}.
      *
@@ -92,20 +114,17 @@ public class DriverConfig {
 
     /**
      * Parses and deserializes the JSON {@link #cloudApiSettings} into a given
-     * Java type. Note: the client code is responsible for validating the
-     * contents of the returned object.
+     * Java type. The result is cached, so subsequent calls for the same type
+     * return the same object. Note: the client code is responsible for
+     * validating the contents of the returned object.
      *
-     * @param provisioningTemplateType
+     * @param cloudApiSettingsType
      * @return
      * @throws IllegalArgumentException
      *             on parse failure
      */
     public <T> T parseCloudApiSettings(Class<T> cloudApiSettingsType) throws IllegalArgumentException {
-        try {
-            return JsonUtils.toObject(getCloudApiSettings(), cloudApiSettingsType);
-        } catch (Exception e) {
-            throw new IllegalArgumentException("failed to parse provisioningTemplate: " + e.getMessage(), e);
-        }
+        return parse("cloudApiSettings", getCloudApiSettings(), cloudApiSettingsType, this.cloudApiSettingsViews);
     }
 
     /**
@@ -121,8 +140,9 @@ public class DriverConfig {
 
     /**
      * Parses and deserializes the JSON {@link #provisioningTemplate} into a
-     * given Java type. Note: the client code is responsible for validating the
-     * contents of the returned object.
+     * given Java type. The result is cached, so subsequent calls for the same
+     * type return the same object. Note: the client code is responsible for
+     * validating the contents of the returned object.
      *
      * @param provisioningTemplateType
      * @return
@@ -131,11 +151,35 @@ public class DriverConfig {
      *
      */
     public <T> T parseProvisioningTemplate(Class<T> provisioningTemplateType) throws IllegalArgumentException {
-        try {
-            return JsonUtils.toObject(getProvisioningTemplate(), provisioningTemplateType);
-        } catch (Exception e) {
-            throw new IllegalArgumentException("failed to parse provisioningTemplate: " + e.getMessage(), e);
-        }
+        return parse("provisioningTemplate", getProvisioningTemplate(), provisioningTemplateType,
+                this.provisioningTemplateViews);
+    }
+
+    /**
+     * Returns the typed view of a JSON document for a given type, parsing and
+     * caching it on first request. Parse failures are not cached.
+     *
+     * @param name
+     *            The name of the JSON document (for error messages).
+     * @param json
+     *            The JSON document.
+     * @param type
+     *            The type to parse the JSON document into.
+     * @param views
+     *            The cached typed views of the JSON document.
+     * @return The parsed object.
+     * @throws IllegalArgumentException
+     *             on parse failure
+     */
+    private static <T> T parse(String name, JsonObject json, Class<T> type, ConcurrentMap<Class<?>, Object> views)
+            throws IllegalArgumentException {
+        return type.cast(views.computeIfAbsent(type, t -> {
+            try {
+                return JsonUtils.toObject(json, t);
+            } catch (Exception e) {
+                throw new IllegalArgumentException("failed to parse " + name + ": " + e.getMessage(), e);
+            }
+        }));
     }
 
     /**
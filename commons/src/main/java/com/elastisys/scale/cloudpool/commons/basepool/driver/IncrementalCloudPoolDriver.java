@@ -0,0 +1,47 @@
+package com.elastisys.scale.cloudpool.commons.basepool.driver;
+
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.api.types.MachinePool;
+import com.elastisys.scale.cloudpool.commons.basepool.BaseCloudPool;
+
+/**
+ * An optional extension of the {@link CloudPoolDriver} interface for cloud
+ * APIs that support change detection (such as watch resource versions or
+ * change-filtered listings). It allows the {@link BaseCloudPool} to refresh its
+ * view of the {@link MachinePool} by only fetching the {@link Machine}s that
+ * were added, changed or removed since the previous refresh, rather than
+ * re-listing the entire pool.
+ * <p/>
+ * A {@link BaseCloudPool} driving an {@link IncrementalCloudPoolDriver} still
+ * periodically makes a full listing of the pool (see
+ * {@link #listChanges(String)}) to recover from any missed changes.
+ *
+ * @see BaseCloudPool
+ */
+public interface IncrementalCloudPoolDriver extends CloudPoolDriver {
+
+    /**
+     * Returns the changes to the cloud pool members since the point in time
+     * identified by a given cursor.
+     * <p/>
+     * If no cursor is given, a full listing of the pool members must be
+     * returned (see {@link MachineChanges#full(java.util.List, String)}). A
+     * driver may also respond with a full listing whenever it is unable to
+     * determine the changes since a given cursor (for example, since the
+     * cursor is too old).
+     * <p/>
+     * The returned {@link Machine}s must adhere to the same rules as those
+     * returned by {@link #listMachines()}. A {@link Machine} that is reported
+     * as changed replaces any earlier observation of that {@link Machine}.
+     *
+     * @param cursor
+     *            A cursor previously returned by this method, marking the
+     *            point in time to list changes from. May be <code>null</code>,
+     *            in which case a full listing is requested.
+     * @return The pool member changes since the given cursor, including the
+     *         cursor to use on the next invocation.
+     * @throws CloudPoolDriverException
+     *             If the operation failed.
+     */
+    MachineChanges listChanges(String cursor) throws CloudPoolDriverException;
+}
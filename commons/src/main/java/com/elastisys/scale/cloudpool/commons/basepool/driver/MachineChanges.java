@@ -0,0 +1,154 @@
+package com.elastisys.scale.cloudpool.commons.basepool.driver;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.commons.json.JsonUtils;
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Pool member changes reported by an {@link IncrementalCloudPoolDriver}.
+ * <p/>
+ * A {@link MachineChanges} is either a <i>full listing</i>, which contains all
+ * current pool members, or a <i>delta</i>, which contains the pool members
+ * that were added or changed, and the identifiers of the pool members that
+ * were removed, since the previous listing.
+ *
+ * @see IncrementalCloudPoolDriver#listChanges(String)
+ */
+public class MachineChanges {
+
+    /** <code>true</code> if this is a full listing of the pool members. */
+    private final boolean fullListing;
+    /**
+     * Added or changed pool members. For a full listing: all pool members.
+     */
+    private final List<Machine> changedMachines;
+    /** Identifiers of removed pool members. Always empty for a full listing. */
+    private final Set<String> removedMachineIds;
+    /** Cursor to pass on the next call to list changes. */
+    private final String cursor;
+
+    /**
+     * Creates a {@link MachineChanges}.
+     *
+     * @param fullListing
+     *            <code>true</code> if this is a full listing of the pool
+     *            members.
+     * @param changedMachines
+     *            Added or changed pool members. For a full listing: all pool
+     *            members.
+     * @param removedMachineIds
+     *            Identifiers of removed pool members. Must be empty for a full
+     *            listing.
+     * @param cursor
+     *            Cursor to pass on the next call to list changes.
+     */
+    private MachineChanges(boolean fullListing, Collection<Machine> changedMachines,
+            Collection<String> removedMachineIds, String cursor) {
+        checkArgument(changedMachines != null, "machine changes: changed machines cannot be null");
+        checkArgument(removedMachineIds != null, "machine changes: removed machine ids cannot be null");
+        checkArgument(cursor != null, "machine changes: missing cursor");
+        checkArgument(!fullListing || removedMachineIds.isEmpty(),
+                "machine changes: a full listing cannot contain removed machines");
+        this.fullListing = fullListing;
+        this.changedMachines = ImmutableList.copyOf(changedMachines);
+        this.removedMachineIds = ImmutableSet.copyOf(removedMachineIds);
+        this.cursor = cursor;
+    }
+
+    /**
+     * Creates a full listing of the pool members.
+     *
+     * @param machines
+     *            All pool members.
+     * @param cursor
+     *            Cursor to pass on the next call to list changes.
+     * @return A full listing of the given pool members.
+     */
+    public static MachineChanges full(List<Machine> machines, String cursor) {
+        return new MachineChanges(true, machines, ImmutableSet.of(), cursor);
+    }
+
+    /**
+     * Creates a delta of the pool members.
+     *
+     * @param changedMachines
+     *            Pool members that were added or changed.
+     * @param removedMachineIds
+     *            Identifiers of pool members that were removed.
+     * @param cursor
+     *            Cursor to pass on the next call to list changes.
+     * @return A delta with the given changes.
+     */
+    public static MachineChanges delta(Collection<Machine> changedMachines, Collection<String> removedMachineIds,
+            String cursor) {
+        return new MachineChanges(false, changedMachines, removedMachineIds, cursor);
+    }
+
+    /**
+     * Returns <code>true</code> if this is a full listing of the pool members.
+     *
+     * @return <code>true</code> for a full listing, <code>false</code>
+     *         for a delta.
+     */
+    public boolean isFullListing() {
+        return this.fullListing;
+    }
+
+    /**
+     * Returns the added or changed pool members. For a full listing, all pool
+     * members are returned.
+     *
+     * @return The added or changed pool members.
+     */
+    public List<Machine> getChangedMachines() {
+        return this.changedMachines;
+    }
+
+    /**
+     * Returns the identifiers of removed pool members. Always empty for a
+     * full listing.
+     *
+     * @return The identifiers of removed pool members.
+     */
+    public Set<String> getRemovedMachineIds() {
+        return this.removedMachineIds;
+    }
+
+    /**
+     * Returns the cursor to pass on the next call to list changes.
+     *
+     * @return The cursor to pass on the next call to list changes.
+     */
+    public String getCursor() {
+        return this.cursor;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(this.fullListing, this.changedMachines, this.removedMachineIds, this.cursor);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof MachineChanges) {
+            MachineChanges that = (MachineChanges) obj;
+            return this.fullListing == that.fullListing && Objects.equal(this.changedMachines, that.changedMachines)
+                    && Objects.equal(this.removedMachineIds, that.removedMachineIds)
+                    && Objects.equal(this.cursor, that.cursor);
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return JsonUtils.toPrettyString(JsonUtils.toJson(this));
+    }
+}
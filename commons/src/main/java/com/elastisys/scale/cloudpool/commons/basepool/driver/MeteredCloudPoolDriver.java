@@ -0,0 +1,188 @@
+package com.elastisys.scale.cloudpool.commons.basepool.driver;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import com.elastisys.scale.cloudpool.api.NotFoundException;
+import com.elastisys.scale.cloudpool.api.metrics.MetricsRegistry;
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.api.types.MembershipStatus;
+import com.elastisys.scale.cloudpool.api.types.ServiceState;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * A {@link CloudPoolDriver} decorator that records the latency and failures of
+ * each call to the wrapped driver in a {@link MetricsRegistry}, labeled by the
+ * name of the called method.
+ * <p/>
+ * Only calls that (may) reach the cloud API are recorded. Use
+ * {@link #wrap(CloudPoolDriver, MetricsRegistry)} to create a decorator, which
+ * preserves the {@link IncrementalCloudPoolDriver} capability of the wrapped
+ * driver.
+ */
+public class MeteredCloudPoolDriver implements CloudPoolDriver {
+
+    /** Name of the driver call latency metric. */
+    public static final String CALL_DURATION = "cloudpool_driver_call_duration_seconds";
+    /** Name of the driver call failure metric. */
+    public static final String CALL_ERRORS = "cloudpool_driver_call_errors_total";
+
+    /** The wrapped driver. */
+    private final CloudPoolDriver delegate;
+    /** The registry in which driver calls are recorded. */
+    private final MetricsRegistry metrics;
+
+    /**
+     * Creates a {@link MeteredCloudPoolDriver}.
+     *
+     * @param delegate
+     *            The wrapped driver.
+     * @param metrics
+     *            The registry in which driver calls are recorded.
+     */
+    protected MeteredCloudPoolDriver(CloudPoolDriver delegate, MetricsRegistry metrics) {
+        checkArgument(delegate != null, "no delegate driver given");
+        checkArgument(metrics != null, "no metrics registry given");
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Wraps a {@link CloudPoolDriver} in a {@link MeteredCloudPoolDriver}. If
+     * the driver is an {@link IncrementalCloudPoolDriver}, so is the returned
+     * driver.
+     *
+     * @param driver
+     *            The driver to wrap.
+     * @param metrics
+     *            The registry in which driver calls are recorded.
+     * @return The metered driver.
+     */
+    public static MeteredCloudPoolDriver wrap(CloudPoolDriver driver, MetricsRegistry metrics) {
+        if (driver instanceof IncrementalCloudPoolDriver) {
+            return new MeteredIncrementalCloudPoolDriver((IncrementalCloudPoolDriver) driver, metrics);
+        }
+        return new MeteredCloudPoolDriver(driver, metrics);
+    }
+
+    /**
+     * Returns the wrapped driver.
+     *
+     * @return The driver whose calls are metered.
+     */
+    public CloudPoolDriver getDelegate() {
+        return this.delegate;
+    }
+
+    @Override
+    public void configure(DriverConfig configuration) throws IllegalArgumentException, CloudPoolDriverException {
+        metered("configure", () -> this.delegate.configure(configuration));
+    }
+
+    @Override
+    public List<Machine> listMachines() throws IllegalStateException, CloudPoolDriverException {
+        return metered("listMachines", () -> this.delegate.listMachines());
+    }
+
+    @Override
+    public List<Machine> startMachines(int count) throws IllegalStateException, StartMachinesException {
+        return metered("startMachines", () -> this.delegate.startMachines(count));
+    }
+
+    @Override
+    public void terminateMachine(String machineId)
+            throws IllegalStateException, NotFoundException, CloudPoolDriverException {
+        metered("terminateMachine", () -> this.delegate.terminateMachine(machineId));
+    }
+
+    @Override
+    public void terminateMachines(List<String> machineIds)
+            throws IllegalStateException, TerminateMachinesException {
+        metered("terminateMachines", () -> this.delegate.terminateMachines(machineIds));
+    }
+
+    @Override
+    public void attachMachine(String machineId)
+            throws IllegalStateException, NotFoundException, CloudPoolDriverException {
+        metered("attachMachine", () -> this.delegate.attachMachine(machineId));
+    }
+
+    @Override
+    public void detachMachine(String machineId)
+            throws IllegalStateException, NotFoundException, CloudPoolDriverException {
+        metered("detachMachine", () -> this.delegate.detachMachine(machineId));
+    }
+
+    @Override
+    public void setServiceState(String machineId, ServiceState serviceState)
+            throws IllegalStateException, NotFoundException, CloudPoolDriverException {
+        metered("setServiceState", () -> this.delegate.setServiceState(machineId, serviceState));
+    }
+
+    @Override
+    public void setMembershipStatus(String machineId, MembershipStatus membershipStatus)
+            throws IllegalStateException, NotFoundException, CloudPoolDriverException {
+        metered("setMembershipStatus", () -> this.delegate.setMembershipStatus(machineId, membershipStatus));
+    }
+
+    @Override
+    public String getPoolName() throws IllegalStateException {
+        return this.delegate.getPoolName();
+    }
+
+    @Override
+    public void setPoolMembership(PoolMembership poolMembership) {
+        this.delegate.setPoolMembership(poolMembership);
+    }
+
+    /**
+     * Runs a driver call, recording its latency and any failure under a given
+     * call name.
+     *
+     * @param call
+     *            The name of the call.
+     * @param driverCall
+     *            The call to run.
+     * @return The result of the call.
+     */
+    protected <T> T metered(String call, Supplier<T> driverCall) {
+        long start = System.nanoTime();
+        try {
+            return driverCall.get();
+        } catch (RuntimeException | Error e) {
+            this.metrics.counter(CALL_ERRORS, "Failed cloud pool driver calls.",
+                    ImmutableMap.of("call", call, "error", e.getClass().getSimpleName())).increment();
+            throw e;
+        } finally {
+            this.metrics.histogram(CALL_DURATION, "Latency of cloud pool driver calls.",
+                    ImmutableMap.of("call", call)).observeSince(start);
+        }
+    }
+
+    private void metered(String call, Runnable driverCall) {
+        metered(call, () -> {
+            driverCall.run();
+            return null;
+        });
+    }
+
+    /**
+     * A {@link MeteredCloudPoolDriver} for {@link IncrementalCloudPoolDriver}s.
+     */
+    private static class MeteredIncrementalCloudPoolDriver extends MeteredCloudPoolDriver
+            implements IncrementalCloudPoolDriver {
+        private final IncrementalCloudPoolDriver delegate;
+
+        public MeteredIncrementalCloudPoolDriver(IncrementalCloudPoolDriver delegate, MetricsRegistry metrics) {
+            super(delegate, metrics);
+            this.delegate = delegate;
+        }
+
+        @Override
+        public MachineChanges listChanges(String cursor) throws CloudPoolDriverException {
+            return metered("listChanges", () -> this.delegate.listChanges(cursor));
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.elastisys.scale.cloudpool.commons.basepool.driver;
+
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.api.types.MachinePool;
+import com.elastisys.scale.cloudpool.commons.basepool.BaseCloudPool;
+import com.google.common.base.Optional;
+
+/**
+ * An id-indexed view of the most recently observed {@link MachinePool}
+ * members, which a {@link CloudPoolDriver} can use to verify that a given
+ * machine is a pool member without listing the entire pool.
+ * <p/>
+ * A {@link PoolMembership} is handed to the {@link CloudPoolDriver} by the
+ * {@link BaseCloudPool} (see
+ * {@link CloudPoolDriver#setPoolMembership(PoolMembership)}). Since the view
+ * may be somewhat out-of-date, a lookup miss does not mean that the machine
+ * is not a pool member: the {@link CloudPoolDriver} should fall back to asking
+ * the cloud API about that particular machine.
+ */
+public interface PoolMembership {
+
+    /** A {@link PoolMembership} that never knows of any pool members. */
+    PoolMembership NONE = new PoolMembership() {
+        @Override
+        public Optional<Machine> getMember(String machineId) {
+            return Optional.absent();
+        }
+
+        @Override
+        public void evict(String machineId) {
+            // nothing to evict
+        }
+    };
+
+    /**
+     * Looks up a pool member in the most recently observed
+     * {@link MachinePool}.
+     *
+     * @param machineId
+     *            The identifier of the machine of interest.
+     * @return The {@link Machine}, if it was a pool member when last
+     *         observed. Absent if the machine was not observed as a member,
+     *         has been evicted since, or if no sufficiently recent observation
+     *         exists.
+     */
+    Optional<Machine> getMember(String machineId);
+
+    /**
+     * Forgets a machine, so that lookups of it miss until it has been
+     * observed again. A {@link CloudPoolDriver} should evict machines that it
+     * removes from the pool (for example, by termination or detachment).
+     *
+     * @param machineId
+     *            The identifier of the machine to forget.
+     */
+    void evict(String machineId);
+}
@@ -0,0 +1,70 @@
+package com.elastisys.scale.cloudpool.commons.basepool.driver;
+
+import java.util.List;
+import java.util.Map;
+
+import com.elastisys.scale.cloudpool.api.NotFoundException;
+import com.elastisys.scale.cloudpool.api.types.Machine;
+
+/**
+ * Exception thrown by a {@link CloudPoolDriver} to signal that a request to
+ * terminate a number of machines failed for some (or all) of the machines.
+ * <p/>
+ * The error indicates the set of {@link Machine}s that were terminated (if
+ * any) and, for each {@link Machine} that could not be terminated, the error
+ * that prevented it. For example, a {@link Machine} that is not a member of
+ * the pool is reported with a {@link NotFoundException}.
+ */
+public class TerminateMachinesException extends CloudPoolDriverException {
+    /** Default serial version UID. */
+    private static final long serialVersionUID = 1L;
+
+    /** Identifiers of the {@link Machine}s that were terminated. */
+    private final List<String> terminatedMachines;
+
+    /**
+     * Errors keyed on the identifiers of the {@link Machine}s that could not
+     * be terminated.
+     */
+    private final Map<String, Throwable> terminationErrors;
+
+    /**
+     * Constructs a new {@link TerminateMachinesException}.
+     *
+     * @param terminatedMachines
+     *            Identifiers of the {@link Machine}s that were terminated.
+     * @param terminationErrors
+     *            Errors keyed on the identifiers of the {@link Machine}s that
+     *            could not be terminated.
+     */
+    public TerminateMachinesException(List<String> terminatedMachines, Map<String, Throwable> terminationErrors) {
+        super(defaultErrorMessage(terminatedMachines, terminationErrors));
+        this.terminatedMachines = terminatedMachines;
+        this.terminationErrors = terminationErrors;
+    }
+
+    /**
+     * Returns the identifiers of the {@link Machine}s that were terminated.
+     *
+     * @return The ids of the terminated machines.
+     */
+    public List<String> getTerminatedMachines() {
+        return this.terminatedMachines;
+    }
+
+    /**
+     * Returns the errors that prevented {@link Machine}s from being
+     * terminated, keyed on machine identifier.
+     *
+     * @return The termination errors, keyed on machine id.
+     */
+    public Map<String, Throwable> getTerminationErrors() {
+        return this.terminationErrors;
+    }
+
+    private static String defaultErrorMessage(List<String> terminatedMachines,
+            Map<String, Throwable> terminationErrors) {
+        return String.format("failed to terminate %d machine(s) (%d machine(s) were terminated): %s",
+                terminationErrors.size(), terminatedMachines.size(), terminationErrors.keySet());
+    }
+}
@@ -10,5 +10,13 @@ public enum FetchOption {
      * Force the {@link PoolFetcher} to refresh its view of the pool members
      * (and not return cached data).
      */
-    FORCE_REFRESH;
+    FORCE_REFRESH,
+
+    /**
+     * Only accept a pool observation that the {@link PoolFetcher} has fetched
+     * from the cloud API itself, and not one restored from a previous run. If
+     * no such observation has been made yet, the {@link PoolFetcher} waits for
+     * one to be made.
+     */
+    LIVE;
 }
@@ -0,0 +1,121 @@
+package com.elastisys.scale.cloudpool.commons.basepool.poolfetcher.impl;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.api.types.MachinePool;
+import com.elastisys.scale.cloudpool.api.types.MachineState;
+import com.elastisys.scale.cloudpool.commons.basepool.config.AdaptiveRefreshConfig;
+import com.elastisys.scale.commons.json.types.TimeInterval;
+
+/**
+ * Keeps track of an adaptive {@link MachinePool} refresh interval, which is
+ * adjusted after each refresh depending on how the pool is changing:
+ * <ul>
+ * <li>While the pool is in flux (some machine is {@link MachineState#REQUESTED},
+ * {@link MachineState#PENDING} or {@link MachineState#TERMINATING}, or the
+ * number of active machines differs from the desired size) the interval is
+ * set to its minimum.</li>
+ * <li>While successive pool observations are identical, the interval is
+ * doubled (up to its maximum).</li>
+ * <li>Otherwise (the pool changed, but has settled), the interval is reset to
+ * its initial value.</li>
+ * </ul>
+ * A failed refresh also resets the interval to its initial value.
+ * <p/>
+ * Adjustments are to be made by a single thread at a time, but the current
+ * interval may be read by any thread.
+ */
+class AdaptiveRefreshInterval {
+    /** Machine states that indicate that the pool is in flux. */
+    private static final Set<MachineState> TRANSITIONAL_STATES = EnumSet.of(MachineState.REQUESTED,
+            MachineState.PENDING, MachineState.TERMINATING);
+
+    /** Initial refresh interval in milliseconds. */
+    private final long initialMillis;
+    /** Shortest refresh interval in milliseconds. */
+    private final long minMillis;
+    /** Longest refresh interval in milliseconds. */
+    private final long maxMillis;
+
+    /** The current refresh interval in milliseconds. */
+    private volatile long currentMillis;
+
+    /**
+     * Creates an {@link AdaptiveRefreshInterval}.
+     *
+     * @param initialInterval
+     *            The initial refresh interval. Must be within the bounds of
+     *            {@code bounds}.
+     * @param bounds
+     *            The shortest and longest allowed refresh intervals.
+     */
+    public AdaptiveRefreshInterval(TimeInterval initialInterval, AdaptiveRefreshConfig bounds) {
+        this.initialMillis = initialInterval.getMillis();
+        this.minMillis = bounds.getMinInterval().getMillis();
+        this.maxMillis = bounds.getMaxInterval().getMillis();
+        checkArgument(this.minMillis <= this.initialMillis && this.initialMillis <= this.maxMillis,
+                "initial refresh interval must be within adaptive refresh bounds");
+
+        this.currentMillis = this.initialMillis;
+    }
+
+    /**
+     * Returns the current refresh interval.
+     *
+     * @return The interval to wait until the next refresh.
+     */
+    public TimeInterval get() {
+        return new TimeInterval(this.currentMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Adjusts the refresh interval after a successful refresh.
+     *
+     * @param previous
+     *            The pool observation prior to the refresh. May be
+     *            <code>null</code>.
+     * @param current
+     *            The refreshed pool observation.
+     * @param desiredSize
+     *            The desired size of the pool. May be <code>null</code> if not
+     *            (yet) known.
+     * @return The adjusted refresh interval.
+     */
+    public TimeInterval onRefresh(MachinePool previous, MachinePool current, Integer desiredSize) {
+        if (inFlux(current, desiredSize)) {
+            this.currentMillis = this.minMillis;
+        } else if (previous != null && previous.getMachines().equals(current.getMachines())) {
+            this.currentMillis = Math.min(this.maxMillis, 2 * this.currentMillis);
+        } else {
+            this.currentMillis = this.initialMillis;
+        }
+        return get();
+    }
+
+    /**
+     * Adjusts the refresh interval after a failed refresh.
+     *
+     * @return The adjusted refresh interval.
+     */
+    public TimeInterval onRefreshFailure() {
+        this.currentMillis = this.initialMillis;
+        return get();
+    }
+
+    private static boolean inFlux(MachinePool pool, Integer desiredSize) {
+        if (desiredSize != null && desiredSize != pool.getActiveMachines().size()) {
+            return true;
+        }
+        for (Machine machine : pool.getMachines()) {
+            if (TRANSITIONAL_STATES.contains(machine.getMachineState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,13 +1,24 @@
 package com.elastisys.scale.cloudpool.commons.basepool.poolfetcher.impl;
 
 import static com.elastisys.scale.cloudpool.commons.basepool.alerts.AlertTopics.POOL_FETCH;
+import static com.google.common.base.Preconditions.checkState;
 import static java.lang.String.format;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 import org.joda.time.DateTime;
 import org.joda.time.Duration;
@@ -15,32 +26,80 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.elastisys.scale.cloudpool.api.CloudPoolException;
+import com.elastisys.scale.cloudpool.api.metrics.Counter;
+import com.elastisys.scale.cloudpool.api.metrics.Histogram;
+import com.elastisys.scale.cloudpool.api.metrics.MetricsRegistry;
+import com.elastisys.scale.cloudpool.api.types.Machine;
 import com.elastisys.scale.cloudpool.api.types.MachinePool;
 import com.elastisys.scale.cloudpool.commons.basepool.StateStorage;
+import com.elastisys.scale.cloudpool.commons.basepool.config.AdaptiveRefreshConfig;
 import com.elastisys.scale.cloudpool.commons.basepool.config.PoolFetchConfig;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.PoolMembership;
 import com.elastisys.scale.cloudpool.commons.basepool.poolfetcher.FetchOption;
 import com.elastisys.scale.cloudpool.commons.basepool.poolfetcher.PoolFetcher;
-import com.elastisys.scale.commons.json.persistence.PersistentState;
 import com.elastisys.scale.commons.json.types.TimeInterval;
 import com.elastisys.scale.commons.net.alerter.Alert;
 import com.elastisys.scale.commons.net.alerter.AlertBuilder;
 import com.elastisys.scale.commons.net.alerter.AlertSeverity;
 import com.elastisys.scale.commons.net.alerter.Alerter;
 import com.elastisys.scale.commons.util.time.UtcTime;
+import com.google.common.base.Optional;
 import com.google.common.eventbus.EventBus;
+import com.google.common.util.concurrent.MoreExecutors;
 
 /**
  * A {@link PoolFetcher} that caches {@link MachinePool}s retrieved by a wrapped
  * {@link PoolFetcher} for a configurable time (thereby also masking failures to
  * retrieve pool members from the backing cloud API).
+ * <p/>
+ * Refreshes are single-flight: a periodical refresh that arrives while
+ * another refresh is in progress does not call the cloud API again, but waits
+ * for the ongoing refresh and shares its outcome. So does a
+ * {@link FetchOption#FORCE_REFRESH} request, unless the ongoing refresh has
+ * already started fetching (and may miss changes made just before the
+ * request), in which case it waits for a single follow-up refresh shared by
+ * all such requests. Furthermore, if a {@link PoolFetchConfig} freshness
+ * window is configured, a forced refresh is served from cache if the cache
+ * was successfully refreshed within that window.
+ * <p/>
+ * The cache is refreshed periodically, either at a fixed interval or, if an
+ * {@link AdaptiveRefreshConfig} is given, at an interval that shortens while
+ * the pool is changing and lengthens while it remains unchanged (see
+ * {@link #getEffectiveRefreshInterval()}).
+ * <p/>
+ * If a soft TTL is configured, reads are served in a stale-while-revalidate
+ * manner: a read that finds the cache older than the soft TTL (but not yet
+ * older than the reachability timeout) is still served from cache
+ * immediately, but triggers an asynchronous refresh.
+ * <p/>
+ * Refreshes (that is, calls to the wrapped {@link PoolFetcher}) are carried
+ * out on a fetch {@link Executor}, which may be a dedicated I/O thread pool.
+ * Periodical and background refreshes are then only started by the
+ * scheduling {@link ScheduledExecutorService}, which does not wait for them to
+ * complete. By default, refreshes are run on the thread that starts them.
+ * <p/>
+ * The members of the cached {@link MachinePool} are also indexed on machine
+ * id, which allows the {@link CachingPoolFetcher} to serve as a
+ * {@link PoolMembership} for single-machine lookups.
  */
-public class CachingPoolFetcher implements PoolFetcher {
+public class CachingPoolFetcher implements PoolFetcher, PoolMembership {
     private static final Logger LOG = LoggerFactory.getLogger(CachingPoolFetcher.class);
 
+    /** Name of the pool refresh duration metric. */
+    public static final String REFRESH_DURATION = "cloudpool_pool_refresh_duration_seconds";
+    /** Name of the pool refresh failure metric. */
+    public static final String REFRESH_FAILURES = "cloudpool_pool_refresh_failures_total";
+    /** Name of the effective refresh interval metric. */
+    public static final String REFRESH_INTERVAL = "cloudpool_pool_refresh_interval_seconds";
+    /** Name of the cached pool age metric. */
+    public static final String CACHE_AGE = "cloudpool_pool_cache_age_seconds";
+    /** Name of the cached pool member count metric. */
+    public static final String POOL_MEMBERS = "cloudpool_pool_members";
+
     /** Wrapped {@link PoolFetcher} to delegate actual fetching to. */
-    private final PoolFetcher delegate;
+    private volatile PoolFetcher delegate;
     /** Controls fetch behavior. */
-    private final PoolFetchConfig fetchConfig;
+    private volatile PoolFetchConfig fetchConfig;
     /** The last pool fetch error. */
     private Throwable lastFetchError;
     /**
@@ -55,10 +114,86 @@ public class CachingPoolFetcher implements PoolFetcher {
      */
     private final EventBus eventBus;
 
-    private final PersistentState<MachinePool> cachedMachinePool;
+    /**
+     * The cached {@link MachinePool}, which is persisted (write-behind) to
+     * survive restarts.
+     */
+    private final PersistentMachinePool cachedMachinePool;
 
+    /**
+     * The members of the cached {@link MachinePool}, keyed on machine id.
+     */
+    private volatile Map<String, Machine> memberIndex = Collections.emptyMap();
+    /**
+     * Machines that have been evicted from the {@link #memberIndex}, with the
+     * time of eviction. An eviction lasts until a refresh that was started
+     * after it has completed.
+     */
+    private final Map<String, DateTime> evictions = new ConcurrentHashMap<>();
+
+    /** Executor used to schedule cache refreshes. */
+    private final ScheduledExecutorService executor;
+    /** Executor that runs cache refreshes. */
+    private final Executor fetchExecutor;
+    /**
+     * Supplies the desired size of the pool, or <code>null</code> if unknown.
+     * Used to adapt the refresh interval.
+     */
+    private final Supplier<Integer> desiredSize;
+    /**
+     * Tracks the current refresh interval when adaptive refresh is configured.
+     * <code>null</code> if the cache is refreshed at a fixed interval.
+     */
+    private volatile AdaptiveRefreshInterval adaptiveRefreshInterval;
+
+    /**
+     * Lock to protect {@link #refreshTask} and {@link #closed}, and to
+     * serialize {@link #reconfigure}s.
+     */
+    private final Object scheduleLock = new Object();
     /** Task that periodically refreshes the cached {@link MachinePool}. */
-    private final ScheduledFuture<?> refreshTask;
+    private ScheduledFuture<?> refreshTask;
+    /** Set when this {@link CachingPoolFetcher} has been closed. */
+    private boolean closed;
+
+    /**
+     * Lock to protect {@link #ongoingRefresh}, {@link #ongoingRefreshFetching}
+     * and {@link #followUpRefresh}.
+     */
+    private final Object refreshLock = new Object();
+    /**
+     * The currently ongoing refresh, if any. Any refresh request arriving
+     * before its fetch has started waits for its result. <code>null</code>
+     * when no refresh is in progress.
+     */
+    private CompletableFuture<MachinePool> ongoingRefresh;
+    /** Set once the fetch of the {@link #ongoingRefresh} has started. */
+    private boolean ongoingRefreshFetching;
+    /**
+     * A refresh to start as soon as the {@link #ongoingRefresh} completes, for
+     * callers that require a pool fetched after their request, but arrived
+     * after the ongoing refresh started fetching. <code>null</code> if no
+     * such refresh has been requested.
+     */
+    private CompletableFuture<MachinePool> followUpRefresh;
+    /**
+     * The time when the cache was last successfully refreshed from the cloud
+     * API. <code>null</code> if no successful refresh has been made since
+     * creation.
+     */
+    private volatile DateTime lastRefresh;
+    /** Set while a stale-while-revalidate background refresh is ongoing. */
+    private final AtomicBoolean revalidating = new AtomicBoolean(false);
+    /**
+     * The time when the last stale-while-revalidate background refresh was
+     * started. <code>null</code> if none has been started.
+     */
+    private volatile DateTime lastRevalidation;
+
+    /** Records the duration of each refresh from the cloud API. */
+    private final Histogram refreshDuration;
+    /** Counts failed refreshes from the cloud API. */
+    private final Counter refreshFailures;
 
     /**
      * Creates a {@link CachingPoolFetcher} with a given {@link PoolFetcher}
@@ -73,29 +208,302 @@ public class CachingPoolFetcher implements PoolFetcher {
      */
     public CachingPoolFetcher(StateStorage stateStorage, PoolFetcher delegate, PoolFetchConfig fetchConfig,
             ScheduledExecutorService executor, EventBus eventBus) {
+        this(stateStorage, delegate, fetchConfig, executor, eventBus, () -> null);
+    }
+
+    /**
+     * Creates a {@link CachingPoolFetcher} with a given {@link PoolFetcher}
+     * delegate and configuration, which takes the desired size of the pool
+     * into account when adapting its refresh interval. The first attempt to
+     * fetch the machine pool will be executed immediately and can be waited
+     * for using {@link #awaitFirstFetch()}.
+     *
+     * @param delegate
+     *            Wrapped {@link PoolFetcher} to delegate actual fetching to.
+     * @param fetchConfig
+     *            Controls fetch behavior.
+     * @param desiredSize
+     *            Supplies the desired size of the pool, or <code>null</code>
+     *            if unknown.
+     */
+    public CachingPoolFetcher(StateStorage stateStorage, PoolFetcher delegate, PoolFetchConfig fetchConfig,
+            ScheduledExecutorService executor, EventBus eventBus, Supplier<Integer> desiredSize) {
+        this(stateStorage, delegate, fetchConfig, executor, MoreExecutors.directExecutor(), eventBus, desiredSize);
+    }
+
+    /**
+     * Creates a {@link CachingPoolFetcher} with a given {@link PoolFetcher}
+     * delegate and configuration, which runs its refreshes on a given fetch
+     * {@link Executor}. The first attempt to fetch the machine pool will be
+     * started immediately and can be waited for using
+     * {@link #awaitFirstFetch()}.
+     *
+     * @param delegate
+     *            Wrapped {@link PoolFetcher} to delegate actual fetching to.
+     * @param fetchConfig
+     *            Controls fetch behavior.
+     * @param executor
+     *            Executor used to schedule cache refreshes.
+     * @param fetchExecutor
+     *            Executor that runs cache refreshes.
+     * @param desiredSize
+     *            Supplies the desired size of the pool, or <code>null</code>
+     *            if unknown.
+     */
+    public CachingPoolFetcher(StateStorage stateStorage, PoolFetcher delegate, PoolFetchConfig fetchConfig,
+            ScheduledExecutorService executor, Executor fetchExecutor, EventBus eventBus,
+            Supplier<Integer> desiredSize) {
+        this(stateStorage, delegate, fetchConfig, executor, fetchExecutor, eventBus, desiredSize,
+                new MetricsRegistry());
+    }
+
+    /**
+     * Creates a {@link CachingPoolFetcher} with a given {@link PoolFetcher}
+     * delegate and configuration, which runs its refreshes on a given fetch
+     * {@link Executor} and records refresh metrics in a given
+     * {@link MetricsRegistry}. The first attempt to fetch the machine pool
+     * will be started immediately and can be waited for using
+     * {@link #awaitFirstFetch()}.
+     *
+     * @param delegate
+     *            Wrapped {@link PoolFetcher} to delegate actual fetching to.
+     * @param fetchConfig
+     *            Controls fetch behavior.
+     * @param executor
+     *            Executor used to schedule cache refreshes.
+     * @param fetchExecutor
+     *            Executor that runs cache refreshes.
+     * @param desiredSize
+     *            Supplies the desired size of the pool, or <code>null</code>
+     *            if unknown.
+     * @param metrics
+     *            Registry in which refresh metrics are recorded.
+     */
+    public CachingPoolFetcher(StateStorage stateStorage, PoolFetcher delegate, PoolFetchConfig fetchConfig,
+            ScheduledExecutorService executor, Executor fetchExecutor, EventBus eventBus,
+            Supplier<Integer> desiredSize, MetricsRegistry metrics) {
         this.delegate = delegate;
         this.fetchConfig = fetchConfig;
         this.eventBus = eventBus;
+        this.executor = executor;
+        this.fetchExecutor = fetchExecutor;
+        this.desiredSize = desiredSize;
+        this.adaptiveRefreshInterval = adaptiveRefreshInterval(fetchConfig);
 
-        this.cachedMachinePool = new PersistentState<MachinePool>(stateStorage.getCachedMachinePoolFile(),
-                MachinePool.class);
+        this.cachedMachinePool = new PersistentMachinePool(stateStorage.getCachedMachinePoolFile(),
+                fetchConfig.isCompactCache(), maxPersistedAge(fetchConfig), executor);
         if (this.cachedMachinePool.get().isPresent()) {
             LOG.info("recovered cached machine pool: {}", this.cachedMachinePool.get().get());
+            indexMembers(this.cachedMachinePool.get().get(), this.cachedMachinePool.get().get().getTimestamp());
         } else {
             LOG.info("no previously stored machine pool found.");
         }
         this.lastFetchError = null;
         this.firstFetchComplete = new CountDownLatch(1);
 
-        this.refreshTask = startPeriodicalFetch(executor, fetchConfig);
+        this.refreshDuration = metrics.histogram(REFRESH_DURATION, "Duration of machine pool refreshes.");
+        this.refreshFailures = metrics.counter(REFRESH_FAILURES, "Failed machine pool refreshes.");
+        metrics.gauge(CACHE_AGE, "Age of the cached machine pool.", this::cacheAgeSeconds);
+        metrics.gauge(POOL_MEMBERS, "Members of the cached machine pool.", () -> this.memberIndex.size());
+        metrics.gauge(REFRESH_INTERVAL, "Interval between periodical machine pool refreshes.",
+                () -> getEffectiveRefreshInterval().getMillis() / 1000.0);
+
+        startPeriodicalFetch(true);
 
         LOG.debug("started {}", getClass().getSimpleName());
     }
 
-    private ScheduledFuture<?> startPeriodicalFetch(ScheduledExecutorService executor, PoolFetchConfig fetchConfig) {
-        TimeInterval refreshInterval = fetchConfig.getRefreshInterval();
-        return executor.scheduleWithFixedDelay(new PoolRefreshTask(this), 0L, refreshInterval.getTime(),
-                refreshInterval.getUnit());
+    private static AdaptiveRefreshInterval adaptiveRefreshInterval(PoolFetchConfig fetchConfig) {
+        return fetchConfig.getAdaptiveRefresh().isPresent()
+                ? new AdaptiveRefreshInterval(fetchConfig.getRefreshInterval(), fetchConfig.getAdaptiveRefresh().get())
+                : null;
+    }
+
+    private static TimeInterval maxPersistedAge(PoolFetchConfig fetchConfig) {
+        // re-persist an unchanged pool well before a restored copy would be
+        // too old to serve
+        return new TimeInterval(fetchConfig.getReachabilityTimeout().getMillis() / 2, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Schedules periodical cache refreshes.
+     *
+     * @param immediately
+     *            <code>true</code> if the first refresh is to be made right
+     *            away, <code>false</code> if it is to be made one refresh
+     *            interval from now.
+     */
+    private void startPeriodicalFetch(boolean immediately) {
+        synchronized (this.scheduleLock) {
+            if (this.adaptiveRefreshInterval != null) {
+                long delay = immediately ? 0L : this.adaptiveRefreshInterval.get().getMillis();
+                this.refreshTask = this.executor.schedule(new AdaptivePoolRefreshTask(this), delay,
+                        TimeUnit.MILLISECONDS);
+            } else {
+                TimeInterval refreshInterval = this.fetchConfig.getRefreshInterval();
+                long delay = immediately ? 0L : refreshInterval.getTime();
+                this.refreshTask = this.executor.scheduleWithFixedDelay(new PoolRefreshTask(this), delay,
+                        refreshInterval.getTime(), refreshInterval.getUnit());
+            }
+        }
+    }
+
+    /**
+     * Replaces the {@link PoolFetcher} delegate and fetch configuration, and
+     * reschedules periodical cache refreshes accordingly. The cached
+     * {@link MachinePool} (and any evictions) are kept, so the next refresh is
+     * not made until one refresh interval from now.
+     *
+     * @param delegate
+     *            Wrapped {@link PoolFetcher} to delegate actual fetching to.
+     * @param fetchConfig
+     *            Controls fetch behavior.
+     */
+    public void reconfigure(PoolFetcher delegate, PoolFetchConfig fetchConfig) {
+        synchronized (this.scheduleLock) {
+            if (this.closed) {
+                return;
+            }
+            LOG.debug("reconfiguring {} ...", getClass().getSimpleName());
+            this.delegate = delegate;
+            this.fetchConfig = fetchConfig;
+            this.adaptiveRefreshInterval = adaptiveRefreshInterval(fetchConfig);
+            this.cachedMachinePool.setMaxPersistedAge(maxPersistedAge(fetchConfig));
+            this.cachedMachinePool.setCompact(fetchConfig.isCompactCache());
+            if (this.refreshTask != null) {
+                // allow an ongoing refresh to finish
+                this.refreshTask.cancel(false);
+            }
+            startPeriodicalFetch(false);
+        }
+    }
+
+    /**
+     * Returns the interval currently used between periodical cache refreshes.
+     * Unless adaptive refresh is configured, this is the configured
+     * {@code refreshInterval}.
+     *
+     * @return The current refresh interval.
+     */
+    public TimeInterval getEffectiveRefreshInterval() {
+        AdaptiveRefreshInterval adaptiveRefreshInterval = this.adaptiveRefreshInterval;
+        if (adaptiveRefreshInterval != null) {
+            return adaptiveRefreshInterval.get();
+        }
+        return this.fetchConfig.getRefreshInterval();
+    }
+
+    /**
+     * Returns <code>true</code> if there is a cached {@link MachinePool} (for
+     * example, one restored from a previous run) that is recent enough to be
+     * served.
+     *
+     * @return <code>true</code> if a cached pool can be served.
+     */
+    public boolean hasServableCache() {
+        Optional<MachinePool> cachedPool = this.cachedMachinePool.get();
+        return cachedPool.isPresent() && !reachabilityTimeoutExceeded(cachedPool.get());
+    }
+
+    /**
+     * Returns the age of the cached {@link MachinePool} in seconds, or
+     * {@code NaN} if nothing has been cached yet.
+     *
+     * @return The age of the cached {@link MachinePool} in seconds, or
+     *         {@code NaN} if nothing has been cached yet.
+     */
+    private double cacheAgeSeconds() {
+        Optional<MachinePool> cachedPool = this.cachedMachinePool.get();
+        if (!cachedPool.isPresent()) {
+            return Double.NaN;
+        }
+        return (UtcTime.now().getMillis() - cachedPool.get().getTimestamp().getMillis()) / 1000.0;
+    }
+
+    /**
+     * Refreshes the cache and, once the refresh completes, adjusts the
+     * adaptive refresh interval according to the outcome and schedules the
+     * next refresh.
+     */
+    void adaptiveRefresh() {
+        AdaptiveRefreshInterval adaptiveRefreshInterval = this.adaptiveRefreshInterval;
+        if (adaptiveRefreshInterval == null) {
+            // reconfigured to refresh at a fixed interval
+            return;
+        }
+        MachinePool previous = this.cachedMachinePool.get().orNull();
+        TimeInterval previousInterval = adaptiveRefreshInterval.get();
+        refreshCacheAsync().whenComplete((current, error) -> {
+            TimeInterval nextInterval;
+            if (error == null) {
+                nextInterval = adaptiveRefreshInterval.onRefresh(previous, current, desiredSize());
+            } else {
+                nextInterval = adaptiveRefreshInterval.onRefreshFailure();
+            }
+            if (!nextInterval.equals(previousInterval)) {
+                LOG.debug("refresh interval adjusted to {} ms", nextInterval.getMillis());
+            }
+
+            synchronized (this.scheduleLock) {
+                // a reconfigure has already rescheduled refreshes
+                boolean reconfigured = this.adaptiveRefreshInterval != adaptiveRefreshInterval;
+                if (!this.closed && !reconfigured) {
+                    this.refreshTask = this.executor.schedule(new AdaptivePoolRefreshTask(this),
+                            nextInterval.getMillis(), TimeUnit.MILLISECONDS);
+                }
+            }
+        });
+    }
+
+    private Integer desiredSize() {
+        try {
+            return this.desiredSize.get();
+        } catch (Exception e) {
+            LOG.debug("desired size not available: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public Optional<Machine> getMember(String machineId) {
+        Optional<MachinePool> cachedPool = this.cachedMachinePool.get();
+        if (!cachedPool.isPresent() || reachabilityTimeoutExceeded(cachedPool.get())
+                || this.evictions.containsKey(machineId)) {
+            return Optional.absent();
+        }
+        return Optional.fromNullable(this.memberIndex.get(machineId));
+    }
+
+    @Override
+    public void evict(String machineId) {
+        this.evictions.put(machineId, UtcTime.now());
+    }
+
+    /**
+     * Re-builds the {@link #memberIndex} from a {@link MachinePool} and drops
+     * any evictions that it reflects.
+     *
+     * @param machinePool
+     *            The observed {@link MachinePool}.
+     * @param observedSince
+     *            The time at which the observation was started. Evictions
+     *            made before this time are reflected by the observation.
+     */
+    private void indexMembers(MachinePool machinePool, DateTime observedSince) {
+        Map<String, Machine> memberIndex = new HashMap<>();
+        for (Machine machine : machinePool.getMachines()) {
+            memberIndex.put(machine.getId(), machine);
+        }
+        this.memberIndex = memberIndex;
+        this.evictions.values().removeIf(evictionTime -> evictionTime.isBefore(observedSince));
+    }
+
+    /**
+     * Writes the cached {@link MachinePool} to disk, unless it already has
+     * been. Persistence otherwise happens asynchronously.
+     */
+    void flushCache() {
+        this.cachedMachinePool.flush();
     }
 
     /**
@@ -118,16 +526,31 @@ public class CachingPoolFetcher implements PoolFetcher {
     public void close() {
         // stop periodical execution of cache update task
         LOG.debug("stopping {} ...", getClass().getSimpleName());
-        if (this.refreshTask != null) {
-            this.refreshTask.cancel(true);
+        synchronized (this.scheduleLock) {
+            this.closed = true;
+            if (this.refreshTask != null) {
+                this.refreshTask.cancel(true);
+            }
         }
+        this.cachedMachinePool.flush();
     }
 
     @Override
     public MachinePool get(FetchOption... options) throws CloudPoolException {
-        if (forceRefresh(options)) {
-            refreshCache();
-            return this.cachedMachinePool.get().get();
+        if (hasOption(FetchOption.FORCE_REFRESH, options)) {
+            if (withinFreshnessWindow()) {
+                MachinePool cachedPool = this.cachedMachinePool.get().get();
+                LOG.debug("cached machine pool refreshed within freshness window, responding with cache: {}",
+                        cachedPool);
+                return cachedPool;
+            }
+            return refreshCache();
+        }
+
+        if (hasOption(FetchOption.LIVE, options) && this.lastRefresh == null) {
+            // the cache has not been refreshed since it was restored
+            LOG.debug("no machine pool fetched since start, awaiting refresh ...");
+            return refreshCache();
         }
 
         if (cacheEmpty()) {
@@ -142,10 +565,62 @@ public class CachingPoolFetcher implements PoolFetcher {
         }
 
         MachinePool cachedPool = this.cachedMachinePool.get().get();
+        if (softTtlExceeded(cachedPool)) {
+            revalidateInBackground();
+        }
         LOG.debug("responding with cached machine pool: {}", cachedPool);
         return cachedPool;
     }
 
+    /**
+     * Determines if a {@link MachinePool} is older than the soft TTL (if one
+     * is configured).
+     *
+     * @param machinePool
+     * @return <code>true</code> if a soft TTL is configured and the
+     *         {@link MachinePool} is older than it, <code>false</code>
+     *         otherwise.
+     */
+    private boolean softTtlExceeded(MachinePool machinePool) {
+        if (!this.fetchConfig.getSoftTtl().isPresent()) {
+            return false;
+        }
+        long cacheAgeMillis = new Duration(machinePool.getTimestamp(), UtcTime.now()).getMillis();
+        return cacheAgeMillis >= this.fetchConfig.getSoftTtl().get().getMillis();
+    }
+
+    /**
+     * Starts an asynchronous refresh of the cache, unless a background refresh
+     * is already in progress or was started less than a soft TTL ago (which
+     * keeps a read-heavy client from hammering an unresponsive cloud API).
+     */
+    private void revalidateInBackground() {
+        DateTime now = UtcTime.now();
+        DateTime lastRevalidation = this.lastRevalidation;
+        if (lastRevalidation != null && new Duration(lastRevalidation, now)
+                .getMillis() < this.fetchConfig.getSoftTtl().get().getMillis()) {
+            return;
+        }
+        if (!this.revalidating.compareAndSet(false, true)) {
+            return;
+        }
+
+        synchronized (this.scheduleLock) {
+            if (this.closed) {
+                this.revalidating.set(false);
+                return;
+            }
+            LOG.debug("cached machine pool is stale, refreshing in background ...");
+            this.lastRevalidation = now;
+            try {
+                this.executor.execute(new RevalidationTask(this));
+            } catch (RejectedExecutionException e) {
+                this.revalidating.set(false);
+                LOG.warn("failed to start background refresh: {}", e.getMessage());
+            }
+        }
+    }
+
     private void reachabilityTimeoutFailure() {
         throw new PoolReachabilityTimeoutException(String.format(
                 "Could not serve a sufficiently up-to-date machine pool (%d %s). "
@@ -192,22 +667,226 @@ public class CachingPoolFetcher implements PoolFetcher {
         return cacheAgeSeconds >= maxAgeSeconds;
     }
 
-    private boolean forceRefresh(FetchOption... options) {
-        return options != null && Arrays.asList(options).contains(FetchOption.FORCE_REFRESH);
+    /**
+     * Determines if the cache was successfully refreshed recently enough to
+     * be served in response to a forced refresh, without calling the cloud
+     * API.
+     *
+     * @return <code>true</code> if the last successful refresh is within the
+     *         freshness window, <code>false</code> otherwise.
+     */
+    private boolean withinFreshnessWindow() {
+        long freshnessMillis = this.fetchConfig.getFreshnessWindow().getMillis();
+        DateTime lastRefresh = this.lastRefresh;
+        if (freshnessMillis <= 0 || lastRefresh == null) {
+            return false;
+        }
+        return new Duration(lastRefresh, UtcTime.now()).getMillis() < freshnessMillis;
+    }
+
+    private static boolean hasOption(FetchOption option, FetchOption... options) {
+        return options != null && Arrays.asList(options).contains(option);
+    }
+
+    /**
+     * Forces a refresh of the cached machine pool and waits for it to
+     * complete. In case of failure, an {@link Alert} is posted on the
+     * {@link EventBus} and a {@link CloudPoolException} is thrown.
+     * <p/>
+     * The returned pool is always fetched after this call was made. If a
+     * refresh is already in progress but has not started fetching yet, the
+     * caller waits for it to complete and is handed its result (or error). If
+     * it has started fetching, it may not reflect changes made just before
+     * this call, so the caller instead waits for a follow-up refresh, which
+     * is shared by all such callers.
+     *
+     * @return The refreshed {@link MachinePool}.
+     * @throws CloudPoolException
+     */
+    MachinePool refreshCache() throws CloudPoolException {
+        return awaitRefresh(refreshCacheAsync(true));
+    }
+
+    /**
+     * Starts a refresh of the cached machine pool on the
+     * {@link #fetchExecutor}, unless one is already in progress, in which case
+     * the ongoing refresh is returned.
+     *
+     * @return The refresh, which completes with the refreshed
+     *         {@link MachinePool} or, in case of failure, exceptionally with a
+     *         {@link CloudPoolException} (after an {@link Alert} has been
+     *         posted on the {@link EventBus}).
+     */
+    CompletableFuture<MachinePool> refreshCacheAsync() {
+        return refreshCacheAsync(false);
+    }
+
+    /**
+     * Starts a refresh of the cached machine pool on the
+     * {@link #fetchExecutor}, unless one is already in progress.
+     *
+     * @param fetchAfterRequest
+     *            If <code>true</code>, an ongoing refresh is only joined if
+     *            it has not started fetching yet. Otherwise, a follow-up
+     *            refresh is returned, which starts once the ongoing refresh
+     *            completes. If <code>false</code>, any ongoing refresh is
+     *            joined.
+     * @return The refresh, which completes with the refreshed
+     *         {@link MachinePool} or, in case of failure, exceptionally with a
+     *         {@link CloudPoolException} (after an {@link Alert} has been
+     *         posted on the {@link EventBus}).
+     */
+    private CompletableFuture<MachinePool> refreshCacheAsync(boolean fetchAfterRequest) {
+        CompletableFuture<MachinePool> refresh;
+        synchronized (this.refreshLock) {
+            if (this.ongoingRefresh != null) {
+                if (!fetchAfterRequest || !this.ongoingRefreshFetching) {
+                    LOG.debug("refresh already in progress, awaiting its result ...");
+                    return this.ongoingRefresh;
+                }
+                if (this.followUpRefresh == null) {
+                    this.followUpRefresh = new CompletableFuture<>();
+                }
+                LOG.debug("refresh in progress may be outdated, awaiting a follow-up refresh ...");
+                return this.followUpRefresh;
+            }
+            refresh = new CompletableFuture<>();
+            this.ongoingRefresh = refresh;
+        }
+        startFetch(refresh);
+        return refresh;
+    }
+
+    /**
+     * Submits the fetch of a refresh, which must be the
+     * {@link #ongoingRefresh}, to the {@link #fetchExecutor}.
+     *
+     * @param refresh
+     */
+    private void startFetch(CompletableFuture<MachinePool> refresh) {
+        try {
+            this.fetchExecutor.execute(new FetchTask(this, refresh));
+        } catch (RejectedExecutionException e) {
+            clearOngoingRefresh();
+            refresh.completeExceptionally(
+                    new CloudPoolException(format("machine pool refresh rejected: %s", e.getMessage()), e));
+            this.firstFetchComplete.countDown();
+        }
+    }
+
+    /**
+     * Carries out a refresh started by {@link #refreshCacheAsync()} and
+     * completes it with the outcome. Callers waiting for the refresh are
+     * released before any {@link #followUpRefresh} is started.
+     *
+     * @param refresh
+     */
+    private void completeRefresh(CompletableFuture<MachinePool> refresh) {
+        synchronized (this.refreshLock) {
+            this.ongoingRefreshFetching = true;
+        }
+        CompletableFuture<MachinePool> followUp;
+        try {
+            MachinePool machinePool = fetchAndCache();
+            followUp = endOngoingRefresh();
+            refresh.complete(machinePool);
+        } catch (Throwable e) {
+            followUp = endOngoingRefresh();
+            refresh.completeExceptionally(e);
+        } finally {
+            this.firstFetchComplete.countDown();
+        }
+        if (followUp != null) {
+            startFollowUp(followUp);
+        }
+    }
+
+    /**
+     * Ends the {@link #ongoingRefresh}, and makes the {@link #followUpRefresh}
+     * (if one has been requested) the ongoing refresh in its place.
+     *
+     * @return The follow-up refresh that is to be started, or
+     *         <code>null</code> if none has been requested.
+     */
+    private CompletableFuture<MachinePool> endOngoingRefresh() {
+        synchronized (this.refreshLock) {
+            CompletableFuture<MachinePool> followUp = this.followUpRefresh;
+            this.ongoingRefresh = followUp;
+            this.ongoingRefreshFetching = false;
+            this.followUpRefresh = null;
+            return followUp;
+        }
+    }
+
+    /**
+     * Starts a follow-up refresh from a task run on the {@link #executor}.
+     * With a direct {@link #fetchExecutor}, starting it right away would run
+     * it on the thread that carried out the previous refresh, which would
+     * hold up the caller that started that refresh for one more fetch.
+     *
+     * @param followUp
+     *            The follow-up refresh, which must be the
+     *            {@link #ongoingRefresh}.
+     */
+    private void startFollowUp(CompletableFuture<MachinePool> followUp) {
+        try {
+            this.executor.execute(() -> startFetch(followUp));
+        } catch (RejectedExecutionException e) {
+            clearOngoingRefresh();
+            followUp.completeExceptionally(
+                    new CloudPoolException(format("machine pool refresh rejected: %s", e.getMessage()), e));
+        }
+    }
+
+    private void clearOngoingRefresh() {
+        synchronized (this.refreshLock) {
+            this.ongoingRefresh = null;
+        }
     }
 
     /**
-     * Forces a refresh of the cached machine pool. In case of failure, an
-     * {@link Alert} is posted on the {@link EventBus} and a
-     * {@link CloudPoolException} is thrown.
+     * Waits for a refresh, carried out by another thread, to complete.
      *
+     * @param refresh
+     * @return The refreshed {@link MachinePool}.
      * @throws CloudPoolException
      */
-    void refreshCache() throws CloudPoolException {
+    private MachinePool awaitRefresh(CompletableFuture<MachinePool> refresh) throws CloudPoolException {
+        try {
+            return refresh.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CloudPoolException) {
+                throw (CloudPoolException) cause;
+            }
+            throw new CloudPoolException(format("machine pool refresh failed: %s", cause.getMessage()), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CloudPoolException("interrupted while waiting for machine pool refresh", e);
+        }
+    }
+
+    /**
+     * Fetches the machine pool from the wrapped {@link PoolFetcher} and
+     * updates the cache. In case of failure, an {@link Alert} is posted on the
+     * {@link EventBus} and a {@link CloudPoolException} is thrown.
+     *
+     * @return The fetched {@link MachinePool}.
+     * @throws CloudPoolException
+     */
+    private MachinePool fetchAndCache() throws CloudPoolException {
         LOG.debug("refreshing cached cloud pool ...");
+        DateTime fetchStart = UtcTime.now();
+        long start = System.nanoTime();
         try {
-            this.cachedMachinePool.update(this.delegate.get(FetchOption.FORCE_REFRESH));
+            MachinePool machinePool = this.delegate.get(FetchOption.FORCE_REFRESH);
+            checkState(machinePool != null, "pool fetcher returned a null machine pool");
+            this.cachedMachinePool.update(machinePool);
+            indexMembers(machinePool, fetchStart);
+            this.lastRefresh = UtcTime.now();
+            return machinePool;
         } catch (Throwable e) {
+            this.refreshFailures.increment();
             this.lastFetchError = e;
             String message = format("machine pool refresh failed: %s", e.getMessage());
             Alert alert = AlertBuilder.create().topic(POOL_FETCH.name()).severity(AlertSeverity.WARN).message(message)
@@ -216,7 +895,7 @@ public class CachingPoolFetcher implements PoolFetcher {
             LOG.warn(message, e);
             throw new CloudPoolException(message, e);
         } finally {
-            this.firstFetchComplete.countDown();
+            this.refreshDuration.observeSince(start);
         }
     }
 
@@ -230,12 +909,64 @@ public class CachingPoolFetcher implements PoolFetcher {
 
         @Override
         public void run() {
-            try {
-                this.poolFetcher.refreshCache();
-            } catch (Exception e) {
-                // just catch exception to prevent periodical execution from
-                // aborting
-            }
+            // failures are reported by the refresh and must not prevent
+            // periodical execution from continuing
+            this.poolFetcher.refreshCacheAsync();
+        }
+    }
+
+    /**
+     * Task that, when executed, updates the machine pool cache and schedules
+     * its next execution according to the adaptive refresh interval.
+     */
+    public static class AdaptivePoolRefreshTask implements Runnable {
+        private final CachingPoolFetcher poolFetcher;
+
+        public AdaptivePoolRefreshTask(CachingPoolFetcher poolFetcher) {
+            this.poolFetcher = poolFetcher;
+        }
+
+        @Override
+        public void run() {
+            this.poolFetcher.adaptiveRefresh();
+        }
+    }
+
+    /**
+     * Task that, when executed, refreshes the machine pool cache in the
+     * background after a read found it stale.
+     */
+    private static class RevalidationTask implements Runnable {
+        private final CachingPoolFetcher poolFetcher;
+
+        public RevalidationTask(CachingPoolFetcher poolFetcher) {
+            this.poolFetcher = poolFetcher;
+        }
+
+        @Override
+        public void run() {
+            // failure is reported by the refresh
+            this.poolFetcher.refreshCacheAsync()
+                    .whenComplete((machinePool, error) -> this.poolFetcher.revalidating.set(false));
+        }
+    }
+
+    /**
+     * Task that, when executed, fetches the machine pool and completes a
+     * given refresh with the outcome.
+     */
+    private static class FetchTask implements Runnable {
+        private final CachingPoolFetcher poolFetcher;
+        private final CompletableFuture<MachinePool> refresh;
+
+        public FetchTask(CachingPoolFetcher poolFetcher, CompletableFuture<MachinePool> refresh) {
+            this.poolFetcher = poolFetcher;
+            this.refresh = refresh;
+        }
+
+        @Override
+        public void run() {
+            this.poolFetcher.completeRefresh(this.refresh);
         }
     }
 }
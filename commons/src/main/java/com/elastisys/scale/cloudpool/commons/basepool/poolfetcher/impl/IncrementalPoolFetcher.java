@@ -0,0 +1,177 @@
+package com.elastisys.scale.cloudpool.commons.basepool.poolfetcher.impl;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.DateTime;
+import org.joda.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.elastisys.scale.cloudpool.api.CloudPoolException;
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.api.types.MachinePool;
+import com.elastisys.scale.cloudpool.commons.basepool.config.RetriesConfig;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.IncrementalCloudPoolDriver;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.MachineChanges;
+import com.elastisys.scale.cloudpool.commons.basepool.poolfetcher.FetchOption;
+import com.elastisys.scale.cloudpool.commons.basepool.poolfetcher.PoolFetcher;
+import com.elastisys.scale.commons.json.types.TimeInterval;
+import com.elastisys.scale.commons.net.retryable.Retryable;
+import com.elastisys.scale.commons.net.retryable.Retryers;
+import com.elastisys.scale.commons.util.time.UtcTime;
+
+/**
+ * A {@link PoolFetcher} that synchronously "calls through" to the cloud
+ * provider API on each invocation, but only asks an
+ * {@link IncrementalCloudPoolDriver} for the pool member changes since the
+ * previous invocation and merges those into its last observed
+ * {@link MachinePool}.
+ * <p/>
+ * A full listing of the pool members is requested on the first invocation,
+ * whenever the full resync interval has passed since the last full listing
+ * and after a failed attempt to fetch changes. Like the
+ * {@link RetryingPoolFetcher}, failed attempts are retried (with exponential
+ * back-off).
+ */
+public class IncrementalPoolFetcher implements PoolFetcher {
+    private static final Logger LOG = LoggerFactory.getLogger(IncrementalPoolFetcher.class);
+
+    /** A cloud-specific management driver for the cloud pool. */
+    private final IncrementalCloudPoolDriver cloudDriver;
+    /**
+     * Maximum number of retries to make on failed attempts to fetch pool
+     * members.
+     */
+    private final int maxRetries;
+    /** Initial delay to use in exponential back-off on retries. */
+    private final TimeInterval initialBackoffDelay;
+    /** How often to make a full listing of the pool members. */
+    private final TimeInterval fullResyncInterval;
+
+    /**
+     * The last observed pool members, keyed on machine id. Iteration order is
+     * the order in which machines were first observed.
+     */
+    private final Map<String, Machine> machines;
+    /**
+     * The cursor to list changes from. <code>null</code> if a full listing is
+     * to be made on the next invocation.
+     */
+    private String cursor;
+    /** The time of the last full listing. */
+    private DateTime lastFullListing;
+
+    /**
+     * Creates an {@link IncrementalPoolFetcher} that will fetch machine pool
+     * members with the given {@link IncrementalCloudPoolDriver}.
+     *
+     * @param cloudDriver
+     *            A cloud-specific management driver for the cloud pool.
+     * @param retriesConfig
+     *            Retry handling when fetching pool members from the cloud API
+     *            fails.
+     * @param fullResyncInterval
+     *            How often to make a full listing of the pool members.
+     */
+    public IncrementalPoolFetcher(IncrementalCloudPoolDriver cloudDriver, RetriesConfig retriesConfig,
+            TimeInterval fullResyncInterval) {
+        this.cloudDriver = cloudDriver;
+        this.maxRetries = retriesConfig.getMaxRetries();
+        this.initialBackoffDelay = retriesConfig.getInitialBackoffDelay();
+        this.fullResyncInterval = fullResyncInterval;
+
+        this.machines = new LinkedHashMap<>();
+        this.cursor = null;
+        this.lastFullListing = null;
+    }
+
+    @Override
+    public void close() {
+        // nothing to be done
+    }
+
+    @Override
+    public synchronized MachinePool get(FetchOption... options) throws CloudPoolException {
+        if (fullResyncDue()) {
+            this.cursor = null;
+        }
+
+        MachineChanges changes;
+        try {
+            changes = listChanges(this.cursor);
+        } catch (CloudPoolException e) {
+            // cursor may be what caused the failure: start over next time
+            this.cursor = null;
+            throw e;
+        }
+        apply(changes);
+        return new MachinePool(new ArrayList<>(this.machines.values()), UtcTime.now());
+    }
+
+    private boolean fullResyncDue() {
+        if (this.cursor == null || this.lastFullListing == null) {
+            return true;
+        }
+        long millisSinceFullListing = new Duration(this.lastFullListing, UtcTime.now()).getMillis();
+        return millisSinceFullListing >= this.fullResyncInterval.getMillis();
+    }
+
+    private void apply(MachineChanges changes) {
+        if (changes.isFullListing()) {
+            LOG.debug("full listing: {} pool member(s)", changes.getChangedMachines().size());
+            this.machines.clear();
+            this.lastFullListing = UtcTime.now();
+        } else {
+            LOG.debug("pool member changes: {} added/changed, {} removed", changes.getChangedMachines().size(),
+                    changes.getRemovedMachineIds().size());
+            for (String removedMachineId : changes.getRemovedMachineIds()) {
+                this.machines.remove(removedMachineId);
+            }
+        }
+        for (Machine machine : changes.getChangedMachines()) {
+            this.machines.put(machine.getId(), machine);
+        }
+        this.cursor = changes.getCursor();
+    }
+
+    /**
+     * Lists pool member changes since a given cursor using the
+     * {@link IncrementalCloudPoolDriver}.
+     *
+     * @param cursor
+     *            The cursor to list changes from. <code>null</code> for a
+     *            full listing.
+     * @return The pool member changes since the cursor, or a full listing.
+     */
+    private MachineChanges listChanges(String cursor) throws CloudPoolException {
+        int backoffDelay = this.initialBackoffDelay.getTime().intValue();
+        TimeUnit backoffDelayUnit = this.initialBackoffDelay.getUnit();
+        int maxAttempts = 1 + this.maxRetries;
+        Retryable<MachineChanges> retryable = Retryers.exponentialBackoffRetryer("pool-fetch",
+                new ListChanges(this.cloudDriver, cursor), backoffDelay, backoffDelayUnit, maxAttempts);
+        try {
+            return retryable.call();
+        } catch (Exception e) {
+            throw new CloudPoolException(String.format("gave up trying to fetch pool members: %s", e.getMessage()), e);
+        }
+    }
+
+    private static class ListChanges implements Callable<MachineChanges> {
+        private final IncrementalCloudPoolDriver cloudDriver;
+        private final String cursor;
+
+        public ListChanges(IncrementalCloudPoolDriver cloudDriver, String cursor) {
+            this.cloudDriver = cloudDriver;
+            this.cursor = cursor;
+        }
+
+        @Override
+        public MachineChanges call() throws Exception {
+            return this.cloudDriver.listChanges(this.cursor);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.elastisys.scale.cloudpool.commons.basepool.poolfetcher.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.joda.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.api.types.MachinePool;
+import com.elastisys.scale.commons.json.JsonUtils;
+import com.elastisys.scale.commons.json.types.TimeInterval;
+import com.google.common.base.Charsets;
+import com.google.common.base.Optional;
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+
+/**
+ * Holds a {@link MachinePool} in memory and persists it to a file, from which
+ * it is restored on creation.
+ * <p/>
+ * To keep disk I/O down, writes are made <i>on change</i> and <i>behind</i>:
+ * <ul>
+ * <li>An updated {@link MachinePool} is only written if its {@link Machine}s
+ * differ from those of the last written pool, or if the last written pool is
+ * older than a given maximum age (which bounds how outdated a restored pool can
+ * be).</li>
+ * <li>Writes are carried out asynchronously by an {@link ExecutorService}.
+ * If several updates arrive while a write is in progress, only the latest one
+ * is written.</li>
+ * <li>Each write goes to a temporary file, which is then atomically renamed
+ * to replace the pool file, so that a crash mid-write never leaves a
+ * truncated pool file behind.</li>
+ * </ul>
+ * Optionally, pools can be written in a compact encoding, which leaves out
+ * {@link Machine} metadata. Restored {@link Machine}s then lack metadata until
+ * the pool is refreshed.
+ */
+class PersistentMachinePool {
+    private static final Logger LOG = LoggerFactory.getLogger(PersistentMachinePool.class);
+
+    /** File that the {@link MachinePool} is persisted to. */
+    private final File file;
+    /** Temporary file that writes go to before being renamed to {@link #file}. */
+    private final File tempFile;
+    /** <code>true</code> if {@link Machine} metadata is to be left out. */
+    private volatile boolean compact;
+    /**
+     * Maximum age of the last written pool before an unchanged pool is
+     * re-written.
+     */
+    private volatile long maxPersistedAgeMillis;
+    /** Carries out writes. */
+    private final ExecutorService writer;
+
+    /** The current {@link MachinePool}. <code>null</code> if none yet. */
+    private volatile MachinePool machinePool;
+    /**
+     * The last {@link MachinePool} that was successfully written (or
+     * restored). <code>null</code> if none.
+     */
+    private volatile MachinePool lastPersisted;
+    /** The latest {@link MachinePool} awaiting to be written, if any. */
+    private final AtomicReference<MachinePool> pendingWrite = new AtomicReference<>();
+    /** Set while a write task is queued or running. */
+    private final AtomicBoolean writeScheduled = new AtomicBoolean(false);
+    /** Lock that serializes writes to the file. */
+    private final Object writeLock = new Object();
+
+    /**
+     * Creates a {@link PersistentMachinePool}, restoring any
+     * {@link MachinePool} previously persisted to the given file.
+     *
+     * @param file
+     *            File that the {@link MachinePool} is persisted to.
+     * @param compact
+     *            <code>true</code> if {@link Machine} metadata is to be left
+     *            out when persisting.
+     * @param maxPersistedAge
+     *            Maximum age of the last written pool before an unchanged pool
+     *            is re-written.
+     * @param writer
+     *            Carries out writes.
+     */
+    public PersistentMachinePool(File file, boolean compact, TimeInterval maxPersistedAge, ExecutorService writer) {
+        this.file = file;
+        this.tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+        this.compact = compact;
+        this.maxPersistedAgeMillis = maxPersistedAge.getMillis();
+        this.writer = writer;
+
+        this.machinePool = restore();
+        this.lastPersisted = this.machinePool;
+    }
+
+    /**
+     * Sets the maximum age of the last written pool before an unchanged pool
+     * is re-written.
+     *
+     * @param maxPersistedAge
+     */
+    public void setMaxPersistedAge(TimeInterval maxPersistedAge) {
+        this.maxPersistedAgeMillis = maxPersistedAge.getMillis();
+    }
+
+    /**
+     * Sets whether {@link Machine} metadata is to be left out of subsequent
+     * writes.
+     *
+     * @param compact
+     */
+    public void setCompact(boolean compact) {
+        this.compact = compact;
+    }
+
+    /**
+     * Returns the current {@link MachinePool}, if any.
+     *
+     * @return The current {@link MachinePool}, or {@link Optional#absent()}
+     *         if none has been set or restored.
+     */
+    public Optional<MachinePool> get() {
+        return Optional.fromNullable(this.machinePool);
+    }
+
+    /**
+     * Sets the current {@link MachinePool} and, if needed, schedules it to be
+     * written to disk.
+     *
+     * @param machinePool
+     */
+    public void update(MachinePool machinePool) {
+        this.machinePool = machinePool;
+        if (!needsPersisting(machinePool)) {
+            LOG.trace("machine pool unchanged, not persisting");
+            return;
+        }
+        this.pendingWrite.set(machinePool);
+        scheduleWrite();
+    }
+
+    /**
+     * Writes any pending update to disk and waits for any ongoing write to
+     * complete. On return, the latest update handed to the writer is on disk.
+     */
+    public void flush() {
+        synchronized (this.writeLock) {
+            MachinePool pending = this.pendingWrite.getAndSet(null);
+            if (pending != null) {
+                write(pending);
+            }
+        }
+    }
+
+    private boolean needsPersisting(MachinePool machinePool) {
+        MachinePool lastPersisted = this.lastPersisted;
+        if (lastPersisted == null) {
+            return true;
+        }
+        long persistedAgeMillis = new Duration(lastPersisted.getTimestamp(), machinePool.getTimestamp())
+                .getMillis();
+        return persistedAgeMillis >= this.maxPersistedAgeMillis
+                || !lastPersisted.getMachines().equals(machinePool.getMachines());
+    }
+
+    private void scheduleWrite() {
+        if (!this.writeScheduled.compareAndSet(false, true)) {
+            // an already scheduled write will pick up the pending pool
+            return;
+        }
+        try {
+            this.writer.submit(new WriteTask(this));
+        } catch (RejectedExecutionException e) {
+            this.writeScheduled.set(false);
+            LOG.warn("failed to schedule write of machine pool to {}: {}", this.file, e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the pending update (if any), then allows a new write to be
+     * scheduled.
+     */
+    private void drainPendingWrites() {
+        try {
+            flush();
+        } finally {
+            this.writeScheduled.set(false);
+        }
+        // an update may have arrived after flushing but before the flag was
+        // cleared
+        if (this.pendingWrite.get() != null) {
+            scheduleWrite();
+        }
+    }
+
+    private void write(MachinePool machinePool) {
+        boolean compact = this.compact;
+        MachinePool toWrite = machinePool;
+        if (compact) {
+            toWrite = new MachinePool(Lists.transform(machinePool.getMachines(), Machine.toShortFormat()),
+                    machinePool.getTimestamp());
+        }
+        try {
+            Files.createParentDirs(this.file);
+            String json = compact ? JsonUtils.toString(JsonUtils.toJson(toWrite))
+                    : JsonUtils.toPrettyString(JsonUtils.toJson(toWrite));
+            Files.write(json, this.tempFile, Charsets.UTF_8);
+            try {
+                java.nio.file.Files.move(this.tempFile.toPath(), this.file.toPath(),
+                        StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                java.nio.file.Files.move(this.tempFile.toPath(), this.file.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING);
+            }
+            // only now can re-writes of this pool be skipped
+            this.lastPersisted = machinePool;
+            LOG.debug("wrote machine pool to {}", this.file);
+        } catch (IOException | RuntimeException e) {
+            // lastPersisted is left as is, so the next update is written
+            LOG.warn("failed to write machine pool to {}: {}", this.file, e.getMessage(), e);
+        }
+    }
+
+    private MachinePool restore() {
+        if (!this.file.isFile()) {
+            return null;
+        }
+        try {
+            return JsonUtils.toObject(JsonUtils.parseJsonFile(this.file), MachinePool.class);
+        } catch (RuntimeException e) {
+            LOG.warn("failed to restore machine pool from {}: {}", this.file, e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /** Task that writes any pending {@link MachinePool} updates. */
+    private static class WriteTask implements Runnable {
+        private final PersistentMachinePool persistentPool;
+
+        public WriteTask(PersistentMachinePool persistentPool) {
+            this.persistentPool = persistentPool;
+        }
+
+        @Override
+        public void run() {
+            this.persistentPool.drainPendingWrites();
+        }
+    }
+}
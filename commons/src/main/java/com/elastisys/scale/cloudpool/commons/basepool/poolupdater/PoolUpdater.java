@@ -49,6 +49,14 @@ public interface PoolUpdater extends Closeable {
      */
     int getDesiredSize() throws CloudPoolException;
 
+    /**
+     * Returns a snapshot of the {@link PoolUpdater}'s current state. Never
+     * blocks, not even while a pool update is in progress.
+     *
+     * @return The current state.
+     */
+    PoolUpdaterState getState();
+
     /**
      * Updates the size of the machine pool to match the currently set desired
      * size using the provided configuration to govern how machines are to be
@@ -60,6 +68,17 @@ public interface PoolUpdater extends Closeable {
      */
     void resize(BaseCloudPoolConfig config) throws CloudPoolException;
 
+    /**
+     * Replaces the configuration used for periodical pool updates without
+     * losing any state (such as the desired size and the machines queued for
+     * termination). Periodical pool updates are rescheduled if the
+     * {@code poolUpdate.updateInterval} has changed.
+     *
+     * @param config
+     *            The new configuration.
+     */
+    void reconfigure(BaseCloudPoolConfig config);
+
     /**
      * Terminates a particular machine pool member. The caller can control if a
      * replacement machine is to be provisioned via the
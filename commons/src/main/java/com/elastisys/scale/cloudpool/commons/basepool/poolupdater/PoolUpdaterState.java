@@ -0,0 +1,203 @@
+package com.elastisys.scale.cloudpool.commons.basepool.poolupdater;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.List;
+
+import org.joda.time.DateTime;
+
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.api.types.MachinePool;
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * An immutable snapshot of the state shared between a {@link PoolUpdater}'s
+ * pool updates and its readers: the desired size, the last pool observation
+ * used to plan a pool update, the machines queued for termination and the
+ * status of pool updates.
+ * <p/>
+ * A {@link PoolUpdater} publishes a new snapshot on every state change, so
+ * that a snapshot can be read without waiting for an in-progress pool update.
+ * Changes are made by means of the {@code with*} methods, each of which
+ * returns a modified copy.
+ */
+public class PoolUpdaterState {
+
+    /** A state where nothing is known yet. */
+    public static final PoolUpdaterState INITIAL = new PoolUpdaterState(null, null, ImmutableList.of(), false,
+            null, null);
+
+    /** The desired size. <code>null</code> until set/determined. */
+    private final Integer desiredSize;
+    /**
+     * The pool observation used to plan the latest pool update. May be
+     * <code>null</code>.
+     */
+    private final MachinePool lastKnownPool;
+    /** The machines queued for termination. */
+    private final List<Machine> terminationQueue;
+    /** <code>true</code> while a pool update is in progress. */
+    private final boolean updating;
+    /** The time the latest pool update ended. May be <code>null</code>. */
+    private final DateTime lastUpdate;
+    /**
+     * The error message of the latest pool update, if it failed. May be
+     * <code>null</code>.
+     */
+    private final String lastUpdateError;
+
+    private PoolUpdaterState(Integer desiredSize, MachinePool lastKnownPool, List<Machine> terminationQueue,
+            boolean updating, DateTime lastUpdate, String lastUpdateError) {
+        this.desiredSize = desiredSize;
+        this.lastKnownPool = lastKnownPool;
+        this.terminationQueue = ImmutableList.copyOf(terminationQueue);
+        this.updating = updating;
+        this.lastUpdate = lastUpdate;
+        this.lastUpdateError = lastUpdateError;
+    }
+
+    /**
+     * Returns the desired size, if it has been set/determined.
+     *
+     * @return The desired size, or {@link Optional#absent()} if not known
+     *         yet.
+     */
+    public Optional<Integer> getDesiredSize() {
+        return Optional.fromNullable(this.desiredSize);
+    }
+
+    /**
+     * Returns the pool observation that was used to plan the latest pool
+     * update, if any.
+     *
+     * @return The latest planned-from pool, if any.
+     */
+    public Optional<MachinePool> getLastKnownPool() {
+        return Optional.fromNullable(this.lastKnownPool);
+    }
+
+    /**
+     * Returns the machines queued for termination, in order of termination.
+     *
+     * @return The queued machines, earliest termination first.
+     */
+    public List<Machine> getTerminationQueue() {
+        return this.terminationQueue;
+    }
+
+    /**
+     * Returns <code>true</code> if a pool update is in progress.
+     *
+     * @return <code>true</code> while a pool update runs.
+     */
+    public boolean isUpdating() {
+        return this.updating;
+    }
+
+    /**
+     * Returns the time the latest pool update ended, if any.
+     *
+     * @return The end time of the latest pool update, if any.
+     */
+    public Optional<DateTime> getLastUpdate() {
+        return Optional.fromNullable(this.lastUpdate);
+    }
+
+    /**
+     * Returns the error message of the latest pool update, if it failed.
+     *
+     * @return The error message of the latest pool update, or
+     *         {@link Optional#absent()} if it succeeded.
+     */
+    public Optional<String> getLastUpdateError() {
+        return Optional.fromNullable(this.lastUpdateError);
+    }
+
+    /**
+     * Returns a copy of this state with a given desired size.
+     *
+     * @param desiredSize
+     * @return The updated copy.
+     */
+    public PoolUpdaterState withDesiredSize(int desiredSize) {
+        checkArgument(desiredSize >= 0, "negative desired pool size");
+        return new PoolUpdaterState(desiredSize, this.lastKnownPool, this.terminationQueue, this.updating,
+                this.lastUpdate, this.lastUpdateError);
+    }
+
+    /**
+     * Returns a copy of this state with a given last known pool.
+     *
+     * @param lastKnownPool
+     * @return The updated copy.
+     */
+    public PoolUpdaterState withLastKnownPool(MachinePool lastKnownPool) {
+        return new PoolUpdaterState(this.desiredSize, lastKnownPool, this.terminationQueue, this.updating,
+                this.lastUpdate, this.lastUpdateError);
+    }
+
+    /**
+     * Returns a copy of this state with a given termination queue.
+     *
+     * @param terminationQueue
+     * @return The updated copy.
+     */
+    public PoolUpdaterState withTerminationQueue(List<Machine> terminationQueue) {
+        return new PoolUpdaterState(this.desiredSize, this.lastKnownPool, terminationQueue, this.updating,
+                this.lastUpdate, this.lastUpdateError);
+    }
+
+    /**
+     * Returns a copy of this state with a pool update in progress.
+     *
+     * @return The updated copy.
+     */
+    public PoolUpdaterState withUpdateStarted() {
+        return new PoolUpdaterState(this.desiredSize, this.lastKnownPool, this.terminationQueue, true,
+                this.lastUpdate, this.lastUpdateError);
+    }
+
+    /**
+     * Returns a copy of this state with a pool update having ended.
+     *
+     * @param endTime
+     *            The time the pool update ended.
+     * @param error
+     *            The error message, if the pool update failed. May be
+     *            <code>null</code>.
+     * @return The updated copy.
+     */
+    public PoolUpdaterState withUpdateEnded(DateTime endTime, String error) {
+        return new PoolUpdaterState(this.desiredSize, this.lastKnownPool, this.terminationQueue, false, endTime,
+                error);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(this.desiredSize, this.lastKnownPool, this.terminationQueue, this.updating,
+                this.lastUpdate, this.lastUpdateError);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof PoolUpdaterState) {
+            PoolUpdaterState that = (PoolUpdaterState) obj;
+            return Objects.equal(this.desiredSize, that.desiredSize)
+                    && Objects.equal(this.lastKnownPool, that.lastKnownPool)
+                    && Objects.equal(this.terminationQueue, that.terminationQueue)
+                    && this.updating == that.updating && Objects.equal(this.lastUpdate, that.lastUpdate)
+                    && Objects.equal(this.lastUpdateError, that.lastUpdateError);
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("desiredSize", this.desiredSize)
+                .add("terminationQueue", this.terminationQueue.size()).add("updating", this.updating)
+                .add("lastUpdate", this.lastUpdate).add("lastUpdateError", this.lastUpdateError).toString();
+    }
+}
@@ -0,0 +1,293 @@
+package com.elastisys.scale.cloudpool.commons.basepool.poolupdater.impl;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriver;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriverException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.StartMachinesException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.TerminateMachinesException;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Carries out multi-machine {@link CloudPoolDriver} operations with a bounded
+ * number of concurrent driver calls.
+ * <p/>
+ * The machines of a request are split into (at most) {@code maxParallelCalls}
+ * groups of (near) equal size, each of which is handed to the
+ * {@link CloudPoolDriver} in a separate call. The outcome of all calls is
+ * aggregated as if a single driver call had been made: a partially failed
+ * request raises a {@link StartMachinesException} or
+ * {@link TerminateMachinesException} covering all machines of the request.
+ * <p/>
+ * The driver calls are run concurrently and composed, so that the calling
+ * thread only waits once for the aggregated outcome. With a single allowed call, requests are passed straight through
+ * to the {@link CloudPoolDriver} on the calling thread.
+ * <p/>
+ * Parallel driver calls are run on threads owned by the
+ * {@link ParallelDriverCalls}, never on the scheduler of the cloud pool, which
+ * is shared by periodical tasks and may only have a couple of threads. The
+ * threads are started on demand, released after being idle for a while and
+ * stopped by {@link #close()}.
+ */
+class ParallelDriverCalls {
+    private static final Logger LOG = LoggerFactory.getLogger(ParallelDriverCalls.class);
+
+    /** Time after which an idle driver call thread is released. */
+    private static final long IDLE_THREAD_TIMEOUT_SECONDS = 60;
+
+    /** The {@link CloudPoolDriver} to call. */
+    private final CloudPoolDriver cloudDriver;
+    /** The maximum number of concurrent driver calls. */
+    private final int maxParallelCalls;
+    /**
+     * Runs driver calls. <code>null</code> if only one call is allowed at a
+     * time.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Creates a {@link ParallelDriverCalls}.
+     *
+     * @param cloudDriver
+     *            The {@link CloudPoolDriver} to call.
+     * @param maxParallelCalls
+     *            The maximum number of concurrent driver calls.
+     */
+    public ParallelDriverCalls(CloudPoolDriver cloudDriver, int maxParallelCalls) {
+        checkArgument(maxParallelCalls >= 1, "maxParallelCalls must be at least 1");
+        this.cloudDriver = cloudDriver;
+        this.maxParallelCalls = maxParallelCalls;
+        this.executor = maxParallelCalls == 1 ? null : newDriverCallExecutor(maxParallelCalls);
+    }
+
+    /**
+     * Creates an {@link ExecutorService} that runs up to a given number of
+     * driver calls at a time, on threads that are released when idle.
+     *
+     * @param maxParallelCalls
+     *            The maximum number of concurrent driver calls.
+     * @return The created {@link ExecutorService}.
+     */
+    private static ExecutorService newDriverCallExecutor(int maxParallelCalls) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxParallelCalls, maxParallelCalls,
+                IDLE_THREAD_TIMEOUT_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                new ThreadFactoryBuilder().setNameFormat("driver-call-%d").setDaemon(true).build());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Stops the threads used to run driver calls. Ongoing calls are allowed to
+     * finish.
+     */
+    public void close() {
+        if (this.executor != null) {
+            this.executor.shutdown();
+        }
+    }
+
+    /**
+     * Starts a number of machines. See
+     * {@link CloudPoolDriver#startMachines(int)}.
+     *
+     * @param count
+     *            The number of machines to start.
+     * @return The started machines.
+     * @throws StartMachinesException
+     *             If any of the driver calls failed. Covers the machines
+     *             started by all calls.
+     */
+    public List<Machine> startMachines(int count) throws StartMachinesException {
+        if (Math.min(count, this.maxParallelCalls) <= 1) {
+            return this.cloudDriver.startMachines(count);
+        }
+        return await(startMachinesAsync(count));
+    }
+
+    /**
+     * Starts a number of machines in parallel driver calls, without waiting
+     * for the calls to complete.
+     *
+     * @param count
+     *            The number of machines to start.
+     * @return The started machines. Completes exceptionally with a
+     *         {@link StartMachinesException} covering the machines started by
+     *         all calls if any of the driver calls failed.
+     */
+    private CompletableFuture<List<Machine>> startMachinesAsync(int count) {
+        int numCalls = Math.max(1, Math.min(count, this.maxParallelCalls));
+        List<CompletableFuture<List<Machine>>> calls = new ArrayList<>();
+        for (int i = 0; i < numCalls; i++) {
+            // spread any remainder over the first calls
+            int share = count / numCalls + (i < count % numCalls ? 1 : 0);
+            calls.add(call(() -> this.cloudDriver.startMachines(share)));
+        }
+        LOG.debug("starting {} machine(s) in {} parallel driver calls", count, numCalls);
+
+        return allOf(calls).thenApply(ignored -> {
+            List<Machine> started = new ArrayList<>();
+            Throwable firstFailure = null;
+            for (CompletableFuture<List<Machine>> call : calls) {
+                try {
+                    started.addAll(call.join());
+                } catch (CompletionException | CancellationException e) {
+                    Throwable cause = unwrap(e);
+                    if (cause instanceof StartMachinesException) {
+                        started.addAll(((StartMachinesException) cause).getStartedMachines());
+                        // report the underlying error for the request as a
+                        // whole
+                        cause = cause.getCause() != null ? cause.getCause() : cause;
+                    }
+                    firstFailure = firstFailure != null ? firstFailure : cause;
+                }
+            }
+            if (firstFailure != null) {
+                throw new StartMachinesException(count, started, firstFailure);
+            }
+            return started;
+        });
+    }
+
+    /**
+     * Terminates a number of machines. See
+     * {@link CloudPoolDriver#terminateMachines(List)}.
+     *
+     * @param machineIds
+     *            The identifiers of the machines to terminate.
+     * @throws TerminateMachinesException
+     *             If any of the machines could not be terminated.
+     */
+    public void terminateMachines(List<String> machineIds) throws TerminateMachinesException {
+        if (Math.min(machineIds.size(), this.maxParallelCalls) <= 1) {
+            this.cloudDriver.terminateMachines(machineIds);
+            return;
+        }
+        await(terminateMachinesAsync(machineIds));
+    }
+
+    /**
+     * Terminates a number of machines in parallel driver calls, without
+     * waiting for the calls to complete.
+     *
+     * @param machineIds
+     *            The identifiers of the machines to terminate.
+     * @return Completes when all driver calls have completed. Completes
+     *         exceptionally with a {@link TerminateMachinesException} if any
+     *         of the machines could not be terminated.
+     */
+    private CompletableFuture<Void> terminateMachinesAsync(List<String> machineIds) {
+        int numCalls = Math.max(1, Math.min(machineIds.size(), this.maxParallelCalls));
+        int batchSize = Math.max(1, (machineIds.size() + numCalls - 1) / numCalls);
+        List<List<String>> batches = Lists.partition(machineIds, batchSize);
+        List<CompletableFuture<Void>> calls = new ArrayList<>();
+        for (List<String> batch : batches) {
+            calls.add(call(() -> {
+                this.cloudDriver.terminateMachines(batch);
+                return null;
+            }));
+        }
+        LOG.debug("terminating {} machine(s) in {} parallel driver calls", machineIds.size(), batches.size());
+
+        return allOf(calls).thenApply(ignored -> {
+            List<String> terminated = new ArrayList<>();
+            Map<String, Throwable> errors = new HashMap<>();
+            for (int i = 0; i < batches.size(); i++) {
+                List<String> batch = batches.get(i);
+                try {
+                    calls.get(i).join();
+                    terminated.addAll(batch);
+                } catch (CompletionException | CancellationException e) {
+                    Throwable cause = unwrap(e);
+                    if (cause instanceof TerminateMachinesException) {
+                        terminated.addAll(((TerminateMachinesException) cause).getTerminatedMachines());
+                        errors.putAll(((TerminateMachinesException) cause).getTerminationErrors());
+                    } else {
+                        batch.forEach(machineId -> errors.put(machineId, cause));
+                    }
+                }
+            }
+            if (!errors.isEmpty()) {
+                throw new TerminateMachinesException(terminated, errors);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Runs a driver call on the {@link #executor}. The returned
+     * {@link CompletableFuture} is completed with the outcome of the call,
+     * which also covers the case of the {@link #executor} rejecting the call.
+     *
+     * @param driverCall
+     * @return A {@link CompletableFuture} that completes with the result of the
+     *         driver call, or exceptionally if the call fails.
+     */
+    private <T> CompletableFuture<T> call(Supplier<T> driverCall) {
+        try {
+            return CompletableFuture.supplyAsync(driverCall, this.executor);
+        } catch (RejectedExecutionException e) {
+            CompletableFuture<T> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(
+                    new CloudPoolDriverException(String.format("driver call rejected: %s", e.getMessage()), e));
+            return rejected;
+        }
+    }
+
+    /**
+     * Returns a {@link CompletableFuture} that completes (normally) once all
+     * given calls have completed, whether successfully or not.
+     *
+     * @param calls
+     * @return A future that completes once all calls have completed.
+     */
+    private static CompletableFuture<Void> allOf(List<? extends CompletableFuture<?>> calls) {
+        CompletableFuture<?>[] settled = calls.stream().map(call -> call.handle((result, error) -> null))
+                .toArray(CompletableFuture<?>[]::new);
+        return CompletableFuture.allOf(settled);
+    }
+
+    /**
+     * Waits for a composed driver call to complete, rethrowing its error (if
+     * any) as thrown by a {@link CloudPoolDriver}.
+     *
+     * @param call
+     * @return The result of the call.
+     */
+    private static <T> T await(CompletableFuture<T> call) throws CloudPoolDriverException {
+        try {
+            return call.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            Throwables.throwIfUnchecked(cause);
+            throw new CloudPoolDriverException(cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CloudPoolDriverException("interrupted while waiting for driver calls to complete", e);
+        }
+    }
+
+    private static Throwable unwrap(Exception e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+}
@@ -0,0 +1,252 @@
+package com.elastisys.scale.cloudpool.commons.basepool.poolupdater.impl;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.api.types.MachinePool;
+import com.elastisys.scale.cloudpool.api.types.MachineState;
+import com.elastisys.scale.commons.util.time.UtcTime;
+import com.google.common.collect.Lists;
+
+/**
+ * Keeps track of pool changes made by the pool updater that an observed
+ * {@link MachinePool} may not reflect yet, and overlays them onto such
+ * observations. This allows a pool update to be planned from a cached pool
+ * without starting excess machines for machines that were just started (but
+ * not yet listed by the cloud provider), or keeping machines that were just
+ * terminated.
+ * <p/>
+ * A pending change is dropped as soon as an observed pool reflects it, or
+ * when it has not been reflected by pool observations made {@code ttl} after
+ * the change was made (the cloud provider is then assumed to have discarded
+ * it).
+ * <p/>
+ * Some changes cannot be overlaid (for example, a start request that failed
+ * part-way through may have started machines that we do not know of). Such
+ * changes mark the overlay as stale, meaning that a pool observation made
+ * after the change is needed to plan the next pool update.
+ * <p/>
+ * Changes to machines in {@link MachineState#REQUESTED} state are among them.
+ * Some drivers represent requested, but not yet acquired, machines with
+ * placeholder ids (such as positional {@code i-requested<n>} ids for AWS Auto
+ * Scaling Groups) that never match the ids of the machines eventually
+ * acquired, and that may be reused by later pool listings. Such ids can not
+ * be tracked.
+ * <p/>
+ * This class is thread-safe.
+ */
+class PendingPoolChanges {
+    private static final Logger LOG = LoggerFactory.getLogger(PendingPoolChanges.class);
+
+    /**
+     * The time (in milliseconds) after which an unreflected change is
+     * dropped.
+     */
+    private final long ttl;
+
+    /** Started machines not yet observed, keyed by id. */
+    private final Map<String, PendingChange<Machine>> started = new LinkedHashMap<>();
+    /** Terminated (or detached) machine ids still observed as allocated. */
+    private final Map<String, PendingChange<String>> removed = new LinkedHashMap<>();
+
+    /**
+     * The time at which the overlay became stale. <code>null</code> if the
+     * overlay is not stale.
+     */
+    private DateTime staleSince = null;
+
+    /**
+     * Creates a {@link PendingPoolChanges}.
+     *
+     * @param ttl
+     *            The time (in milliseconds) after which a change that has not
+     *            been reflected by pool observations is dropped.
+     */
+    public PendingPoolChanges(long ttl) {
+        checkArgument(ttl > 0, "pendingPoolChanges: ttl must be positive");
+        this.ttl = ttl;
+    }
+
+    /**
+     * Records machines that were started in the pool. If any of the machines
+     * is in {@link MachineState#REQUESTED} state, the overlay is marked stale
+     * instead, since its id may be a placeholder.
+     *
+     * @param machines
+     */
+    public synchronized void started(List<Machine> machines) {
+        DateTime now = UtcTime.now();
+        for (Machine machine : machines) {
+            if (isRequested(machine)) {
+                LOG.debug("started machine {} is a request that cannot be tracked", machine.getId());
+                invalidate();
+                continue;
+            }
+            this.started.put(machine.getId(), new PendingChange<>(machine, now));
+        }
+    }
+
+    /**
+     * Records a machine that was terminated or detached from the pool. If the
+     * machine is in {@link MachineState#REQUESTED} state, the overlay is
+     * marked stale instead, since its id may be a placeholder.
+     *
+     * @param machine
+     */
+    public synchronized void removed(Machine machine) {
+        if (isRequested(machine)) {
+            LOG.debug("removed machine {} is a request that cannot be tracked", machine.getId());
+            invalidate();
+            return;
+        }
+        this.started.remove(machine.getId());
+        this.removed.put(machine.getId(), new PendingChange<>(machine.getId(), UtcTime.now()));
+    }
+
+    /**
+     * Records that the pool was changed in a way that cannot be overlaid,
+     * making a pool observation made after this point necessary.
+     */
+    public synchronized void invalidate() {
+        this.staleSince = UtcTime.now();
+    }
+
+    /**
+     * Returns <code>true</code> if the overlay cannot be applied to pool
+     * observations made before the last {@link #invalidate()}.
+     *
+     * @return <code>true</code> if a fresh pool observation is needed.
+     */
+    public synchronized boolean isStale() {
+        return this.staleSince != null;
+    }
+
+    /**
+     * Returns the number of pending changes.
+     *
+     * @return The number of pending starts and removals.
+     */
+    public synchronized int size() {
+        return this.started.size() + this.removed.size();
+    }
+
+    /**
+     * Overlays the pending changes onto an observed {@link MachinePool}.
+     * Pending changes that are reflected by the observation, or that have
+     * expired, are dropped.
+     *
+     * @param observed
+     *            A (possibly cached) pool observation.
+     * @return The observed pool, with started machines that it does not yet
+     *         list added and terminated machines that it still lists as
+     *         allocated removed. The timestamp is that of the observation.
+     */
+    public synchronized MachinePool apply(MachinePool observed) {
+        DateTime observedAt = observed.getTimestamp();
+        if (this.staleSince != null && !observedAt.isBefore(this.staleSince)) {
+            this.staleSince = null;
+        }
+
+        List<Machine> machines = Lists.newArrayList();
+        for (Machine machine : observed.getMachines()) {
+            if (!isPendingRemoval(machine, observedAt)) {
+                machines.add(machine);
+            }
+        }
+
+        Iterator<PendingChange<Machine>> pendingStarts = this.started.values().iterator();
+        while (pendingStarts.hasNext()) {
+            PendingChange<Machine> start = pendingStarts.next();
+            if (observed.getMachine(start.change.getId()).isPresent()) {
+                // cloud provider has caught up
+                pendingStarts.remove();
+            } else if (start.hasExpired(observedAt, this.ttl)) {
+                LOG.warn("started machine {} never showed up in pool, dropping it", start.change.getId());
+                pendingStarts.remove();
+            } else {
+                machines.add(start.change);
+            }
+        }
+
+        // removals of machines no longer listed have been reflected
+        Iterator<Entry<String, PendingChange<String>>> pendingRemovals = this.removed.entrySet().iterator();
+        while (pendingRemovals.hasNext()) {
+            if (!observed.getMachine(pendingRemovals.next().getKey()).isPresent()) {
+                pendingRemovals.remove();
+            }
+        }
+
+        return new MachinePool(machines, observedAt);
+    }
+
+    private static boolean isRequested(Machine machine) {
+        return machine.getMachineState() == MachineState.REQUESTED;
+    }
+
+    /**
+     * Returns <code>true</code> if an observed machine has been terminated (or
+     * detached) but is still observed as allocated. A removal that is
+     * reflected by the observation, or that has expired, is dropped.
+     *
+     * @param machine
+     * @param observedAt
+     * @return <code>true</code> if the machine is to be left out of the
+     *         overlaid pool.
+     */
+    private boolean isPendingRemoval(Machine machine, DateTime observedAt) {
+        PendingChange<String> removal = this.removed.get(machine.getId());
+        if (removal == null) {
+            return false;
+        }
+        if (!Machine.isAllocated().apply(machine)) {
+            // cloud provider has caught up
+            this.removed.remove(machine.getId());
+            return false;
+        }
+        if (removal.hasExpired(observedAt, this.ttl)) {
+            LOG.warn("removed machine {} is still listed as {}, dropping removal", machine.getId(),
+                    machine.getMachineState());
+            this.removed.remove(machine.getId());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * A change to the pool and the time it was made.
+     *
+     * @param <T>
+     */
+    private static class PendingChange<T> {
+        private final T change;
+        private final DateTime madeAt;
+
+        public PendingChange(T change, DateTime madeAt) {
+            this.change = change;
+            this.madeAt = madeAt;
+        }
+
+        /**
+         * Returns <code>true</code> if the change is still not reflected by a
+         * pool observation made more than {@code ttl} milliseconds after the
+         * change.
+         *
+         * @param observedAt
+         * @param ttl
+         * @return <code>true</code> if the change has expired.
+         */
+        public boolean hasExpired(DateTime observedAt, long ttl) {
+            return observedAt.isAfter(this.madeAt.plus(ttl));
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.elastisys.scale.cloudpool.commons.basepool.poolupdater.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.api.types.MachineState;
+import com.elastisys.scale.cloudpool.commons.basepool.alerts.AlertPayload;
+import com.elastisys.scale.cloudpool.commons.basepool.alerts.DeferredAlert;
+import com.elastisys.scale.cloudpool.commons.basepool.poolfetcher.PoolFetcher;
+import com.elastisys.scale.commons.json.JsonUtils;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+/**
+ * Produces the {@code poolMembers} tag of pool size change alerts from the
+ * (cached) machine pool, in the format given by an {@link AlertPayload}.
+ * <p/>
+ * Meant to be used as a deferred tag of a {@link DeferredAlert}, so that the
+ * pool is only read and serialized for alerts that actually get sent. In
+ * {@link AlertPayload#DELTA} mode, each produced tag describes the changes
+ * since the previously produced tag.
+ */
+class PoolMembersTag implements Supplier<JsonElement> {
+
+    /** Retrieves the machine pool. */
+    private final PoolFetcher poolFetcher;
+    /** The format of the produced tag. */
+    private final AlertPayload payload;
+
+    /**
+     * The pool members (in short format) as of the previously produced tag.
+     * Only used in {@link AlertPayload#DELTA} mode.
+     */
+    private Map<String, Machine> previousMembers = Collections.emptyMap();
+
+    /**
+     * Creates a {@link PoolMembersTag}.
+     *
+     * @param poolFetcher
+     *            Retrieves the machine pool.
+     * @param payload
+     *            The format of the produced tag.
+     */
+    public PoolMembersTag(PoolFetcher poolFetcher, AlertPayload payload) {
+        this.poolFetcher = poolFetcher;
+        this.payload = payload;
+    }
+
+    @Override
+    public JsonElement get() {
+        List<Machine> poolMembers = this.poolFetcher.get().getMachines();
+        switch (this.payload) {
+        case SUMMARY:
+            return summary(poolMembers);
+        case DELTA:
+            return delta(poolMembers);
+        default:
+            // exclude metadata field (noisy)
+            return JsonUtils.toJson(new ArrayList<>(shortFormat(poolMembers).values()));
+        }
+    }
+
+    /**
+     * Counts the pool members in each {@link MachineState}.
+     *
+     * @param poolMembers
+     * @return A JSON object mapping each {@link MachineState} to its number of
+     *         pool members.
+     */
+    private JsonElement summary(List<Machine> poolMembers) {
+        Map<MachineState, Integer> stateCounts = new TreeMap<>();
+        for (Machine machine : poolMembers) {
+            stateCounts.merge(machine.getMachineState(), 1, Integer::sum);
+        }
+        JsonObject summary = new JsonObject();
+        summary.addProperty("total", poolMembers.size());
+        summary.add("machineStates", JsonUtils.toJson(stateCounts));
+        return summary;
+    }
+
+    /**
+     * Describes the pool members that were added, removed or changed since
+     * the previously produced tag.
+     *
+     * @param poolMembers
+     * @return A JSON object with the {@code added}, {@code removed} and
+     *         {@code changed} pool members.
+     */
+    private synchronized JsonElement delta(List<Machine> poolMembers) {
+        Map<String, Machine> members = shortFormat(poolMembers);
+        List<Machine> added = new ArrayList<>();
+        List<Machine> changed = new ArrayList<>();
+        for (Machine member : members.values()) {
+            Machine previous = this.previousMembers.get(member.getId());
+            if (previous == null) {
+                added.add(member);
+            } else if (!previous.equals(member)) {
+                changed.add(member);
+            }
+        }
+        List<String> removed = new ArrayList<>();
+        for (String previousId : this.previousMembers.keySet()) {
+            if (!members.containsKey(previousId)) {
+                removed.add(previousId);
+            }
+        }
+        this.previousMembers = members;
+
+        JsonObject delta = new JsonObject();
+        delta.add("added", JsonUtils.toJson(added));
+        delta.add("changed", JsonUtils.toJson(changed));
+        delta.add("removed", JsonUtils.toJson(removed));
+        return delta;
+    }
+
+    private static Map<String, Machine> shortFormat(List<Machine> poolMembers) {
+        Map<String, Machine> members = new LinkedHashMap<>();
+        for (Machine machine : poolMembers) {
+            members.put(machine.getId(), Machine.toShortFormat().apply(machine));
+        }
+        return members;
+    }
+}
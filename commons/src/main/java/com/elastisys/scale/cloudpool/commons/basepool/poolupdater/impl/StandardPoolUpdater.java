@@ -9,25 +9,39 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.elastisys.scale.cloudpool.api.CloudPoolException;
 import com.elastisys.scale.cloudpool.api.NotFoundException;
+import com.elastisys.scale.cloudpool.api.metrics.Counter;
+import com.elastisys.scale.cloudpool.api.metrics.Histogram;
+import com.elastisys.scale.cloudpool.api.metrics.MetricsRegistry;
 import com.elastisys.scale.cloudpool.api.types.Machine;
 import com.elastisys.scale.cloudpool.api.types.MachinePool;
 import com.elastisys.scale.cloudpool.api.types.MembershipStatus;
 import com.elastisys.scale.cloudpool.api.types.ServiceState;
 import com.elastisys.scale.cloudpool.commons.basepool.alerts.AlertTopics;
+import com.elastisys.scale.cloudpool.commons.basepool.alerts.DeferredAlert;
 import com.elastisys.scale.cloudpool.commons.basepool.config.BaseCloudPoolConfig;
+import com.elastisys.scale.cloudpool.commons.basepool.config.PoolUpdateConfig;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriver;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.StartMachinesException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.TerminateMachinesException;
 import com.elastisys.scale.cloudpool.commons.basepool.poolfetcher.FetchOption;
 import com.elastisys.scale.cloudpool.commons.basepool.poolfetcher.PoolFetcher;
 import com.elastisys.scale.cloudpool.commons.basepool.poolupdater.PoolUpdater;
+import com.elastisys.scale.cloudpool.commons.basepool.poolupdater.PoolUpdaterState;
 import com.elastisys.scale.cloudpool.commons.resizeplanner.ResizePlan;
 import com.elastisys.scale.cloudpool.commons.resizeplanner.ResizePlanner;
 import com.elastisys.scale.cloudpool.commons.termqueue.ScheduledTermination;
@@ -39,9 +53,11 @@ import com.elastisys.scale.commons.net.alerter.AlertBuilder;
 import com.elastisys.scale.commons.net.alerter.AlertSeverity;
 import com.elastisys.scale.commons.net.alerter.Alerter;
 import com.elastisys.scale.commons.util.time.UtcTime;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.google.common.eventbus.EventBus;
 import com.google.gson.JsonElement;
 
@@ -49,11 +65,34 @@ public class StandardPoolUpdater implements PoolUpdater {
 
     private static final Logger LOG = LoggerFactory.getLogger(StandardPoolUpdater.class);
 
+    /** Name of the pool update duration metric. */
+    public static final String UPDATE_DURATION = "cloudpool_pool_update_duration_seconds";
+    /** Name of the pool update failure metric. */
+    public static final String UPDATE_FAILURES = "cloudpool_pool_update_failures_total";
+    /** Name of the termination queue length metric. */
+    public static final String TERMINATION_QUEUE_LENGTH = "cloudpool_termination_queue_length";
+    /** Name of the desired size metric. */
+    public static final String DESIRED_SIZE = "cloudpool_desired_size";
+
+    /**
+     * The time after which a pool change that has not been reflected by the
+     * cloud provider's pool listing is no longer overlaid on the pool when
+     * planning from the cache.
+     */
+    static final TimeInterval PENDING_CHANGES_TTL = new TimeInterval(5L, TimeUnit.MINUTES);
+
     /** A cloud-specific management driver for the cloud pool. */
     private final CloudPoolDriver cloudDriver;
+    /**
+     * Fans out multi-machine start and terminate requests over a bounded
+     * number of concurrent {@link #cloudDriver} calls.
+     */
+    private volatile ParallelDriverCalls driverCalls;
 
     /** A tracker of current pool members. */
     private final PoolFetcher poolFetcher;
+    /** Produces the pool members tag of pool size change {@link Alert}s. */
+    private volatile PoolMembersTag poolMembersTag;
 
     /**
      * {@link EventBus} used to post {@link Alert} events that are to be
@@ -61,15 +100,20 @@ public class StandardPoolUpdater implements PoolUpdater {
      */
     private final EventBus eventBus;
 
-    private final BaseCloudPoolConfig config;
+    /**
+     * The currently set configuration. Replaced on {@link #reconfigure} while
+     * holding the {@link #poolUpdateLock}, so that a pool update never sees
+     * more than one configuration.
+     */
+    private volatile BaseCloudPoolConfig config;
 
     /**
-     * The desired size of the machine pool. Will be <code>null</code> until
-     * set/determined.
+     * The current state (desired size, last known pool, termination queue and
+     * update status). Published as an immutable snapshot on every change, so
+     * that readers never have to wait for an in-progress pool update. Changes
+     * are made by compare-and-set.
      */
-    private Integer desiredSize;
-    /** Lock to prevent concurrent modification of {@link #desiredSize}. */
-    private final Object desiredSizeLock = new Object();
+    private final AtomicReference<PoolUpdaterState> state = new AtomicReference<>(PoolUpdaterState.INITIAL);
 
     /**
      * The queue of already termination-marked instances (these will be used to
@@ -77,66 +121,170 @@ public class StandardPoolUpdater implements PoolUpdater {
      * set).
      */
     private final TerminationQueue terminationQueue;
-    /** Lock to protect the machine pool from concurrent modifications. */
+    /**
+     * Lock to protect the machine pool from concurrent modifications. Held
+     * while planning and modifying the pool, never to read the
+     * {@link #state}.
+     */
     private final Object poolUpdateLock = new Object();
+    /**
+     * Pool changes made by this {@link PoolUpdater} that the (cached) pool may
+     * not reflect yet. Only maintained when pool updates are planned from the
+     * cache.
+     */
+    private final PendingPoolChanges pendingChanges;
 
     /** Task that periodically updates the size of the {@link MachinePool}. */
-    private final ScheduledFuture<?> poolUpdateTask;
+    private volatile ScheduledFuture<?> poolUpdateTask;
+    /** Set when this {@link StandardPoolUpdater} has been closed. */
+    private volatile boolean closed;
+
+    /** Executor used to run triggered pool updates. */
+    private final ScheduledExecutorService executor;
+    /**
+     * Set when a triggered pool update has been submitted to the
+     * {@link #executor} but has not started yet. Any changes made while set
+     * will be covered by that update, which is how bursts of changes get
+     * coalesced into a single pool update.
+     */
+    private final AtomicBoolean triggeredUpdatePending = new AtomicBoolean(false);
+    /** The most recently triggered pool update. May be <code>null</code>. */
+    private volatile Future<?> triggeredUpdate;
+
+    /** Records the duration of each pool update. */
+    private final Histogram updateDuration;
+    /** Counts failed pool updates. */
+    private final Counter updateFailures;
 
     public StandardPoolUpdater(CloudPoolDriver cloudDriver, PoolFetcher poolFetcher, ScheduledExecutorService executor,
             EventBus eventBus, BaseCloudPoolConfig config) {
+        this(cloudDriver, poolFetcher, executor, eventBus, config, new MetricsRegistry());
+    }
+
+    public StandardPoolUpdater(CloudPoolDriver cloudDriver, PoolFetcher poolFetcher, ScheduledExecutorService executor,
+            EventBus eventBus, BaseCloudPoolConfig config, MetricsRegistry metrics) {
         this.cloudDriver = cloudDriver;
+        this.driverCalls = new ParallelDriverCalls(cloudDriver, config.getPoolUpdate().getMaxParallelDriverCalls());
         this.poolFetcher = poolFetcher;
+        this.poolMembersTag = new PoolMembersTag(poolFetcher, config.getPoolUpdate().getAlertPayload());
         this.eventBus = eventBus;
         this.config = config;
+        this.executor = executor;
 
         this.terminationQueue = new TerminationQueue();
-        this.desiredSize = null;
+        this.pendingChanges = new PendingPoolChanges(PENDING_CHANGES_TTL.getMillis());
+
+        this.updateDuration = metrics.histogram(UPDATE_DURATION, "Duration of pool updates.");
+        this.updateFailures = metrics.counter(UPDATE_FAILURES, "Failed pool updates.");
+        metrics.gauge(TERMINATION_QUEUE_LENGTH, "Machines scheduled for termination.",
+                () -> this.state.get().getTerminationQueue().size());
+        metrics.gauge(DESIRED_SIZE, "Desired size of the machine pool.", () -> {
+            Optional<Integer> desiredSize = this.state.get().getDesiredSize();
+            return desiredSize.isPresent() ? desiredSize.get() : Double.NaN;
+        });
 
         // start periodical cache update task
-        TimeInterval updateInterval = config.getPoolUpdate().getUpdateInterval();
-        this.poolUpdateTask = executor.scheduleWithFixedDelay(new PoolUpdateTask(this), updateInterval.getTime(),
-                updateInterval.getTime(), updateInterval.getUnit());
+        this.poolUpdateTask = schedulePoolUpdates(config.getPoolUpdate().getUpdateInterval());
         LOG.debug("started {}", getClass().getSimpleName());
     }
 
+    private ScheduledFuture<?> schedulePoolUpdates(TimeInterval updateInterval) {
+        return this.executor.scheduleWithFixedDelay(new PoolUpdateTask(this), updateInterval.getTime(),
+                updateInterval.getTime(), updateInterval.getUnit());
+    }
+
     @Override
-    public void close() {
+    public synchronized void reconfigure(BaseCloudPoolConfig config) {
+        if (this.closed) {
+            return;
+        }
+        PoolUpdateConfig oldPoolUpdate = this.config.getPoolUpdate();
+        PoolUpdateConfig newPoolUpdate = config.getPoolUpdate();
+
+        ParallelDriverCalls oldDriverCalls = null;
+        // wait for any ongoing pool update to stop using the old config and
+        // driver calls
+        synchronized (this.poolUpdateLock) {
+            this.config = config;
+            if (newPoolUpdate.getMaxParallelDriverCalls() != oldPoolUpdate.getMaxParallelDriverCalls()) {
+                oldDriverCalls = this.driverCalls;
+                this.driverCalls = new ParallelDriverCalls(this.cloudDriver,
+                        newPoolUpdate.getMaxParallelDriverCalls());
+            }
+        }
+        if (oldDriverCalls != null) {
+            oldDriverCalls.close();
+        }
+        if (!newPoolUpdate.getAlertPayload().equals(oldPoolUpdate.getAlertPayload())) {
+            this.poolMembersTag = new PoolMembersTag(this.poolFetcher, newPoolUpdate.getAlertPayload());
+        }
+        if (!newPoolUpdate.getUpdateInterval().equals(oldPoolUpdate.getUpdateInterval())) {
+            LOG.debug("rescheduling pool updates with interval {}", newPoolUpdate.getUpdateInterval());
+            ScheduledFuture<?> oldTask = this.poolUpdateTask;
+            this.poolUpdateTask = schedulePoolUpdates(newPoolUpdate.getUpdateInterval());
+            // allow an ongoing pool update to finish
+            oldTask.cancel(false);
+        }
+        if (newPoolUpdate.isPlanFromCache() && !oldPoolUpdate.isPlanFromCache()) {
+            // changes made so far have not been recorded, so the cache cannot
+            // be trusted until it has been refreshed
+            this.pendingChanges.invalidate();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
         // stop periodical execution of cache update task
         LOG.debug("shutting down {} ...", getClass().getSimpleName());
+        this.closed = true;
         if (this.poolUpdateTask != null) {
             this.poolUpdateTask.cancel(true);
         }
+        Future<?> triggeredUpdate = this.triggeredUpdate;
+        if (triggeredUpdate != null) {
+            triggeredUpdate.cancel(true);
+        }
+        this.driverCalls.close();
     }
 
     @Override
     public void setDesiredSize(int desiredSize) throws IllegalArgumentException, CloudPoolException {
         checkArgument(desiredSize >= 0, "negative desired pool size");
 
-        // prevent concurrent pool modifications
-        synchronized (this.desiredSizeLock) {
-            LOG.info("set desiredSize to {}", desiredSize);
-            this.desiredSize = desiredSize;
-        }
+        LOG.info("set desiredSize to {}", desiredSize);
+        updateState(state -> state.withDesiredSize(desiredSize));
+        triggerPoolUpdate();
     }
 
     @Override
     public int getDesiredSize() throws CloudPoolException {
         ensureDesiredSizeSet();
-        return this.desiredSize;
+        return this.state.get().getDesiredSize().get();
+    }
+
+    @Override
+    public PoolUpdaterState getState() {
+        return this.state.get();
     }
 
     @Override
     public void resize(BaseCloudPoolConfig config) throws CloudPoolException {
+        long start = System.nanoTime();
+        updateState(state -> state.withUpdateStarted());
         try {
             updateMachinePool(config);
+            updateState(state -> state.withUpdateEnded(UtcTime.now(), null));
         } catch (Throwable e) {
+            this.updateFailures.increment();
             String message = format("failed to resize machine pool %s: %s", config.getName(), e.getMessage());
+            updateState(state -> state.withUpdateEnded(UtcTime.now(), message));
             Alert alert = AlertBuilder.create().topic(RESIZE.name()).severity(AlertSeverity.WARN).message(message)
                     .build();
             this.eventBus.post(alert);
             LOG.warn(message, e);
             throw new CloudPoolException(message, e);
+        } finally {
+            this.updateDuration.observeSince(start);
         }
     }
 
@@ -150,22 +298,20 @@ public class StandardPoolUpdater implements PoolUpdater {
         synchronized (this.poolUpdateLock) {
             LOG.info("terminating {}", machineId);
             this.cloudDriver.terminateMachine(machineId);
+            recordRemoval(machineId);
             if (decrementDesiredSize) {
-                synchronized (this.desiredSizeLock) {
-                    // note: decrement unless desiredSize has been set to 0
-                    // (without having been effectuated yet)
-                    int newSize = max(this.desiredSize - 1, 0);
-                    LOG.debug("decrementing desiredSize to {}", newSize);
-                    setDesiredSize(newSize);
-                }
+                decrementDesiredSize();
             }
         }
+        triggerPoolUpdate();
         terminationAlert(machineId);
     }
 
     @Override
     public void setServiceState(String machineId, ServiceState serviceState)
             throws NotFoundException, CloudPoolException {
+        ensurePoolReachable();
+
         LOG.info("service state {} assigned to {}", serviceState.name(), machineId);
         this.cloudDriver.setServiceState(machineId, serviceState);
         serviceStateAlert(machineId, serviceState);
@@ -174,6 +320,8 @@ public class StandardPoolUpdater implements PoolUpdater {
     @Override
     public void setMembershipStatus(String machineId, MembershipStatus membershipStatus)
             throws NotFoundException, CloudPoolException {
+        ensurePoolReachable();
+
         LOG.info("membership status {} assigned to {}", membershipStatus, machineId);
         this.cloudDriver.setMembershipStatus(machineId, membershipStatus);
         membershipStatusAlert(machineId, membershipStatus);
@@ -188,11 +336,17 @@ public class StandardPoolUpdater implements PoolUpdater {
         synchronized (this.poolUpdateLock) {
             LOG.info("attaching instance {} to pool", machineId);
             this.cloudDriver.attachMachine(machineId);
-            synchronized (this.desiredSizeLock) {
-                // implicitly increases pool size
-                setDesiredSize(this.desiredSize + 1);
+            if (planFromCache()) {
+                // the attached machine is unknown to us until the pool is
+                // fetched anew
+                this.pendingChanges.invalidate();
             }
+            // implicitly increases pool size
+            PoolUpdaterState newState = updateState(
+                    state -> state.withDesiredSize(state.getDesiredSize().get() + 1));
+            LOG.info("set desiredSize to {}", newState.getDesiredSize().get());
         }
+        triggerPoolUpdate();
         attachAlert(machineId);
     }
 
@@ -206,28 +360,105 @@ public class StandardPoolUpdater implements PoolUpdater {
         synchronized (this.poolUpdateLock) {
             LOG.info("detaching {} from pool", machineId);
             this.cloudDriver.detachMachine(machineId);
+            recordRemoval(machineId);
             if (decrementDesiredSize) {
-                synchronized (this.desiredSizeLock) {
-                    // note: decrement unless desiredSize has been set to 0
-                    // (without having been effectuated yet)
-                    int newSize = max(this.desiredSize - 1, 0);
-                    LOG.debug("decrementing desiredSize to {}", newSize);
-                    setDesiredSize(newSize);
-                }
+                decrementDesiredSize();
             }
         }
+        triggerPoolUpdate();
         detachAlert(machineId);
     }
 
+    /**
+     * Records the removal of a machine with the {@link #pendingChanges}, if
+     * pool updates are planned from the cache. The machine is looked up in the
+     * cached pool, since removals of machines in {@code REQUESTED} state can
+     * not be overlaid.
+     *
+     * @param machineId
+     */
+    private void recordRemoval(String machineId) {
+        if (!planFromCache()) {
+            return;
+        }
+        Optional<Machine> machine = Optional.absent();
+        try {
+            machine = this.poolFetcher.get().getMachine(machineId);
+        } catch (CloudPoolException e) {
+            LOG.debug("failed to look up removed machine {}: {}", machineId, e.getMessage());
+        }
+        if (machine.isPresent()) {
+            this.pendingChanges.removed(machine.get());
+        } else {
+            // not known to the cache: wait for a pool observation that
+            // reflects the removal
+            this.pendingChanges.invalidate();
+        }
+    }
+
+    /**
+     * Decrements the desired size, unless it has been set to 0 (without having
+     * been effectuated yet).
+     */
+    private void decrementDesiredSize() {
+        PoolUpdaterState newState = updateState(
+                state -> state.withDesiredSize(max(state.getDesiredSize().get() - 1, 0)));
+        LOG.debug("decrementing desiredSize to {}", newState.getDesiredSize().get());
+    }
+
+    /**
+     * Atomically applies a change to the {@link #state}. The change may be
+     * applied more than once (if the state is concurrently changed), and must
+     * therefore be free of side effects.
+     *
+     * @param change
+     *            Produces the new state from the current state.
+     * @return The new state.
+     */
+    private PoolUpdaterState updateState(UnaryOperator<PoolUpdaterState> change) {
+        return this.state.updateAndGet(change);
+    }
+
+    /**
+     * Triggers a pool update to be run as soon as possible on the
+     * {@link #executor}, provided that {@code poolUpdate.updateOnChange} is
+     * enabled. If a triggered update is already waiting to be run, no new one
+     * is submitted. If the {@link #executor} rejects the update, the change is
+     * left to the next periodical pool update.
+     */
+    private void triggerPoolUpdate() {
+        if (!this.config.getPoolUpdate().isUpdateOnChange()) {
+            return;
+        }
+        if (this.closed) {
+            return;
+        }
+        if (this.triggeredUpdatePending.compareAndSet(false, true)) {
+            LOG.debug("triggering pool update");
+            try {
+                this.triggeredUpdate = this.executor.submit(new TriggeredPoolUpdateTask(this));
+            } catch (RejectedExecutionException e) {
+                this.triggeredUpdatePending.set(false);
+                LOG.warn("failed to trigger pool update, leaving change to periodical pool update: {}",
+                        e.getMessage());
+            }
+        }
+    }
+
     /**
      * Ensures that the cloud pool can be reached. If not, a
      * {@link CloudPoolException} is thrown.
+     * <p/>
+     * Waits for the pool to have been fetched from the cloud API at least
+     * once, so that operations on pool members are not validated against a
+     * pool restored from a previous run (on warm start), which may list
+     * machines that no longer exist.
      *
      * @throws CloudPoolException
      */
     private void ensurePoolReachable() throws CloudPoolException {
         try {
-            this.poolFetcher.get();
+            this.poolFetcher.get(FetchOption.LIVE);
         } catch (CloudPoolException e) {
             throw new CloudPoolException(
                     String.format("Cannot complete operation: cloud pool is unreachable: %s", e.getMessage()), e);
@@ -245,13 +476,14 @@ public class StandardPoolUpdater implements PoolUpdater {
      *             If the desired size could not be determined.
      */
     private void ensureDesiredSizeSet() throws CloudPoolException {
-        if (this.desiredSize != null) {
+        if (this.state.get().getDesiredSize().isPresent()) {
             return;
         }
 
         try {
             LOG.debug("determining initial desired pool size ...");
-            MachinePool pool = this.poolFetcher.get();
+            // a pool restored from a previous run may be outdated
+            MachinePool pool = this.poolFetcher.get(FetchOption.LIVE);
             setDesiredSizeIfUnset(pool);
         } catch (Exception e) {
             throw new CloudPoolException(String.format(
@@ -265,6 +497,9 @@ public class StandardPoolUpdater implements PoolUpdater {
      * new server requests to replace terminated servers.
      * <p/>
      * Waits for the {@link #poolUpdateLock} to avoid concurrent pool updates.
+     * The lock is held while the pool is fetched and the update is planned,
+     * so that concurrent (periodical and triggered) updates never plan from
+     * the same pool observation and carry out the same changes twice.
      *
      * @param config
      *            Configuration that governs how to perform scaling actions.
@@ -272,27 +507,59 @@ public class StandardPoolUpdater implements PoolUpdater {
      * @throws CloudPoolException
      */
     void updateMachinePool(BaseCloudPoolConfig config) throws CloudPoolException {
-        LOG.debug("updating machine pool ...");
-        // we need to make use of fresh pool data since cached pool data could
-        // make us start an excessive amount of machines (for example if the
-        // pool fetcher haven't seen our latest started machines yet)
-        MachinePool pool = this.poolFetcher.get(FetchOption.FORCE_REFRESH);
-        // check if we need to determine desired size (it may not have been
-        // possible on startup, e.g., due to cloud API being unreachable)
-        setDesiredSizeIfUnset(pool);
-        int targetSize = getDesiredSize();
-
         // prevent multiple threads from concurrently updating pool
         synchronized (this.poolUpdateLock) {
-            doPoolUpdate(pool, config, targetSize);
+            LOG.debug("updating machine pool ...");
+            MachinePool pool = fetchPoolToPlanFrom();
+            // check if we need to determine desired size (it may not have been
+            // possible on startup, e.g., due to cloud API being unreachable)
+            setDesiredSizeIfUnset(pool);
+            int targetSize = getDesiredSize();
+
+            try {
+                doPoolUpdate(pool, config, targetSize);
+            } finally {
+                List<Machine> queuedMachines = this.terminationQueue.getQueuedInstances();
+                updateState(state -> state.withLastKnownPool(pool).withTerminationQueue(queuedMachines));
+            }
+        }
+    }
+
+    /**
+     * Fetches the {@link MachinePool} that a pool update is to be planned
+     * from. Must be called while holding the {@link #poolUpdateLock}, since
+     * the pool is to reflect all changes made by earlier pool updates.
+     *
+     * @return The pool, as observed by the cloud provider or (when planning
+     *         from cache) as observed by the cache and overlaid with the
+     *         {@link #pendingChanges}.
+     * @throws CloudPoolException
+     */
+    private MachinePool fetchPoolToPlanFrom() throws CloudPoolException {
+        if (!planFromCache()) {
+            // we need to make use of fresh pool data since cached pool data
+            // could make us start an excessive amount of machines (for example
+            // if the pool fetcher haven't seen our latest started machines yet)
+            return this.poolFetcher.get(FetchOption.FORCE_REFRESH);
         }
+
+        // cached pool data could make us start an excessive amount of
+        // machines (for example if the pool fetcher hasn't seen our latest
+        // started machines yet), unless overlaid with our recent changes
+        MachinePool observed = this.pendingChanges.isStale() ? this.poolFetcher.get(FetchOption.FORCE_REFRESH)
+                : this.poolFetcher.get(FetchOption.LIVE);
+        MachinePool pool = this.pendingChanges.apply(observed);
+        LOG.debug("planning from pool observed at {} with {} pending change(s)", observed.getTimestamp(),
+                this.pendingChanges.size());
+        return pool;
     }
 
     /**
      * Updates the machine pool to the given {@code targetSize}.
      *
      * @param pool
-     *            An up-to-date {@link MachinePool} observation.
+     *            An up-to-date {@link MachinePool} observation (possibly
+     *            overlaid with pending changes).
      * @param config
      *            Configuration that governs how to perform scaling actions.
      * @param targetSize
@@ -303,7 +570,7 @@ public class StandardPoolUpdater implements PoolUpdater {
         LOG.info("updating pool size to desired size {}", targetSize);
 
         LOG.debug("current pool members: {}", Lists.transform(pool.getMachines(), Machine.toShortString()));
-        this.terminationQueue.filter(pool.getActiveMachines());
+        this.terminationQueue.filter(Sets.newHashSet(Lists.transform(pool.getActiveMachines(), Machine.toId())));
         ResizePlanner resizePlanner = new ResizePlanner(pool, this.terminationQueue,
                 config.getScaleInConfig().getVictimSelectionPolicy(),
                 config.getScaleInConfig().getInstanceHourMargin());
@@ -336,12 +603,19 @@ public class StandardPoolUpdater implements PoolUpdater {
         this.terminationQueue.spare(resizePlan.getToSpare());
 
         try {
-            List<Machine> startedMachines = this.cloudDriver.startMachines(resizePlan.getToRequest());
+            List<Machine> startedMachines = this.driverCalls.startMachines(resizePlan.getToRequest());
+            if (planFromCache()) {
+                this.pendingChanges.started(startedMachines);
+            }
             startAlert(startedMachines);
             return startedMachines;
         } catch (StartMachinesException e) {
             // may have failed part-way through. notify of machines that were
             // started before error occurred.
+            if (planFromCache()) {
+                this.pendingChanges.started(e.getStartedMachines());
+                this.pendingChanges.invalidate();
+            }
             startAlert(e.getStartedMachines());
             throw e;
         }
@@ -354,25 +628,43 @@ public class StandardPoolUpdater implements PoolUpdater {
             return Collections.emptyList();
         }
 
-        List<Machine> terminated = Lists.newArrayList();
         LOG.info("terminating {} overdue machine(s): {}", overdueInstances.size(), overdueInstances);
+        Map<String, Machine> victims = Maps.newLinkedHashMap();
         for (ScheduledTermination overdueInstance : overdueInstances) {
-            String victimId = overdueInstance.getInstance().getId();
-            try {
-                this.cloudDriver.terminateMachine(victimId);
-                terminated.add(overdueInstance.getInstance());
-            } catch (Exception e) {
-                // only warn, since a failure to terminate an instance is not
-                // necessarily an error condition, as the machine, e.g., may
-                // have been terminated by external means since we last checked
-                // the pool members
-                String message = format("failed to terminate instance '%s': %s", victimId, e.getMessage());
-                Alert alert = AlertBuilder.create().topic(RESIZE.name()).severity(AlertSeverity.WARN).message(message)
-                        .build();
-                this.eventBus.post(alert);
-                LOG.warn(message, e);
+            victims.put(overdueInstance.getInstance().getId(), overdueInstance.getInstance());
+        }
+        Map<String, Throwable> failures = Collections.emptyMap();
+        try {
+            this.driverCalls.terminateMachines(Lists.newArrayList(victims.keySet()));
+        } catch (TerminateMachinesException e) {
+            failures = e.getTerminationErrors();
+        } catch (Exception e) {
+            failures = Maps.newHashMap();
+            for (String victimId : victims.keySet()) {
+                failures.put(victimId, e);
             }
         }
+
+        List<Machine> terminated = Lists.newArrayList();
+        for (Machine victim : victims.values()) {
+            Throwable failure = failures.get(victim.getId());
+            if (failure == null) {
+                terminated.add(victim);
+                if (planFromCache()) {
+                    this.pendingChanges.removed(victim);
+                }
+                continue;
+            }
+            // only warn, since a failure to terminate an instance is not
+            // necessarily an error condition, as the machine, e.g., may
+            // have been terminated by external means since we last checked
+            // the pool members
+            String message = format("failed to terminate instance '%s': %s", victim.getId(), failure.getMessage());
+            Alert alert = AlertBuilder.create().topic(RESIZE.name()).severity(AlertSeverity.WARN).message(message)
+                    .build();
+            this.eventBus.post(alert);
+            LOG.warn(message, failure);
+        }
         if (!terminated.isEmpty()) {
             terminationAlert(terminated);
         }
@@ -396,13 +688,12 @@ public class StandardPoolUpdater implements PoolUpdater {
         Map<String, JsonElement> tags = Maps.newHashMap();
         List<String> startedMachineIds = Lists.transform(startedMachines, Machine.toId());
         tags.put("requestedMachines", JsonUtils.toJson(startedMachineIds));
-        tags.put("poolMembers", poolMembersTag());
-        this.eventBus
-                .post(new Alert(AlertTopics.RESIZE.name(), AlertSeverity.INFO, UtcTime.now(), message, null, tags));
+        this.eventBus.post(new DeferredAlert(AlertTopics.RESIZE.name(), AlertSeverity.INFO, UtcTime.now(), message,
+                null, tags, poolMembersTag()));
     }
 
     /**
-     * In case no {@link #desiredSize} has been explicitly set (or previously
+     * In case no desired size has been explicitly set (or previously
      * determined), this method determines the (initial) desired size from the
      * supplied {@link MachinePool}.
      *
@@ -410,7 +701,7 @@ public class StandardPoolUpdater implements PoolUpdater {
      *            An up-to-date {@link MachinePool} observation.
      */
     private void setDesiredSizeIfUnset(MachinePool pool) {
-        if (this.desiredSize != null) {
+        if (this.state.get().getDesiredSize().isPresent()) {
             return;
         }
 
@@ -419,7 +710,14 @@ public class StandardPoolUpdater implements PoolUpdater {
         // of the desiredSize (they are to be replaced)
         int effectiveSize = pool.getActiveMachines().size();
         int allocated = pool.getAllocatedMachines().size();
-        setDesiredSize(effectiveSize);
+        // note: not via setDesiredSize, since determining the initial desired
+        // size should not trigger a pool update. also, a desired size that
+        // was set meanwhile takes precedence.
+        PoolUpdaterState previous = this.state.getAndUpdate(
+                state -> state.getDesiredSize().isPresent() ? state : state.withDesiredSize(effectiveSize));
+        if (previous.getDesiredSize().isPresent()) {
+            return;
+        }
         LOG.info("initial desiredSize set to {} (allocated: {}, effective: {})", effectiveSize, allocated,
                 effectiveSize);
     }
@@ -433,10 +731,9 @@ public class StandardPoolUpdater implements PoolUpdater {
         Map<String, JsonElement> tags = Maps.newHashMap();
         List<String> machineIdList = Lists.newArrayList(machineId);
         tags.put("terminatedMachines", JsonUtils.toJson(machineIdList));
-        tags.put("poolMembers", poolMembersTag());
         String message = String.format("Terminated machine %s.", machineId);
-        this.eventBus
-                .post(new Alert(AlertTopics.RESIZE.name(), AlertSeverity.INFO, UtcTime.now(), message, null, tags));
+        this.eventBus.post(new DeferredAlert(AlertTopics.RESIZE.name(), AlertSeverity.INFO, UtcTime.now(), message,
+                null, tags, poolMembersTag()));
     }
 
     /**
@@ -452,9 +749,8 @@ public class StandardPoolUpdater implements PoolUpdater {
         Map<String, JsonElement> tags = Maps.newHashMap();
         List<String> terminatedMachineIds = Lists.transform(terminatedMachines, Machine.toId());
         tags.put("terminatedMachines", JsonUtils.toJson(terminatedMachineIds));
-        tags.put("poolMembers", poolMembersTag());
-        this.eventBus
-                .post(new Alert(AlertTopics.RESIZE.name(), AlertSeverity.INFO, UtcTime.now(), message, null, tags));
+        this.eventBus.post(new DeferredAlert(AlertTopics.RESIZE.name(), AlertSeverity.INFO, UtcTime.now(), message,
+                null, tags, poolMembersTag()));
     }
 
     /**
@@ -509,27 +805,50 @@ public class StandardPoolUpdater implements PoolUpdater {
                 null, tags));
     }
 
-    private JsonElement poolMembersTag() {
-        try {
-            List<Machine> poolMembers = this.poolFetcher.get().getMachines();
-            // exclude metadata field (noisy)
-            List<Machine> shortFormatMembers = Lists.transform(poolMembers, Machine.toShortFormat());
-            return JsonUtils.toJson(shortFormatMembers);
-        } catch (Exception e) {
-            LOG.warn("failed to retrieve pool members: {}", e.getMessage());
-            return JsonUtils.toJson(String.format("N/A (call failed: %s)", e.getMessage()));
-        }
+    /**
+     * Returns the deferred {@code poolMembers} tag of pool size change
+     * {@link Alert}s, which is only evaluated for {@link Alert}s that get
+     * sent.
+     *
+     * @return The {@code poolMembers} tag, keyed on its name.
+     */
+    private Map<String, Supplier<JsonElement>> poolMembersTag() {
+        return ImmutableMap.of("poolMembers", this.poolMembersTag);
     }
 
     /**
-     * Returns the currently set configuration.
+     * Returns <code>true</code> if pool updates are planned from the cached
+     * pool, overlaid with {@link #pendingChanges}.
      *
      * @return
      */
+    private boolean planFromCache() {
+        return this.config.getPoolUpdate().isPlanFromCache();
+    }
+
+    /**
+     * Returns the currently set configuration.
+     *
+     * @return The current configuration.
+     */
     BaseCloudPoolConfig config() {
         return this.config;
     }
 
+    /**
+     * Resizes the pool according to the currently set configuration. The
+     * configuration is read while holding the {@link #poolUpdateLock}, so
+     * that it cannot be replaced between being read and being used by the
+     * pool update.
+     *
+     * @throws CloudPoolException
+     */
+    private void resizeWithCurrentConfig() throws CloudPoolException {
+        synchronized (this.poolUpdateLock) {
+            resize(this.config);
+        }
+    }
+
     /**
      * Task that, when executed, asks the {@link PoolUpdater} to resize the
      * pool.
@@ -544,7 +863,7 @@ public class StandardPoolUpdater implements PoolUpdater {
         @Override
         public void run() {
             try {
-                this.poolUpdater.resize(this.poolUpdater.config());
+                this.poolUpdater.resizeWithCurrentConfig();
             } catch (CloudPoolException e) {
                 // just catch exception to prevent periodical execution from
                 // aborting
@@ -552,4 +871,27 @@ public class StandardPoolUpdater implements PoolUpdater {
         }
     }
 
+    /**
+     * Task that, when executed, runs a pool update that was triggered by a
+     * change to the desired size or pool membership.
+     */
+    private static class TriggeredPoolUpdateTask implements Runnable {
+        private final StandardPoolUpdater poolUpdater;
+
+        public TriggeredPoolUpdateTask(StandardPoolUpdater poolUpdater) {
+            this.poolUpdater = poolUpdater;
+        }
+
+        @Override
+        public void run() {
+            // any change from here on needs another update
+            this.poolUpdater.triggeredUpdatePending.set(false);
+            try {
+                this.poolUpdater.resizeWithCurrentConfig();
+            } catch (CloudPoolException e) {
+                // failure has already been alerted and logged
+            }
+        }
+    }
+
 }
@@ -13,6 +13,7 @@ import static com.google.common.collect.Collections2.filter;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
@@ -160,6 +161,9 @@ public class ResizePlanner {
         // the net size of the group only considers active pool members not
         // already marked for termination
         int netSize = getNetSize();
+        // snapshot of termination-marked machine ids, used to filter out
+        // already termination-marked machines from candidate sets
+        Set<String> terminationMarked = this.terminationQueue.getQueuedInstanceIds();
 
         LOG.debug("desired pool size: {} (allocated: {}, active: {}), "
                 + "net size (excluding termination-queued): {}, " + "termination queue: {}", desiredSize, allocated,
@@ -173,12 +177,12 @@ public class ResizePlanner {
         } else if (desiredSize < netSize) {
             // need to scale down
             int excessMachines = netSize - desiredSize;
-            toTerminate = scheduleForTermination(excessMachines);
+            toTerminate = scheduleForTermination(excessMachines, terminationMarked);
         } else {
             LOG.debug("desired size {} equals net pool size, nothing to do", desiredSize);
         }
         // schedule any inactive, evictable machines for termination
-        toTerminate.addAll(disposableMachines());
+        toTerminate.addAll(disposableMachines(terminationMarked));
 
         ResizePlan resizePlan = new ResizePlan(toRequest, toSpare, toTerminate);
         LOG.debug("suggested resize plan: {}", resizePlan);
@@ -191,12 +195,15 @@ public class ResizePlanner {
      *
      * @param excessMachines
      *            The desired number of machines to terminate.
+     * @param terminationMarked
+     *            Ids of the machines that are already in the termination
+     *            queue.
      * @return
      */
-    private List<ScheduledTermination> scheduleForTermination(int excessMachines) {
+    private List<ScheduledTermination> scheduleForTermination(int excessMachines, Set<String> terminationMarked) {
         LOG.debug("need {} victim(s) to reach desired size", excessMachines);
         List<ScheduledTermination> toTerminate = Lists.newArrayList();
-        Collection<Machine> candidates = getTerminationCandidates();
+        Collection<Machine> candidates = getTerminationCandidates(terminationMarked);
         LOG.debug("there are {} evictable candidate(s)", candidates.size());
         // the evictable candidate set can be smaller than excessMachines
         excessMachines = Math.min(excessMachines, candidates.size());
@@ -213,7 +220,7 @@ public class ResizePlanner {
 
         // use victim selection policy to pick victims from any remaining
         // candidates
-        candidates.removeAll(Lists.newArrayList(requested));
+        candidates = Lists.newArrayList(filter(candidates, not(inState(REQUESTED))));
         List<Machine> victims = victimSelector().selectVictims(candidates, excessMachines);
         for (Machine victim : victims) {
             toTerminate.add(scheduleTermination(victim));
@@ -226,30 +233,37 @@ public class ResizePlanner {
      * includes all active machines, with a {@link MembershipStatus} that is
      * evictable and that haven't already been added to the termination queue.
      *
+     * @param terminationMarked
+     *            Ids of the machines that are already in the termination
+     *            queue.
      * @return
      */
-    private Collection<Machine> getTerminationCandidates() {
+    private Collection<Machine> getTerminationCandidates(Set<String> terminationMarked) {
         // only consider active pool members
         Collection<Machine> candidates = this.machinePool.getActiveMachines();
         // filter out blessed pool members (marked as not being evictable)
         candidates = filter(candidates, Machine.isEvictable());
         // filter out already termination marked members
-        candidates = filter(candidates, not(terminationMarked()));
-        return candidates;
+        candidates = filter(candidates, not(terminationMarked(terminationMarked)));
+        return Lists.newArrayList(candidates);
     }
 
     /**
      * Schedules any disposable (inactive, evictable {@link MembershipStatus})
      * machines for termination (if there are any).
      *
+     * @param terminationMarked
+     *            Ids of the machines that are already in the termination
+     *            queue.
      * @return
      */
     @SuppressWarnings("unchecked")
-    private Collection<ScheduledTermination> disposableMachines() {
+    private Collection<ScheduledTermination> disposableMachines(Set<String> terminationMarked) {
         // consider all allocated pool members ...
         Collection<Machine> disposables = this.machinePool.getAllocatedMachines();
         // ... that are inactive, evictable and not already termination-marked
-        disposables = filter(disposables, and(not(isActiveMember()), isEvictable(), not(terminationMarked())));
+        disposables = filter(disposables,
+                and(not(isActiveMember()), isEvictable(), not(terminationMarked(terminationMarked))));
 
         List<ScheduledTermination> terminations = Lists.newLinkedList();
         for (Machine disposable : disposables) {
@@ -270,13 +284,15 @@ public class ResizePlanner {
      * Returns a {@link Predicate} that will be <code>true</code> for any
      * {@link Machine} that has been added to the termination queue.
      *
+     * @param terminationMarked
+     *            Ids of the machines that are in the termination queue.
      * @return
      */
-    private Predicate<Machine> terminationMarked() {
+    private static Predicate<Machine> terminationMarked(final Set<String> terminationMarked) {
         return new Predicate<Machine>() {
             @Override
             public boolean apply(Machine machine) {
-                return ResizePlanner.this.terminationQueue.getQueuedInstances().contains(machine);
+                return terminationMarked.contains(machine.getId());
             }
         };
     }
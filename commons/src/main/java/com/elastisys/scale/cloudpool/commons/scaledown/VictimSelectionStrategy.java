@@ -1,8 +1,13 @@
 package com.elastisys.scale.cloudpool.commons.scaledown;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
 import java.util.Collection;
+import java.util.List;
 
 import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.google.common.collect.Lists;
 
 /**
  * Represents a policy for which machine instance, from a collection of machine
@@ -20,4 +25,39 @@ public interface VictimSelectionStrategy {
      * @return The selected victim machine instance.
      */
     Machine selectVictim(Collection<Machine> candidates);
+
+    /**
+     * Selects a number of instances, from a collection of machine instances,
+     * to schedule for (eventual) termination. The victims are returned in the
+     * order they would have been picked by repeated calls to
+     * {@link #selectVictim(Collection)}, each time removing the previously
+     * selected victim from the candidates.
+     * <p/>
+     * The default implementation does exactly that, which costs one
+     * {@link #selectVictim(Collection)} call per victim. Strategies that order
+     * the candidates on a fixed key should override it to select all victims
+     * in a single pass.
+     *
+     * @param candidates
+     *            The collection of machines eligible for termination.
+     * @param numVictims
+     *            The number of victims to select. May not exceed the number of
+     *            candidates.
+     * @return The selected victim machine instances.
+     */
+    default List<Machine> selectVictims(Collection<Machine> candidates, long numVictims)
+            throws IllegalArgumentException {
+        checkNotNull(candidates, "null candidate set");
+        checkArgument(numVictims >= 0, "negative number of victims");
+        checkArgument(candidates.size() >= numVictims, "more victims than candidates");
+
+        List<Machine> remainingCandidates = Lists.newArrayList(candidates);
+        List<Machine> victims = Lists.newArrayList();
+        for (int i = 0; i < numVictims; i++) {
+            Machine victim = selectVictim(remainingCandidates);
+            victims.add(victim);
+            remainingCandidates.remove(victim);
+        }
+        return victims;
+    }
 }
@@ -7,11 +7,10 @@ import java.util.Collection;
 import java.util.List;
 
 import com.elastisys.scale.cloudpool.api.types.Machine;
-import com.google.common.collect.Lists;
 
 /**
  * Selects a number of victim machines to terminate from a set of candidates by
- * using a {@link VictimSelectionStrategy} to select each machine.
+ * using a {@link VictimSelectionStrategy}.
  *
  * @see VictimSelectionStrategy
  */
@@ -41,7 +40,7 @@ public class VictimSelector {
      * <ol>
      * <li>Filter out already termination marked instances (i.e., instances in
      * the termination queue).</li>
-     * <li>Use the {@link VictimSelectionStrategy} to select an instance from
+     * <li>Use the {@link VictimSelectionStrategy} to select the victims from
      * the candidate set.</li>
      * </ol>
      *
@@ -57,16 +56,7 @@ public class VictimSelector {
         checkArgument(numVictims >= 0, "negative number of victims");
         checkArgument(candidates.size() >= numVictims, "more victims than termination candidates");
 
-        List<Machine> terminationCandidates = Lists.newArrayList(candidates);
-        List<Machine> victims = Lists.newArrayList();
-        for (int i = 0; i < numVictims; i++) {
-            // use victim selection strategy to pick a victim
-            Machine victim = this.victimSelectionStrategy.selectVictim(terminationCandidates);
-            victims.add(victim);
-            terminationCandidates.remove(victim);
-        }
-
-        return victims;
+        return this.victimSelectionStrategy.selectVictims(candidates, numVictims);
     }
 
 }
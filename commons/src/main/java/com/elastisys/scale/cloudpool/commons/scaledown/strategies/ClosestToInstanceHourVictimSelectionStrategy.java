@@ -3,16 +3,25 @@ package com.elastisys.scale.cloudpool.commons.scaledown.strategies;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import com.elastisys.scale.cloudpool.api.types.Machine;
 import com.elastisys.scale.cloudpool.commons.scaledown.VictimSelectionStrategy;
+import com.elastisys.scale.commons.util.time.UtcTime;
 import com.google.common.base.Function;
+import com.google.common.collect.Lists;
 
 /**
  * A {@link VictimSelectionStrategy} that selects the instance that is closest
  * to the end of its current instance hour for termination.
+ * <p/>
+ * Each selection reads the clock once and computes the remaining instance hour
+ * time of every candidate against that single reading, so that the candidates
+ * are ordered on a fixed set of keys.
  *
  *
  */
@@ -20,18 +29,89 @@ public enum ClosestToInstanceHourVictimSelectionStrategy implements VictimSelect
     /** The single instance of this class. */
     INSTANCE;
 
+    /** The length of an instance hour in milliseconds. */
+    private static final long MILLIS_PER_HOUR = TimeUnit.MILLISECONDS.convert(1, TimeUnit.HOURS);
+
     @Override
     public Machine selectVictim(Collection<Machine> candidates) throws IllegalArgumentException {
         checkNotNull(candidates, "null candidate set");
         checkArgument(!candidates.isEmpty(), "empty candidate set");
 
-        return Machine.sort(candidates, new ClosestToInstanceHourOrder()).get(0);
+        return closestToInstanceHourFirst(candidates, 1).get(0);
+    }
+
+    /**
+     * Orders the candidates on remaining instance hour time once and selects
+     * the first <code>numVictims</code> of them.
+     */
+    @Override
+    public List<Machine> selectVictims(Collection<Machine> candidates, long numVictims)
+            throws IllegalArgumentException {
+        checkNotNull(candidates, "null candidate set");
+        checkArgument(numVictims >= 0, "negative number of victims");
+        checkArgument(candidates.size() >= numVictims, "more victims than candidates");
+
+        return closestToInstanceHourFirst(candidates, (int) numVictims);
+    }
+
+    /**
+     * Returns the <code>numVictims</code> candidates with the least remaining
+     * instance hour time, in order of increasing remaining time. Candidates
+     * with equal remaining time are returned in candidate order.
+     * <p/>
+     * The remaining time (in seconds) of each candidate is calculated once,
+     * against a single reading of the clock, and packed together with the
+     * candidate's position into a <code>long</code> sort key (remaining time
+     * in the high bits, position in the low bits).
+     *
+     * @param candidates
+     * @param numVictims
+     * @return At most {@code numVictims} candidates, closest to their next
+     *         instance hour first.
+     */
+    private static List<Machine> closestToInstanceHourFirst(Collection<Machine> candidates, int numVictims) {
+        long now = UtcTime.now().getMillis();
+        List<Machine> machines = Lists.newArrayList(candidates);
+        long[] sortKeys = new long[machines.size()];
+        for (int i = 0; i < sortKeys.length; i++) {
+            sortKeys[i] = remainingInstanceHourTime(machines.get(i), now) << 32 | i;
+        }
+        Arrays.sort(sortKeys);
+
+        List<Machine> victims = Lists.newArrayListWithCapacity(numVictims);
+        for (int i = 0; i < numVictims; i++) {
+            victims.add(machines.get((int) sortKeys[i]));
+        }
+        return victims;
+    }
+
+    /**
+     * Calculates the remaining time (in seconds) of a machine's current
+     * instance hour at a given point in time. Gives the same result as
+     * {@link Machine.RemainingInstanceHourTime} would if the current time was
+     * <code>now</code>.
+     *
+     * @param machine
+     *            A machine with its launch time set.
+     * @param now
+     *            The current time in epoch milliseconds.
+     * @return The remaining time (in seconds) of the current instance hour.
+     */
+    static long remainingInstanceHourTime(Machine machine, long now) {
+        checkArgument(machine.getLaunchTime() != null, "null launch time for machine");
+        long millisIntoInstanceHour = Math.floorMod(now - machine.getLaunchTime().getMillis(), MILLIS_PER_HOUR);
+        return (MILLIS_PER_HOUR - millisIntoInstanceHour) / 1000;
     }
 
     /**
      * A {@link Comparator} that orders {@link Machine} instances in order of
      * increasing time to the next instance hour (that is, the instance closest
      * to the end of its current instance hour first).
+     * <p/>
+     * Note that the remaining time of each compared instance is calculated
+     * against a fresh reading of the clock, which makes the order inconsistent
+     * if the clock moves during a sort. Victim selection does not use this
+     * {@link Comparator}; it is kept for backwards compatibility.
      *
      *
      *
@@ -5,9 +5,11 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.List;
 
 import com.elastisys.scale.cloudpool.api.types.Machine;
 import com.elastisys.scale.cloudpool.commons.scaledown.VictimSelectionStrategy;
+import com.google.common.collect.Lists;
 
 /**
  * A {@link VictimSelectionStrategy} that selects the most recently created
@@ -28,6 +30,21 @@ public enum NewestInstanceVictimSelectionStrategy implements VictimSelectionStra
         return Machine.sort(candidates, new NewestFirstOrder()).get(0);
     }
 
+    /**
+     * Selects the <code>numVictims</code> most recently launched candidates
+     * (newest first) with a single stable sort.
+     */
+    @Override
+    public List<Machine> selectVictims(Collection<Machine> candidates, long numVictims)
+            throws IllegalArgumentException {
+        checkNotNull(candidates, "null candidate set");
+        checkArgument(numVictims >= 0, "negative number of victims");
+        checkArgument(candidates.size() >= numVictims, "more victims than candidates");
+
+        List<Machine> sorted = Machine.sort(candidates, new NewestFirstOrder());
+        return Lists.newArrayList(sorted.subList(0, (int) numVictims));
+    }
+
     /**
      * {@link Comparator} that orders {@link Machine} instances in order of
      * increasing age (youngest instance first).
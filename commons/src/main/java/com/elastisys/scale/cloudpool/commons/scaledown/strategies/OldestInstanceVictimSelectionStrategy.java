@@ -5,9 +5,11 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.List;
 
 import com.elastisys.scale.cloudpool.api.types.Machine;
 import com.elastisys.scale.cloudpool.commons.scaledown.VictimSelectionStrategy;
+import com.google.common.collect.Lists;
 
 /**
  * A {@link VictimSelectionStrategy} that selects the instance created the
@@ -27,6 +29,21 @@ public enum OldestInstanceVictimSelectionStrategy implements VictimSelectionStra
         return Machine.sort(candidates, new OldestFirstOrder()).get(0);
     }
 
+    /**
+     * Selects the <code>numVictims</code> oldest candidates (oldest first) with
+     * a single stable sort, rather than one sort per victim.
+     */
+    @Override
+    public List<Machine> selectVictims(Collection<Machine> candidates, long numVictims)
+            throws IllegalArgumentException {
+        checkNotNull(candidates, "null candidate set");
+        checkArgument(numVictims >= 0, "negative number of victims");
+        checkArgument(candidates.size() >= numVictims, "more victims than candidates");
+
+        List<Machine> sorted = Machine.sort(candidates, new OldestFirstOrder());
+        return Lists.newArrayList(sorted.subList(0, (int) numVictims));
+    }
+
     /**
      * {@link Comparator} that orders {@link Machine} instances in order of
      * decreasing age (oldest instance first).
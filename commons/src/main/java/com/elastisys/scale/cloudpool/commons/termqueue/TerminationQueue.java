@@ -3,17 +3,22 @@ package com.elastisys.scale.cloudpool.commons.termqueue;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
-import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.PriorityQueue;
+import java.util.Set;
 
 import org.joda.time.DateTime;
 
 import com.elastisys.scale.cloudpool.api.types.Machine;
 import com.elastisys.scale.commons.util.time.UtcTime;
 import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 
 /**
  * Tracks a collection of termination-marked machine instances and their
@@ -21,39 +26,63 @@ import com.google.common.collect.Lists;
  * <p/>
  * The queue of scheduled machine instance terminations is kept in increasing
  * order of termination time, such that instances closer to their termination
- * are kept at the head of the queue.
+ * are kept at the head of the queue. Terminations that are due at the same
+ * time are kept in the order they were added.
+ * <p/>
+ * Machine instances are identified by their id: a machine can only be queued
+ * once, and an instance stays queued even if other attributes of the machine
+ * (such as its tags or IP addresses) change while it awaits termination.
+ * <p/>
+ * Terminations are kept in a binary heap, which makes adding a termination
+ * cheap. Removed terminations are only marked as such (by being dropped from
+ * the id index) and are skipped when reaching the head of the heap. The heap
+ * is rebuilt once removed terminations outnumber queued ones. Removing,
+ * sparing and dequeuing a termination are (amortized) <code>O(log n)</code>
+ * operations.
  *
  * @see ScheduledTermination
  */
 public class TerminationQueue {
 
     /**
-     * The queue of scheduled machine terminations ordered in increasing order
-     * of termination time (closest to termination is kept first) .
+     * Heap of scheduled machine terminations, with the termination closest in
+     * time at its head. Also holds removed entries that have not yet been
+     * purged (see {@link #isQueued(Entry)}).
      */
-    private final PriorityQueue<ScheduledTermination> scheduledTerminations;
+    private PriorityQueue<Entry> scheduledTerminations;
+    /** Index of the queued entries, keyed on machine id. */
+    private final Map<String, Entry> entriesByMachineId;
+    /**
+     * Sequence number to assign to the next added entry. Used to keep
+     * terminations with equal termination times in insertion order.
+     */
+    private long nextSequenceNumber;
 
     /**
-     * Constructs a {@link TerminationQueue} with a given {@link TimeSource}.
-     *
-     * @param timeSource
-     *            The {@link TimeSource} that provides the
-     *            {@link TerminationQueue} with the notion of current time.
+     * Constructs an empty {@link TerminationQueue}.
      */
     public TerminationQueue() {
-        this.scheduledTerminations = new PriorityQueue<ScheduledTermination>();
+        this.scheduledTerminations = new PriorityQueue<>();
+        this.entriesByMachineId = Maps.newHashMap();
+        this.nextSequenceNumber = 0;
     }
 
     /**
      * Schedules a machine instance for (future) termination at a particular
-     * point in time.
+     * point in time. If the machine instance is already scheduled for
+     * termination, its scheduled termination is replaced.
      *
      * @param scheduledTermination
      *            The scheduled instance termination.
      */
     public void add(ScheduledTermination scheduledTermination) {
         checkNotNull(scheduledTermination, "attempt to add a null scheduled termination");
-        this.scheduledTerminations.add(scheduledTermination);
+        Entry entry = new Entry(scheduledTermination, this.nextSequenceNumber++);
+        this.scheduledTerminations.add(entry);
+        if (this.entriesByMachineId.put(entry.machineId(), entry) != null) {
+            // the replaced entry is left in the heap as a removed entry
+            purgeIfMostlyRemoved();
+        }
     }
 
     /**
@@ -68,6 +97,36 @@ public class TerminationQueue {
         }
     }
 
+    /**
+     * Removes the scheduled termination (if any) of a given machine instance
+     * from the termination queue.
+     *
+     * @param machineId
+     *            The id of the machine instance.
+     * @return The removed {@link ScheduledTermination}, if the machine instance
+     *         was queued for termination.
+     */
+    public Optional<ScheduledTermination> remove(String machineId) {
+        Entry entry = this.entriesByMachineId.remove(machineId);
+        if (entry == null) {
+            return Optional.absent();
+        }
+        purgeIfMostlyRemoved();
+        return Optional.of(entry.scheduledTermination);
+    }
+
+    /**
+     * Returns <code>true</code> if a given machine instance is currently
+     * scheduled for termination.
+     *
+     * @param machineId
+     *            The id of the machine instance.
+     * @return <code>true</code> if the instance is queued for termination.
+     */
+    public boolean contains(String machineId) {
+        return this.entriesByMachineId.containsKey(machineId);
+    }
+
     /**
      * Returns the collection of machine instances that are currently scheduled
      * for termination ordered in increasing order of termination time (earliest
@@ -76,22 +135,31 @@ public class TerminationQueue {
      * @return
      */
     public List<Machine> getQueuedInstances() {
-        ScheduledTermination[] orderedArray = this.scheduledTerminations.toArray(new ScheduledTermination[0]);
-        Arrays.sort(orderedArray);
-        List<Machine> instances = Lists.newArrayList();
-        for (ScheduledTermination scheduledTermination : orderedArray) {
-            instances.add(scheduledTermination.getInstance());
+        List<Machine> instances = Lists.newArrayListWithCapacity(size());
+        for (Entry entry : orderedEntries()) {
+            instances.add(entry.scheduledTermination.getInstance());
         }
         return instances;
     }
 
+    /**
+     * Returns the ids of the machine instances that are currently scheduled
+     * for termination. Unlike {@link #getQueuedInstances()}, the result is
+     * unordered, which makes it cheap to produce and to look up ids in.
+     *
+     * @return The ids of the queued instances.
+     */
+    public Set<String> getQueuedInstanceIds() {
+        return ImmutableSet.copyOf(this.entriesByMachineId.keySet());
+    }
+
     /**
      * Returns the number of instances currently scheduled for termination.
      *
      * @return
      */
     public int size() {
-        return this.scheduledTerminations.size();
+        return this.entriesByMachineId.size();
     }
 
     /**
@@ -114,8 +182,7 @@ public class TerminationQueue {
 
         List<ScheduledTermination> sparedInstances = Lists.newArrayList();
         for (int i = 0; i < numInstancesToSpare; i++) {
-            ScheduledTermination sparedInstance = this.scheduledTerminations.poll();
-            sparedInstances.add(sparedInstance);
+            sparedInstances.add(poll());
         }
         return sparedInstances;
     }
@@ -128,14 +195,12 @@ public class TerminationQueue {
     public List<ScheduledTermination> popOverdueInstances() {
         List<ScheduledTermination> effectuatedTerminations = Lists.newArrayList();
         DateTime now = UtcTime.now();
-        ScheduledTermination[] orderedArray = this.scheduledTerminations.toArray(new ScheduledTermination[0]);
-        Arrays.sort(orderedArray);
-        for (ScheduledTermination nextInstanceTermination : orderedArray) {
-            if (now.isBefore(nextInstanceTermination.getTerminationTime())) {
+        while (size() > 0) {
+            Entry head = head();
+            if (now.isBefore(head.scheduledTermination.getTerminationTime())) {
                 break;
             }
-            effectuatedTerminations.add(nextInstanceTermination);
-            this.scheduledTerminations.remove(nextInstanceTermination);
+            effectuatedTerminations.add(poll());
         }
         return effectuatedTerminations;
     }
@@ -149,29 +214,103 @@ public class TerminationQueue {
      * been terminated by a third party, from occupying a spot in the
      * {@link TerminationQueue}.
      *
-     * @param poolMembers
-     *            The set of {@link Machine}s that are in the machine pool and
-     *            hence are to be kept in the {@link TerminationQueue}.
-     */
-    public void filter(Collection<Machine> poolMembers) {
-        List<ScheduledTermination> terminations = Lists.newArrayList(this.scheduledTerminations);
-        for (ScheduledTermination termination : terminations) {
-            if (!poolMembers.contains(termination.getInstance())) {
-                this.scheduledTerminations.remove(termination);
-            }
+     * @param poolMemberIds
+     *            The ids of the {@link Machine}s that are in the machine pool
+     *            and hence are to be kept in the {@link TerminationQueue}.
+     */
+    public void filter(Set<String> poolMemberIds) {
+        checkNotNull(poolMemberIds, "null poolMemberIds");
+        this.entriesByMachineId.keySet().retainAll(poolMemberIds);
+        purgeIfMostlyRemoved();
+    }
+
+    /**
+     * Returns <code>true</code> if an entry of the
+     * {@link #scheduledTerminations} heap is still queued, and has not been
+     * removed (or replaced) since it was added.
+     *
+     * @param entry
+     * @return <code>true</code> if the entry is queued, <code>false</code>
+     *         if it has been removed.
+     */
+    private boolean isQueued(Entry entry) {
+        return this.entriesByMachineId.get(entry.machineId()) == entry;
+    }
+
+    /**
+     * Returns the queued entry at the head of the queue, after discarding any
+     * removed entries ahead of it. Must only be called on a non-empty queue.
+     *
+     * @return The entry with the earliest termination.
+     */
+    private Entry head() {
+        Entry head = this.scheduledTerminations.peek();
+        while (!isQueued(head)) {
+            this.scheduledTerminations.poll();
+            head = this.scheduledTerminations.peek();
         }
+        return head;
+    }
+
+    /**
+     * Removes and returns the {@link ScheduledTermination} at the head of the
+     * queue. Must only be called on a non-empty queue.
+     *
+     * @return The dequeued termination.
+     */
+    private ScheduledTermination poll() {
+        Entry head = head();
+        this.scheduledTerminations.poll();
+        this.entriesByMachineId.remove(head.machineId());
+        return head.scheduledTermination;
+    }
+
+    /**
+     * Rebuilds the {@link #scheduledTerminations} heap from the queued entries
+     * once removed entries outnumber them, which bounds both the memory held
+     * by removed entries and the number of them that can pile up at the head
+     * of the heap.
+     */
+    private void purgeIfMostlyRemoved() {
+        if (this.scheduledTerminations.size() > 2 * size()) {
+            this.scheduledTerminations = new PriorityQueue<>(this.entriesByMachineId.values());
+        }
+    }
+
+    /**
+     * Returns the queued entries in queue order.
+     *
+     * @return The queued entries, earliest termination first.
+     */
+    private List<Entry> orderedEntries() {
+        List<Entry> entries = Lists.newArrayList(this.entriesByMachineId.values());
+        Collections.sort(entries);
+        return entries;
+    }
+
+    /**
+     * Returns the scheduled terminations in queue order.
+     *
+     * @return The scheduled terminations, earliest termination first.
+     */
+    private List<ScheduledTermination> orderedTerminations() {
+        List<ScheduledTermination> terminations = Lists.newArrayListWithCapacity(size());
+        for (Entry entry : orderedEntries()) {
+            terminations.add(entry.scheduledTermination);
+        }
+        return terminations;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(this.scheduledTerminations);
+        return Objects.hashCode(orderedTerminations());
     }
 
     @Override
     public boolean equals(Object obj) {
         if (obj instanceof TerminationQueue) {
             TerminationQueue that = TerminationQueue.class.cast(obj);
-            return Objects.equal(this.scheduledTerminations, that.scheduledTerminations);
+            return Objects.equal(orderedTerminations(), that.orderedTerminations());
         }
         return false;
     }
@@ -180,11 +319,39 @@ public class TerminationQueue {
     public String toString() {
         StringBuilder sb = new StringBuilder();
         sb.append("[");
-        for (ScheduledTermination scheduledTermination : this.scheduledTerminations) {
-            sb.append(
-                    " " + scheduledTermination.getInstance().getId() + ":" + scheduledTermination.getTerminationTime());
+        for (Entry entry : orderedEntries()) {
+            sb.append(" " + entry.machineId() + ":" + entry.scheduledTermination.getTerminationTime());
         }
         sb.append(" ]");
         return sb.toString();
     }
+
+    /**
+     * A {@link ScheduledTermination} in the queue. Ordered by termination time
+     * and, for equal termination times, by insertion order.
+     */
+    private static class Entry implements Comparable<Entry> {
+        private final ScheduledTermination scheduledTermination;
+        /** Termination time in epoch milliseconds. */
+        private final long terminationTime;
+        private final long sequenceNumber;
+
+        public Entry(ScheduledTermination scheduledTermination, long sequenceNumber) {
+            this.scheduledTermination = scheduledTermination;
+            this.terminationTime = scheduledTermination.getTerminationTime().getMillis();
+            this.sequenceNumber = sequenceNumber;
+        }
+
+        public String machineId() {
+            return this.scheduledTermination.getInstance().getId();
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            if (this.terminationTime != other.terminationTime) {
+                return Long.compare(this.terminationTime, other.terminationTime);
+            }
+            return Long.compare(this.sequenceNumber, other.sequenceNumber);
+        }
+    }
 }
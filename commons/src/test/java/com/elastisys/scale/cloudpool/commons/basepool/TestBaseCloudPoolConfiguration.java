@@ -1,19 +1,26 @@
 package com.elastisys.scale.cloudpool.commons.basepool;
 
+import static com.elastisys.scale.cloudpool.commons.basepool.BasePoolTestUtils.machine;
+import static com.elastisys.scale.cloudpool.commons.basepool.BasePoolTestUtils.machines;
 import static java.util.Arrays.asList;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -22,6 +29,8 @@ import org.junit.Before;
 import org.junit.Test;
 
 import com.elastisys.scale.cloudpool.api.CloudPoolException;
+import com.elastisys.scale.cloudpool.api.types.MachinePool;
+import com.elastisys.scale.cloudpool.api.types.MachineState;
 import com.elastisys.scale.cloudpool.commons.basepool.config.BaseCloudPoolConfig;
 import com.elastisys.scale.cloudpool.commons.basepool.config.RetriesConfig;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriver;
@@ -39,8 +48,11 @@ import com.elastisys.scale.commons.net.smtp.SmtpClientAuthentication;
 import com.elastisys.scale.commons.net.ssl.BasicCredentials;
 import com.elastisys.scale.commons.net.ssl.CertificateCredentials;
 import com.elastisys.scale.commons.util.file.FileUtils;
+import com.elastisys.scale.commons.util.time.UtcTime;
+import com.google.common.base.Charsets;
 import com.google.common.base.Optional;
 import com.google.common.eventbus.EventBus;
+import com.google.common.io.Files;
 import com.google.gson.JsonObject;
 
 /**
@@ -104,6 +116,25 @@ public class TestBaseCloudPoolConfiguration {
         assertThat(this.cloudPool.config().getScaleInConfig().getInstanceHourMargin(), is(300));
     }
 
+    /**
+     * The configuration should only be serialized once per {@code configure}
+     * call.
+     */
+    @Test
+    public void getConfigurationIsCachedPerConfigure() throws CloudPoolException {
+        JsonObject minimalConfig = JsonUtils.parseJsonResource("config/valid-cloudpool-config-minimal.json")
+                .getAsJsonObject();
+        this.cloudPool.configure(minimalConfig);
+        JsonObject config = this.cloudPool.getConfiguration().get();
+        assertThat(this.cloudPool.getConfiguration().get(), is(sameInstance(config)));
+
+        JsonObject scaleInConfig = JsonUtils.parseJsonResource("config/valid-cloudpool-config-with-scale-in.json")
+                .getAsJsonObject();
+        this.cloudPool.configure(scaleInConfig);
+        assertThat(this.cloudPool.getConfiguration().get(), is(not(sameInstance(config))));
+        assertEquals(scaleInConfig, this.cloudPool.getConfiguration().get());
+    }
+
     /**
      * Configure with a single {@link SmtpAlerter}.
      */
@@ -321,6 +352,74 @@ public class TestBaseCloudPoolConfiguration {
         assertEquals(newConfig, this.cloudPool.getConfiguration().get());
     }
 
+    /**
+     * Re-configuring a started {@link BaseCloudPool} without changing the
+     * driver settings should neither re-configure the driver nor re-fetch the
+     * pool, and should keep the desired size. Changed driver settings should
+     * restart the pool.
+     */
+    @Test
+    public void testReConfigureStartedWithoutRestart() {
+        JsonObject config = JsonUtils.parseJsonResource("config/valid-cloudpool-config-minimal.json").getAsJsonObject();
+        this.cloudPool.configure(config);
+        this.cloudPool.start();
+        this.cloudPool.setDesiredSize(2);
+        verify(this.driverMock, times(1)).configure(any(DriverConfig.class));
+        verify(this.driverMock, times(1)).listMachines();
+
+        // change poolUpdate and alerts
+        JsonObject newConfig = JsonUtils.parseJsonResource("config/valid-cloudpool-config-minimal.json")
+                .getAsJsonObject();
+        newConfig.add("alerts", JsonUtils.parseJsonResource("config/valid-cloudpool-config-with-alerts.json")
+                .getAsJsonObject().get("alerts"));
+        newConfig.add("poolUpdate",
+                JsonUtils.parseJsonString("{\"updateInterval\": {\"time\": 2, \"unit\": \"minutes\"}}"));
+        this.cloudPool.configure(newConfig);
+        assertEquals(newConfig, this.cloudPool.getConfiguration().get());
+        assertThat(this.cloudPool.isStarted(), is(true));
+        verify(this.driverMock, times(1)).configure(any(DriverConfig.class));
+        verify(this.driverMock, times(1)).listMachines();
+        assertThat(this.cloudPool.getPoolSize().getDesiredSize(), is(2));
+
+        // change driver settings
+        newConfig.addProperty("name", "renamed-pool");
+        this.cloudPool.configure(newConfig);
+        assertThat(this.cloudPool.isStarted(), is(true));
+        verify(this.driverMock, times(2)).configure(any(DriverConfig.class));
+        verify(this.driverMock, times(2)).listMachines();
+    }
+
+    /**
+     * With {@code warmStart}, a started {@link BaseCloudPool} should serve the
+     * pool persisted by a previous run without waiting for the first fetch,
+     * but not determine its desired size from it.
+     */
+    @Test(timeout = 10000)
+    public void testWarmStart() throws Exception {
+        MachinePool persistedPool = new MachinePool(machines(machine("i-1", MachineState.RUNNING)),
+                UtcTime.now().minusSeconds(30));
+        File cacheFile = STATE_STORAGE.getCachedMachinePoolFile();
+        Files.createParentDirs(cacheFile);
+        Files.write(JsonUtils.toPrettyString(JsonUtils.toJson(persistedPool)), cacheFile, Charsets.UTF_8);
+        // cloud API is slow to respond
+        CountDownLatch apiResponds = new CountDownLatch(1);
+        when(this.driverMock.listMachines()).thenAnswer(invocation -> {
+            apiResponds.await();
+            return machines();
+        });
+
+        JsonObject config = JsonUtils.parseJsonResource("config/valid-cloudpool-config-with-pool-fetch.json")
+                .getAsJsonObject();
+        config.getAsJsonObject("poolFetch").addProperty("warmStart", true);
+        this.cloudPool.configure(config);
+        this.cloudPool.start();
+        assertThat(this.cloudPool.getMachinePool(), is(persistedPool));
+
+        apiResponds.countDown();
+        // desired size is determined from the fetched pool
+        assertThat(this.cloudPool.getPoolSize().getDesiredSize(), is(0));
+    }
+
     @Test
     public void testReConfigure() throws CloudPoolException {
         // configure
@@ -20,12 +20,12 @@ import static com.elastisys.scale.cloudpool.commons.scaledown.VictimSelectionPol
 import static com.elastisys.scale.cloudpool.commons.scaledown.VictimSelectionPolicy.OLDEST_INSTANCE;
 import static com.elastisys.scale.commons.net.alerter.AlertSeverity.ERROR;
 import static com.elastisys.scale.commons.net.alerter.AlertSeverity.WARN;
+import static java.util.Arrays.asList;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
-import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.argThat;
 import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.atMost;
@@ -34,6 +34,7 @@ import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.verifyZeroInteractions;
@@ -41,11 +42,13 @@ import static org.mockito.Mockito.when;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import org.joda.time.DateTime;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.slf4j.Logger;
@@ -63,11 +66,13 @@ import com.elastisys.scale.cloudpool.api.types.PoolSizeSummary;
 import com.elastisys.scale.cloudpool.api.types.ServiceState;
 import com.elastisys.scale.cloudpool.commons.basepool.config.BaseCloudPoolConfig;
 import com.elastisys.scale.cloudpool.commons.basepool.config.PoolFetchConfig;
+import com.elastisys.scale.cloudpool.commons.basepool.config.PoolUpdateConfig;
 import com.elastisys.scale.cloudpool.commons.basepool.config.RetriesConfig;
 import com.elastisys.scale.cloudpool.commons.basepool.config.ScaleInConfig;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriver;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriverException;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.StartMachinesException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.TerminateMachinesException;
 import com.elastisys.scale.cloudpool.commons.scaledown.VictimSelectionPolicy;
 import com.elastisys.scale.commons.json.JsonUtils;
 import com.elastisys.scale.commons.json.types.TimeInterval;
@@ -76,6 +81,7 @@ import com.elastisys.scale.commons.util.time.FrozenTime;
 import com.elastisys.scale.commons.util.time.UtcTime;
 import com.google.common.base.Charsets;
 import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.eventbus.EventBus;
 import com.google.common.io.Files;
 import com.google.gson.JsonObject;
@@ -106,6 +112,13 @@ public class TestBaseCloudPoolOperation {
         reset(this.eventBusMock);
     }
 
+    @After
+    public void onTeardown() {
+        // make sure no cached pool is being written when the next test starts
+        this.cloudPool.stop();
+        this.executor.shutdownNow();
+    }
+
     /**
      * Configuring a stopped {@link CloudPool} should not change its stopped
      * state.
@@ -273,6 +286,26 @@ public class TestBaseCloudPoolOperation {
         assertThat(machinePool.getMachines().get(4), is(terminated));
     }
 
+    /**
+     * With {@code poolUpdate.updateOnChange}, a desired size change should be
+     * applied without waiting for the periodical pool update.
+     */
+    @Test
+    public void scaleUpTriggeredByDesiredSizeChange() throws CloudPoolException {
+        Machine active = machine("i-1", MachineState.RUNNING);
+        when(this.driverMock.listMachines()).thenReturn(machines(active));
+        Machine newMachine = machine("i-2", MachineState.PENDING);
+        when(this.driverMock.startMachines(1)).thenReturn(machines(newMachine));
+
+        this.cloudPool.configure(poolConfig(OLDEST_INSTANCE, 0, true));
+        this.cloudPool.start();
+        assertThat(this.cloudPool.getPoolSize().getDesiredSize(), is(1));
+        this.cloudPool.setDesiredSize(2);
+
+        // note: no forced pool resize run
+        verify(this.driverMock, timeout(5000)).startMachines(1);
+    }
+
     @Test
     public void singleMachineScaleUpOfMachinePool() throws CloudPoolException {
         // set up initial pool
@@ -493,7 +526,7 @@ public class TestBaseCloudPoolOperation {
 
         // verify that cloud driver was asked to terminate the oldest active
         // machine
-        verify(this.driverMock).terminateMachine("i-3");
+        verify(this.driverMock).terminateMachines(asList("i-3"));
         // verify event posted on event bus
         verify(this.eventBusMock).post(argThat(isTerminationAlert("i-3")));
 
@@ -526,7 +559,7 @@ public class TestBaseCloudPoolOperation {
 
         // verify that cloud driver was asked to terminate the _newest_ active
         // machine
-        verify(this.driverMock).terminateMachine("i-1");
+        verify(this.driverMock).terminateMachines(asList("i-1"));
         // verify event posted on event bus
         verify(this.eventBusMock).post(argThat(isTerminationAlert("i-1")));
 
@@ -560,8 +593,7 @@ public class TestBaseCloudPoolOperation {
 
         // verify that cloud driver was asked to terminate the two oldest
         // active machines
-        verify(this.driverMock).terminateMachine("i-3");
-        verify(this.driverMock).terminateMachine("i-2");
+        verify(this.driverMock).terminateMachines(asList("i-3", "i-2"));
         // verify event posted on event bus
         verify(this.eventBusMock).post(argThat(isTerminationAlert("i-2", "i-3")));
 
@@ -581,8 +613,9 @@ public class TestBaseCloudPoolOperation {
         Machine terminated = machine("i-4", TERMINATED, now.minus(4));
         when(this.driverMock.listMachines()).thenReturn(machines(booting, active1, active2, terminated));
         // when asked to terminate a machine, the cloud pool will fail
-        Exception fault = new CloudPoolDriverException("terminate failed");
-        doThrow(fault).when(this.driverMock).terminateMachine(anyString());
+        Throwable fault = new CloudPoolDriverException("terminate failed");
+        doThrow(new TerminateMachinesException(Collections.emptyList(), ImmutableMap.of("i-3", fault)))
+                .when(this.driverMock).terminateMachines(asList("i-3"));
 
         // run test that requests one machine to be terminated
         this.cloudPool.configure(poolConfig(OLDEST_INSTANCE, 0));
@@ -597,7 +630,7 @@ public class TestBaseCloudPoolOperation {
 
         // verify that cloud driver was asked to terminate the oldest active
         // machine
-        verify(this.driverMock).terminateMachine("i-3");
+        verify(this.driverMock).terminateMachines(asList("i-3"));
         // verify error events posted on event bus
         verify(this.eventBusMock).post(argThat(isAlert(RESIZE.name(), WARN)));
 
@@ -618,8 +651,9 @@ public class TestBaseCloudPoolOperation {
         Machine terminated = machine("i-4", TERMINATED, now.minus(4));
         when(this.driverMock.listMachines()).thenReturn(machines(booting, active1, active2, terminated));
         // when asked to terminate a machine, the cloud pool will fail
-        Exception fault = new CloudPoolDriverException("terminate failed");
-        doThrow(fault).when(this.driverMock).terminateMachine(anyString());
+        Throwable fault = new CloudPoolDriverException("terminate failed");
+        doThrow(new TerminateMachinesException(Collections.emptyList(), ImmutableMap.of("i-3", fault, "i-2", fault)))
+                .when(this.driverMock).terminateMachines(asList("i-3", "i-2"));
 
         // run test that requests two machines to be terminated
         this.cloudPool.configure(poolConfig(OLDEST_INSTANCE, 0));
@@ -634,8 +668,7 @@ public class TestBaseCloudPoolOperation {
 
         // verify that cloud driver was asked to terminate the two oldest
         // active machines
-        verify(this.driverMock).terminateMachine("i-3");
-        verify(this.driverMock).terminateMachine("i-2");
+        verify(this.driverMock).terminateMachines(asList("i-3", "i-2"));
         // verify error events posted on event bus
         verify(this.eventBusMock, atLeast(2)).post(argThat(isAlert(RESIZE.name(), WARN)));
 
@@ -656,8 +689,9 @@ public class TestBaseCloudPoolOperation {
         Machine terminated = machine("i-4", TERMINATED, now.minus(4));
         when(this.driverMock.listMachines()).thenReturn(machines(booting, active1, active2, terminated));
         // when asked to terminate i-3, the cloud pool will fail
-        Exception fault = new CloudPoolDriverException("terminate failed");
-        doThrow(fault).when(this.driverMock).terminateMachine("i-3");
+        Throwable fault = new CloudPoolDriverException("terminate failed");
+        doThrow(new TerminateMachinesException(asList("i-2"), ImmutableMap.of("i-3", fault)))
+                .when(this.driverMock).terminateMachines(asList("i-3", "i-2"));
 
         // run test that requests two machines to be terminated
         this.cloudPool.configure(poolConfig(OLDEST_INSTANCE, 0));
@@ -672,8 +706,7 @@ public class TestBaseCloudPoolOperation {
 
         // verify that cloud driver was asked to terminate the two oldest
         // active machines
-        verify(this.driverMock).terminateMachine("i-3");
-        verify(this.driverMock).terminateMachine("i-2");
+        verify(this.driverMock).terminateMachines(asList("i-3", "i-2"));
         // verify one error event due to failure to terminate i-3
         verify(this.eventBusMock, atMost(1)).post(argThat(isAlert(RESIZE.name(), ERROR)));
         // verify that termination of i-2 succeeded
@@ -713,21 +746,21 @@ public class TestBaseCloudPoolOperation {
 
         // verify that cloud driver was not asked (yet) to terminate and that
         // no resize event has been posted
-        verify(this.driverMock, never()).terminateMachine("i-1");
+        verify(this.driverMock, never()).terminateMachines(asList("i-1"));
         verifyZeroInteractions(this.eventBusMock);
 
         // forward time to just prior to when termination should be ordered
         FrozenTime.setFixed(UtcTime.parse("2014-04-22T12:49:59.000Z"));
         this.cloudPool.updateMachinePool();
         // ... termination still shouldn't have been ordered
-        verify(this.driverMock, never()).terminateMachine("i-1");
+        verify(this.driverMock, never()).terminateMachines(asList("i-1"));
         verifyZeroInteractions(this.eventBusMock);
 
         // forward time to when termination is due
         FrozenTime.setFixed(UtcTime.parse("2014-04-22T12:50:50.000Z"));
         this.cloudPool.updateMachinePool();
         // ... now termination should have been ordered
-        verify(this.driverMock).terminateMachine("i-1");
+        verify(this.driverMock).terminateMachines(asList("i-1"));
         // verify event posted on event bus
         verify(this.eventBusMock).post(argThat(IsTerminationAlert.isTerminationAlert("i-1")));
 
@@ -845,7 +878,7 @@ public class TestBaseCloudPoolOperation {
 
         // verify that cloud driver was asked to terminate the oldest active
         // machine
-        verify(this.driverMock).terminateMachine("i-3");
+        verify(this.driverMock).terminateMachines(asList("i-3"));
         // verify event posted on event bus
         verify(this.eventBusMock).post(argThat(isTerminationAlert("i-3")));
 
@@ -925,7 +958,7 @@ public class TestBaseCloudPoolOperation {
 
         // verify that the out-of-service machine, despite being the oldest,
         // was not selected for termination
-        verify(this.driverMock).terminateMachine("i-2");
+        verify(this.driverMock).terminateMachines(asList("i-2"));
         // verify event posted on event bus
         verify(this.eventBusMock).post(argThat(isTerminationAlert("i-2")));
 
@@ -1428,12 +1461,19 @@ public class TestBaseCloudPoolOperation {
      * @return
      */
     private JsonObject poolConfig(VictimSelectionPolicy victimSelectionPolicy, int instanceHourMargin) {
+        return poolConfig(victimSelectionPolicy, instanceHourMargin, false);
+    }
+
+    private JsonObject poolConfig(VictimSelectionPolicy victimSelectionPolicy, int instanceHourMargin,
+            boolean updateOnChange) {
         ScaleInConfig scaleInConfig = new ScaleInConfig(victimSelectionPolicy, instanceHourMargin);
         PoolFetchConfig poolFetchConfig = new PoolFetchConfig(
                 new RetriesConfig(3, new TimeInterval(0L, TimeUnit.SECONDS)), new TimeInterval(20L, TimeUnit.SECONDS),
                 new TimeInterval(5L, TimeUnit.MINUTES));
+        PoolUpdateConfig poolUpdateConfig = new PoolUpdateConfig(new TimeInterval(1L, TimeUnit.MINUTES),
+                updateOnChange);
         BaseCloudPoolConfig poolConfig = new BaseCloudPoolConfig(name(), cloudApiSettings(), provisioningTemplate(),
-                scaleInConfig, null, poolFetchConfig, null);
+                scaleInConfig, null, poolFetchConfig, poolUpdateConfig);
 
         return JsonUtils.toJson(poolConfig).getAsJsonObject();
     }
@@ -0,0 +1,268 @@
+package com.elastisys.scale.cloudpool.commons.basepool.alerts;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.joda.time.DateTime;
+import org.junit.After;
+import org.junit.Test;
+
+import com.elastisys.scale.commons.net.alerter.Alert;
+import com.elastisys.scale.commons.net.alerter.AlertSeverity;
+import com.elastisys.scale.commons.net.alerter.Alerter;
+import com.elastisys.scale.commons.util.time.UtcTime;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.eventbus.EventBus;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonPrimitive;
+
+/**
+ * Exercises the {@link AsyncAlerter}.
+ */
+public class TestAsyncAlerter {
+
+    /** Alerts received by the delegate alerter. */
+    private final List<Alert> sentAlerts = new CopyOnWriteArrayList<>();
+    /** Holds up the delegate alerter until released. */
+    private final CountDownLatch releaseSender = new CountDownLatch(1);
+    /** Counted down each time the delegate alerter is entered. */
+    private volatile CountDownLatch senderEntered = new CountDownLatch(1);
+
+    /** A delegate alerter that blocks until {@link #releaseSender}. */
+    private final Alerter slowAlerter = alert -> {
+        this.senderEntered.countDown();
+        try {
+            this.releaseSender.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        this.sentAlerts.add(alert);
+    };
+
+    /** Runs the send tasks of the {@link AsyncAlerter}. */
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    private AsyncAlerter asyncAlerter;
+
+    @After
+    public void onTeardown() {
+        this.releaseSender.countDown();
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * Posting an alert on the {@link EventBus} should not wait for the alert
+     * to be sent.
+     */
+    @Test
+    public void postDoesNotWaitForSend() throws Exception {
+        this.asyncAlerter = new AsyncAlerter(this.slowAlerter, this.executor);
+        EventBus eventBus = new EventBus();
+        eventBus.register(this.asyncAlerter);
+
+        eventBus.post(alert("RESIZE", AlertSeverity.INFO, "started i-1"));
+        assertTrue(this.senderEntered.await(5, TimeUnit.SECONDS));
+        // sender is stuck, but posting still returns immediately
+        eventBus.post(alert("RESIZE", AlertSeverity.INFO, "started i-2"));
+        assertThat(this.sentAlerts.size(), is(0));
+
+        this.releaseSender.countDown();
+        awaitSent(2);
+        assertThat(this.sentAlerts.get(0).getMessage(), is("started i-1"));
+        assertThat(this.sentAlerts.get(1).getMessage(), is("started i-2"));
+    }
+
+    /**
+     * Alerts that queue up while a previous alert is being sent should be
+     * coalesced into one alert per topic.
+     */
+    @Test
+    public void coalesceBurst() throws Exception {
+        this.asyncAlerter = new AsyncAlerter(this.slowAlerter, this.executor);
+
+        this.asyncAlerter.handleAlert(alert("POOL_FETCH", AlertSeverity.WARN, "fetch failed"));
+        assertTrue(this.senderEntered.await(5, TimeUnit.SECONDS));
+        this.asyncAlerter.handleAlert(alert("RESIZE", AlertSeverity.INFO, "started i-1"));
+        this.asyncAlerter.handleAlert(alert("SERVICE_STATE", AlertSeverity.DEBUG, "i-1 in service"));
+        this.asyncAlerter.handleAlert(alert("RESIZE", AlertSeverity.ERROR, "failed to start"));
+        this.asyncAlerter.handleAlert(alert("RESIZE", AlertSeverity.INFO, "started i-2"));
+
+        this.releaseSender.countDown();
+        awaitSent(3);
+        assertThat(this.sentAlerts.size(), is(3));
+
+        Alert resizeAlert = this.sentAlerts.get(1);
+        assertThat(resizeAlert.getTopic(), is("RESIZE"));
+        // most severe of coalesced alerts
+        assertThat(resizeAlert.getSeverity(), is(AlertSeverity.ERROR));
+        assertTrue(resizeAlert.getMessage().startsWith("started i-2"));
+        assertTrue(resizeAlert.getDetails().contains("failed to start"));
+        assertThat(resizeAlert.getMetadata().get(AsyncAlerter.COALESCED_ALERTS_TAG), is(new JsonPrimitive(3)));
+
+        assertThat(this.sentAlerts.get(2).getTopic(), is("SERVICE_STATE"));
+    }
+
+    /**
+     * When the queue is full, alerts should be dropped and the number of
+     * dropped alerts reported with the next sent alert.
+     */
+    @Test
+    public void dropOnFullQueue() throws Exception {
+        this.asyncAlerter = new AsyncAlerter(this.slowAlerter, this.executor, 2);
+
+        this.asyncAlerter.handleAlert(alert("RESIZE", AlertSeverity.INFO, "started i-1"));
+        assertTrue(this.senderEntered.await(5, TimeUnit.SECONDS));
+        this.asyncAlerter.handleAlert(alert("RESIZE", AlertSeverity.INFO, "started i-2"));
+        this.asyncAlerter.handleAlert(alert("RESIZE", AlertSeverity.INFO, "started i-3"));
+        this.asyncAlerter.handleAlert(alert("RESIZE", AlertSeverity.INFO, "started i-4"));
+        this.asyncAlerter.handleAlert(alert("RESIZE", AlertSeverity.INFO, "started i-5"));
+        assertThat(this.asyncAlerter.getQueuedAlerts(), is(2));
+        assertThat(this.asyncAlerter.getDroppedAlerts(), is(2L));
+
+        this.releaseSender.countDown();
+        awaitSent(2);
+        Alert nextAlert = this.sentAlerts.get(1);
+        assertThat(nextAlert.getMetadata().get(AsyncAlerter.DROPPED_ALERTS_TAG), is(new JsonPrimitive(2L)));
+        assertThat(nextAlert.getMetadata().get(AsyncAlerter.COALESCED_ALERTS_TAG), is(new JsonPrimitive(2)));
+    }
+
+    /**
+     * A failure to send an alert should not stop the sender.
+     */
+    @Test
+    public void continueAfterSendFailure() throws Exception {
+        this.asyncAlerter = new AsyncAlerter(alert -> {
+            if (alert.getMessage().equals("boom")) {
+                throw new RuntimeException("webhook unreachable");
+            }
+            this.sentAlerts.add(alert);
+        }, this.executor);
+
+        this.asyncAlerter.handleAlert(alert("RESIZE", AlertSeverity.INFO, "boom"));
+        awaitEmptyQueue();
+        this.asyncAlerter.handleAlert(alert("RESIZE", AlertSeverity.INFO, "started i-1"));
+        awaitSent(1);
+        assertThat(this.sentAlerts.get(0).getMessage(), is("started i-1"));
+    }
+
+    /**
+     * Deferred tags should only be evaluated for alerts that pass the send
+     * filter, and only for the latest alert of a coalesced burst.
+     */
+    @Test
+    public void evaluateDeferredTagsOnlyWhenSent() throws Exception {
+        this.asyncAlerter = new AsyncAlerter(this.slowAlerter, this.executor);
+        this.asyncAlerter.setSendFilter(alert -> alert.getSeverity().compareTo(AlertSeverity.INFO) >= 0);
+        AtomicInteger evaluations = new AtomicInteger(0);
+        Supplier<JsonElement> poolMembers = () -> new JsonPrimitive("evaluation " + evaluations.incrementAndGet());
+
+        this.asyncAlerter.handleAlert(deferredAlert(AlertSeverity.DEBUG, "filtered", poolMembers));
+        this.asyncAlerter.handleAlert(alert("POOL_FETCH", AlertSeverity.WARN, "fetch failed"));
+        assertTrue(this.senderEntered.await(5, TimeUnit.SECONDS));
+        this.asyncAlerter.handleAlert(deferredAlert(AlertSeverity.INFO, "started i-1", poolMembers));
+        this.asyncAlerter.handleAlert(deferredAlert(AlertSeverity.INFO, "started i-2", poolMembers));
+        assertThat(evaluations.get(), is(0));
+
+        this.releaseSender.countDown();
+        awaitSent(2);
+        assertThat(evaluations.get(), is(1));
+        Alert resizeAlert = this.sentAlerts.get(1);
+        assertThat(resizeAlert instanceof DeferredAlert, is(false));
+        assertThat(resizeAlert.getMetadata().get("poolMembers"), is(new JsonPrimitive("evaluation 1")));
+        assertThat(resizeAlert.getMetadata().get("requestedMachines"), is(new JsonPrimitive("i-2")));
+    }
+
+    /**
+     * Alerts should be sent from a task run on the given executor, and only
+     * one send task should be submitted for alerts that queue up before it
+     * runs.
+     */
+    @Test
+    public void sendOnGivenExecutor() {
+        List<Runnable> submittedTasks = new ArrayList<>();
+        this.asyncAlerter = new AsyncAlerter(this.sentAlerts::add, submittedTasks::add);
+
+        this.asyncAlerter.handleAlert(alert("RESIZE", AlertSeverity.INFO, "started i-1"));
+        this.asyncAlerter.handleAlert(alert("RESIZE", AlertSeverity.INFO, "started i-2"));
+        assertThat(submittedTasks.size(), is(1));
+        assertThat(this.sentAlerts.size(), is(0));
+
+        submittedTasks.get(0).run();
+        assertThat(this.sentAlerts.size(), is(1));
+        assertThat(this.asyncAlerter.getQueuedAlerts(), is(0));
+
+        // a new send task is submitted for alerts posted after the last one
+        // completed
+        this.asyncAlerter.handleAlert(alert("RESIZE", AlertSeverity.INFO, "started i-3"));
+        assertThat(submittedTasks.size(), is(2));
+    }
+
+    /**
+     * An executor that rejects the send task (for example, because it has been
+     * shut down) should not make posting an alert fail.
+     */
+    @Test
+    public void postWithRejectingExecutor() {
+        this.asyncAlerter = new AsyncAlerter(this.sentAlerts::add, task -> {
+            throw new RejectedExecutionException("executor shut down");
+        });
+
+        this.asyncAlerter.handleAlert(alert("RESIZE", AlertSeverity.INFO, "started i-1"));
+        assertThat(this.sentAlerts.size(), is(0));
+        assertThat(this.asyncAlerter.getQueuedAlerts(), is(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void createWithoutDelegate() {
+        new AsyncAlerter(null, this.executor);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void createWithoutExecutor() {
+        new AsyncAlerter(this.slowAlerter, null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void createWithZeroCapacityQueue() {
+        new AsyncAlerter(this.slowAlerter, this.executor, 0);
+    }
+
+    private static Alert alert(String topic, AlertSeverity severity, String message) {
+        DateTime now = UtcTime.now();
+        return new Alert(topic, severity, now, message, null);
+    }
+
+    private static Alert deferredAlert(AlertSeverity severity, String message, Supplier<JsonElement> poolMembers) {
+        String machineId = message.substring(message.lastIndexOf(' ') + 1);
+        return new DeferredAlert("RESIZE", severity, UtcTime.now(), message, null,
+                ImmutableMap.of("requestedMachines", new JsonPrimitive(machineId)),
+                ImmutableMap.of("poolMembers", poolMembers));
+    }
+
+    private void awaitSent(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (this.sentAlerts.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue("expected " + count + " sent alerts", this.sentAlerts.size() >= count);
+    }
+
+    private void awaitEmptyQueue() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (this.asyncAlerter.getQueuedAlerts() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -71,4 +71,158 @@ public class TestPoolFetch {
 
         new PoolFetchConfig(retries, refreshInterval, reachabilityTimeout).validate();
     }
+
+    /**
+     * freshnessWindow is optional and defaults to zero.
+     */
+    @Test
+    public void defaultFreshnessWindow() {
+        RetriesConfig retries = new RetriesConfig(5, new TimeInterval(2L, TimeUnit.SECONDS));
+        TimeInterval refreshInterval = new TimeInterval(30L, TimeUnit.SECONDS);
+        TimeInterval reachabilityTimeout = new TimeInterval(10L, TimeUnit.MINUTES);
+        PoolFetchConfig config = new PoolFetchConfig(retries, refreshInterval, reachabilityTimeout);
+        config.validate();
+        assertThat(config.getFreshnessWindow(), is(new TimeInterval(0L, TimeUnit.SECONDS)));
+
+        config = new PoolFetchConfig(retries, refreshInterval, reachabilityTimeout,
+                new TimeInterval(5L, TimeUnit.SECONDS), null, null, null);
+        config.validate();
+        assertThat(config.getFreshnessWindow(), is(new TimeInterval(5L, TimeUnit.SECONDS)));
+    }
+
+    /**
+     * freshnessWindow must be shorter than reachabilityTimeout
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void freshnessWindowLongerThanReachabilityTimeout() {
+        RetriesConfig retries = new RetriesConfig(5, new TimeInterval(2L, TimeUnit.SECONDS));
+        TimeInterval refreshInterval = new TimeInterval(30L, TimeUnit.SECONDS);
+        TimeInterval reachabilityTimeout = new TimeInterval(10L, TimeUnit.MINUTES);
+        TimeInterval freshnessWindow = new TimeInterval(10L, TimeUnit.MINUTES);
+        new PoolFetchConfig(retries, refreshInterval, reachabilityTimeout, freshnessWindow, null, null, null).validate();
+    }
+
+    /**
+     * fullResyncInterval is optional.
+     */
+    @Test
+    public void defaultFullResyncInterval() {
+        RetriesConfig retries = new RetriesConfig(5, new TimeInterval(2L, TimeUnit.SECONDS));
+        TimeInterval refreshInterval = new TimeInterval(30L, TimeUnit.SECONDS);
+        TimeInterval reachabilityTimeout = new TimeInterval(10L, TimeUnit.MINUTES);
+        PoolFetchConfig config = new PoolFetchConfig(retries, refreshInterval, reachabilityTimeout);
+        config.validate();
+        assertThat(config.getFullResyncInterval(), is(PoolFetchConfig.DEFAULT_FULL_RESYNC_INTERVAL));
+
+        config = new PoolFetchConfig(retries, refreshInterval, reachabilityTimeout, null,
+                new TimeInterval(1L, TimeUnit.HOURS), null, null);
+        config.validate();
+        assertThat(config.getFullResyncInterval(), is(new TimeInterval(1L, TimeUnit.HOURS)));
+    }
+
+    /**
+     * fullResyncInterval must be positive.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroFullResyncInterval() {
+        RetriesConfig retries = new RetriesConfig(5, new TimeInterval(2L, TimeUnit.SECONDS));
+        TimeInterval refreshInterval = new TimeInterval(30L, TimeUnit.SECONDS);
+        TimeInterval reachabilityTimeout = new TimeInterval(10L, TimeUnit.MINUTES);
+        new PoolFetchConfig(retries, refreshInterval, reachabilityTimeout, null, new TimeInterval(0L, TimeUnit.MINUTES),
+                null, null).validate();
+    }
+
+    @Test
+    public void withAdaptiveRefresh() {
+        RetriesConfig retries = new RetriesConfig(5, new TimeInterval(2L, TimeUnit.SECONDS));
+        TimeInterval refreshInterval = new TimeInterval(30L, TimeUnit.SECONDS);
+        TimeInterval reachabilityTimeout = new TimeInterval(10L, TimeUnit.MINUTES);
+        PoolFetchConfig config = new PoolFetchConfig(retries, refreshInterval, reachabilityTimeout);
+        assertThat(config.getAdaptiveRefresh().isPresent(), is(false));
+
+        AdaptiveRefreshConfig adaptiveRefresh = new AdaptiveRefreshConfig(new TimeInterval(5L, TimeUnit.SECONDS),
+                new TimeInterval(5L, TimeUnit.MINUTES));
+        config = new PoolFetchConfig(retries, refreshInterval, reachabilityTimeout, null, null, adaptiveRefresh, null);
+        config.validate();
+        assertThat(config.getAdaptiveRefresh().get(), is(adaptiveRefresh));
+    }
+
+    /**
+     * The adaptive refresh interval may never exceed reachabilityTimeout.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void adaptiveRefreshMaxIntervalLongerThanReachabilityTimeout() {
+        RetriesConfig retries = new RetriesConfig(5, new TimeInterval(2L, TimeUnit.SECONDS));
+        TimeInterval refreshInterval = new TimeInterval(30L, TimeUnit.SECONDS);
+        TimeInterval reachabilityTimeout = new TimeInterval(10L, TimeUnit.MINUTES);
+        AdaptiveRefreshConfig adaptiveRefresh = new AdaptiveRefreshConfig(new TimeInterval(5L, TimeUnit.SECONDS),
+                new TimeInterval(10L, TimeUnit.MINUTES));
+        new PoolFetchConfig(retries, refreshInterval, reachabilityTimeout, null, null, adaptiveRefresh, null).validate();
+    }
+
+    /**
+     * refreshInterval (the initial interval) must be within the adaptive
+     * refresh bounds.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void refreshIntervalOutsideAdaptiveRefreshBounds() {
+        RetriesConfig retries = new RetriesConfig(5, new TimeInterval(2L, TimeUnit.SECONDS));
+        TimeInterval refreshInterval = new TimeInterval(2L, TimeUnit.SECONDS);
+        TimeInterval reachabilityTimeout = new TimeInterval(10L, TimeUnit.MINUTES);
+        AdaptiveRefreshConfig adaptiveRefresh = new AdaptiveRefreshConfig(new TimeInterval(5L, TimeUnit.SECONDS),
+                new TimeInterval(5L, TimeUnit.MINUTES));
+        new PoolFetchConfig(retries, refreshInterval, reachabilityTimeout, null, null, adaptiveRefresh, null).validate();
+    }
+
+    /**
+     * minInterval cannot be longer than maxInterval.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void adaptiveRefreshWithMinIntervalLongerThanMaxInterval() {
+        new AdaptiveRefreshConfig(new TimeInterval(5L, TimeUnit.MINUTES), new TimeInterval(5L, TimeUnit.SECONDS))
+                .validate();
+    }
+
+    @Test
+    public void withSoftTtl() {
+        RetriesConfig retries = new RetriesConfig(5, new TimeInterval(2L, TimeUnit.SECONDS));
+        TimeInterval refreshInterval = new TimeInterval(30L, TimeUnit.SECONDS);
+        TimeInterval reachabilityTimeout = new TimeInterval(10L, TimeUnit.MINUTES);
+        PoolFetchConfig config = new PoolFetchConfig(retries, refreshInterval, reachabilityTimeout);
+        assertThat(config.getSoftTtl().isPresent(), is(false));
+
+        config = new PoolFetchConfig(retries, refreshInterval, reachabilityTimeout, null, null, null,
+                new TimeInterval(1L, TimeUnit.MINUTES));
+        config.validate();
+        assertThat(config.getSoftTtl().get(), is(new TimeInterval(1L, TimeUnit.MINUTES)));
+    }
+
+    /**
+     * compactCache is optional and defaults to false.
+     */
+    @Test
+    public void withCompactCache() {
+        RetriesConfig retries = new RetriesConfig(5, new TimeInterval(2L, TimeUnit.SECONDS));
+        TimeInterval refreshInterval = new TimeInterval(30L, TimeUnit.SECONDS);
+        TimeInterval reachabilityTimeout = new TimeInterval(10L, TimeUnit.MINUTES);
+        PoolFetchConfig config = new PoolFetchConfig(retries, refreshInterval, reachabilityTimeout);
+        assertThat(config.isCompactCache(), is(false));
+
+        config = new PoolFetchConfig(retries, refreshInterval, reachabilityTimeout, null, null, null, null, null,
+                true);
+        config.validate();
+        assertThat(config.isCompactCache(), is(true));
+    }
+
+    /**
+     * softTtl must be shorter than reachabilityTimeout
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void softTtlLongerThanReachabilityTimeout() {
+        RetriesConfig retries = new RetriesConfig(5, new TimeInterval(2L, TimeUnit.SECONDS));
+        TimeInterval refreshInterval = new TimeInterval(30L, TimeUnit.SECONDS);
+        TimeInterval reachabilityTimeout = new TimeInterval(10L, TimeUnit.MINUTES);
+        new PoolFetchConfig(retries, refreshInterval, reachabilityTimeout, null, null, null,
+                new TimeInterval(10L, TimeUnit.MINUTES)).validate();
+    }
 }
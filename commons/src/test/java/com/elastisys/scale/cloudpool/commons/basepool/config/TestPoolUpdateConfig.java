@@ -0,0 +1,100 @@
+package com.elastisys.scale.cloudpool.commons.basepool.config;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.elastisys.scale.cloudpool.commons.basepool.alerts.AlertPayload;
+import com.elastisys.scale.commons.json.JsonUtils;
+import com.elastisys.scale.commons.json.types.TimeInterval;
+
+/**
+ * Exercises {@link PoolUpdateConfig}.
+ */
+public class TestPoolUpdateConfig {
+
+    @Test
+    public void basicSanity() {
+        PoolUpdateConfig config = new PoolUpdateConfig(new TimeInterval(30L, TimeUnit.SECONDS), true);
+        config.validate();
+
+        assertThat(config.getUpdateInterval(), is(new TimeInterval(30L, TimeUnit.SECONDS)));
+        assertThat(config.isUpdateOnChange(), is(true));
+    }
+
+    /**
+     * updateOnChange is optional and disabled by default.
+     */
+    @Test
+    public void defaultUpdateOnChange() {
+        PoolUpdateConfig config = new PoolUpdateConfig(new TimeInterval(30L, TimeUnit.SECONDS));
+        config.validate();
+        assertThat(config.isUpdateOnChange(), is(false));
+
+        config = new PoolUpdateConfig(new TimeInterval(30L, TimeUnit.SECONDS), null);
+        assertThat(config.isUpdateOnChange(), is(false));
+        assertThat(config, is(new PoolUpdateConfig(new TimeInterval(30L, TimeUnit.SECONDS), false)));
+    }
+
+    /**
+     * maxParallelDriverCalls is optional and defaults to one (sequential
+     * driver calls).
+     */
+    @Test
+    public void defaultMaxParallelDriverCalls() {
+        PoolUpdateConfig config = new PoolUpdateConfig(new TimeInterval(30L, TimeUnit.SECONDS), false);
+        assertThat(config.getMaxParallelDriverCalls(), is(1));
+        assertThat(config, is(new PoolUpdateConfig(new TimeInterval(30L, TimeUnit.SECONDS), false, 1)));
+
+        config = new PoolUpdateConfig(new TimeInterval(30L, TimeUnit.SECONDS), false, 8);
+        config.validate();
+        assertThat(config.getMaxParallelDriverCalls(), is(8));
+    }
+
+    /**
+     * alertPayload is optional and defaults to FULL.
+     */
+    @Test
+    public void defaultAlertPayload() {
+        PoolUpdateConfig config = new PoolUpdateConfig(new TimeInterval(30L, TimeUnit.SECONDS), false, 1);
+        assertThat(config.getAlertPayload(), is(AlertPayload.FULL));
+        assertThat(config, is(new PoolUpdateConfig(new TimeInterval(30L, TimeUnit.SECONDS), false, 1,
+                AlertPayload.FULL)));
+
+        config = JsonUtils.toObject(JsonUtils.parseJsonString(
+                "{\"updateInterval\": {\"time\": 10, \"unit\": \"seconds\"}, \"alertPayload\": \"SUMMARY\"}"),
+                PoolUpdateConfig.class);
+        config.validate();
+        assertThat(config.getAlertPayload(), is(AlertPayload.SUMMARY));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidMaxParallelDriverCalls() {
+        new PoolUpdateConfig(new TimeInterval(30L, TimeUnit.SECONDS), false, 0).validate();
+    }
+
+    @Test
+    public void parseFromJson() {
+        PoolUpdateConfig config = JsonUtils.toObject(JsonUtils.parseJsonString(
+                "{\"updateInterval\": {\"time\": 10, \"unit\": \"seconds\"}, \"updateOnChange\": true}"),
+                PoolUpdateConfig.class);
+        config.validate();
+        assertThat(config, is(new PoolUpdateConfig(new TimeInterval(10L, TimeUnit.SECONDS), true)));
+
+        config = JsonUtils.toObject(
+                JsonUtils.parseJsonString("{\"updateInterval\": {\"time\": 10, \"unit\": \"seconds\"}}"),
+                PoolUpdateConfig.class);
+        assertThat(config.isUpdateOnChange(), is(false));
+    }
+
+    /**
+     * Update interval is required.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void missingUpdateInterval() {
+        new PoolUpdateConfig(null, true).validate();
+    }
+}
@@ -0,0 +1,69 @@
+package com.elastisys.scale.cloudpool.commons.basepool.driver;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import org.junit.Test;
+
+import com.elastisys.scale.cloudpool.api.NotFoundException;
+
+/**
+ * Exercises the default methods of the {@link CloudPoolDriver} interface.
+ */
+public class TestCloudPoolDriver {
+
+    /**
+     * The default {@link CloudPoolDriver#terminateMachines(java.util.List)}
+     * terminates one machine at a time.
+     */
+    @Test
+    public void terminateMachines() {
+        CloudPoolDriver driver = mock(AbstractDriver.class, CALLS_REAL_METHODS);
+        doNothing().when(driver).terminateMachine("i-1");
+        doNothing().when(driver).terminateMachine("i-2");
+
+        driver.terminateMachines(asList("i-1", "i-2"));
+
+        verify(driver).terminateMachine("i-1");
+        verify(driver).terminateMachine("i-2");
+    }
+
+    /**
+     * Failures to terminate some machines should not prevent others from
+     * being terminated, and should be reported per machine.
+     */
+    @Test
+    public void terminateMachinesWithFailures() {
+        CloudPoolDriver driver = mock(AbstractDriver.class, CALLS_REAL_METHODS);
+        doThrow(new NotFoundException("not a pool member")).when(driver).terminateMachine("i-1");
+        doNothing().when(driver).terminateMachine("i-2");
+        doThrow(new CloudPoolDriverException("api error")).when(driver).terminateMachine("i-3");
+
+        try {
+            driver.terminateMachines(asList("i-1", "i-2", "i-3"));
+            fail("expected to fail");
+        } catch (TerminateMachinesException e) {
+            assertThat(e.getTerminatedMachines(), is(asList("i-2")));
+            assertThat(e.getTerminationErrors().size(), is(2));
+            assertThat(e.getTerminationErrors().get("i-1"), instanceOf(NotFoundException.class));
+            assertThat(e.getTerminationErrors().get("i-3"), instanceOf(CloudPoolDriverException.class));
+        }
+        verify(driver).terminateMachine("i-2");
+        verify(driver).terminateMachine("i-3");
+    }
+
+    /**
+     * Allows the default methods of {@link CloudPoolDriver} to be called on a
+     * mock.
+     */
+    static abstract class AbstractDriver implements CloudPoolDriver {
+    }
+}
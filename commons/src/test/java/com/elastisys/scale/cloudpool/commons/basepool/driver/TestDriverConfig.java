@@ -1,7 +1,11 @@
 package com.elastisys.scale.cloudpool.commons.basepool.driver;
 
+import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 
 import org.junit.Test;
 
@@ -79,6 +83,66 @@ public class TestDriverConfig {
         assertThat(parsedObject.apiPassword, is("secret"));
     }
 
+    /**
+     * Typed views should only be parsed once per type.
+     */
+    @Test
+    public void parseOncePerType() {
+        DriverConfig driverConfig = new DriverConfig(NAME, CLOUD_API_SETTINGS, PROVISIONING_TEMPLATE);
+
+        SampleCloudApiSettingsType apiSettings = driverConfig.parseCloudApiSettings(SampleCloudApiSettingsType.class);
+        assertThat(driverConfig.parseCloudApiSettings(SampleCloudApiSettingsType.class),
+                is(sameInstance(apiSettings)));
+        SampleProvisioningTemplateType template = driverConfig
+                .parseProvisioningTemplate(SampleProvisioningTemplateType.class);
+        assertThat(driverConfig.parseProvisioningTemplate(SampleProvisioningTemplateType.class),
+                is(sameInstance(template)));
+
+        // cached views are not part of the configuration
+        assertThat(driverConfig, is(new DriverConfig(NAME, CLOUD_API_SETTINGS, PROVISIONING_TEMPLATE)));
+        assertThat(driverConfig.toString(), not(containsString("Views")));
+    }
+
+    /**
+     * A {@link DriverConfig} created from JSON should be able to parse and
+     * cache typed views.
+     */
+    @Test
+    public void parseAfterJsonRoundTrip() {
+        DriverConfig original = new DriverConfig(NAME, CLOUD_API_SETTINGS, PROVISIONING_TEMPLATE);
+        DriverConfig driverConfig = JsonUtils.toObject(JsonUtils.toJson(original), DriverConfig.class);
+        assertThat(driverConfig, is(original));
+
+        SampleCloudApiSettingsType apiSettings = driverConfig.parseCloudApiSettings(SampleCloudApiSettingsType.class);
+        assertThat(apiSettings.apiUser, is("foo"));
+        assertThat(driverConfig.parseCloudApiSettings(SampleCloudApiSettingsType.class),
+                is(sameInstance(apiSettings)));
+        SampleProvisioningTemplateType template = driverConfig
+                .parseProvisioningTemplate(SampleProvisioningTemplateType.class);
+        assertThat(template.image, is("ubuntu-16.04"));
+    }
+
+    /**
+     * A document that cannot be parsed into the requested type should fail on
+     * every request.
+     */
+    @Test
+    public void parseFailure() {
+        DriverConfig driverConfig = new DriverConfig(NAME, CLOUD_API_SETTINGS, PROVISIONING_TEMPLATE);
+        for (int i = 0; i < 2; i++) {
+            try {
+                driverConfig.parseCloudApiSettings(IllegalCloudApiSettingsType.class);
+                fail("expected to fail");
+            } catch (IllegalArgumentException e) {
+                assertThat(e.getMessage(), containsString("cloudApiSettings"));
+            }
+        }
+    }
+
+    private static class IllegalCloudApiSettingsType {
+        private int apiUser;
+    }
+
     private static class SampleCloudApiSettingsType {
         private String apiUser;
         private String apiPassword;
@@ -0,0 +1,91 @@
+package com.elastisys.scale.cloudpool.commons.basepool.driver;
+
+import static com.elastisys.scale.cloudpool.commons.basepool.BasePoolTestUtils.machine;
+import static com.elastisys.scale.cloudpool.commons.basepool.BasePoolTestUtils.machines;
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Test;
+
+import com.elastisys.scale.cloudpool.api.NotFoundException;
+import com.elastisys.scale.cloudpool.api.metrics.MetricsRegistry;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Exercises the {@link MeteredCloudPoolDriver}.
+ */
+public class TestMeteredCloudPoolDriver {
+
+    private final CloudPoolDriver driverMock = mock(CloudPoolDriver.class);
+    private final MetricsRegistry metrics = new MetricsRegistry();
+
+    /**
+     * Each driver call should be delegated and have its latency recorded under
+     * its method name.
+     */
+    @Test
+    public void recordCallLatency() {
+        when(this.driverMock.listMachines()).thenReturn(machines(machine("i-1")));
+        CloudPoolDriver driver = MeteredCloudPoolDriver.wrap(this.driverMock, this.metrics);
+
+        assertThat(driver.listMachines(), is(machines(machine("i-1"))));
+        driver.listMachines();
+        driver.terminateMachines(asList("i-1", "i-2"));
+
+        // multi-machine calls go straight to the delegate (not one at a time)
+        verify(this.driverMock).terminateMachines(asList("i-1", "i-2"));
+        assertThat(callCount("listMachines"), is(2L));
+        assertThat(callCount("terminateMachines"), is(1L));
+    }
+
+    /**
+     * Failed driver calls should be counted per call and error type, and the
+     * error should be propagated unchanged.
+     */
+    @Test
+    public void recordCallFailures() {
+        doThrow(new NotFoundException("i-3 not found")).when(this.driverMock).terminateMachine("i-3");
+        CloudPoolDriver driver = MeteredCloudPoolDriver.wrap(this.driverMock, this.metrics);
+
+        try {
+            driver.terminateMachine("i-3");
+            fail("expected to fail");
+        } catch (NotFoundException e) {
+            // expected
+        }
+
+        assertThat(callCount("terminateMachine"), is(1L));
+        assertThat(this.metrics.counter(MeteredCloudPoolDriver.CALL_ERRORS, "",
+                ImmutableMap.of("call", "terminateMachine", "error", "NotFoundException")).get(), is(1L));
+    }
+
+    /**
+     * Wrapping should preserve the {@link IncrementalCloudPoolDriver}
+     * capability of a driver.
+     */
+    @Test
+    public void wrapIncrementalDriver() {
+        IncrementalCloudPoolDriver incrementalDriver = mock(IncrementalCloudPoolDriver.class);
+        CloudPoolDriver driver = MeteredCloudPoolDriver.wrap(incrementalDriver, this.metrics);
+        assertThat(driver, is(instanceOf(IncrementalCloudPoolDriver.class)));
+        ((IncrementalCloudPoolDriver) driver).listChanges("cursor-1");
+        verify(incrementalDriver).listChanges("cursor-1");
+        assertThat(callCount("listChanges"), is(1L));
+
+        assertThat(MeteredCloudPoolDriver.wrap(this.driverMock, this.metrics),
+                is(not(instanceOf(IncrementalCloudPoolDriver.class))));
+    }
+
+    private long callCount(String call) {
+        return this.metrics.histogram(MeteredCloudPoolDriver.CALL_DURATION, "", ImmutableMap.of("call", call))
+                .getCount();
+    }
+}
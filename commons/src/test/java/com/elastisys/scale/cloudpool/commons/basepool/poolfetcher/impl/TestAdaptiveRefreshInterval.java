@@ -0,0 +1,120 @@
+package com.elastisys.scale.cloudpool.commons.basepool.poolfetcher.impl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.elastisys.scale.cloudpool.api.types.CloudProviders;
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.api.types.MachinePool;
+import com.elastisys.scale.cloudpool.api.types.MachineState;
+import com.elastisys.scale.cloudpool.commons.basepool.config.AdaptiveRefreshConfig;
+import com.elastisys.scale.commons.json.types.TimeInterval;
+import com.elastisys.scale.commons.util.time.FrozenTime;
+import com.elastisys.scale.commons.util.time.UtcTime;
+
+/**
+ * Exercise the {@link AdaptiveRefreshInterval}.
+ */
+public class TestAdaptiveRefreshInterval {
+
+    private static final TimeInterval INITIAL = new TimeInterval(30L, TimeUnit.SECONDS);
+    private static final AdaptiveRefreshConfig BOUNDS = new AdaptiveRefreshConfig(
+            new TimeInterval(5L, TimeUnit.SECONDS), new TimeInterval(100L, TimeUnit.SECONDS));
+
+    /** Object under test. */
+    private AdaptiveRefreshInterval refreshInterval;
+
+    @Before
+    public void beforeTestMethod() {
+        FrozenTime.setFixed(UtcTime.parse("2015-11-16T12:00:00.000Z"));
+        this.refreshInterval = new AdaptiveRefreshInterval(INITIAL, BOUNDS);
+    }
+
+    @Test
+    public void startsAtInitialInterval() {
+        assertThat(this.refreshInterval.get().getMillis(), is(30000L));
+    }
+
+    /**
+     * While successive observations are identical, the interval should be
+     * doubled up to the maximum interval.
+     */
+    @Test
+    public void backOffWhileStable() {
+        MachinePool pool = pool(machine("i-1", MachineState.RUNNING));
+        assertThat(this.refreshInterval.onRefresh(null, pool, 1).getMillis(), is(30000L));
+        assertThat(this.refreshInterval.onRefresh(pool, pool, 1).getMillis(), is(60000L));
+        assertThat(this.refreshInterval.onRefresh(pool, pool, 1).getMillis(), is(100000L));
+        assertThat(this.refreshInterval.onRefresh(pool, pool, 1).getMillis(), is(100000L));
+
+        // the pool changes (but is not in flux): back to initial interval
+        MachinePool changed = pool(machine("i-1", MachineState.RUNNING), machine("i-2", MachineState.RUNNING));
+        assertThat(this.refreshInterval.onRefresh(pool, changed, null).getMillis(), is(30000L));
+    }
+
+    /**
+     * While machines are booting or terminating, the minimum interval should
+     * be used.
+     */
+    @Test
+    public void minIntervalWhileMachinesInTransition() {
+        MachinePool stable = pool(machine("i-1", MachineState.RUNNING));
+        this.refreshInterval.onRefresh(stable, stable, 1);
+        assertThat(this.refreshInterval.get().getMillis(), is(60000L));
+
+        for (MachineState state : new MachineState[] { MachineState.REQUESTED, MachineState.PENDING,
+                MachineState.TERMINATING }) {
+            MachinePool inFlux = pool(machine("i-1", MachineState.RUNNING), machine("i-2", state));
+            assertThat(this.refreshInterval.onRefresh(inFlux, inFlux, null).getMillis(), is(5000L));
+        }
+
+        // once settled: back to initial interval
+        MachinePool settled = pool(machine("i-1", MachineState.RUNNING), machine("i-2", MachineState.RUNNING));
+        assertThat(this.refreshInterval.onRefresh(stable, settled, 2).getMillis(), is(30000L));
+    }
+
+    /**
+     * While the pool size differs from the desired size, the minimum interval
+     * should be used.
+     */
+    @Test
+    public void minIntervalWhileDesiredSizeDiffers() {
+        MachinePool pool = pool(machine("i-1", MachineState.RUNNING));
+        assertThat(this.refreshInterval.onRefresh(pool, pool, 2).getMillis(), is(5000L));
+        assertThat(this.refreshInterval.onRefresh(pool, pool, 0).getMillis(), is(5000L));
+        assertThat(this.refreshInterval.onRefresh(pool, pool, 1).getMillis(), is(10000L));
+    }
+
+    /**
+     * A failed refresh should reset the interval to the initial interval.
+     */
+    @Test
+    public void resetOnFailure() {
+        MachinePool pool = pool(machine("i-1", MachineState.RUNNING));
+        this.refreshInterval.onRefresh(pool, pool, 1);
+        this.refreshInterval.onRefresh(pool, pool, 1);
+        assertThat(this.refreshInterval.get().getMillis(), is(100000L));
+
+        assertThat(this.refreshInterval.onRefreshFailure().getMillis(), is(30000L));
+    }
+
+    private MachinePool pool(Machine... machines) {
+        List<Machine> members = new ArrayList<>();
+        for (Machine machine : machines) {
+            members.add(machine);
+        }
+        return new MachinePool(members, UtcTime.now());
+    }
+
+    private Machine machine(String id, MachineState state) {
+        return Machine.builder().id(id).machineSize("m1.medium").machineState(state)
+                .cloudProvider(CloudProviders.AWS_EC2).region("us-east-1").build();
+    }
+}
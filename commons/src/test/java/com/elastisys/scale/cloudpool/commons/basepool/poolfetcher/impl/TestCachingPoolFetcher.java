@@ -9,8 +9,13 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static java.util.Arrays.asList;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.argThat;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -20,22 +25,30 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.joda.time.DateTime;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.elastisys.scale.cloudpool.api.CloudPoolException;
+import com.elastisys.scale.cloudpool.api.metrics.MetricsRegistry;
 import com.elastisys.scale.cloudpool.api.types.CloudProviders;
 import com.elastisys.scale.cloudpool.api.types.Machine;
 import com.elastisys.scale.cloudpool.api.types.MachinePool;
 import com.elastisys.scale.cloudpool.api.types.MachineState;
 import com.elastisys.scale.cloudpool.commons.basepool.StateStorage;
+import com.elastisys.scale.cloudpool.commons.basepool.config.AdaptiveRefreshConfig;
 import com.elastisys.scale.cloudpool.commons.basepool.config.PoolFetchConfig;
 import com.elastisys.scale.cloudpool.commons.basepool.config.RetriesConfig;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriverException;
@@ -51,6 +64,7 @@ import com.elastisys.scale.commons.util.time.UtcTime;
 import com.google.common.base.Charsets;
 import com.google.common.eventbus.EventBus;
 import com.google.common.io.Files;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.Uninterruptibles;
 
 /**
@@ -230,6 +244,389 @@ public class TestCachingPoolFetcher {
         fetcher.close();
     }
 
+    /**
+     * A reconfigured {@link CachingPoolFetcher} should keep serving its cached
+     * pool, and only call through to its new delegate on the next refresh.
+     */
+    @Test
+    public void reconfigure() {
+        MachinePool initialPool = pool(machines("i-1", "i-2"));
+        when(this.delegate.get(FORCE_REFRESH)).thenReturn(initialPool);
+        CachingPoolFetcher fetcher = new CachingPoolFetcher(STATE_STORAGE, this.delegate, FETCH_CONFIG, this.executor,
+                this.mockEventbus);
+        fetcher.awaitFirstFetch();
+
+        PoolFetcher newDelegate = mock(PoolFetcher.class);
+        TimeInterval newRefreshInterval = new TimeInterval(10L, TimeUnit.MINUTES);
+        fetcher.reconfigure(newDelegate, new PoolFetchConfig(
+                new RetriesConfig(1, new TimeInterval(10L, TimeUnit.MILLISECONDS)), newRefreshInterval,
+                REACHABILITY_TIMEOUT));
+        assertThat(fetcher.getEffectiveRefreshInterval(), is(newRefreshInterval));
+
+        // cache is kept
+        assertThat(fetcher.get(), is(initialPool));
+        verify(newDelegate, never()).get(FORCE_REFRESH);
+
+        MachinePool newPool = pool(machines("i-1", "i-2", "i-3"));
+        when(newDelegate.get(FORCE_REFRESH)).thenReturn(newPool);
+        assertThat(fetcher.get(FORCE_REFRESH), is(newPool));
+        verify(this.delegate, times(1)).get(FORCE_REFRESH);
+        fetcher.close();
+    }
+
+    /**
+     * Forced refreshes that arrive after an ongoing refresh has started
+     * fetching must not be handed its (possibly outdated) result. Instead,
+     * they should share a single follow-up refresh. Background refreshes
+     * should join the ongoing refresh.
+     */
+    @Test
+    public void concurrentForceRefreshesShareFollowUpRefresh() throws Exception {
+        when(this.delegate.get(FORCE_REFRESH)).thenReturn(pool(machines("i-1")));
+        CachingPoolFetcher fetcher = new CachingPoolFetcher(STATE_STORAGE, this.delegate, FETCH_CONFIG, this.executor,
+                this.mockEventbus);
+        fetcher.awaitFirstFetch();
+        verify(this.delegate, times(1)).get(FORCE_REFRESH);
+
+        // slow delegate: first fetch blocks until released
+        CountDownLatch refreshStarted = new CountDownLatch(1);
+        CountDownLatch releaseRefresh = new CountDownLatch(1);
+        MachinePool newPool = pool(machines("i-1", "i-2"));
+        MachinePool newerPool = pool(machines("i-1", "i-2", "i-3"));
+        AtomicInteger fetches = new AtomicInteger(0);
+        when(this.delegate.get(FORCE_REFRESH)).thenAnswer(invocation -> {
+            if (fetches.incrementAndGet() > 1) {
+                return newerPool;
+            }
+            refreshStarted.countDown();
+            releaseRefresh.await();
+            return newPool;
+        });
+
+        ExecutorService clients = Executors.newFixedThreadPool(5);
+        try {
+            Future<MachinePool> first = clients.submit(() -> fetcher.get(FORCE_REFRESH));
+            assertTrue(refreshStarted.await(5, TimeUnit.SECONDS));
+            Future<MachinePool> background = fetcher.refreshCacheAsync();
+            List<Future<MachinePool>> latecomers = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                latecomers.add(clients.submit(() -> fetcher.get(FORCE_REFRESH)));
+            }
+            // give clients time to request a refresh
+            Thread.sleep(200);
+            releaseRefresh.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS), is(newPool));
+            assertThat(background.get(5, TimeUnit.SECONDS), is(newPool));
+            for (Future<MachinePool> result : latecomers) {
+                assertThat(result.get(5, TimeUnit.SECONDS), is(newerPool));
+            }
+        } finally {
+            clients.shutdownNow();
+        }
+        // a single follow-up call through to the delegate for all latecomers
+        verify(this.delegate, times(3)).get(FORCE_REFRESH);
+        assertThat(fetcher.get(), is(newerPool));
+
+        // once the refreshes have completed, a new forced refresh calls
+        // through
+        fetcher.get(FORCE_REFRESH);
+        verify(this.delegate, times(4)).get(FORCE_REFRESH);
+        fetcher.close();
+    }
+
+    /**
+     * With a direct fetch executor, the callers of a refresh must be handed its
+     * result before a follow-up refresh starts, rather than be held until the
+     * follow-up has completed as well.
+     */
+    @Test
+    public void releaseCallersBeforeFollowUpRefresh() throws Exception {
+        when(this.delegate.get(FORCE_REFRESH)).thenReturn(pool(machines("i-1")));
+        CachingPoolFetcher fetcher = new CachingPoolFetcher(STATE_STORAGE, this.delegate, FETCH_CONFIG, this.executor,
+                MoreExecutors.directExecutor(), this.mockEventbus, () -> null);
+        fetcher.awaitFirstFetch();
+
+        // first fetch blocks until released, follow-up fetch blocks until
+        // the test is done
+        CountDownLatch refreshStarted = new CountDownLatch(1);
+        CountDownLatch releaseRefresh = new CountDownLatch(1);
+        CountDownLatch followUpStarted = new CountDownLatch(1);
+        CountDownLatch releaseFollowUp = new CountDownLatch(1);
+        MachinePool newPool = pool(machines("i-1", "i-2"));
+        MachinePool newerPool = pool(machines("i-1", "i-2", "i-3"));
+        AtomicInteger fetches = new AtomicInteger(0);
+        when(this.delegate.get(FORCE_REFRESH)).thenAnswer(invocation -> {
+            if (fetches.incrementAndGet() > 1) {
+                followUpStarted.countDown();
+                releaseFollowUp.await();
+                return newerPool;
+            }
+            refreshStarted.countDown();
+            releaseRefresh.await();
+            return newPool;
+        });
+
+        ExecutorService clients = Executors.newFixedThreadPool(2);
+        try {
+            Future<MachinePool> first = clients.submit(() -> fetcher.get(FORCE_REFRESH));
+            assertTrue(refreshStarted.await(5, TimeUnit.SECONDS));
+            Future<MachinePool> latecomer = clients.submit(() -> fetcher.get(FORCE_REFRESH));
+            // give the latecomer time to request a follow-up refresh
+            Thread.sleep(200);
+            releaseRefresh.countDown();
+
+            // the first caller is released while the follow-up is fetching
+            assertThat(first.get(5, TimeUnit.SECONDS), is(newPool));
+            assertTrue(followUpStarted.await(5, TimeUnit.SECONDS));
+            assertFalse(latecomer.isDone());
+
+            releaseFollowUp.countDown();
+            assertThat(latecomer.get(5, TimeUnit.SECONDS), is(newerPool));
+        } finally {
+            releaseFollowUp.countDown();
+            clients.shutdownNow();
+        }
+        fetcher.close();
+    }
+
+    /**
+     * Clients that share a refresh that fails should all be handed the error,
+     * but an alert should only be posted once per refresh.
+     */
+    @Test
+    public void concurrentForceRefreshesShareOngoingRefreshFailure() throws Exception {
+        when(this.delegate.get(FORCE_REFRESH)).thenReturn(pool(machines("i-1")));
+        CachingPoolFetcher fetcher = new CachingPoolFetcher(STATE_STORAGE, this.delegate, FETCH_CONFIG, this.executor,
+                this.mockEventbus);
+        fetcher.awaitFirstFetch();
+
+        CountDownLatch refreshStarted = new CountDownLatch(1);
+        CountDownLatch releaseRefresh = new CountDownLatch(1);
+        when(this.delegate.get(FORCE_REFRESH)).thenAnswer(invocation -> {
+            refreshStarted.countDown();
+            releaseRefresh.await();
+            throw new CloudPoolException("api outage");
+        });
+
+        ExecutorService clients = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<MachinePool>> results = new ArrayList<>();
+            results.add(clients.submit(() -> fetcher.get(FORCE_REFRESH)));
+            assertTrue(refreshStarted.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 2; i++) {
+                results.add(clients.submit(() -> fetcher.get(FORCE_REFRESH)));
+            }
+            Thread.sleep(200);
+            releaseRefresh.countDown();
+
+            for (Future<MachinePool> result : results) {
+                try {
+                    result.get(5, TimeUnit.SECONDS);
+                    fail("expected refresh to fail");
+                } catch (ExecutionException e) {
+                    assertTrue(e.getCause() instanceof CloudPoolException);
+                }
+            }
+        } finally {
+            clients.shutdownNow();
+        }
+        // the two latecomers shared a follow-up refresh
+        verify(this.delegate, times(3)).get(FORCE_REFRESH);
+        verify(this.mockEventbus, times(2)).post(argThat(isAlert(POOL_FETCH.name(), WARN)));
+        fetcher.close();
+    }
+
+    /**
+     * With a freshness window configured, a forced refresh should be served
+     * from cache if the cache was refreshed within the window.
+     */
+    @Test
+    public void forceRefreshWithinFreshnessWindow() {
+        PoolFetchConfig fetchConfig = new PoolFetchConfig(
+                new RetriesConfig(3, new TimeInterval(10L, TimeUnit.MILLISECONDS)), REFRESH_INTERVAL,
+                REACHABILITY_TIMEOUT, new TimeInterval(10L, TimeUnit.SECONDS), null, null, null);
+        MachinePool initialPool = pool(machines("i-1", "i-2"));
+        when(this.delegate.get(FORCE_REFRESH)).thenReturn(initialPool);
+
+        CachingPoolFetcher fetcher = new CachingPoolFetcher(STATE_STORAGE, this.delegate, fetchConfig, this.executor,
+                this.mockEventbus);
+        fetcher.awaitFirstFetch();
+        verify(this.delegate, times(1)).get(FORCE_REFRESH);
+
+        MachinePool newPool = pool(machines("i-1", "i-2", "i-3"));
+        when(this.delegate.get(FORCE_REFRESH)).thenReturn(newPool);
+
+        // within freshness window: served from cache
+        FrozenTime.tick(9);
+        assertThat(fetcher.get(FORCE_REFRESH), is(initialPool));
+        verify(this.delegate, times(1)).get(FORCE_REFRESH);
+
+        // outside freshness window: calls through to delegate
+        FrozenTime.tick(1);
+        assertThat(fetcher.get(FORCE_REFRESH), is(newPool));
+        verify(this.delegate, times(2)).get(FORCE_REFRESH);
+        fetcher.close();
+    }
+
+    /**
+     * With adaptive refresh configured, each refresh should be scheduled with
+     * an interval adjusted to how the pool is changing.
+     */
+    @Test
+    public void adaptiveRefresh() {
+        ScheduledExecutorService mockExecutor = mock(ScheduledExecutorService.class);
+        PoolFetchConfig fetchConfig = new PoolFetchConfig(
+                new RetriesConfig(3, new TimeInterval(10L, TimeUnit.MILLISECONDS)), REFRESH_INTERVAL,
+                REACHABILITY_TIMEOUT, null, null, new AdaptiveRefreshConfig(new TimeInterval(5L, TimeUnit.SECONDS),
+                        new TimeInterval(2L, TimeUnit.MINUTES)), null);
+        AtomicInteger desiredSize = new AtomicInteger(2);
+        CachingPoolFetcher fetcher = new CachingPoolFetcher(STATE_STORAGE, this.delegate, fetchConfig, mockExecutor,
+                this.mockEventbus, desiredSize::get);
+        assertThat(fetcher.getEffectiveRefreshInterval(), is(REFRESH_INTERVAL));
+
+        // first refresh is scheduled immediately
+        ArgumentCaptor<Runnable> refreshTask = ArgumentCaptor.forClass(Runnable.class);
+        verify(mockExecutor).schedule(refreshTask.capture(), eq(0L), eq(TimeUnit.MILLISECONDS));
+
+        // machine booting: refresh at minimum interval
+        MachinePool booting = pool(asList(machine("i-1", MachineState.RUNNING), machine("i-2", MachineState.PENDING)));
+        when(this.delegate.get(FORCE_REFRESH)).thenReturn(booting);
+        refreshTask.getValue().run();
+        assertThat(fetcher.getEffectiveRefreshInterval().getMillis(), is(5000L));
+        verify(mockExecutor).schedule(refreshTask.capture(), eq(5000L), eq(TimeUnit.MILLISECONDS));
+
+        // pool settled: back to initial interval
+        MachinePool settled = pool(machines("i-1", "i-2"));
+        when(this.delegate.get(FORCE_REFRESH)).thenReturn(settled);
+        refreshTask.getValue().run();
+        assertThat(fetcher.getEffectiveRefreshInterval().getMillis(), is(30000L));
+        verify(mockExecutor).schedule(refreshTask.capture(), eq(30000L), eq(TimeUnit.MILLISECONDS));
+
+        // pool unchanged: back off
+        refreshTask.getValue().run();
+        assertThat(fetcher.getEffectiveRefreshInterval().getMillis(), is(60000L));
+        verify(mockExecutor).schedule(refreshTask.capture(), eq(60000L), eq(TimeUnit.MILLISECONDS));
+
+        // desired size changes: refresh at minimum interval
+        desiredSize.set(3);
+        refreshTask.getValue().run();
+        assertThat(fetcher.getEffectiveRefreshInterval().getMillis(), is(5000L));
+
+        // failed refresh: back to initial interval
+        desiredSize.set(2);
+        when(this.delegate.get(FORCE_REFRESH)).thenThrow(new CloudPoolException("api outage"));
+        refreshTask.getValue().run();
+        assertThat(fetcher.getEffectiveRefreshInterval().getMillis(), is(30000L));
+
+        // no more refreshes are scheduled after close
+        fetcher.close();
+        refreshTask.getValue().run();
+        verify(mockExecutor, times(6)).schedule(any(Runnable.class), anyLong(), eq(TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * With a soft TTL configured, a read that finds a stale cache should be
+     * served from cache and trigger a single background refresh.
+     */
+    @Test
+    public void staleWhileRevalidate() {
+        ScheduledExecutorService mockExecutor = mock(ScheduledExecutorService.class);
+        PoolFetchConfig fetchConfig = new PoolFetchConfig(
+                new RetriesConfig(3, new TimeInterval(10L, TimeUnit.MILLISECONDS)), REFRESH_INTERVAL,
+                REACHABILITY_TIMEOUT, null, null, null, new TimeInterval(60L, TimeUnit.SECONDS));
+        CachingPoolFetcher fetcher = new CachingPoolFetcher(STATE_STORAGE, this.delegate, fetchConfig, mockExecutor,
+                this.mockEventbus);
+        // populate cache
+        ArgumentCaptor<Runnable> refreshTask = ArgumentCaptor.forClass(Runnable.class);
+        verify(mockExecutor).scheduleWithFixedDelay(refreshTask.capture(), eq(0L), eq(30L), eq(TimeUnit.SECONDS));
+        MachinePool initialPool = pool(machines("i-1"));
+        when(this.delegate.get(FORCE_REFRESH)).thenReturn(initialPool);
+        refreshTask.getValue().run();
+        verify(this.delegate, times(1)).get(FORCE_REFRESH);
+
+        // cache not stale yet
+        FrozenTime.tick(59);
+        assertThat(fetcher.get(), is(initialPool));
+        verify(mockExecutor, never()).execute(any(Runnable.class));
+
+        // cache stale: served from cache, background refresh triggered once
+        FrozenTime.tick(1);
+        assertThat(fetcher.get(), is(initialPool));
+        assertThat(fetcher.get(), is(initialPool));
+        ArgumentCaptor<Runnable> revalidationTask = ArgumentCaptor.forClass(Runnable.class);
+        verify(mockExecutor, times(1)).execute(revalidationTask.capture());
+        verify(this.delegate, times(1)).get(FORCE_REFRESH);
+
+        // background refresh completes
+        MachinePool newPool = pool(machines("i-1", "i-2"));
+        when(this.delegate.get(FORCE_REFRESH)).thenReturn(newPool);
+        revalidationTask.getValue().run();
+        assertThat(fetcher.get(), is(newPool));
+        verify(mockExecutor, times(1)).execute(any(Runnable.class));
+
+        // cloud api outage: stale cache is served (with at most one background
+        // refresh per soft TTL) until the reachability timeout is exceeded
+        when(this.delegate.get(FORCE_REFRESH)).thenThrow(new CloudPoolException("api outage"));
+        FrozenTime.tick(60);
+        assertThat(fetcher.get(), is(newPool));
+        verify(mockExecutor, times(2)).execute(revalidationTask.capture());
+        revalidationTask.getValue().run();
+        FrozenTime.tick(30);
+        assertThat(fetcher.get(), is(newPool));
+        verify(mockExecutor, times(2)).execute(any(Runnable.class));
+        FrozenTime.tick(4 * 60);
+        try {
+            fetcher.get();
+            fail("expected reachability timeout");
+        } catch (PoolReachabilityTimeoutException e) {
+            // expected
+        }
+        fetcher.close();
+    }
+
+    /**
+     * With a fetch executor, periodical refreshes should only be started by
+     * the scheduler, which should not wait for them to complete. A refresh
+     * that is started while another is in progress should join it.
+     */
+    @Test
+    public void refreshOnFetchExecutor() {
+        ScheduledExecutorService mockExecutor = mock(ScheduledExecutorService.class);
+        List<Runnable> pendingFetches = new ArrayList<>();
+        CachingPoolFetcher fetcher = new CachingPoolFetcher(STATE_STORAGE, this.delegate, FETCH_CONFIG, mockExecutor,
+                pendingFetches::add, this.mockEventbus, () -> null);
+        ArgumentCaptor<Runnable> refreshTask = ArgumentCaptor.forClass(Runnable.class);
+        verify(mockExecutor).scheduleWithFixedDelay(refreshTask.capture(), eq(0L), eq(30L), eq(TimeUnit.SECONDS));
+        when(this.delegate.get(FORCE_REFRESH)).thenReturn(pool(machines("i-1")));
+
+        // refresh is handed off to the fetch executor
+        refreshTask.getValue().run();
+        assertThat(pendingFetches.size(), is(1));
+        verify(this.delegate, never()).get(FORCE_REFRESH);
+        try {
+            fetcher.get();
+            fail("expected pool to be unreachable until first fetch completes");
+        } catch (PoolUnreachableException e) {
+            // expected
+        }
+
+        // refresh while another is in progress joins the ongoing refresh
+        refreshTask.getValue().run();
+        assertThat(pendingFetches.size(), is(1));
+
+        pendingFetches.get(0).run();
+        fetcher.awaitFirstFetch();
+        assertThat(fetcher.get(), is(pool(machines("i-1"))));
+        verify(this.delegate, times(1)).get(FORCE_REFRESH);
+
+        // next refresh is handed off anew
+        refreshTask.getValue().run();
+        assertThat(pendingFetches.size(), is(2));
+
+        fetcher.close();
+    }
+
     /**
      * Should respond with cached {@link MachinePool} until the cached value is
      * older than {@code reachabilityTimeout} (then it should respond with a
@@ -267,6 +664,38 @@ public class TestCachingPoolFetcher {
         fetcher.close();
     }
 
+    /**
+     * The {@link CachingPoolFetcher} should serve membership lookups from the
+     * cached {@link MachinePool}. An evicted machine should not be found until
+     * a refresh started after its eviction has completed, and no members
+     * should be found once the reachability timeout has been exceeded.
+     */
+    @Test
+    public void poolMembership() {
+        MachinePool initialPool = pool(machines("i-1", "i-2"));
+        when(this.delegate.get(FORCE_REFRESH)).thenReturn(initialPool);
+
+        CachingPoolFetcher fetcher = new CachingPoolFetcher(STATE_STORAGE, this.delegate, FETCH_CONFIG, this.executor,
+                this.mockEventbus);
+        fetcher.awaitFirstFetch();
+        assertThat(fetcher.getMember("i-1").get(), is(initialPool.getMachines().get(0)));
+        assertFalse(fetcher.getMember("i-3").isPresent());
+
+        fetcher.evict("i-1");
+        assertFalse(fetcher.getMember("i-1").isPresent());
+        assertTrue(fetcher.getMember("i-2").isPresent());
+
+        // a refresh started after the eviction should make i-1 visible again
+        FrozenTime.tick(60);
+        fetcher.get(FORCE_REFRESH);
+        assertTrue(fetcher.getMember("i-1").isPresent());
+
+        // no members can be vouched for once the cache is too old
+        FrozenTime.tick(REACHABILITY_TIMEOUT_MINUTES * 60 + 1);
+        assertFalse(fetcher.getMember("i-1").isPresent());
+        fetcher.close();
+    }
+
     /**
      * {@link Alert}s should be posted on the {@link EventBus} on failures to
      * refresh the cache.
@@ -291,6 +720,37 @@ public class TestCachingPoolFetcher {
         fetcher.close();
     }
 
+    /**
+     * Refreshes and refresh failures should be recorded in the
+     * {@link MetricsRegistry}, together with the age and size of the cached
+     * pool.
+     */
+    @Test
+    public void recordRefreshMetrics() {
+        MetricsRegistry metrics = new MetricsRegistry();
+        when(this.delegate.get(FORCE_REFRESH)).thenReturn(pool(machines("i-1", "i-2")))
+                .thenThrow(new CloudPoolDriverException("api outage"));
+
+        CachingPoolFetcher fetcher = new CachingPoolFetcher(STATE_STORAGE, this.delegate, FETCH_CONFIG, this.executor,
+                MoreExecutors.directExecutor(), this.mockEventbus, () -> null, metrics);
+        fetcher.awaitFirstFetch();
+        FrozenTime.tick(60);
+        try {
+            fetcher.get(FORCE_REFRESH);
+            fail("expected to fail");
+        } catch (CloudPoolException e) {
+            // expected
+        }
+
+        assertThat(metrics.histogram(CachingPoolFetcher.REFRESH_DURATION, "").getCount(), is(2L));
+        assertThat(metrics.counter(CachingPoolFetcher.REFRESH_FAILURES, "").get(), is(1L));
+        String text = metrics.toPrometheusText();
+        assertTrue(text.contains(CachingPoolFetcher.CACHE_AGE + " 60\n"));
+        assertTrue(text.contains(CachingPoolFetcher.POOL_MEMBERS + " 2\n"));
+        assertTrue(text.contains(CachingPoolFetcher.REFRESH_INTERVAL + " 30\n"));
+        fetcher.close();
+    }
+
     /**
      * Verify that machine pool observations get written to disk and are
      * properly restored on re-instantiation of the {@link CachingPoolFetcher}.
@@ -307,6 +767,8 @@ public class TestCachingPoolFetcher {
         fetcher.awaitFirstFetch();
 
         // the fetched machine pool should be cached and written to disk
+        // (note: writes are asynchronous)
+        fetcher.flushCache();
         assertThat(cacheFile.exists(), is(true));
         assertThat(restore(cacheFile), is(fetcher.get()));
         assertThat(restore(cacheFile), is(pool(machines("i-1", "i-2"))));
@@ -314,10 +776,12 @@ public class TestCachingPoolFetcher {
         // verify that changes get saved
         when(this.delegate.get(FORCE_REFRESH)).thenReturn(pool(machines("i-1", "i-2", "i-3")));
         assertThat(fetcher.get(FetchOption.FORCE_REFRESH), is(pool(machines("i-1", "i-2", "i-3"))));
+        fetcher.flushCache();
         assertThat(restore(cacheFile), is(pool(machines("i-1", "i-2", "i-3"))));
 
         when(this.delegate.get(FORCE_REFRESH)).thenReturn(pool(machines()));
         fetcher.get(FetchOption.FORCE_REFRESH);
+        fetcher.flushCache();
         assertThat(restore(cacheFile), is(pool(machines())));
         fetcher.close();
     }
@@ -340,6 +804,34 @@ public class TestCachingPoolFetcher {
         fetcher.close();
     }
 
+    /**
+     * A restored cache should be served as is (with its original timestamp),
+     * except to {@link FetchOption#LIVE} requests, which should wait for the
+     * cache to be refreshed from the cloud API.
+     */
+    @Test
+    public void liveFetchWithRestoredCache() throws IOException {
+        ScheduledExecutorService mockExecutor = mock(ScheduledExecutorService.class);
+        DateTime cachedTimestamp = UtcTime.now().minusMinutes(1);
+        MachinePool cachedPool = new MachinePool(machines("i-1", "i-2"), cachedTimestamp);
+        save(cachedPool, STATE_STORAGE.getCachedMachinePoolFile());
+
+        CachingPoolFetcher fetcher = new CachingPoolFetcher(STATE_STORAGE, this.delegate, FETCH_CONFIG, mockExecutor,
+                this.mockEventbus);
+        assertTrue(fetcher.hasServableCache());
+        assertThat(fetcher.get(), is(cachedPool));
+        assertThat(fetcher.get().getTimestamp(), is(cachedTimestamp));
+        verify(this.delegate, never()).get(FORCE_REFRESH);
+
+        MachinePool livePool = pool(machines("i-2", "i-3"));
+        when(this.delegate.get(FORCE_REFRESH)).thenReturn(livePool);
+        assertThat(fetcher.get(FetchOption.LIVE), is(livePool));
+        // once refreshed, the cache is live
+        assertThat(fetcher.get(FetchOption.LIVE), is(livePool));
+        verify(this.delegate, times(1)).get(FORCE_REFRESH);
+        fetcher.close();
+    }
+
     /**
      * A {@link MachinePool} restored from cache that is not sufficiently
      * up-to-date should give rise to a {@link PoolReachabilityTimeoutException}
@@ -382,9 +874,13 @@ public class TestCachingPoolFetcher {
     private List<Machine> machines(String... machineIds) {
         List<Machine> machines = new ArrayList<>();
         for (String id : machineIds) {
-            machines.add(Machine.builder().id(id).machineSize("m1.medium").machineState(MachineState.RUNNING)
-                    .cloudProvider(CloudProviders.AWS_EC2).region("us-east-1").build());
+            machines.add(machine(id, MachineState.RUNNING));
         }
         return machines;
     }
+
+    private Machine machine(String id, MachineState state) {
+        return Machine.builder().id(id).machineSize("m1.medium").machineState(state)
+                .cloudProvider(CloudProviders.AWS_EC2).region("us-east-1").build();
+    }
 }
@@ -0,0 +1,203 @@
+package com.elastisys.scale.cloudpool.commons.basepool.poolfetcher.impl;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.elastisys.scale.cloudpool.api.CloudPoolException;
+import com.elastisys.scale.cloudpool.api.types.CloudProviders;
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.api.types.MachinePool;
+import com.elastisys.scale.cloudpool.api.types.MachineState;
+import com.elastisys.scale.cloudpool.commons.basepool.config.RetriesConfig;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriverException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.IncrementalCloudPoolDriver;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.MachineChanges;
+import com.elastisys.scale.commons.json.types.TimeInterval;
+import com.elastisys.scale.commons.util.time.FrozenTime;
+import com.elastisys.scale.commons.util.time.UtcTime;
+
+/**
+ * Exercise the {@link IncrementalPoolFetcher}.
+ */
+public class TestIncrementalPoolFetcher {
+
+    private final IncrementalCloudPoolDriver mockDriver = mock(IncrementalCloudPoolDriver.class);
+
+    private static final RetriesConfig RETRIES_CONFIG = new RetriesConfig(2,
+            new TimeInterval(10L, TimeUnit.MILLISECONDS));
+    private static final TimeInterval FULL_RESYNC_INTERVAL = new TimeInterval(10L, TimeUnit.MINUTES);
+
+    /** Object under test. */
+    private IncrementalPoolFetcher fetcher;
+
+    @Before
+    public void beforeTestMethod() {
+        FrozenTime.setFixed(UtcTime.parse("2015-11-16T12:00:00.000Z"));
+
+        this.fetcher = new IncrementalPoolFetcher(this.mockDriver, RETRIES_CONFIG, FULL_RESYNC_INTERVAL);
+    }
+
+    /**
+     * The first fetch should ask for a full listing.
+     */
+    @Test
+    public void fullListingOnFirstFetch() {
+        when(this.mockDriver.listChanges(null)).thenReturn(MachineChanges.full(machines("i-1", "i-2"), "c1"));
+
+        MachinePool pool = this.fetcher.get();
+        assertThat(pool.getTimestamp(), is(UtcTime.now()));
+        assertThat(pool.getMachines(), is(machines("i-1", "i-2")));
+
+        verify(this.mockDriver).listChanges(null);
+        verify(this.mockDriver, never()).listMachines();
+    }
+
+    /**
+     * Subsequent fetches should merge the changes since the last cursor into
+     * the last observed pool.
+     */
+    @Test
+    public void mergeChanges() {
+        when(this.mockDriver.listChanges(null)).thenReturn(MachineChanges.full(machines("i-1", "i-2", "i-3"), "c1"));
+        this.fetcher.get();
+
+        // i-2 changes state, i-3 is removed, i-4 is added
+        Machine terminating = machine("i-2", MachineState.TERMINATING);
+        when(this.mockDriver.listChanges("c1"))
+                .thenReturn(MachineChanges.delta(asList(terminating, machine("i-4")), asList("i-3"), "c2"));
+        FrozenTime.tick(30);
+        MachinePool pool = this.fetcher.get();
+        assertThat(pool.getTimestamp(), is(UtcTime.now()));
+        assertThat(pool.getMachines(), is(asList(machine("i-1"), terminating, machine("i-4"))));
+
+        // no changes
+        when(this.mockDriver.listChanges("c2")).thenReturn(MachineChanges.delta(asList(), asList(), "c3"));
+        FrozenTime.tick(30);
+        pool = this.fetcher.get();
+        assertThat(pool.getTimestamp(), is(UtcTime.now()));
+        assertThat(pool.getMachines(), is(asList(machine("i-1"), terminating, machine("i-4"))));
+
+        verify(this.mockDriver, times(1)).listChanges(null);
+        verify(this.mockDriver, times(1)).listChanges("c1");
+        verify(this.mockDriver, times(1)).listChanges("c2");
+    }
+
+    /**
+     * A full listing should be requested when the full resync interval has
+     * passed.
+     */
+    @Test
+    public void fullResync() {
+        when(this.mockDriver.listChanges(null)).thenReturn(MachineChanges.full(machines("i-1", "i-2"), "c1"));
+        when(this.mockDriver.listChanges("c1")).thenReturn(MachineChanges.delta(machines("i-3"), asList(), "c1"));
+        this.fetcher.get();
+
+        FrozenTime.tick(9 * 60);
+        assertThat(this.fetcher.get().getMachines(), is(machines("i-1", "i-2", "i-3")));
+        verify(this.mockDriver, times(1)).listChanges(null);
+
+        // a missed change (i-3 removed) is corrected by a full resync
+        FrozenTime.tick(60);
+        assertThat(this.fetcher.get().getMachines(), is(machines("i-1", "i-2")));
+        verify(this.mockDriver, times(2)).listChanges(null);
+    }
+
+    /**
+     * A driver may respond with a full listing when asked for changes (for
+     * example, when a cursor has expired).
+     */
+    @Test
+    public void fullListingInResponseToCursor() {
+        when(this.mockDriver.listChanges(null)).thenReturn(MachineChanges.full(machines("i-1", "i-2"), "c1"));
+        this.fetcher.get();
+
+        when(this.mockDriver.listChanges("c1")).thenReturn(MachineChanges.full(machines("i-3"), "c2"));
+        assertThat(this.fetcher.get().getMachines(), is(machines("i-3")));
+        when(this.mockDriver.listChanges("c2")).thenReturn(MachineChanges.delta(machines("i-4"), asList(), "c3"));
+        assertThat(this.fetcher.get().getMachines(), is(machines("i-3", "i-4")));
+        verify(this.mockDriver, times(1)).listChanges(null);
+    }
+
+    /**
+     * Failed attempts are retried. When all retries fail, the next fetch
+     * should start over with a full listing.
+     */
+    @Test
+    public void fullListingAfterFailure() {
+        when(this.mockDriver.listChanges(null)).thenReturn(MachineChanges.full(machines("i-1", "i-2"), "c1"));
+        this.fetcher.get();
+
+        when(this.mockDriver.listChanges("c1")).thenThrow(new CloudPoolDriverException("cursor expired"));
+        try {
+            this.fetcher.get();
+            fail("expected to fail");
+        } catch (CloudPoolException e) {
+            // expected
+        }
+        verify(this.mockDriver, times(1 + RETRIES_CONFIG.getMaxRetries())).listChanges("c1");
+
+        when(this.mockDriver.listChanges(null)).thenReturn(MachineChanges.full(machines("i-1"), "c2"));
+        assertThat(this.fetcher.get().getMachines(), is(machines("i-1")));
+        verify(this.mockDriver, times(2)).listChanges(null);
+    }
+
+    /**
+     * Retries should be made until success.
+     */
+    @Test
+    public void retryUntilSuccess() {
+        when(this.mockDriver.listChanges(null)).thenThrow(new CloudPoolDriverException("api outage"))
+                .thenReturn(MachineChanges.full(machines("i-1"), "c1"));
+
+        assertThat(this.fetcher.get().getMachines(), is(machines("i-1")));
+        verify(this.mockDriver, times(2)).listChanges(null);
+    }
+
+    /**
+     * A full listing must list machines.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void fullListingWithoutMachines() {
+        MachineChanges.full(null, "c1");
+    }
+
+    /**
+     * Changes must carry a cursor.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void changesWithoutCursor() {
+        MachineChanges.delta(machines("i-1"), Collections.emptyList(), null);
+    }
+
+    private Machine machine(String id) {
+        return machine(id, MachineState.RUNNING);
+    }
+
+    private Machine machine(String id, MachineState state) {
+        return Machine.builder().id(id).machineSize("m1.medium").machineState(state)
+                .cloudProvider(CloudProviders.AWS_EC2).region("us-east-1").build();
+    }
+
+    private List<Machine> machines(String... machineIds) {
+        List<Machine> machines = new ArrayList<>();
+        for (String id : machineIds) {
+            machines.add(machine(id));
+        }
+        return machines;
+    }
+}
@@ -0,0 +1,236 @@
+package com.elastisys.scale.cloudpool.commons.basepool.poolfetcher.impl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.elastisys.scale.cloudpool.api.types.CloudProviders;
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.api.types.MachinePool;
+import com.elastisys.scale.cloudpool.api.types.MachineState;
+import com.elastisys.scale.commons.json.JsonUtils;
+import com.elastisys.scale.commons.json.types.TimeInterval;
+import com.elastisys.scale.commons.util.file.FileUtils;
+import com.elastisys.scale.commons.util.time.FrozenTime;
+import com.elastisys.scale.commons.util.time.UtcTime;
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import com.google.gson.JsonObject;
+
+/**
+ * Exercise the {@link PersistentMachinePool}.
+ */
+public class TestPersistentMachinePool {
+
+    private static final File STATE_DIR = new File("target/state-" + TestPersistentMachinePool.class.getSimpleName());
+    private static final File POOL_FILE = new File(STATE_DIR, "pool.json");
+    private static final TimeInterval MAX_PERSISTED_AGE = new TimeInterval(2L, TimeUnit.MINUTES);
+
+    /** Captures write tasks, which are run explicitly by the tests. */
+    private final ExecutorService writer = mock(ExecutorService.class);
+
+    @Before
+    public void beforeTestMethod() throws IOException {
+        FrozenTime.setFixed(UtcTime.parse("2015-11-16T12:00:00.000Z"));
+        if (STATE_DIR.exists()) {
+            FileUtils.deleteRecursively(STATE_DIR);
+        }
+    }
+
+    /**
+     * Updates should be written asynchronously, with only the latest of
+     * several updates written.
+     */
+    @Test
+    public void writeBehind() {
+        PersistentMachinePool persistentPool = new PersistentMachinePool(POOL_FILE, false, MAX_PERSISTED_AGE,
+                this.writer);
+        assertThat(persistentPool.get().isPresent(), is(false));
+
+        persistentPool.update(pool(machines("i-1")));
+        persistentPool.update(pool(machines("i-1", "i-2")));
+        // pool is served from memory before it has been written
+        assertThat(persistentPool.get().get(), is(pool(machines("i-1", "i-2"))));
+        assertFalse(POOL_FILE.exists());
+
+        // a single write is scheduled, which writes the latest pool
+        ArgumentCaptor<Runnable> writeTask = ArgumentCaptor.forClass(Runnable.class);
+        verify(this.writer, times(1)).submit(writeTask.capture());
+        writeTask.getValue().run();
+        assertThat(readPoolFile(), is(pool(machines("i-1", "i-2"))));
+        assertFalse(new File(STATE_DIR, "pool.json.tmp").exists());
+
+        // next update schedules a new write
+        persistentPool.update(pool(machines("i-2")));
+        verify(this.writer, times(2)).submit(writeTask.capture());
+        writeTask.getValue().run();
+        assertThat(readPoolFile(), is(pool(machines("i-2"))));
+    }
+
+    /**
+     * An unchanged pool should not be written again, until the last written
+     * pool becomes older than the maximum persisted age.
+     */
+    @Test
+    public void writeOnChange() {
+        PersistentMachinePool persistentPool = new PersistentMachinePool(POOL_FILE, false, MAX_PERSISTED_AGE,
+                this.writer);
+        persistentPool.update(pool(machines("i-1")));
+        persistentPool.flush();
+        verify(this.writer, times(1)).submit(any(Runnable.class));
+
+        FrozenTime.tick(60);
+        persistentPool.update(pool(machines("i-1")));
+        // served from memory with new timestamp, but not written
+        assertThat(persistentPool.get().get().getTimestamp(), is(UtcTime.now()));
+        verify(this.writer, times(1)).submit(any(Runnable.class));
+        persistentPool.flush();
+        assertThat(readPoolFile().getTimestamp(), is(UtcTime.now().minusSeconds(60)));
+
+        // max persisted age reached: unchanged pool is written
+        FrozenTime.tick(60);
+        persistentPool.update(pool(machines("i-1")));
+        persistentPool.flush();
+        assertThat(readPoolFile(), is(pool(machines("i-1"))));
+    }
+
+    /**
+     * A persisted pool should be restored on creation.
+     */
+    @Test
+    public void restore() {
+        PersistentMachinePool persistentPool = new PersistentMachinePool(POOL_FILE, false, MAX_PERSISTED_AGE,
+                this.writer);
+        persistentPool.update(pool(machines("i-1", "i-2")));
+        persistentPool.flush();
+
+        PersistentMachinePool restored = new PersistentMachinePool(POOL_FILE, false, MAX_PERSISTED_AGE, this.writer);
+        assertThat(restored.get().get(), is(pool(machines("i-1", "i-2"))));
+    }
+
+    /**
+     * A corrupt pool file should be ignored.
+     */
+    @Test
+    public void restoreFromCorruptFile() throws IOException {
+        Files.createParentDirs(POOL_FILE);
+        Files.write("{\"machines\": [", POOL_FILE, Charsets.UTF_8);
+
+        PersistentMachinePool persistentPool = new PersistentMachinePool(POOL_FILE, false, MAX_PERSISTED_AGE,
+                this.writer);
+        assertThat(persistentPool.get().isPresent(), is(false));
+    }
+
+    /**
+     * A failed write should not keep the next update of an unchanged pool
+     * from being written.
+     */
+    @Test
+    public void rewriteAfterFailedWrite() throws IOException {
+        // a regular file in place of the state directory makes writes fail
+        Files.createParentDirs(STATE_DIR);
+        Files.write("", STATE_DIR, Charsets.UTF_8);
+        PersistentMachinePool persistentPool = new PersistentMachinePool(POOL_FILE, false, MAX_PERSISTED_AGE,
+                this.writer);
+        persistentPool.update(pool(machines("i-1")));
+        persistentPool.flush();
+        assertFalse(POOL_FILE.exists());
+
+        STATE_DIR.delete();
+        FrozenTime.tick(1);
+        persistentPool.update(pool(machines("i-1")));
+        persistentPool.flush();
+        assertThat(readPoolFile(), is(pool(machines("i-1"))));
+    }
+
+    /**
+     * Compact encoding can be switched on for subsequent writes.
+     */
+    @Test
+    public void switchToCompactEncoding() {
+        JsonObject metadata = new JsonObject();
+        metadata.addProperty("imageId", "ami-123");
+        Machine machine = machine("i-1").withMetadata(metadata);
+
+        PersistentMachinePool persistentPool = new PersistentMachinePool(POOL_FILE, false, MAX_PERSISTED_AGE,
+                this.writer);
+        persistentPool.update(pool(machine));
+        persistentPool.flush();
+        assertThat(readPoolFile().getMachines().get(0).getMetadata(), is(metadata));
+
+        persistentPool.setCompact(true);
+        List<Machine> changedMachines = machines("i-2");
+        changedMachines.add(0, machine);
+        persistentPool.update(pool(changedMachines));
+        persistentPool.flush();
+        assertThat(readPoolFile().getMachines().get(0).getMetadata(), is(nullValue()));
+    }
+
+    /**
+     * With compact encoding, machine metadata should be left out when
+     * writing.
+     */
+    @Test
+    public void compactEncoding() throws IOException {
+        JsonObject metadata = new JsonObject();
+        metadata.addProperty("imageId", "ami-123");
+        Machine machine = machine("i-1").withMetadata(metadata);
+
+        PersistentMachinePool persistentPool = new PersistentMachinePool(POOL_FILE, true, MAX_PERSISTED_AGE,
+                this.writer);
+        persistentPool.update(pool(machine));
+        persistentPool.flush();
+        // in-memory pool keeps metadata
+        assertThat(persistentPool.get().get().getMachines().get(0).getMetadata(), is(metadata));
+
+        MachinePool restored = readPoolFile();
+        assertThat(restored.getMachines().get(0).getMetadata(), is(nullValue()));
+        assertThat(restored.getMachines().get(0).getId(), is("i-1"));
+        assertThat(restored.getTimestamp(), is(UtcTime.now()));
+        // single-line encoding
+        assertThat(Files.readLines(POOL_FILE, Charsets.UTF_8).size(), is(1));
+    }
+
+    private MachinePool readPoolFile() {
+        return JsonUtils.toObject(JsonUtils.parseJsonFile(POOL_FILE), MachinePool.class);
+    }
+
+    private MachinePool pool(Machine machine) {
+        List<Machine> machines = new ArrayList<>();
+        machines.add(machine);
+        return new MachinePool(machines, UtcTime.now());
+    }
+
+    private MachinePool pool(List<Machine> machines) {
+        return new MachinePool(machines, UtcTime.now());
+    }
+
+    private Machine machine(String id) {
+        return Machine.builder().id(id).machineSize("m1.medium").machineState(MachineState.RUNNING)
+                .cloudProvider(CloudProviders.AWS_EC2).region("us-east-1").build();
+    }
+
+    private List<Machine> machines(String... machineIds) {
+        List<Machine> machines = new ArrayList<>();
+        for (String id : machineIds) {
+            machines.add(machine(id));
+        }
+        return machines;
+    }
+}
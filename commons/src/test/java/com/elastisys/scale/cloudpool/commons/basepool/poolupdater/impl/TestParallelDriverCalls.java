@@ -0,0 +1,172 @@
+package com.elastisys.scale.cloudpool.commons.basepool.poolupdater.impl;
+
+import static com.elastisys.scale.cloudpool.commons.basepool.BasePoolTestUtils.machine;
+import static com.elastisys.scale.cloudpool.commons.basepool.BasePoolTestUtils.machines;
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.elastisys.scale.cloudpool.api.NotFoundException;
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.api.types.MachineState;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriver;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriverException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.StartMachinesException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.TerminateMachinesException;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Sets;
+
+/**
+ * Exercises the {@link ParallelDriverCalls} class.
+ */
+public class TestParallelDriverCalls {
+
+    private final CloudPoolDriver driverMock = mock(CloudPoolDriver.class);
+
+    private ParallelDriverCalls driverCalls;
+
+    @After
+    public void onTeardown() {
+        if (this.driverCalls != null) {
+            this.driverCalls.close();
+        }
+    }
+
+    /**
+     * With a single allowed call, requests should be passed straight through
+     * to the driver.
+     */
+    @Test
+    public void passThroughWithSingleCall() throws Exception {
+        this.driverCalls = new ParallelDriverCalls(this.driverMock, 1);
+        when(this.driverMock.startMachines(3)).thenReturn(machines(machine("i-1"), machine("i-2"), machine("i-3")));
+
+        assertThat(this.driverCalls.startMachines(3).size(), is(3));
+        this.driverCalls.terminateMachines(asList("i-1", "i-2", "i-3"));
+
+        verify(this.driverMock).startMachines(3);
+        verify(this.driverMock).terminateMachines(asList("i-1", "i-2", "i-3"));
+    }
+
+    /**
+     * Starts should be split into (near) equally sized calls, with any
+     * remainder spread over the first calls.
+     */
+    @Test
+    public void splitStarts() throws Exception {
+        this.driverCalls = new ParallelDriverCalls(this.driverMock, 3);
+        when(this.driverMock.startMachines(3)).thenReturn(machines(machine("i-1"), machine("i-2"), machine("i-3")));
+        when(this.driverMock.startMachines(2)).thenReturn(machines(machine("i-4"), machine("i-5")));
+
+        List<Machine> started = this.driverCalls.startMachines(8);
+
+        assertThat(started.size(), is(8));
+        verify(this.driverMock, times(2)).startMachines(3);
+        verify(this.driverMock).startMachines(2);
+    }
+
+    /**
+     * Never make more calls than there are machines to start.
+     */
+    @Test
+    public void splitFewStarts() throws Exception {
+        this.driverCalls = new ParallelDriverCalls(this.driverMock, 4);
+        when(this.driverMock.startMachines(1)).thenReturn(machines(machine("i-1")));
+
+        assertThat(this.driverCalls.startMachines(2).size(), is(2));
+        verify(this.driverMock, times(2)).startMachines(1);
+    }
+
+    /**
+     * A failed call should fail the whole request with a
+     * {@link StartMachinesException} that covers the machines started by all
+     * calls.
+     */
+    @Test
+    public void aggregatePartialStartFailures() throws Exception {
+        this.driverCalls = new ParallelDriverCalls(this.driverMock, 2);
+        CloudPoolDriverException cause = new CloudPoolDriverException("quota exceeded");
+        when(this.driverMock.startMachines(2)).thenReturn(machines(machine("i-1"), machine("i-2")))
+                .thenThrow(new StartMachinesException(2, machines(machine("i-3", MachineState.PENDING)), cause));
+
+        try {
+            this.driverCalls.startMachines(4);
+            fail("expected to fail");
+        } catch (StartMachinesException e) {
+            assertThat(e.getRequestedMachines(), is(4));
+            assertThat(e.getStartedMachines().size(), is(3));
+            assertThat(e.getCause(), is((Throwable) cause));
+        }
+    }
+
+    /**
+     * Terminations should be split into (near) equally sized batches.
+     */
+    @Test
+    public void splitTerminations() throws Exception {
+        this.driverCalls = new ParallelDriverCalls(this.driverMock, 2);
+
+        this.driverCalls.terminateMachines(asList("i-1", "i-2", "i-3"));
+
+        verify(this.driverMock).terminateMachines(asList("i-1", "i-2"));
+        verify(this.driverMock).terminateMachines(asList("i-3"));
+    }
+
+    /**
+     * Per-machine failures of all batches should be aggregated into a single
+     * {@link TerminateMachinesException}. A batch that fails altogether should
+     * mark all of its machines as failed.
+     */
+    @Test
+    public void aggregatePartialTerminationFailures() throws Exception {
+        this.driverCalls = new ParallelDriverCalls(this.driverMock, 3);
+        NotFoundException notFound = new NotFoundException("i-2 not found");
+        CloudPoolDriverException apiError = new CloudPoolDriverException("api unreachable");
+        doThrow(new TerminateMachinesException(asList("i-1"), ImmutableMap.of("i-2", notFound)))
+                .when(this.driverMock).terminateMachines(asList("i-1", "i-2"));
+        doThrow(apiError).when(this.driverMock).terminateMachines(asList("i-5", "i-6"));
+
+        try {
+            this.driverCalls.terminateMachines(asList("i-1", "i-2", "i-3", "i-4", "i-5", "i-6"));
+            fail("expected to fail");
+        } catch (TerminateMachinesException e) {
+            assertThat(Sets.newHashSet(e.getTerminatedMachines()), is(Sets.newHashSet("i-1", "i-3", "i-4")));
+            Map<String, Throwable> errors = e.getTerminationErrors();
+            assertThat(errors.keySet(), is(Sets.newHashSet("i-2", "i-5", "i-6")));
+            assertThat(errors.get("i-2"), is((Throwable) notFound));
+            assertThat(errors.get("i-5"), is((Throwable) apiError));
+        }
+        verify(this.driverMock, times(3)).terminateMachines(anyListOf(String.class));
+    }
+
+    /**
+     * An empty termination request should be passed through to the driver.
+     */
+    @Test
+    public void terminateNone() throws Exception {
+        this.driverCalls = new ParallelDriverCalls(this.driverMock, 2);
+
+        this.driverCalls.terminateMachines(Collections.emptyList());
+
+        verify(this.driverMock).terminateMachines(Collections.emptyList());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void createWithTooFewCalls() {
+        new ParallelDriverCalls(this.driverMock, 0);
+    }
+}
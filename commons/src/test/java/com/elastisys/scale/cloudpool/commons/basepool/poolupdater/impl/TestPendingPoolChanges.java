@@ -0,0 +1,184 @@
+package com.elastisys.scale.cloudpool.commons.basepool.poolupdater.impl;
+
+import static com.elastisys.scale.cloudpool.commons.basepool.BasePoolTestUtils.machine;
+import static com.elastisys.scale.cloudpool.commons.basepool.BasePoolTestUtils.machines;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.joda.time.DateTime;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.api.types.MachinePool;
+import com.elastisys.scale.cloudpool.api.types.MachineState;
+import com.elastisys.scale.commons.util.time.FrozenTime;
+import com.elastisys.scale.commons.util.time.UtcTime;
+import com.google.common.collect.Lists;
+
+/**
+ * Exercises the {@link PendingPoolChanges} overlay.
+ */
+public class TestPendingPoolChanges {
+
+    /** Time-to-live of pending changes. */
+    private static final long TTL = 60000L;
+
+    private final PendingPoolChanges pendingChanges = new PendingPoolChanges(TTL);
+
+    @Before
+    public void beforeTestMethod() {
+        FrozenTime.setFixed(UtcTime.parse("2017-01-01T12:00:00.000Z"));
+    }
+
+    /**
+     * Started machines should be added to pool observations until they are
+     * listed by an observation.
+     */
+    @Test
+    public void overlayStartedMachines() {
+        Machine i2 = machine("i-2", MachineState.PENDING);
+        this.pendingChanges.started(machines(i2));
+
+        // an observation made before the start does not list i-2
+        MachinePool cached = pool(UtcTime.now().minusSeconds(30), machine("i-1", MachineState.RUNNING));
+        assertThat(ids(this.pendingChanges.apply(cached)), is("[i-1, i-2]"));
+        assertThat(this.pendingChanges.apply(cached).getTimestamp(), is(cached.getTimestamp()));
+        assertThat(this.pendingChanges.size(), is(1));
+
+        // cloud provider catches up
+        MachinePool fresh = pool(UtcTime.now().plusSeconds(10), machine("i-1", MachineState.RUNNING),
+                machine("i-2", MachineState.PENDING));
+        assertThat(ids(this.pendingChanges.apply(fresh)), is("[i-1, i-2]"));
+        assertThat(this.pendingChanges.size(), is(0));
+    }
+
+    /**
+     * Terminated machines should be left out of pool observations that still
+     * list them as allocated.
+     */
+    @Test
+    public void overlayTerminatedMachines() {
+        this.pendingChanges.removed(machine("i-1", MachineState.RUNNING));
+
+        MachinePool cached = pool(UtcTime.now().minusSeconds(30), machine("i-1", MachineState.RUNNING),
+                machine("i-2", MachineState.RUNNING));
+        assertThat(ids(this.pendingChanges.apply(cached)), is("[i-2]"));
+        assertThat(this.pendingChanges.size(), is(1));
+
+        // cloud provider catches up
+        MachinePool fresh = pool(UtcTime.now().plusSeconds(10), machine("i-1", MachineState.TERMINATING),
+                machine("i-2", MachineState.RUNNING));
+        assertThat(ids(this.pendingChanges.apply(fresh)), is("[i-1, i-2]"));
+        assertThat(this.pendingChanges.size(), is(0));
+    }
+
+    /**
+     * Terminating a machine that was started but never listed should cancel
+     * its pending start.
+     */
+    @Test
+    public void terminateStartedMachine() {
+        Machine i2 = machine("i-2", MachineState.PENDING);
+        this.pendingChanges.started(machines(i2));
+        this.pendingChanges.removed(i2);
+
+        MachinePool cached = pool(UtcTime.now(), machine("i-1", MachineState.RUNNING));
+        assertThat(ids(this.pendingChanges.apply(cached)), is("[i-1]"));
+        assertThat(this.pendingChanges.size(), is(0));
+    }
+
+    /**
+     * Changes that are still not reflected by observations made {@code ttl}
+     * after the change should be dropped.
+     */
+    @Test
+    public void expireUnreflectedChanges() {
+        this.pendingChanges.started(machines(machine("i-2", MachineState.PENDING)));
+        this.pendingChanges.removed(machine("i-1", MachineState.RUNNING));
+
+        MachinePool observed = pool(UtcTime.now().plus(TTL), machine("i-1", MachineState.RUNNING));
+        assertThat(ids(this.pendingChanges.apply(observed)), is("[i-2]"));
+        assertThat(this.pendingChanges.size(), is(2));
+
+        observed = pool(UtcTime.now().plus(TTL + 1), machine("i-1", MachineState.RUNNING));
+        assertThat(ids(this.pendingChanges.apply(observed)), is("[i-1]"));
+        assertThat(this.pendingChanges.size(), is(0));
+    }
+
+    /**
+     * Machines in REQUESTED state may carry placeholder ids that never match
+     * the machines eventually acquired, such as the positional ids of AWS Auto
+     * Scaling Group placeholders. Starting them should not be overlaid (which
+     * would count them twice, or hide them behind a placeholder with the same
+     * id), but require a fresh pool observation.
+     */
+    @Test
+    public void doNotOverlayAwsAutoScalingPlaceholders() {
+        this.pendingChanges.started(machines(machine("i-requested1", MachineState.REQUESTED),
+                machine("i-requested2", MachineState.REQUESTED)));
+
+        assertThat(this.pendingChanges.isStale(), is(true));
+        assertThat(this.pendingChanges.size(), is(0));
+        // an earlier observation already lists a placeholder for an older
+        // request with a colliding id
+        MachinePool cached = pool(UtcTime.now().minusSeconds(30), machine("i-1", MachineState.RUNNING),
+                machine("i-requested1", MachineState.REQUESTED));
+        assertThat(ids(this.pendingChanges.apply(cached)), is("[i-1, i-requested1]"));
+        assertThat(this.pendingChanges.isStale(), is(true));
+
+        // the acquired instances are listed under their real ids
+        MachinePool fresh = pool(UtcTime.now(), machine("i-1", MachineState.RUNNING),
+                machine("i-2", MachineState.PENDING), machine("i-3", MachineState.PENDING));
+        assertThat(ids(this.pendingChanges.apply(fresh)), is("[i-1, i-2, i-3]"));
+        assertThat(this.pendingChanges.isStale(), is(false));
+    }
+
+    /**
+     * Placeholders of Google Compute Engine instance group resizes should not
+     * be overlaid either, and neither should their removal.
+     */
+    @Test
+    public void doNotOverlayGoogleComputeEnginePlaceholders() {
+        Machine placeholder = machine("requested-webserver-template-0", MachineState.REQUESTED);
+        this.pendingChanges.started(machines(placeholder));
+        assertThat(this.pendingChanges.size(), is(0));
+        assertThat(this.pendingChanges.isStale(), is(true));
+        this.pendingChanges.apply(pool(UtcTime.now()));
+        assertThat(this.pendingChanges.isStale(), is(false));
+
+        FrozenTime.tick(1);
+        this.pendingChanges.removed(placeholder);
+        assertThat(this.pendingChanges.size(), is(0));
+        assertThat(this.pendingChanges.isStale(), is(true));
+        // an observation made before the removal still lists the placeholder
+        MachinePool cached = pool(UtcTime.now().minusSeconds(1), machine("i-1", MachineState.RUNNING), placeholder);
+        assertThat(ids(this.pendingChanges.apply(cached)), is("[i-1, requested-webserver-template-0]"));
+        assertThat(this.pendingChanges.isStale(), is(true));
+    }
+
+    /**
+     * An invalidated overlay should stay stale until applied to a pool
+     * observation made after the invalidation.
+     */
+    @Test
+    public void invalidate() {
+        assertThat(this.pendingChanges.isStale(), is(false));
+        this.pendingChanges.invalidate();
+        assertThat(this.pendingChanges.isStale(), is(true));
+
+        this.pendingChanges.apply(pool(UtcTime.now().minusSeconds(1)));
+        assertThat(this.pendingChanges.isStale(), is(true));
+
+        this.pendingChanges.apply(pool(UtcTime.now()));
+        assertThat(this.pendingChanges.isStale(), is(false));
+    }
+
+    private static MachinePool pool(DateTime timestamp, Machine... machines) {
+        return new MachinePool(machines(machines), timestamp);
+    }
+
+    private static String ids(MachinePool pool) {
+        return Lists.transform(pool.getMachines(), Machine.toId()).toString();
+    }
+}
@@ -0,0 +1,99 @@
+package com.elastisys.scale.cloudpool.commons.basepool.poolupdater.impl;
+
+import static com.elastisys.scale.cloudpool.commons.basepool.BasePoolTestUtils.machine;
+import static com.elastisys.scale.cloudpool.commons.basepool.BasePoolTestUtils.machines;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.api.types.MachinePool;
+import com.elastisys.scale.cloudpool.api.types.MachineState;
+import com.elastisys.scale.cloudpool.commons.basepool.alerts.AlertPayload;
+import com.elastisys.scale.cloudpool.commons.basepool.poolfetcher.PoolFetcher;
+import com.elastisys.scale.commons.json.JsonUtils;
+import com.elastisys.scale.commons.util.time.UtcTime;
+import com.google.common.collect.Lists;
+import com.google.gson.JsonObject;
+
+/**
+ * Exercises the {@link PoolMembersTag} in its different {@link AlertPayload}
+ * modes.
+ */
+public class TestPoolMembersTag {
+
+    private final PoolFetcher poolFetcherMock = mock(PoolFetcher.class);
+
+    /**
+     * In {@link AlertPayload#FULL} mode, all members should be included in
+     * short format.
+     */
+    @Test
+    public void fullPayload() {
+        List<Machine> members = machines(machine("i-1", MachineState.RUNNING), machine("i-2", MachineState.PENDING));
+        when(this.poolFetcherMock.get()).thenReturn(new MachinePool(members, UtcTime.now()));
+
+        PoolMembersTag tag = new PoolMembersTag(this.poolFetcherMock, AlertPayload.FULL);
+
+        assertThat(tag.get(), is(JsonUtils.toJson(Lists.transform(members, Machine.toShortFormat()))));
+    }
+
+    /**
+     * In {@link AlertPayload#SUMMARY} mode, only member counts should be
+     * included.
+     */
+    @Test
+    public void summaryPayload() {
+        when(this.poolFetcherMock.get()).thenReturn(new MachinePool(machines(machine("i-1", MachineState.RUNNING),
+                machine("i-2", MachineState.RUNNING), machine("i-3", MachineState.PENDING)), UtcTime.now()));
+
+        JsonObject summary = new PoolMembersTag(this.poolFetcherMock, AlertPayload.SUMMARY).get().getAsJsonObject();
+
+        assertThat(summary.get("total").getAsInt(), is(3));
+        JsonObject machineStates = summary.get("machineStates").getAsJsonObject();
+        assertThat(machineStates.get("RUNNING").getAsInt(), is(2));
+        assertThat(machineStates.get("PENDING").getAsInt(), is(1));
+        assertThat(machineStates.has("TERMINATED"), is(false));
+    }
+
+    /**
+     * In {@link AlertPayload#DELTA} mode, each tag should only describe
+     * members that changed since the previous tag.
+     */
+    @Test
+    public void deltaPayload() {
+        when(this.poolFetcherMock.get())
+                .thenReturn(new MachinePool(machines(machine("i-1", MachineState.PENDING)), UtcTime.now()))
+                .thenReturn(new MachinePool(
+                        machines(machine("i-1", MachineState.RUNNING), machine("i-2", MachineState.PENDING)),
+                        UtcTime.now()))
+                .thenReturn(new MachinePool(machines(machine("i-2", MachineState.PENDING)), UtcTime.now()));
+        PoolMembersTag tag = new PoolMembersTag(this.poolFetcherMock, AlertPayload.DELTA);
+
+        // everything is new at first
+        JsonObject delta = tag.get().getAsJsonObject();
+        assertThat(ids(delta, "added"), is("[i-1]"));
+        assertThat(ids(delta, "changed"), is("[]"));
+
+        delta = tag.get().getAsJsonObject();
+        assertThat(ids(delta, "added"), is("[i-2]"));
+        assertThat(ids(delta, "changed"), is("[i-1]"));
+        assertThat(delta.get("removed").getAsJsonArray().size(), is(0));
+
+        delta = tag.get().getAsJsonObject();
+        assertThat(ids(delta, "added"), is("[]"));
+        assertThat(ids(delta, "changed"), is("[]"));
+        assertThat(delta.get("removed").getAsJsonArray().get(0).getAsString(), is("i-1"));
+    }
+
+    private static String ids(JsonObject delta, String key) {
+        List<String> ids = Lists.newArrayList();
+        delta.get(key).getAsJsonArray().forEach(machine -> ids.add(machine.getAsJsonObject().get("id").getAsString()));
+        return ids.toString();
+    }
+}
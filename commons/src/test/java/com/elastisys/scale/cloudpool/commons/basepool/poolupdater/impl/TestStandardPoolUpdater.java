@@ -0,0 +1,437 @@
+package com.elastisys.scale.cloudpool.commons.basepool.poolupdater.impl;
+
+import static com.elastisys.scale.cloudpool.commons.basepool.BasePoolTestUtils.machine;
+import static com.elastisys.scale.cloudpool.commons.basepool.BasePoolTestUtils.machines;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+import com.elastisys.scale.cloudpool.api.types.MachinePool;
+import com.elastisys.scale.cloudpool.api.types.MachineState;
+import com.elastisys.scale.cloudpool.api.types.MembershipStatus;
+import com.elastisys.scale.cloudpool.api.types.ServiceState;
+import com.elastisys.scale.cloudpool.commons.basepool.config.BaseCloudPoolConfig;
+import com.elastisys.scale.cloudpool.commons.basepool.config.PoolUpdateConfig;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriver;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.StartMachinesException;
+import com.elastisys.scale.cloudpool.commons.basepool.poolfetcher.FetchOption;
+import com.elastisys.scale.cloudpool.commons.basepool.poolfetcher.PoolFetcher;
+import com.elastisys.scale.cloudpool.commons.basepool.poolupdater.PoolUpdaterState;
+import com.elastisys.scale.commons.json.types.TimeInterval;
+import com.elastisys.scale.commons.util.time.FrozenTime;
+import com.elastisys.scale.commons.util.time.UtcTime;
+import com.google.common.eventbus.EventBus;
+import com.google.gson.JsonObject;
+
+/**
+ * Exercises the {@link StandardPoolUpdater} with respect to pool updates
+ * triggered by changes to the desired size and pool membership.
+ */
+public class TestStandardPoolUpdater {
+
+    private final CloudPoolDriver driverMock = mock(CloudPoolDriver.class);
+    private final PoolFetcher poolFetcherMock = mock(PoolFetcher.class);
+    private final ScheduledExecutorService executorMock = mock(ScheduledExecutorService.class);
+    private final EventBus eventBusMock = mock(EventBus.class);
+
+    @Before
+    public void beforeTestMethod() {
+        FrozenTime.setFixed(UtcTime.parse("2017-01-01T12:00:00.000Z"));
+        doReturn(mock(ScheduledFuture.class)).when(this.executorMock).scheduleWithFixedDelay(any(Runnable.class),
+                anyLong(), anyLong(), any(TimeUnit.class));
+
+        MachinePool pool = new MachinePool(machines(machine("i-1", MachineState.RUNNING)), UtcTime.now());
+        when(this.poolFetcherMock.get()).thenReturn(pool);
+        when(this.poolFetcherMock.get(FetchOption.LIVE)).thenReturn(pool);
+        when(this.poolFetcherMock.get(FetchOption.FORCE_REFRESH)).thenReturn(pool);
+    }
+
+    /**
+     * Without updateOnChange, changes should only be applied by the periodical
+     * pool update task.
+     */
+    @Test
+    public void noTriggeredUpdatesByDefault() {
+        StandardPoolUpdater updater = new StandardPoolUpdater(this.driverMock, this.poolFetcherMock,
+                this.executorMock, this.eventBusMock, config(null));
+
+        updater.setDesiredSize(2);
+        updater.attachMachine("i-2");
+        updater.detachMachine("i-2", false);
+
+        verify(this.executorMock, never()).submit(any(Runnable.class));
+    }
+
+    /**
+     * With updateOnChange, a burst of changes should trigger a single pool
+     * update. Changes made after that update has started should trigger
+     * another one.
+     */
+    @Test
+    public void coalesceTriggeredUpdates() {
+        StandardPoolUpdater updater = new StandardPoolUpdater(this.driverMock, this.poolFetcherMock,
+                this.executorMock, this.eventBusMock, config(true));
+
+        updater.setDesiredSize(2);
+        updater.setDesiredSize(3);
+        updater.attachMachine("i-2");
+        updater.detachMachine("i-2", true);
+
+        ArgumentCaptor<Runnable> triggeredUpdate = ArgumentCaptor.forClass(Runnable.class);
+        verify(this.executorMock, times(1)).submit(triggeredUpdate.capture());
+
+        // run the triggered update: should apply the latest desired size
+        triggeredUpdate.getValue().run();
+        verify(this.driverMock).startMachines(2);
+
+        // a new change after the update ran should trigger a new update
+        updater.setDesiredSize(4);
+        verify(this.executorMock, times(2)).submit(any(Runnable.class));
+    }
+
+    /**
+     * No updates should be triggered after the {@link StandardPoolUpdater} has
+     * been closed.
+     */
+    @Test
+    public void noTriggeredUpdatesAfterClose() {
+        ScheduledFuture<?> periodicalTask = mock(ScheduledFuture.class);
+        when(periodicalTask.isCancelled()).thenReturn(true);
+        doReturn(periodicalTask).when(this.executorMock).scheduleWithFixedDelay(any(Runnable.class), anyLong(),
+                anyLong(), any(TimeUnit.class));
+        StandardPoolUpdater updater = new StandardPoolUpdater(this.driverMock, this.poolFetcherMock,
+                this.executorMock, this.eventBusMock, config(true));
+        updater.close();
+
+        updater.setDesiredSize(2);
+        verify(this.executorMock, never()).submit(any(Runnable.class));
+    }
+
+    /**
+     * A triggered update rejected by the executor should neither fail the
+     * change that triggered it nor prevent later changes from triggering
+     * updates.
+     */
+    @Test
+    public void triggerAfterRejectedUpdate() {
+        StandardPoolUpdater updater = new StandardPoolUpdater(this.driverMock, this.poolFetcherMock,
+                this.executorMock, this.eventBusMock, config(true));
+        when(this.executorMock.submit(any(Runnable.class))).thenThrow(new RejectedExecutionException("shut down"))
+                .thenReturn(null);
+
+        updater.setDesiredSize(2);
+        assertThat(updater.getState().getDesiredSize().get(), is(2));
+
+        updater.setDesiredSize(3);
+        verify(this.executorMock, times(2)).submit(any(Runnable.class));
+    }
+
+    /**
+     * With planFromCache, pool updates should be planned from the cached pool
+     * overlaid with the machines started by earlier updates, so that machines
+     * not yet listed by the cloud provider do not get started again.
+     */
+    @Test
+    public void planFromCacheWithoutOverProvisioning() {
+        when(this.driverMock.startMachines(2)).thenReturn(
+                machines(machine("i-2", MachineState.PENDING), machine("i-3", MachineState.PENDING)));
+        BaseCloudPoolConfig config = config(null, true);
+        StandardPoolUpdater updater = new StandardPoolUpdater(this.driverMock, this.poolFetcherMock,
+                this.executorMock, this.eventBusMock, config);
+
+        updater.setDesiredSize(3);
+        updater.updateMachinePool(config);
+        // cached pool still only lists i-1
+        updater.updateMachinePool(config);
+
+        verify(this.driverMock, times(1)).startMachines(2);
+        verify(this.driverMock, never()).startMachines(1);
+        verify(this.poolFetcherMock, never()).get(FetchOption.FORCE_REFRESH);
+    }
+
+    /**
+     * With planFromCache, machines started by a driver that returns
+     * placeholder machines (such as the {@code i-requested<n>} machines of an
+     * AWS Auto Scaling Group) cannot be tracked by id, so the next pool update
+     * should be planned from a fresh pool.
+     */
+    @Test
+    public void planFromFreshPoolAfterStartingPlaceholders() {
+        when(this.driverMock.startMachines(2)).thenReturn(machines(machine("i-requested1", MachineState.REQUESTED),
+                machine("i-requested2", MachineState.REQUESTED)));
+        BaseCloudPoolConfig config = config(null, true);
+        StandardPoolUpdater updater = new StandardPoolUpdater(this.driverMock, this.poolFetcherMock,
+                this.executorMock, this.eventBusMock, config);
+
+        updater.setDesiredSize(3);
+        updater.updateMachinePool(config);
+        verify(this.poolFetcherMock, never()).get(FetchOption.FORCE_REFRESH);
+
+        // fresh pool lists the placeholders of the requested machines
+        MachinePool freshPool = new MachinePool(machines(machine("i-1", MachineState.RUNNING),
+                machine("i-requested1", MachineState.REQUESTED), machine("i-requested2", MachineState.REQUESTED)),
+                UtcTime.now().plusSeconds(1));
+        when(this.poolFetcherMock.get(FetchOption.FORCE_REFRESH)).thenReturn(freshPool);
+        updater.updateMachinePool(config);
+
+        verify(this.poolFetcherMock, times(1)).get(FetchOption.FORCE_REFRESH);
+        verify(this.driverMock, times(1)).startMachines(anyInt());
+        assertThat(updater.getState().getLastKnownPool().get().getMachines().size(), is(3));
+    }
+
+    /**
+     * With planFromCache, a start request that failed part-way through may
+     * have started unknown machines, so the next pool update should be
+     * planned from a fresh pool.
+     */
+    @Test
+    public void planFromFreshPoolAfterFailedStart() {
+        when(this.driverMock.startMachines(2)).thenThrow(new StartMachinesException(2,
+                machines(machine("i-2", MachineState.REQUESTED)), new RuntimeException("quota exceeded")));
+        BaseCloudPoolConfig config = config(null, true);
+        StandardPoolUpdater updater = new StandardPoolUpdater(this.driverMock, this.poolFetcherMock,
+                this.executorMock, this.eventBusMock, config);
+
+        updater.setDesiredSize(3);
+        try {
+            updater.updateMachinePool(config);
+            fail("expected to fail");
+        } catch (StartMachinesException e) {
+            // expected
+        }
+        verify(this.poolFetcherMock, never()).get(FetchOption.FORCE_REFRESH);
+
+        // fresh pool lists the machine that did get started
+        MachinePool freshPool = new MachinePool(
+                machines(machine("i-1", MachineState.RUNNING), machine("i-2", MachineState.PENDING)),
+                UtcTime.now().plusSeconds(1));
+        when(this.poolFetcherMock.get(FetchOption.FORCE_REFRESH)).thenReturn(freshPool);
+        updater.updateMachinePool(config);
+
+        verify(this.poolFetcherMock, times(1)).get(FetchOption.FORCE_REFRESH);
+        verify(this.driverMock).startMachines(1);
+    }
+
+    /**
+     * The desired size and state snapshot should be readable, and the desired
+     * size settable, while a pool update is in progress.
+     */
+    @Test(timeout = 10000)
+    public void readStateDuringPoolUpdate() throws Exception {
+        CountDownLatch startCalled = new CountDownLatch(1);
+        CountDownLatch startMayReturn = new CountDownLatch(1);
+        when(this.driverMock.startMachines(1)).thenAnswer(invocation -> {
+            startCalled.countDown();
+            startMayReturn.await();
+            return machines(machine("i-2", MachineState.REQUESTED));
+        });
+        BaseCloudPoolConfig config = config(null);
+        StandardPoolUpdater updater = new StandardPoolUpdater(this.driverMock, this.poolFetcherMock,
+                this.executorMock, this.eventBusMock, config);
+        updater.setDesiredSize(2);
+
+        ExecutorService updateThread = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> update = updateThread.submit(() -> updater.resize(config));
+            startCalled.await();
+
+            // pool update is blocked in a cloud call
+            assertThat(updater.getState().isUpdating(), is(true));
+            assertThat(updater.getDesiredSize(), is(2));
+            updater.setDesiredSize(3);
+            assertThat(updater.getState().getDesiredSize().get(), is(3));
+
+            startMayReturn.countDown();
+            update.get();
+        } finally {
+            updateThread.shutdownNow();
+        }
+
+        PoolUpdaterState state = updater.getState();
+        assertThat(state.isUpdating(), is(false));
+        assertThat(state.getLastUpdate().isPresent(), is(true));
+        assertThat(state.getLastUpdateError().isPresent(), is(false));
+        assertThat(state.getLastKnownPool().get(), is(this.poolFetcherMock.get()));
+        assertThat(state.getDesiredSize().get(), is(3));
+    }
+
+    /**
+     * Concurrent (for example periodical and triggered) pool updates must not
+     * plan from the same pool observation. A pool update that starts while
+     * another one is starting machines should see those machines and not
+     * start them again.
+     */
+    @Test(timeout = 10000)
+    public void concurrentPoolUpdatesStartMachinesOnce() throws Exception {
+        CountDownLatch startCalled = new CountDownLatch(1);
+        CountDownLatch startMayReturn = new CountDownLatch(1);
+        when(this.driverMock.startMachines(2)).thenAnswer(invocation -> {
+            startCalled.countDown();
+            startMayReturn.await();
+            return machines(machine("i-2", MachineState.PENDING), machine("i-3", MachineState.PENDING));
+        });
+        // the cached pool does not list the started machines yet
+        BaseCloudPoolConfig config = config(true, true);
+        StandardPoolUpdater updater = new StandardPoolUpdater(this.driverMock, this.poolFetcherMock,
+                this.executorMock, this.eventBusMock, config);
+        updater.setDesiredSize(3);
+
+        Thread firstUpdate = new Thread(() -> updater.resize(config));
+        Thread secondUpdate = new Thread(() -> updater.resize(config));
+        firstUpdate.start();
+        startCalled.await();
+        secondUpdate.start();
+        // wait for the second update to be held up by the first one
+        while (secondUpdate.getState() != Thread.State.BLOCKED) {
+            Thread.sleep(10);
+        }
+        startMayReturn.countDown();
+        firstUpdate.join();
+        secondUpdate.join();
+
+        verify(this.driverMock, times(1)).startMachines(anyInt());
+        assertThat(updater.getState().getLastKnownPool().get().getMachines().size(), is(3));
+    }
+
+    /**
+     * Operations on pool members should wait for the pool to have been
+     * fetched from the cloud API, rather than act on a pool restored from a
+     * previous run (on warm start).
+     */
+    @Test
+    public void memberOperationsAwaitLivePool() {
+        StandardPoolUpdater updater = new StandardPoolUpdater(this.driverMock, this.poolFetcherMock,
+                this.executorMock, this.eventBusMock, config(null));
+        updater.setDesiredSize(1);
+        InOrder inOrder = inOrder(this.poolFetcherMock, this.driverMock);
+
+        updater.terminateMachine("i-1", false);
+        inOrder.verify(this.poolFetcherMock).get(FetchOption.LIVE);
+        inOrder.verify(this.driverMock).terminateMachine("i-1");
+
+        updater.detachMachine("i-1", false);
+        inOrder.verify(this.poolFetcherMock).get(FetchOption.LIVE);
+        inOrder.verify(this.driverMock).detachMachine("i-1");
+
+        updater.attachMachine("i-1");
+        inOrder.verify(this.poolFetcherMock).get(FetchOption.LIVE);
+        inOrder.verify(this.driverMock).attachMachine("i-1");
+
+        updater.setServiceState("i-1", ServiceState.IN_SERVICE);
+        inOrder.verify(this.poolFetcherMock).get(FetchOption.LIVE);
+        inOrder.verify(this.driverMock).setServiceState("i-1", ServiceState.IN_SERVICE);
+
+        updater.setMembershipStatus("i-1", MembershipStatus.blessed());
+        inOrder.verify(this.poolFetcherMock).get(FetchOption.LIVE);
+        inOrder.verify(this.driverMock).setMembershipStatus("i-1", MembershipStatus.blessed());
+
+        verify(this.poolFetcherMock, never()).get();
+    }
+
+    /**
+     * A reconfiguration should keep the desired size and only reschedule the
+     * periodical pool update task if the update interval changed.
+     */
+    @Test
+    public void reconfigure() {
+        ScheduledFuture<?> periodicalTask = mock(ScheduledFuture.class);
+        doReturn(periodicalTask).when(this.executorMock).scheduleWithFixedDelay(any(Runnable.class), anyLong(),
+                anyLong(), any(TimeUnit.class));
+        StandardPoolUpdater updater = new StandardPoolUpdater(this.driverMock, this.poolFetcherMock,
+                this.executorMock, this.eventBusMock, config(null));
+        updater.setDesiredSize(3);
+
+        // update interval unchanged
+        BaseCloudPoolConfig newConfig = config(true);
+        updater.reconfigure(newConfig);
+        assertThat(updater.config(), is(newConfig));
+        verify(this.executorMock, times(1)).scheduleWithFixedDelay(any(Runnable.class), anyLong(), anyLong(),
+                any(TimeUnit.class));
+        verify(periodicalTask, never()).cancel(anyBoolean());
+
+        // update interval changed
+        newConfig = config(new TimeInterval(2L, TimeUnit.MINUTES), true, null);
+        updater.reconfigure(newConfig);
+        assertThat(updater.config(), is(newConfig));
+        verify(this.executorMock).scheduleWithFixedDelay(any(Runnable.class), eq(2L), eq(2L), eq(TimeUnit.MINUTES));
+        verify(periodicalTask).cancel(false);
+
+        assertThat(updater.getState().getDesiredSize().get(), is(3));
+    }
+
+    /**
+     * A reconfiguration should not replace the configuration while a pool
+     * update is in progress, so that the update does not mix settings of the
+     * old and new configuration.
+     */
+    @Test(timeout = 10000)
+    public void reconfigureWaitsForOngoingPoolUpdate() throws Exception {
+        CountDownLatch startCalled = new CountDownLatch(1);
+        CountDownLatch startMayReturn = new CountDownLatch(1);
+        when(this.driverMock.startMachines(1)).thenAnswer(invocation -> {
+            startCalled.countDown();
+            startMayReturn.await();
+            return machines(machine("i-2", MachineState.PENDING));
+        });
+        BaseCloudPoolConfig oldConfig = config(null);
+        StandardPoolUpdater updater = new StandardPoolUpdater(this.driverMock, this.poolFetcherMock,
+                this.executorMock, this.eventBusMock, oldConfig);
+        updater.setDesiredSize(2);
+
+        Thread update = new Thread(() -> updater.resize(oldConfig));
+        update.start();
+        startCalled.await();
+        BaseCloudPoolConfig newConfig = config(null, true);
+        Thread reconfigure = new Thread(() -> updater.reconfigure(newConfig));
+        reconfigure.start();
+        // wait for the reconfiguration to be held up by the pool update
+        while (reconfigure.getState() != Thread.State.BLOCKED) {
+            Thread.sleep(10);
+        }
+        assertThat(updater.config(), is(oldConfig));
+
+        startMayReturn.countDown();
+        update.join();
+        reconfigure.join();
+        assertThat(updater.config(), is(newConfig));
+    }
+
+    private BaseCloudPoolConfig config(Boolean updateOnChange) {
+        return config(updateOnChange, null);
+    }
+
+    private BaseCloudPoolConfig config(Boolean updateOnChange, Boolean planFromCache) {
+        return config(new TimeInterval(1L, TimeUnit.MINUTES), updateOnChange, planFromCache);
+    }
+
+    private BaseCloudPoolConfig config(TimeInterval updateInterval, Boolean updateOnChange, Boolean planFromCache) {
+        PoolUpdateConfig poolUpdate = new PoolUpdateConfig(updateInterval, updateOnChange, null, null, planFromCache);
+        return new BaseCloudPoolConfig("pool", new JsonObject(), new JsonObject(), null, null, null, poolUpdate);
+    }
+}
@@ -424,6 +424,31 @@ public class TestResizePlanner {
         assertFalse(any(terminationMarked(plan), in(termq.getQueuedInstances())));
     }
 
+    /**
+     * Termination-marked machines are recognized by id. A machine whose
+     * observed state has changed since it was added to the termination queue
+     * (for example, gone from pending to running) must not be selected for
+     * termination again.
+     */
+    @Test
+    public void scaleDownWithTerminationQueuedMachineThatChangedState() {
+        Machine machine1 = makeMachine(1, nowOffset(-1800));
+        Machine machine2 = makeMachine(2, nowOffset(-900));
+        Machine machine3 = makeMachine(3, nowOffset(-120));
+        // machine1 as it looked when it was termination-marked
+        Machine machine1WhenQueued = makeMachine(1, nowOffset(-1800), MachineState.PENDING);
+
+        MachinePool pool = makePool(UtcTime.now(), asList(machine1, machine2, machine3));
+        TerminationQueue termq = new TerminationQueue();
+        termq.add(new ScheduledTermination(machine1WhenQueued, nowOffset(1500)));
+        ResizePlanner planner = new ResizePlanner(pool, termq, OLDEST_INSTANCE, INSTANCE_HOUR_MARGIN);
+        assertThat(planner.getNetSize(), is(2));
+        // 2 -> 0
+        ResizePlan plan = planner.calculateResizePlan(0);
+        assertThat(plan.getToTerminate().size(), is(2));
+        assertThat(terminationMarked(plan), is(asList(machine2, machine3)));
+    }
+
     /**
      * Plan a scale-down when there are instances in the pool in terminal state
      * and verify that machines in a terminal state are never selected for
@@ -5,6 +5,7 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import org.junit.Before;
@@ -67,4 +68,32 @@ public class TestVictimSelector extends AbstractScaledownTest {
         assertThat(victims.get(0), is(instance1));
     }
 
+    @Test
+    public void onMultiCandidateSet() {
+        Machine instance1 = instance("i-1", "2012-06-01T12:00:00");
+        Machine instance2 = instance("i-2", "2012-06-01T10:00:00");
+        Machine instance3 = instance("i-3", "2012-06-01T11:00:00");
+        List<Machine> set = asList(instance1, instance2, instance3);
+        assertThat(this.victimSelector.selectVictims(set, 2), is(asList(instance2, instance3)));
+    }
+
+    /**
+     * A {@link VictimSelectionStrategy} that doesn't provide its own
+     * {@link VictimSelectionStrategy#selectVictims(java.util.Collection, long)}
+     * should get its victims picked one at a time.
+     */
+    @Test
+    public void withSingleVictimStrategy() {
+        // picks the candidate with the lexicographically smallest id
+        VictimSelectionStrategy smallestIdFirst = candidates -> Collections.min(candidates,
+                (machine1, machine2) -> machine1.getId().compareTo(machine2.getId()));
+        VictimSelector selector = new VictimSelector(smallestIdFirst);
+
+        Machine instance1 = instance("i-1", "2012-06-01T12:00:00");
+        Machine instance2 = instance("i-2", "2012-06-01T10:00:00");
+        Machine instance3 = instance("i-3", "2012-06-01T11:00:00");
+        List<Machine> set = asList(instance3, instance1, instance2);
+        assertThat(selector.selectVictims(set, 2), is(asList(instance1, instance2)));
+        assertThat(selector.selectVictims(set, 0), is(Collections.<Machine> emptyList()));
+    }
 }
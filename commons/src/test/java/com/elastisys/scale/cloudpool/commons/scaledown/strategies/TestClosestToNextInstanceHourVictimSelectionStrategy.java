@@ -7,15 +7,20 @@ import static org.junit.Assert.assertThat;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
+import org.joda.time.DateTime;
 import org.junit.Test;
 
 import com.elastisys.scale.cloudpool.api.types.Machine;
 import com.elastisys.scale.cloudpool.commons.scaledown.AbstractScaledownTest;
 import com.elastisys.scale.cloudpool.commons.scaledown.VictimSelectionStrategy;
 import com.elastisys.scale.cloudpool.commons.scaledown.strategies.ClosestToInstanceHourVictimSelectionStrategy;
+import com.elastisys.scale.cloudpool.commons.scaledown.strategies.ClosestToInstanceHourVictimSelectionStrategy.ClosestToInstanceHourOrder;
 import com.elastisys.scale.commons.util.time.FrozenTime;
 import com.elastisys.scale.commons.util.time.UtcTime;
+import com.google.common.base.Function;
+import com.google.common.collect.Lists;
 
 public class TestClosestToNextInstanceHourVictimSelectionStrategy extends AbstractScaledownTest {
 
@@ -64,4 +69,77 @@ public class TestClosestToNextInstanceHourVictimSelectionStrategy extends Abstra
         assertThat(this.strategy.selectVictim(set), is(instance3));
     }
 
+    @Test
+    public void selectVictims() {
+        FrozenTime.setFixed(UtcTime.parse("2012-06-01T10:00:00Z"));
+
+        // 45 minutes left of instance hour
+        Machine instance1 = instance("i-1", "2012-06-01T09:45:00Z");
+        // 30 minutes left of instance hour
+        Machine instance2 = instance("i-2", "2012-06-01T09:30:00Z");
+        // 15 minutes left of instance hour
+        Machine instance3 = instance("i-3", "2012-06-01T09:15:00Z");
+        // 50 minutes left of instance hour
+        Machine instance4 = instance("i-4", "2012-06-01T07:50:00Z");
+
+        List<Machine> set = asList(instance1, instance2, instance3, instance4);
+        assertThat(this.strategy.selectVictims(set, 1), is(asList(instance3)));
+        assertThat(this.strategy.selectVictims(set, 3), is(asList(instance3, instance2, instance1)));
+
+        // candidate order should not matter
+        set = asList(instance4, instance1, instance2, instance3);
+        assertThat(this.strategy.selectVictims(set, 4), is(asList(instance3, instance2, instance1, instance4)));
+    }
+
+    /**
+     * Candidates with the same remaining instance hour time should be
+     * selected in candidate order.
+     */
+    @Test
+    public void selectVictimsWithEqualRemainingTime() {
+        FrozenTime.setFixed(UtcTime.parse("2012-06-01T10:00:00Z"));
+
+        Machine instance1 = instance("i-1", "2012-06-01T09:45:00Z");
+        Machine instance2 = instance("i-2", "2012-06-01T08:45:00Z");
+        Machine instance3 = instance("i-3", "2012-06-01T09:30:00Z");
+
+        assertThat(this.strategy.selectVictims(asList(instance1, instance2, instance3), 3),
+                is(asList(instance3, instance1, instance2)));
+        assertThat(this.strategy.selectVictims(asList(instance2, instance1, instance3), 3),
+                is(asList(instance3, instance2, instance1)));
+    }
+
+    /**
+     * On a fixed clock, victims should be ordered as by the
+     * {@link ClosestToInstanceHourOrder} comparator.
+     */
+    @Test
+    public void selectVictimsInSameOrderAsComparator() {
+        DateTime now = UtcTime.parse("2012-06-01T10:00:00.123Z");
+        FrozenTime.setFixed(now);
+
+        Random random = new Random(42);
+        List<Machine> candidates = Lists.newArrayList();
+        for (int i = 0; i < 500; i++) {
+            DateTime launchTime = now.minusMillis(random.nextInt(48 * 3600 * 1000));
+            candidates.add(instance("i-" + i, launchTime.toString()));
+        }
+
+        List<Machine> expected = Machine.sort(candidates,
+                ClosestToInstanceHourVictimSelectionStrategy.INSTANCE.new ClosestToInstanceHourOrder());
+        assertThat(this.strategy.selectVictims(candidates, candidates.size()), is(expected));
+        assertThat(this.strategy.selectVictim(candidates), is(expected.get(0)));
+    }
+
+    @Test
+    public void remainingInstanceHourTime() {
+        Function<Machine, Long> remainingInstanceHourTime = new Machine.RemainingInstanceHourTime();
+        Machine machine = instance("i-1", "2012-06-01T09:15:30.500Z");
+        for (String now : asList("2012-06-01T09:15:30.500Z", "2012-06-01T09:15:31Z", "2012-06-01T10:00:00Z",
+                "2012-06-01T10:15:30.499Z", "2012-06-01T10:15:30.500Z", "2012-06-03T23:59:59.999Z")) {
+            FrozenTime.setFixed(UtcTime.parse(now));
+            assertThat(ClosestToInstanceHourVictimSelectionStrategy.remainingInstanceHourTime(machine,
+                    UtcTime.now().getMillis()), is(remainingInstanceHourTime.apply(machine)));
+        }
+    }
 }
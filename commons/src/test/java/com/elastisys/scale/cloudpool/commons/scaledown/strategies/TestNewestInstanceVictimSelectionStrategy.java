@@ -63,4 +63,22 @@ public class TestNewestInstanceVictimSelectionStrategy extends AbstractScaledown
         set = asList(instance3, instance1, instance2);
         assertThat(this.strategy.selectVictim(set), is(instance1));
     }
+
+    @Test
+    public void selectVictims() {
+        FrozenTime.setFixed(UtcTime.parse("2012-06-01T10:00:00"));
+
+        Machine instance1 = instance("i-1", "2012-06-01T09:45:00");
+        Machine instance2 = instance("i-2", "2012-06-01T09:30:00");
+        Machine instance3 = instance("i-3", "2012-06-01T09:15:00");
+        Machine instance4 = instance("i-4", "2012-06-01T09:50:00");
+
+        List<Machine> set = asList(instance1, instance2, instance3, instance4);
+        assertThat(this.strategy.selectVictims(set, 1), is(asList(instance4)));
+        assertThat(this.strategy.selectVictims(set, 3), is(asList(instance4, instance1, instance2)));
+
+        // candidate order should not matter
+        set = asList(instance3, instance2, instance4, instance1);
+        assertThat(this.strategy.selectVictims(set, 2), is(asList(instance4, instance1)));
+    }
 }
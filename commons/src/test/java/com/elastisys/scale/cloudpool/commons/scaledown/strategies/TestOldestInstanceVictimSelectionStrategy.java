@@ -6,6 +6,7 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import org.junit.Test;
@@ -63,4 +64,30 @@ public class TestOldestInstanceVictimSelectionStrategy extends AbstractScaledown
         set = asList(instance3, instance1, instance2);
         assertThat(this.strategy.selectVictim(set), is(instance3));
     }
+
+    @Test
+    public void selectVictims() {
+        FrozenTime.setFixed(UtcTime.parse("2012-06-01T10:00:00"));
+
+        Machine instance1 = instance("i-1", "2012-06-01T09:45:00");
+        Machine instance2 = instance("i-2", "2012-06-01T09:30:00");
+        Machine instance3 = instance("i-3", "2012-06-01T09:15:00");
+        Machine instance4 = instance("i-4", "2012-06-01T09:50:00");
+
+        List<Machine> set = asList(instance1, instance2, instance3, instance4);
+        assertThat(this.strategy.selectVictims(set, 0), is(Collections.<Machine> emptyList()));
+        assertThat(this.strategy.selectVictims(set, 1), is(asList(instance3)));
+        assertThat(this.strategy.selectVictims(set, 3), is(asList(instance3, instance2, instance1)));
+        assertThat(this.strategy.selectVictims(set, 4), is(asList(instance3, instance2, instance1, instance4)));
+
+        // candidate order should not matter
+        set = asList(instance4, instance1, instance3, instance2);
+        assertThat(this.strategy.selectVictims(set, 2), is(asList(instance3, instance2)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void selectMoreVictimsThanCandidates() {
+        List<Machine> set = Arrays.asList(instance("i-1", "2012-06-01T12:00:00"));
+        this.strategy.selectVictims(set, 2);
+    }
 }
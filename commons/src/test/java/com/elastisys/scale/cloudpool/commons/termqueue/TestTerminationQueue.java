@@ -5,7 +5,9 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -14,7 +16,9 @@ import com.elastisys.scale.cloudpool.api.types.Machine;
 import com.elastisys.scale.cloudpool.api.types.MachineState;
 import com.elastisys.scale.commons.util.time.FrozenTime;
 import com.elastisys.scale.commons.util.time.UtcTime;
+import com.google.common.base.Optional;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 
 /**
  * Verifies the behavior of the {@link TerminationQueue}.
@@ -151,24 +155,109 @@ public class TestTerminationQueue {
                 is(instanceList(termination1, termination4, termination3, termination2)));
 
         // filter that keeps all instances
-        this.queue.filter(Arrays.asList(termination1.getInstance(), termination2.getInstance(),
-                termination3.getInstance(), termination4.getInstance()));
+        this.queue.filter(Sets.newHashSet("i-1", "i-2", "i-3", "i-4"));
         assertThat(this.queue.size(), is(4));
         assertThat(this.queue.getQueuedInstances(),
                 is(instanceList(termination1, termination4, termination3, termination2)));
 
         // filter that keeps all but i-2
-        this.queue.filter(
-                Arrays.asList(termination1.getInstance(), termination3.getInstance(), termination4.getInstance()));
+        this.queue.filter(Sets.newHashSet("i-1", "i-3", "i-4"));
         assertThat(this.queue.size(), is(3));
         assertThat(this.queue.getQueuedInstances(), is(instanceList(termination1, termination4, termination3)));
+        assertThat(this.queue.contains("i-2"), is(false));
 
         // filter that only keeps i-4
-        this.queue.filter(Arrays.asList(termination4.getInstance()));
+        this.queue.filter(Sets.newHashSet("i-4"));
         assertThat(this.queue.size(), is(1));
         assertThat(this.queue.getQueuedInstances(), is(instanceList(termination4)));
     }
 
+    /**
+     * Queued machines are identified by id. A machine whose attributes have
+     * changed since it was queued must be kept in the queue.
+     */
+    @Test
+    public void filterOnMachineWithChangedAttributes() {
+        ScheduledTermination termination1 = scheduledTermination("i-1", "2013-06-01T12:00:00Z");
+        this.queue.add(termination1);
+
+        Machine changedMachine = Machine.builder().id("i-1").machineState(MachineState.RUNNING)
+                .cloudProvider("AWS-EC2").region("us-east-1").machineSize("m1.small").launchTime(UtcTime.now())
+                .publicIp("1.2.3.4").build();
+        this.queue.filter(Sets.newHashSet(changedMachine.getId()));
+        assertThat(this.queue.size(), is(1));
+        assertThat(this.queue.getQueuedInstances(), is(instanceList(termination1)));
+    }
+
+    /**
+     * Terminations with equal termination times are kept in the order they
+     * were added.
+     */
+    @Test
+    public void orderOfTerminationsWithSameTerminationTime() {
+        ScheduledTermination termination1 = scheduledTermination("i-1", "2013-06-01T12:00:00Z");
+        ScheduledTermination termination2 = scheduledTermination("i-2", "2013-06-01T12:00:00Z");
+        ScheduledTermination termination3 = scheduledTermination("i-3", "2013-06-01T11:00:00Z");
+        ScheduledTermination termination4 = scheduledTermination("i-4", "2013-06-01T12:00:00Z");
+        this.queue.addAll(Arrays.asList(termination1, termination2, termination3, termination4));
+        assertThat(this.queue.size(), is(4));
+        assertThat(this.queue.getQueuedInstances(),
+                is(instanceList(termination3, termination1, termination2, termination4)));
+
+        assertThat(this.queue.spare(2), is(asList(termination3, termination1)));
+        assertThat(this.queue.getQueuedInstances(), is(instanceList(termination2, termination4)));
+    }
+
+    /**
+     * Adding a termination for an already queued machine replaces its
+     * scheduled termination.
+     */
+    @Test
+    public void addAlreadyQueuedMachine() {
+        ScheduledTermination termination1 = scheduledTermination("i-1", "2013-06-01T12:00:00Z");
+        ScheduledTermination termination2 = scheduledTermination("i-2", "2013-06-01T13:00:00Z");
+        this.queue.addAll(Arrays.asList(termination1, termination2));
+
+        ScheduledTermination rescheduled = scheduledTermination("i-1", "2013-06-01T14:00:00Z");
+        this.queue.add(rescheduled);
+        assertThat(this.queue.size(), is(2));
+        assertThat(this.queue.getQueuedInstances(), is(instanceList(termination2, rescheduled)));
+        assertThat(this.queue.spare(2), is(asList(termination2, rescheduled)));
+    }
+
+    @Test
+    public void remove() {
+        ScheduledTermination termination1 = scheduledTermination("i-1", "2013-06-01T12:00:00Z");
+        ScheduledTermination termination2 = scheduledTermination("i-2", "2013-06-01T13:00:00Z");
+        ScheduledTermination termination3 = scheduledTermination("i-3", "2013-06-01T12:30:00Z");
+        this.queue.addAll(Arrays.asList(termination1, termination2, termination3));
+        assertThat(this.queue.contains("i-3"), is(true));
+
+        assertThat(this.queue.remove("i-3"), is(Optional.of(termination3)));
+        assertThat(this.queue.size(), is(2));
+        assertThat(this.queue.contains("i-3"), is(false));
+        assertThat(this.queue.getQueuedInstances(), is(instanceList(termination1, termination2)));
+
+        // removing a machine that isn't queued is a no-op
+        assertThat(this.queue.remove("i-3"), is(Optional.<ScheduledTermination> absent()));
+        assertThat(this.queue.size(), is(2));
+    }
+
+    @Test
+    public void getQueuedInstanceIds() {
+        assertThat(this.queue.getQueuedInstanceIds(), is(Collections.<String> emptySet()));
+
+        ScheduledTermination termination1 = scheduledTermination("i-1", "2013-06-01T12:00:00Z");
+        ScheduledTermination termination2 = scheduledTermination("i-2", "2013-06-01T13:00:00Z");
+        ScheduledTermination termination3 = scheduledTermination("i-3", "2013-06-01T12:30:00Z");
+        this.queue.addAll(Arrays.asList(termination1, termination2, termination3));
+        assertThat(this.queue.getQueuedInstanceIds(), is((Set<String>) Sets.newHashSet("i-1", "i-2", "i-3")));
+
+        // returned set is a snapshot
+        this.queue.spare(1);
+        assertThat(this.queue.getQueuedInstanceIds(), is((Set<String>) Sets.newHashSet("i-2", "i-3")));
+    }
+
     private ScheduledTermination scheduledTermination(String withInstanceId, String time) {
         return new ScheduledTermination(instance(withInstanceId), UtcTime.parse(time));
     }
@@ -5,8 +5,10 @@ import static com.google.common.base.Preconditions.checkState;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -21,7 +23,9 @@ import com.elastisys.scale.cloudpool.api.types.ServiceState;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriver;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriverException;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.DriverConfig;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.PoolMembership;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.StartMachinesException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.TerminateMachinesException;
 import com.elastisys.scale.cloudpool.google.commons.api.CloudApiSettings;
 import com.elastisys.scale.cloudpool.google.commons.api.compute.ComputeClient;
 import com.elastisys.scale.cloudpool.google.commons.api.compute.InstanceGroupClient;
@@ -66,6 +70,9 @@ public class GoogleComputeEnginePoolDriver implements CloudPoolDriver {
     /** Protect critical sections from concurrent access. */
     private final Object lock = new Object();
 
+    /** A view of the most recently observed pool members. */
+    private volatile PoolMembership poolMembership = PoolMembership.NONE;
+
     public GoogleComputeEnginePoolDriver(ComputeClient client) {
         this.client = client;
     }
@@ -134,11 +141,16 @@ public class GoogleComputeEnginePoolDriver implements CloudPoolDriver {
         }
 
         InstanceGroupClient instanceGroupApi = instanceGroupClient();
-        InstanceGroupManager instanceGroup = instanceGroupApi.getInstanceGroup();
-        int targetSize = instanceGroup.getTargetSize() + count;
-        LOG.info("starting {} new instances in instance group '{}': changing targetSize from {} to {}", count,
-                instanceGroup.getName(), instanceGroup.getTargetSize(), targetSize);
-        instanceGroupApi.resize(targetSize);
+        InstanceGroupManager instanceGroup;
+        // target size is read and updated under lock, since concurrent
+        // start/terminate calls may otherwise overwrite each others' resizes
+        synchronized (this.lock) {
+            instanceGroup = instanceGroupApi.getInstanceGroup();
+            int targetSize = instanceGroup.getTargetSize() + count;
+            LOG.info("starting {} new instances in instance group '{}': changing targetSize from {} to {}", count,
+                    instanceGroup.getName(), instanceGroup.getTargetSize(), targetSize);
+            instanceGroupApi.resize(targetSize);
+        }
 
         InstanceTemplate instanceTemplate = this.client.getInstanceTemplate(instanceGroup.getInstanceTemplate());
 
@@ -154,16 +166,92 @@ public class GoogleComputeEnginePoolDriver implements CloudPoolDriver {
             // we were asked to terminate a pseudo instance for a requested, but
             // not yet acquired, instance. just decrement the targetSize of the
             // group.
-            int targetSize = instanceGroupClient().getInstanceGroup().getTargetSize();
-            int decrementedSize = targetSize - 1;
-            LOG.info("termination request for psuedo instance {}, reducing target size from {} to {}", instanceUrl,
-                    targetSize, decrementedSize);
-            instanceGroupClient().resize(decrementedSize);
+            synchronized (this.lock) {
+                int targetSize = instanceGroupClient().getInstanceGroup().getTargetSize();
+                int decrementedSize = targetSize - 1;
+                LOG.info("termination request for psuedo instance {}, reducing target size from {} to {}",
+                        instanceUrl, targetSize, decrementedSize);
+                instanceGroupClient().resize(decrementedSize);
+            }
         } else {
             ensureGroupMember(instanceUrl);
             LOG.info("removing instance {} from instance group {} ...", UrlUtils.basename(instanceUrl),
                     provisioningTemplate().getInstanceGroup());
             instanceGroupClient().deleteInstances(Arrays.asList(instanceUrl));
+            this.poolMembership.evict(instanceUrl);
+        }
+    }
+
+    /**
+     * Resizes the instance group once for all pseudo instances, and verifies
+     * group membership of the remaining instances with a single listing (only
+     * needed for instances not found in the most recently observed pool)
+     * before deleting them with a single call.
+     */
+    @Override
+    public void terminateMachines(List<String> instanceUrls) throws IllegalStateException, TerminateMachinesException {
+        ensureConfigured();
+
+        List<String> pseudoInstanceUrls = instanceUrls.stream()
+                .filter(url -> UrlUtils.basename(url).startsWith(REQUESTED_INSTANCE_PREFIX))
+                .collect(Collectors.toList());
+        List<String> memberCandidateUrls = instanceUrls.stream()
+                .filter(url -> !UrlUtils.basename(url).startsWith(REQUESTED_INSTANCE_PREFIX))
+                .collect(Collectors.toList());
+
+        Map<String, Throwable> errors = new HashMap<>();
+        List<String> terminated = new ArrayList<>();
+        if (!pseudoInstanceUrls.isEmpty()) {
+            try {
+                synchronized (this.lock) {
+                    int targetSize = instanceGroupClient().getInstanceGroup().getTargetSize();
+                    int decrementedSize = Math.max(0, targetSize - pseudoInstanceUrls.size());
+                    LOG.info("termination request for {} psuedo instance(s), reducing target size from {} to {}",
+                            pseudoInstanceUrls.size(), targetSize, decrementedSize);
+                    instanceGroupClient().resize(decrementedSize);
+                }
+                terminated.addAll(pseudoInstanceUrls);
+            } catch (Exception e) {
+                CloudPoolDriverException error = new CloudPoolDriverException(String
+                        .format("failed to terminate psuedo instances %s: %s", pseudoInstanceUrls, e.getMessage()), e);
+                pseudoInstanceUrls.forEach(url -> errors.put(url, error));
+            }
+        }
+
+        if (!memberCandidateUrls.isEmpty()) {
+            List<String> memberUrls = new ArrayList<>();
+            try {
+                Set<String> groupMemberUrls = memberCandidateUrls.stream()
+                        .filter(url -> this.poolMembership.getMember(url).isPresent()).collect(Collectors.toSet());
+                if (groupMemberUrls.size() < memberCandidateUrls.size()) {
+                    instanceGroupClient().listInstances().stream().map(ManagedInstance::getInstance)
+                            .forEach(groupMemberUrls::add);
+                }
+                for (String instanceUrl : memberCandidateUrls) {
+                    if (groupMemberUrls.contains(instanceUrl)) {
+                        memberUrls.add(instanceUrl);
+                    } else {
+                        errors.put(instanceUrl, new NotFoundException(String.format(
+                                "instance %s does not exist in instance group %s", instanceUrl,
+                                provisioningTemplate().getInstanceGroup())));
+                    }
+                }
+                if (!memberUrls.isEmpty()) {
+                    LOG.info("removing {} instance(s) from instance group {} ...", memberUrls.size(),
+                            provisioningTemplate().getInstanceGroup());
+                    instanceGroupClient().deleteInstances(memberUrls);
+                    terminated.addAll(memberUrls);
+                    memberUrls.forEach(this.poolMembership::evict);
+                }
+            } catch (Exception e) {
+                CloudPoolDriverException error = new CloudPoolDriverException(
+                        String.format("failed to terminate instances %s: %s", memberUrls, e.getMessage()), e);
+                memberCandidateUrls.forEach(url -> errors.putIfAbsent(url, error));
+            }
+        }
+
+        if (!errors.isEmpty()) {
+            throw new TerminateMachinesException(terminated, errors);
         }
     }
 
@@ -184,6 +272,7 @@ public class GoogleComputeEnginePoolDriver implements CloudPoolDriver {
         LOG.info("detaching instance {} from instance group {} ...", UrlUtils.basename(instanceUrl),
                 provisioningTemplate().getInstanceGroup());
         instanceGroupClient().abandonInstances(Arrays.asList(instanceUrl));
+        this.poolMembership.evict(instanceUrl);
     }
 
     @Override
@@ -222,6 +311,11 @@ public class GoogleComputeEnginePoolDriver implements CloudPoolDriver {
         return config().getPoolName();
     }
 
+    @Override
+    public void setPoolMembership(PoolMembership poolMembership) {
+        this.poolMembership = poolMembership;
+    }
+
     /**
      * Creates a number of placeholder {@link Machine}s in {@code REQUESTED}
      * machine state to represent instances that have been requested but not yet
@@ -258,13 +352,18 @@ public class GoogleComputeEnginePoolDriver implements CloudPoolDriver {
     /**
      * Returns a particular group member, or throws a {@link NotFoundException}
      * if the instance either does not exist, or it is not found to be a member
-     * of the instance group.
+     * of the instance group. Instances found in the most recently observed
+     * pool are fetched directly, without listing the instance group members.
      *
      * @param instanceUrl
      * @return
      * @throws NotFoundException
      */
     private Instance getGroupMember(String instanceUrl) throws NotFoundException {
+        if (this.poolMembership.getMember(instanceUrl).isPresent()) {
+            return this.client.getInstance(instanceUrl);
+        }
+
         InstanceGroupClient instanceGroupClient = instanceGroupClient();
         InstanceGroupManager instanceGroup = instanceGroupClient.getInstanceGroup();
         List<ManagedInstance> members = instanceGroupClient.listInstances();
@@ -1,17 +1,21 @@
 package com.elastisys.scale.cloudpool.google.compute.driver;
 
+import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.isA;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.argThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -29,6 +33,8 @@ import com.elastisys.scale.cloudpool.api.types.ServiceState;
 import com.elastisys.scale.cloudpool.commons.basepool.BaseCloudPool;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriverException;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.DriverConfig;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.PoolMembership;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.TerminateMachinesException;
 import com.elastisys.scale.cloudpool.google.commons.api.CloudApiSettings;
 import com.elastisys.scale.cloudpool.google.commons.api.compute.ComputeClient;
 import com.elastisys.scale.cloudpool.google.commons.api.compute.InstanceGroupClient;
@@ -41,6 +47,7 @@ import com.elastisys.scale.commons.json.JsonUtils;
 import com.elastisys.scale.commons.net.url.UrlUtils;
 import com.google.api.services.compute.model.Instance;
 import com.google.api.services.compute.model.Metadata;
+import com.google.common.base.Optional;
 
 /**
  * Exercises the {@link GoogleComputeEnginePoolDriver} against a mocked single-zone instance
@@ -254,6 +261,38 @@ public class TestSingleZoneGcePoolDriverOperation {
         verify(this.instanceGroupClientMock, times(0)).deleteInstances(Arrays.asList(pseudoInstanceUrl));
     }
 
+    /**
+     * Terminating several machines should resize the group once for all
+     * pseudo instances and delete all member instances with a single call.
+     * Non-members should be reported as not found.
+     */
+    @Test
+    public void terminateMany() {
+        // one outstanding instance: target size: 3, actual size: 2
+        int targetSize = 3;
+        int runningInstances = 2;
+        FakeSingleZoneInstanceGroup simulatedGroup = new FakeSingleZoneInstanceGroup(POOL_DRIVER_CONFIG, targetSize,
+                runningInstances);
+        setUpMockedInstanceGroup(simulatedGroup);
+
+        List<String> machineIds = this.driver.listMachines().stream().map(Machine::getId)
+                .collect(Collectors.toList());
+        String nonMemberUrl = String.format("https://www.googleapis.com/compute/v1/projects/%s/zones/%s/instances/%s",
+                PROJECT, ZONE, "mysql-1");
+        List<String> toTerminate = Arrays.asList(machineIds.get(0), machineIds.get(2), nonMemberUrl);
+        try {
+            this.driver.terminateMachines(toTerminate);
+            fail("expected to fail");
+        } catch (TerminateMachinesException e) {
+            assertThat(e.getTerminatedMachines().size(), is(2));
+            assertThat(e.getTerminationErrors().keySet(), is(Collections.singleton(nonMemberUrl)));
+            assertThat(e.getTerminationErrors().get(nonMemberUrl), instanceOf(NotFoundException.class));
+        }
+
+        verify(this.instanceGroupClientMock).resize(2);
+        verify(this.instanceGroupClientMock).deleteInstances(Arrays.asList(machineIds.get(0)));
+    }
+
     /**
      * {@link GoogleComputeEnginePoolDriver#detachMachine(String)} should call through to
      * abandon instance in instance group API.
@@ -322,6 +361,39 @@ public class TestSingleZoneGcePoolDriverOperation {
         verify(this.gceClientMock).setMetadata(instanceUrl, expectedMetadata);
     }
 
+    /**
+     * Instances found in the most recently observed pool should be recognized
+     * as group members without listing the instance group members.
+     */
+    @Test
+    public void verifyMembershipAgainstObservedPool() {
+        int targetSize = 2;
+        int runningInstances = 2;
+        FakeSingleZoneInstanceGroup simulatedGroup = new FakeSingleZoneInstanceGroup(POOL_DRIVER_CONFIG, targetSize,
+                runningInstances);
+        setUpMockedInstanceGroup(simulatedGroup);
+        String instanceUrl = simulatedGroup.instances().get(0).getSelfLink();
+        PoolMembership poolMembership = mock(PoolMembership.class);
+        when(poolMembership.getMember(anyString())).thenReturn(Optional.absent());
+        when(poolMembership.getMember(instanceUrl))
+                .thenReturn(Optional.of(new InstanceToMachine().apply(simulatedGroup.instances().get(0))));
+        this.driver.setPoolMembership(poolMembership);
+
+        this.driver.setServiceState(instanceUrl, ServiceState.IN_SERVICE);
+        this.driver.detachMachine(instanceUrl);
+
+        verify(this.instanceGroupClientMock, never()).listInstances();
+        verify(this.instanceGroupClientMock).abandonInstances(Arrays.asList(instanceUrl));
+        verify(poolMembership).evict(instanceUrl);
+
+        // on a miss, instance group members must be listed
+        String otherInstanceUrl = simulatedGroup.instances().get(1).getSelfLink();
+        this.driver.terminateMachines(Arrays.asList(otherInstanceUrl));
+        verify(this.instanceGroupClientMock).listInstances();
+        verify(this.instanceGroupClientMock).deleteInstances(Arrays.asList(otherInstanceUrl));
+        verify(poolMembership).evict(otherInstanceUrl);
+    }
+
     /**
      * It should not be possible to set service state for a non-group member.
      */
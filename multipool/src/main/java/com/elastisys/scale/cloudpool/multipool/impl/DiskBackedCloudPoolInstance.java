@@ -17,6 +17,8 @@ import com.elastisys.scale.cloudpool.api.CloudPoolException;
 import com.elastisys.scale.cloudpool.api.NotConfiguredException;
 import com.elastisys.scale.cloudpool.api.NotFoundException;
 import com.elastisys.scale.cloudpool.api.NotStartedException;
+import com.elastisys.scale.cloudpool.api.metrics.MetricsRegistry;
+import com.elastisys.scale.cloudpool.api.metrics.MetricsSource;
 import com.elastisys.scale.cloudpool.api.types.CloudPoolStatus;
 import com.elastisys.scale.cloudpool.api.types.MachinePool;
 import com.elastisys.scale.cloudpool.api.types.MembershipStatus;
@@ -31,7 +33,7 @@ import com.google.gson.JsonObject;
  * A {@link CloudPoolInstance} whose state is saved to disk whenever the
  * configuration/start state changes.
  */
-class DiskBackedCloudPoolInstance implements CloudPoolInstance {
+class DiskBackedCloudPoolInstance implements CloudPoolInstance, MetricsSource {
     private static final Logger LOG = LoggerFactory.getLogger(DiskBackedCloudPoolInstance.class);
 
     /**
@@ -49,6 +51,11 @@ class DiskBackedCloudPoolInstance implements CloudPoolInstance {
     private final CloudPool cloudPool;
     /** Directory where the {@link CloudPool} state will be saved. */
     private final File stateDir;
+    /**
+     * Holds the metrics of the {@link CloudPool}. Empty unless the
+     * {@link CloudPool} is a {@link MetricsSource}.
+     */
+    private final MetricsRegistry metrics;
 
     /**
      * Creates a {@link DiskBackedCloudPoolInstance} from a given
@@ -68,6 +75,7 @@ class DiskBackedCloudPoolInstance implements CloudPoolInstance {
         checkArgument(stateDir != null, "stateDir cannot be null");
         this.cloudPool = cloudPool;
         this.stateDir = stateDir;
+        this.metrics = MetricsSource.registryOf(cloudPool);
         Files.createDirectories(stateDir.toPath());
     }
 
@@ -76,6 +84,11 @@ class DiskBackedCloudPoolInstance implements CloudPoolInstance {
         return this.stateDir.getName();
     }
 
+    @Override
+    public MetricsRegistry getMetricsRegistry() {
+        return this.metrics;
+    }
+
     private void save() throws CloudPoolSaveException {
         try {
             Optional<JsonObject> config = this.cloudPool.getConfiguration();
@@ -154,4 +154,23 @@ public interface MultiCloudPoolRestApi {
     @Path("/cloudpools/{cloudPoolName}/{machine}/membershipStatus")
     Response setMembershipStatus(@PathParam("cloudPoolName") String cloudPoolName,
             @PathParam("machine") String machineId, SetMembershipStatusRequest request);
+
+    //
+    // Server operations
+    //
+
+    /**
+     * Retrieves the runtime metrics of the server and of all {@link CloudPool}
+     * instances in the collection in the
+     * <a href="https://prometheus.io/docs/instrumenting/exposition_formats/">
+     * Prometheus text format</a>. The metrics of each {@link CloudPool}
+     * instance are labeled with the name of the instance.
+     *
+     * @return On success: a {@code 200} response message holding the metrics
+     *         in Prometheus text format.
+     */
+    @GET
+    @Path("/metrics")
+    @Produces(MediaType.TEXT_PLAIN)
+    Response getMetrics();
 }
@@ -20,6 +20,10 @@ import com.elastisys.scale.cloudpool.api.CloudPoolException;
 import com.elastisys.scale.cloudpool.api.NotConfiguredException;
 import com.elastisys.scale.cloudpool.api.NotFoundException;
 import com.elastisys.scale.cloudpool.api.NotStartedException;
+import com.elastisys.scale.cloudpool.api.metrics.MetricFamily;
+import com.elastisys.scale.cloudpool.api.metrics.MetricsRegistry;
+import com.elastisys.scale.cloudpool.api.metrics.MetricsSource;
+import com.elastisys.scale.cloudpool.api.metrics.PrometheusTextFormat;
 import com.elastisys.scale.cloudpool.api.restapi.types.DetachMachineRequest;
 import com.elastisys.scale.cloudpool.api.restapi.types.SetDesiredSizeRequest;
 import com.elastisys.scale.cloudpool.api.restapi.types.SetMembershipStatusRequest;
@@ -33,9 +37,16 @@ import com.google.common.base.Optional;
 import com.google.gson.JsonObject;
 
 @Path("/")
-public class MultiCloudPoolRestApiImpl implements MultiCloudPoolRestApi {
+public class MultiCloudPoolRestApiImpl implements MultiCloudPoolRestApi, MetricsSource {
     private static final Logger LOG = LoggerFactory.getLogger(MultiCloudPoolRestApiImpl.class);
 
+    /**
+     * Label that holds the instance name of metrics collected from a
+     * {@link CloudPoolInstance}. Not named {@code instance}, since Prometheus
+     * attaches a target label by that name on scrape.
+     */
+    public static final String CLOUDPOOL_LABEL = "cloudpool";
+
     /**
      * Request information that gets injected by the JAX-RS runtime for each
      * method invocation. As such, its use is thread-safe.
@@ -45,9 +56,13 @@ public class MultiCloudPoolRestApiImpl implements MultiCloudPoolRestApi {
 
     private final MultiCloudPool multiCloudPool;
 
+    /** Holds server-wide metrics, such as REST API request latencies. */
+    private final MetricsRegistry metrics;
+
     public MultiCloudPoolRestApiImpl(MultiCloudPool multiCloudPool) {
         checkArgument(multiCloudPool != null, "multiCloudPool cannot be null");
         this.multiCloudPool = multiCloudPool;
+        this.metrics = new MetricsRegistry();
     }
 
     @Override
@@ -192,6 +207,36 @@ public class MultiCloudPoolRestApiImpl implements MultiCloudPoolRestApi {
         });
     }
 
+    @Override
+    public Response getMetrics() {
+        return handleRequest(() -> {
+            List<MetricFamily> families = new ArrayList<>(this.metrics.collect());
+            for (String instanceName : getMultiCloudPool().list()) {
+                CloudPoolInstance instance;
+                try {
+                    instance = getMultiCloudPool().get(instanceName);
+                } catch (NotFoundException e) {
+                    // deleted while collecting
+                    continue;
+                }
+                for (MetricFamily family : MetricsSource.registryOf(instance).collect()) {
+                    families.add(family.withLabel(CLOUDPOOL_LABEL, instanceName));
+                }
+            }
+            return Response.ok(PrometheusTextFormat.format(families), PrometheusTextFormat.CONTENT_TYPE).build();
+        });
+    }
+
+    /**
+     * Returns the {@link MetricsRegistry} that holds server-wide metrics.
+     *
+     * @return The server-wide {@link MetricsRegistry}.
+     */
+    @Override
+    public MetricsRegistry getMetricsRegistry() {
+        return this.metrics;
+    }
+
     private MultiCloudPool getMultiCloudPool() {
         return this.multiCloudPool;
     }
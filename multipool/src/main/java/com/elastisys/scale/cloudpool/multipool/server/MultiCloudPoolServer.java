@@ -7,6 +7,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.elastisys.scale.cloudpool.api.CloudPool;
+import com.elastisys.scale.cloudpool.api.metrics.RequestMetricsFilter;
 import com.elastisys.scale.cloudpool.multipool.api.MultiCloudPool;
 import com.elastisys.scale.cloudpool.multipool.logging.InstanceLogContextFilter;
 import com.elastisys.scale.cloudpool.multipool.restapi.restapi.impl.MultiCloudPoolRestApiImpl;
@@ -108,6 +109,7 @@ public class MultiCloudPoolServer {
         ResourceConfig appConfig = ResourceConfig.forApplication(application);
         appConfig.register(new InstanceLogContextFilter());
         appConfig.register(new RequestLogFilter());
+        appConfig.register(new RequestMetricsFilter(restApiHandler.getMetricsRegistry()));
 
         // build server
         ServletContainer restApiServlet = new ServletContainer(appConfig);
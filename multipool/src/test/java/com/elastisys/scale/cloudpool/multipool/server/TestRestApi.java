@@ -2,6 +2,7 @@ package com.elastisys.scale.cloudpool.multipool.server;
 
 import static java.util.Arrays.asList;
 import static org.hamcrest.CoreMatchers.any;
+import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.argThat;
@@ -10,6 +11,7 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
 
 import java.nio.file.Paths;
 import java.util.List;
@@ -31,6 +33,8 @@ import com.elastisys.scale.cloudpool.api.CloudPoolException;
 import com.elastisys.scale.cloudpool.api.NotConfiguredException;
 import com.elastisys.scale.cloudpool.api.NotFoundException;
 import com.elastisys.scale.cloudpool.api.NotStartedException;
+import com.elastisys.scale.cloudpool.api.metrics.MetricsRegistry;
+import com.elastisys.scale.cloudpool.api.metrics.MetricsSource;
 import com.elastisys.scale.cloudpool.api.restapi.types.DetachMachineRequest;
 import com.elastisys.scale.cloudpool.api.restapi.types.SetDesiredSizeRequest;
 import com.elastisys.scale.cloudpool.api.restapi.types.SetMembershipStatusRequest;
@@ -1226,6 +1230,39 @@ public class TestRestApi {
      *            The resource path on the remote server.
      * @return
      */
+    /**
+     * {@code GET /metrics} should publish the metrics of every
+     * {@link CloudPoolInstance}, labeled with the instance name.
+     */
+    @Test
+    public void getMetrics() {
+        when(multiCloudPool.list()).thenReturn(asList("pool1", "pool2", "pool3"));
+        CloudPoolInstance pool1 = meteredInstance(1);
+        CloudPoolInstance pool2 = meteredInstance(2);
+        when(multiCloudPool.get("pool1")).thenReturn(pool1);
+        when(multiCloudPool.get("pool2")).thenReturn(pool2);
+        // deleted after being listed
+        when(multiCloudPool.get("pool3")).thenThrow(new NotFoundException("no such instance"));
+
+        Client client = RestClients.httpNoAuth();
+        Response response = client.target(url("/metrics")).request().get();
+
+        assertThat(response.getStatus(), is(Status.OK.getStatusCode()));
+        String metrics = response.readEntity(String.class);
+        assertThat(metrics, containsString("# TYPE cloudpool_driver_call_errors_total counter\n"
+                + "cloudpool_driver_call_errors_total{cloudpool=\"pool1\"} 1\n"
+                + "cloudpool_driver_call_errors_total{cloudpool=\"pool2\"} 2\n"));
+    }
+
+    private static CloudPoolInstance meteredInstance(int driverErrors) {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("cloudpool_driver_call_errors_total", "Failed cloud pool driver calls.")
+                .increment(driverErrors);
+        CloudPoolInstance instance = mock(CloudPoolInstance.class, withSettings().extraInterfaces(MetricsSource.class));
+        when(((MetricsSource) instance).getMetricsRegistry()).thenReturn(registry);
+        return instance;
+    }
+
     private static String url(String path) {
         return String.format("http://localhost:%d%s", httpPort, path);
     }
@@ -21,6 +21,7 @@ import com.elastisys.scale.cloudpool.commons.basepool.BaseCloudPool;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriver;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriverException;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.DriverConfig;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.PoolMembership;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.StartMachinesException;
 import com.elastisys.scale.cloudpool.openstack.driver.client.OpenstackClient;
 import com.elastisys.scale.cloudpool.openstack.driver.config.CloudApiSettings;
@@ -49,6 +50,9 @@ public class OpenStackPoolDriver implements CloudPoolDriver {
     /** Lock to prevent concurrent access to critical sections. */
     private final Object lock = new Object();
 
+    /** A view of the most recently observed pool members. */
+    private volatile PoolMembership poolMembership = PoolMembership.NONE;
+
     /**
      * The name of the cloud provider that the cloud pool operates against. For
      * example, {@code RackSpace}. This will only be used to set the
@@ -134,10 +138,11 @@ public class OpenStackPoolDriver implements CloudPoolDriver {
         checkState(isConfigured(), "attempt to use unconfigured driver");
 
         // verify that machine exists in group
-        getMachineOrFail(machineId);
+        verifyPoolMember(machineId);
 
         try {
             this.client.terminateServer(machineId);
+            this.poolMembership.evict(machineId);
         } catch (Exception e) {
             Throwables.propagateIfInstanceOf(e, CloudPoolDriverException.class);
             String message = format("failed to terminate server \"%s\": %s", machineId, e.getMessage());
@@ -166,11 +171,12 @@ public class OpenStackPoolDriver implements CloudPoolDriver {
         checkState(isConfigured(), "attempt to use unconfigured driver");
 
         // verify that machine exists in group
-        getMachineOrFail(machineId);
+        verifyPoolMember(machineId);
 
         try {
             List<String> tagKeys = Arrays.asList(Constants.CLOUD_POOL_TAG);
             this.client.untagServer(machineId, tagKeys);
+            this.poolMembership.evict(machineId);
         } catch (Exception e) {
             Throwables.propagateIfInstanceOf(e, CloudPoolDriverException.class);
             String message = format("failed to detach server \"%s\": %s", machineId, e.getMessage());
@@ -183,7 +189,7 @@ public class OpenStackPoolDriver implements CloudPoolDriver {
         checkState(isConfigured(), "attempt to use unconfigured driver");
 
         // verify that machine exists in group
-        getMachineOrFail(machineId);
+        verifyPoolMember(machineId);
 
         try {
             LOG.debug("service state {} reported for {}", serviceState.name(), machineId);
@@ -203,7 +209,7 @@ public class OpenStackPoolDriver implements CloudPoolDriver {
         checkState(isConfigured(), "attempt to use unconfigured driver");
 
         // verify that machine exists in group
-        getMachineOrFail(machineId);
+        verifyPoolMember(machineId);
 
         try {
             LOG.debug("membership status {} reported for {}", membershipStatus, machineId);
@@ -225,24 +231,40 @@ public class OpenStackPoolDriver implements CloudPoolDriver {
         return config().getPoolName();
     }
 
+    @Override
+    public void setPoolMembership(PoolMembership poolMembership) {
+        this.poolMembership = poolMembership;
+    }
+
     /**
-     * Retrieves a particular member machine from the cloud pool or throws an
-     * exception if it could not be found.
+     * Verifies that a particular machine is a member of the cloud pool or
+     * throws an exception if it could not be found. Membership is looked up in
+     * the most recently observed pool and, on a miss, by fetching that
+     * particular server and checking its cloud pool tag.
      *
      * @param machineId
      *            The id of the machine of interest.
-     * @return
      * @throws NotFoundException
+     * @throws CloudPoolDriverException
      */
-    private Machine getMachineOrFail(String machineId) throws NotFoundException {
-        List<Machine> machines = listMachines();
-        for (Machine machine : machines) {
-            if (machine.getId().equals(machineId)) {
-                return machine;
-            }
+    private void verifyPoolMember(String machineId) throws NotFoundException, CloudPoolDriverException {
+        if (this.poolMembership.getMember(machineId).isPresent()) {
+            return;
         }
 
-        throw new NotFoundException(String.format("no machine with id '%s' found in cloud pool", machineId));
+        Server server;
+        try {
+            server = this.client.getServer(machineId);
+        } catch (Exception e) {
+            Throwables.propagateIfInstanceOf(e, NotFoundException.class);
+            Throwables.propagateIfInstanceOf(e, CloudPoolDriverException.class);
+            String message = format("failed to get server \"%s\": %s", machineId, e.getMessage());
+            throw new CloudPoolDriverException(message, e);
+        }
+        Map<String, String> metadata = server.getMetadata();
+        if (metadata == null || !getPoolName().equals(metadata.get(Constants.CLOUD_POOL_TAG))) {
+            throw new NotFoundException(String.format("no machine with id '%s' found in cloud pool", machineId));
+        }
     }
 
     /**
@@ -0,0 +1,192 @@
+package com.elastisys.scale.cloudpool.openstack.driver;
+
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openstack4j.model.compute.Server;
+
+import com.elastisys.scale.cloudpool.api.NotFoundException;
+import com.elastisys.scale.cloudpool.api.types.CloudProviders;
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.api.types.MachineState;
+import com.elastisys.scale.cloudpool.api.types.ServiceState;
+import com.elastisys.scale.cloudpool.commons.basepool.config.BaseCloudPoolConfig;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriverException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.DriverConfig;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.PoolMembership;
+import com.elastisys.scale.cloudpool.openstack.driver.client.OpenstackClient;
+import com.elastisys.scale.commons.json.JsonUtils;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Verifies the operational behavior of the {@link OpenStackPoolDriver} with
+ * respect to verifying the pool membership of single machines.
+ */
+public class TestOpenStackPoolDriverOperation {
+
+    private static final String POOL_NAME = "my-scaling-pool";
+
+    private OpenstackClient mockClient = mock(OpenstackClient.class);
+    private PoolMembership poolMembership = mock(PoolMembership.class);
+    /** Object under test. */
+    private OpenStackPoolDriver driver;
+
+    @Before
+    public void onSetup() {
+        this.driver = new OpenStackPoolDriver(this.mockClient, CloudProviders.OPENSTACK);
+        this.driver.configure(driverConfig(loadCloudPoolConfig("config/openstack-pool-config-authv2.json")));
+
+        when(this.poolMembership.getMember(anyString())).thenReturn(Optional.absent());
+        this.driver.setPoolMembership(this.poolMembership);
+    }
+
+    /**
+     * Pool membership of a single machine should be verified against the most
+     * recently observed pool, without any calls to the cloud API.
+     */
+    @Test
+    public void verifyMembershipAgainstObservedPool() {
+        when(this.poolMembership.getMember("i-1")).thenReturn(Optional.of(machine("i-1")));
+
+        this.driver.setServiceState("i-1", ServiceState.IN_SERVICE);
+
+        verify(this.mockClient, never()).getServer(anyString());
+        verify(this.mockClient).tagServer("i-1", ImmutableMap.of(Constants.SERVICE_STATE_TAG, "IN_SERVICE"));
+    }
+
+    /**
+     * On a miss in the most recently observed pool, pool membership of a
+     * single machine should be verified by fetching that particular server
+     * and checking its cloud pool tag.
+     */
+    @Test
+    public void verifyMembershipOnObservedPoolMiss() {
+        Server server = server("i-1", POOL_NAME);
+        when(this.mockClient.getServer("i-1")).thenReturn(server);
+
+        this.driver.setServiceState("i-1", ServiceState.IN_SERVICE);
+
+        verify(this.mockClient).getServer("i-1");
+        verify(this.mockClient).tagServer("i-1", ImmutableMap.of(Constants.SERVICE_STATE_TAG, "IN_SERVICE"));
+    }
+
+    /**
+     * A server that is not tagged with the name of the pool is not a pool
+     * member and should not be touched.
+     */
+    @Test
+    public void verifyMembershipOfNonMember() {
+        Server otherPoolServer = server("i-2", "other-pool");
+        Server untaggedServer = server("i-3", null);
+        when(this.mockClient.getServer("i-2")).thenReturn(otherPoolServer);
+        when(this.mockClient.getServer("i-3")).thenReturn(untaggedServer);
+
+        for (String machineId : Arrays.asList("i-2", "i-3")) {
+            try {
+                this.driver.terminateMachine(machineId);
+                fail("expected to fail");
+            } catch (NotFoundException e) {
+                // expected
+            }
+        }
+        verify(this.mockClient, never()).terminateServer(anyString());
+        verify(this.poolMembership, never()).evict(anyString());
+    }
+
+    /**
+     * A server that does not exist should be reported as not found.
+     */
+    @Test(expected = NotFoundException.class)
+    public void verifyMembershipOfNonExistingServer() {
+        when(this.mockClient.getServer("i-4")).thenThrow(new NotFoundException("no such server"));
+
+        this.driver.detachMachine("i-4");
+    }
+
+    /**
+     * A failure to fetch a server should be reported as a driver error.
+     */
+    @Test(expected = CloudPoolDriverException.class)
+    public void verifyMembershipWhenServerCannotBeFetched() {
+        when(this.mockClient.getServer("i-1")).thenThrow(new IllegalStateException("connection refused"));
+
+        this.driver.setServiceState("i-1", ServiceState.IN_SERVICE);
+    }
+
+    /**
+     * Terminated and detached machines should be evicted from the most
+     * recently observed pool, so that they are no longer regarded as members.
+     */
+    @Test
+    public void evictTerminatedAndDetachedMachines() {
+        when(this.poolMembership.getMember("i-1")).thenReturn(Optional.of(machine("i-1")));
+        when(this.poolMembership.getMember("i-2")).thenReturn(Optional.of(machine("i-2")));
+
+        this.driver.terminateMachine("i-1");
+        verify(this.mockClient).terminateServer("i-1");
+        verify(this.poolMembership).evict("i-1");
+
+        this.driver.detachMachine("i-2");
+        verify(this.mockClient).untagServer("i-2", Arrays.asList(Constants.CLOUD_POOL_TAG));
+        verify(this.poolMembership).evict("i-2");
+    }
+
+    /**
+     * A machine that could not be terminated should not be evicted.
+     */
+    @Test
+    public void doNotEvictOnFailedTermination() {
+        when(this.poolMembership.getMember("i-1")).thenReturn(Optional.of(machine("i-1")));
+        doThrow(new IllegalStateException("api error")).when(this.mockClient).terminateServer("i-1");
+
+        try {
+            this.driver.terminateMachine("i-1");
+            fail("expected to fail");
+        } catch (CloudPoolDriverException e) {
+            // expected
+        }
+        verify(this.poolMembership, never()).evict("i-1");
+    }
+
+    private static Machine machine(String id) {
+        return Machine.builder().id(id).machineState(MachineState.RUNNING).cloudProvider(CloudProviders.OPENSTACK)
+                .region("RegionTwo").machineSize("m1.small").build();
+    }
+
+    /**
+     * Creates a mock {@link Server}, optionally tagged with the name of a
+     * cloud pool.
+     *
+     * @param id
+     * @param cloudPool
+     *            The cloud pool tag. May be <code>null</code>.
+     * @return The {@link Server}.
+     */
+    private static Server server(String id, String cloudPool) {
+        Map<String, String> metadata = cloudPool == null ? ImmutableMap.of()
+                : ImmutableMap.of(Constants.CLOUD_POOL_TAG, cloudPool);
+        Server server = mock(Server.class);
+        when(server.getId()).thenReturn(id);
+        when(server.getMetadata()).thenReturn(metadata);
+        return server;
+    }
+
+    private BaseCloudPoolConfig loadCloudPoolConfig(String resourcePath) {
+        return JsonUtils.toObject(JsonUtils.parseJsonResource(resourcePath), BaseCloudPoolConfig.class);
+    }
+
+    private DriverConfig driverConfig(BaseCloudPoolConfig config) {
+        return new DriverConfig(config.getName(), config.getCloudApiSettings(), config.getProvisioningTemplate());
+    }
+}